@@ -0,0 +1,68 @@
+package de.purnama.code_review.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * BenchmarkCorpus
+ *
+ * Fixed inputs for the benchmarks, loaded from {@code src/jmh/resources/corpus}. The corpus is
+ * checked in rather than read from the live sources, so results of different commits measure
+ * the same input.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+public final class BenchmarkCorpus {
+
+    /**
+     * A large Java service class, about 30 KB
+     */
+    public static final String JAVA_SOURCE = "CodeReviewService.java.txt";
+
+    /**
+     * A Confluence guideline page in storage format with headings, macros, tables and lists
+     */
+    public static final String CONFLUENCE_PAGE = "confluence-page.xml";
+
+    /**
+     * The review of one file as the model returns it, with tables, code blocks and lists
+     */
+    public static final String REVIEW = "review.md";
+
+    private BenchmarkCorpus() {
+    }
+
+    /**
+     * A corpus file
+     *
+     * @param name Name of the file in the corpus directory
+     * @return The UTF-8 content
+     */
+    public static String load(String name) {
+        try (InputStream in = BenchmarkCorpus.class.getResourceAsStream("/corpus/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Corpus file not found: " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A corpus file repeated, to measure how a hot path scales with the input size
+     *
+     * @param name   Name of the file in the corpus directory
+     * @param copies Number of copies, one after the other
+     * @return The concatenated content
+     */
+    public static String repeat(String name, int copies) {
+        String content = load(name);
+        if (!content.endsWith("\n")) {
+            content = content + "\n";
+        }
+        return content.repeat(Math.max(1, copies));
+    }
+}
@@ -0,0 +1,87 @@
+package de.purnama.code_review.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JmhResultComparison
+ *
+ * Compares two JMH JSON result files, e.g. of the base branch and of a change, benchmark by
+ * benchmark and parameter set by parameter set. A benchmark regressed if its score got worse
+ * by more than the threshold: slower in the time modes, fewer operations in throughput mode.
+ * Exits with status 1 if any benchmark regressed, so it can fail a build.
+ * <p>
+ * Usage: {@code JmhResultComparison <baseline.json> <current.json> [thresholdPercent]}
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+public final class JmhResultComparison {
+
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10.0;
+
+    private record Score(String mode, double value, String unit) {
+    }
+
+    private JmhResultComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: JmhResultComparison <baseline.json> <current.json> [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 && !args[2].isBlank() ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+
+        Map<String, Score> baseline = read(new File(args[0]));
+        Map<String, Score> current = read(new File(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-80s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score now = entry.getValue();
+            Score before = baseline.get(entry.getKey());
+            if (before == null || before.value() == 0) {
+                System.out.printf("%-80s %14s %14.3f %9s%n", entry.getKey(), "-", now.value(), "new");
+                continue;
+            }
+
+            double change = (now.value() - before.value()) / before.value() * 100;
+            // In throughput mode a higher score is better, in all time modes a lower one
+            double worse = "thrpt".equals(now.mode()) ? -change : change;
+            boolean regressed = worse > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-80s %14.3f %14.3f %+8.1f%% %s%s%n", entry.getKey(), before.value(), now.value(),
+                    change, now.unit(), regressed ? "  REGRESSION" : "");
+        }
+
+        System.out.printf("%d of %d benchmarks regressed by more than %.1f%%%n", regressions, current.size(), threshold);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Score> read(File file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            JsonNode params = result.path("params");
+            if (params.isObject()) {
+                Map<String, String> sorted = new TreeMap<>();
+                params.fields().forEachRemaining(param -> sorted.put(param.getKey(), param.getValue().asText()));
+                key.append(' ').append(sorted);
+            }
+            JsonNode metric = result.path("primaryMetric");
+            scores.put(key.toString(), new Score(result.path("mode").asText(),
+                    metric.path("score").asDouble(), metric.path("scoreUnit").asText()));
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,87 @@
+package de.purnama.code_review.service;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.purnama.code_review.benchmark.BenchmarkCorpus;
+
+/**
+ * ChunkingBenchmark
+ *
+ * Splitting large source files into review chunks, both as a list
+ * ({@code splitCodeIntoChunks}) and as the boundary walk that streams chunks to the model
+ * ({@code calculateChunkEndPosition}, which uses {@code findIdealChunkBoundary}). The private
+ * methods are called through method handles on a service without collaborators; chunking
+ * does not use any.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkingBenchmark {
+
+    /**
+     * Copies of the Java corpus file; 1 is about 30 KB, 8 about 250 KB
+     */
+    @Param({"1", "8"})
+    public int copies;
+
+    /**
+     * Chunk size in characters; 5000 is the default of code.review.file-chunk-size
+     */
+    @Param({"1000", "5000"})
+    public int chunkSize;
+
+    private String code;
+    private MethodHandle splitCodeIntoChunks;
+    private MethodHandle calculateChunkEndPosition;
+
+    @Setup
+    public void setUp() throws Throwable {
+        code = BenchmarkCorpus.repeat(BenchmarkCorpus.JAVA_SOURCE, copies);
+
+        Constructor<?> constructor = CodeReviewService.class.getConstructors()[0];
+        Object service = constructor.newInstance(new Object[constructor.getParameterCount()]);
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(CodeReviewService.class, MethodHandles.lookup());
+        splitCodeIntoChunks = lookup.findVirtual(CodeReviewService.class, "splitCodeIntoChunks",
+                MethodType.methodType(List.class, String.class, int.class)).bindTo(service);
+        calculateChunkEndPosition = lookup.findVirtual(CodeReviewService.class, "calculateChunkEndPosition",
+                MethodType.methodType(int.class, String.class, int.class, int.class)).bindTo(service);
+    }
+
+    @Benchmark
+    public List<?> splitCodeIntoChunks() throws Throwable {
+        return (List<?>) splitCodeIntoChunks.invoke(code, chunkSize);
+    }
+
+    @Benchmark
+    public int walkChunkBoundaries() throws Throwable {
+        int chunks = 0;
+        int start = 0;
+        while (start < code.length()) {
+            start = (int) calculateChunkEndPosition.invokeExact(code, start, chunkSize);
+            chunks++;
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,64 @@
+package de.purnama.code_review.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.purnama.code_review.benchmark.BenchmarkCorpus;
+
+/**
+ * MarkdownBenchmark
+ *
+ * Rendering long reviews to HTML, as one document and section by section the way project
+ * reviews are built.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarkdownBenchmark {
+
+    /**
+     * Number of reviewed files in the review
+     */
+    @Param({"1", "32"})
+    public int files;
+
+    private final MarkdownConverter markdownConverter = new MarkdownConverter();
+    private String fileReview;
+    private String review;
+
+    @Setup
+    public void setUp() {
+        fileReview = BenchmarkCorpus.load(BenchmarkCorpus.REVIEW);
+        review = BenchmarkCorpus.repeat(BenchmarkCorpus.REVIEW, files);
+    }
+
+    @Benchmark
+    public String convertMarkdownToHtml() {
+        return markdownConverter.convertMarkdownToHtml(review);
+    }
+
+    @Benchmark
+    public String renderSectionBySection() {
+        SectionedMarkdown document = new SectionedMarkdown(markdownConverter);
+        for (int i = 0; i < files; i++) {
+            document.addSection(fileReview);
+        }
+        return document.getHtml();
+    }
+}
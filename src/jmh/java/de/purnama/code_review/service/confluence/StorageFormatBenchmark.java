@@ -0,0 +1,72 @@
+package de.purnama.code_review.service.confluence;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.purnama.code_review.benchmark.BenchmarkCorpus;
+
+/**
+ * StorageFormatBenchmark
+ *
+ * Turning Confluence storage format into plain text and into content blocks. Plain text
+ * conversion is what ContentGenerationService uses for page descriptions; chunking uses the
+ * defaults of confluence.chunk.*.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StorageFormatBenchmark {
+
+    /**
+     * Copies of the corpus page; 1 is about 8 KB, 16 about 120 KB
+     */
+    @Param({"1", "16"})
+    public int copies;
+
+    private final StructureChunker chunker = new StructureChunker(400, 50, 3);
+    private String page;
+    private String plainText;
+
+    @Setup
+    public void setUp() {
+        page = BenchmarkCorpus.repeat(BenchmarkCorpus.CONFLUENCE_PAGE, copies);
+        plainText = StorageFormatTokenizer.toPlainText(page);
+    }
+
+    @Benchmark
+    public String toPlainText() {
+        return StorageFormatTokenizer.toPlainText(page);
+    }
+
+    @Benchmark
+    public List<StructureChunker.Chunk> chunk() {
+        return chunker.chunk(page, "Java Coding Guidelines");
+    }
+
+    @Benchmark
+    public List<String> splitIntoSentences() {
+        return StructureChunker.splitIntoSentences(plainText);
+    }
+
+    @Benchmark
+    public String[] splitIntoWords() {
+        return StructureChunker.splitIntoWords(plainText);
+    }
+}
@@ -0,0 +1,85 @@
+package de.purnama.code_review.loadtest;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ConfluenceStub
+ *
+ * Stands in for the Confluence content API. Every page id exists and has the same storage
+ * format body of a configurable size, with headings, paragraphs, lists, tables and code
+ * macros like a real guideline page. Searches find nothing, so crawls end immediately.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+public class ConfluenceStub extends StubServer {
+
+    private static final String CONTENT_PATH = "/wiki/rest/api/content/";
+
+    private static final String SECTION = """
+            <h2>%1$d. Error Handling</h2>
+            <p>Exceptions are part of the API. Checked exceptions are used for conditions the caller can \
+            reasonably recover from; everything else is unchecked. Never swallow an exception silently &ndash; \
+            at least log it with enough context to find the request again.</p>
+            <ul><li><p>Restore the interrupt flag when catching <code>InterruptedException</code>.</p></li>\
+            <li><p>Every blocking call has a timeout.</p></li></ul>
+            <table><tbody><tr><th><p>Situation</p></th><th><p>Severity</p></th></tr>\
+            <tr><td><p>Remote system not reachable</p></td><td><p>Major</p></td></tr></tbody></table>
+            <ac:structured-macro ac:name="code" ac:schema-version="1"><ac:parameter ac:name="language">java</ac:parameter>\
+            <ac:plain-text-body><![CDATA[try {
+                return future.get(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RequestInterruptedException("Interrupted", e);
+            }]]></ac:plain-text-body></ac:structured-macro>
+            """;
+
+    private final String page;
+
+    /**
+     * @param behavior Latency and rate limit
+     * @param pageSize Characters of each page body
+     */
+    public ConfluenceStub(StubBehavior behavior, int pageSize) throws IOException {
+        super("Confluence", behavior);
+        StringBuilder body = new StringBuilder(pageSize + SECTION.length());
+        body.append("<h1>Java Coding Guidelines</h1><p>Conventions agreed on in the architecture guild.</p>\n");
+        for (int section = 1; body.length() < pageSize; section++) {
+            body.append(SECTION.formatted(section));
+        }
+        this.page = body.toString();
+    }
+
+    /**
+     * URL of a page, as entered in the application
+     */
+    public String pageUrl(long pageId) {
+        return getUrl() + "/wiki/spaces/DEV/pages/" + pageId + "/Guidelines";
+    }
+
+    @Override
+    protected Response respond(String method, String path, String query, byte[] body) throws IOException {
+        if (path.equals(CONTENT_PATH + "search")) {
+            Map<String, Object> results = new LinkedHashMap<>();
+            results.put("results", List.of());
+            results.put("size", 0);
+            return Response.json(results);
+        }
+        if (!path.startsWith(CONTENT_PATH)) {
+            return Response.notFound();
+        }
+
+        String pageId = path.substring(CONTENT_PATH.length());
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put("id", pageId);
+        content.put("type", "page");
+        content.put("title", "Guidelines " + pageId);
+        content.put("version", Map.of("number", 1));
+        if (query != null && query.contains("body.storage")) {
+            content.put("body", Map.of("storage", Map.of("value", page, "representation", "storage")));
+        }
+        return Response.json(content);
+    }
+}
@@ -0,0 +1,120 @@
+package de.purnama.code_review.loadtest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GitHubStub
+ *
+ * Stands in for the GitHub REST API and raw content host. Every repository, whatever its
+ * owner and name, has the same synthetic Java sources; only the head commit differs, so
+ * reviews of different repositories are not coalesced. Raw content is served below
+ * {@code /raw}, which is what {@code github.raw-url} must point to.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+public class GitHubStub extends StubServer {
+
+    private static final String RAW_PREFIX = "/raw/";
+
+    private final int fileCount;
+    private final String fileContent;
+
+    /**
+     * @param behavior  Latency and rate limit
+     * @param fileCount Number of source files in every repository
+     * @param fileSize  Characters of each source file
+     */
+    public GitHubStub(StubBehavior behavior, int fileCount, int fileSize) throws IOException {
+        super("GitHub", behavior);
+        this.fileCount = fileCount;
+        this.fileContent = javaSource(fileSize);
+    }
+
+    /**
+     * Base URL for {@code github.raw-url}
+     */
+    public String getRawUrl() {
+        return getUrl() + RAW_PREFIX.substring(0, RAW_PREFIX.length() - 1);
+    }
+
+    @Override
+    protected Response respond(String method, String path, String query, byte[] body) throws IOException {
+        if (path.startsWith(RAW_PREFIX)) {
+            // /raw/{owner}/{repo}/{ref}/{path}; repositories have no .gitattributes
+            return path.endsWith("/.gitattributes") ? Response.notFound() : Response.text(fileContent);
+        }
+
+        String[] parts = path.split("/");
+        // /repos/{owner}/{repo}/...
+        if (parts.length < 5 || !"repos".equals(parts[1])) {
+            return Response.notFound();
+        }
+        String repository = parts[2] + "/" + parts[3];
+
+        if ("git".equals(parts[4]) && parts.length > 6 && "trees".equals(parts[5])) {
+            return Response.json(tree(repository));
+        }
+        if ("commits".equals(parts[4])) {
+            // A single commit is only requested with the sha media type, the list for churn
+            return parts.length > 5 ? Response.text(headCommit(repository)) : Response.json(List.of());
+        }
+        return Response.notFound();
+    }
+
+    private Map<String, Object> tree(String repository) {
+        List<Map<String, Object>> entries = new ArrayList<>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("path", "src/main/java/com/example/loadtest/Service" + i + ".java");
+            entry.put("type", "blob");
+            entry.put("sha", headCommit(repository + i));
+            entry.put("size", fileContent.length());
+            entries.add(entry);
+        }
+        Map<String, Object> tree = new LinkedHashMap<>();
+        tree.put("sha", headCommit(repository));
+        tree.put("tree", entries);
+        tree.put("truncated", false);
+        return tree;
+    }
+
+    private static String headCommit(String repository) {
+        StringBuilder sha = new StringBuilder(40);
+        byte[] bytes = repository.getBytes(StandardCharsets.UTF_8);
+        long hash = 0xcbf29ce484222325L;
+        while (sha.length() < 40) {
+            for (byte b : bytes) {
+                hash ^= b;
+                hash *= 0x100000001b3L;
+            }
+            sha.append(String.format("%016x", hash));
+        }
+        return sha.substring(0, 40);
+    }
+
+    private static String javaSource(int size) {
+        StringBuilder source = new StringBuilder(size + 512);
+        source.append("package com.example.loadtest;\n\nimport java.util.List;\nimport java.util.Map;\n\n")
+                .append("public class Service {\n\n");
+        int method = 0;
+        while (source.length() < size) {
+            source.append("    /**\n     * Calculates the total of order ").append(method).append("\n     */\n")
+                    .append("    public long calculateTotal").append(method).append("(List<Long> items, Map<String, Long> discounts) {\n")
+                    .append("        long total = 0;\n")
+                    .append("        for (Long item : items) {\n")
+                    .append("            if (item == null) continue;\n")
+                    .append("            total += item;\n")
+                    .append("        }\n")
+                    .append("        Long discount = discounts.get(\"order-").append(method).append("\");\n")
+                    .append("        return discount != null ? total - discount : total;\n")
+                    .append("    }\n\n");
+            method++;
+        }
+        return source.append("}\n").toString();
+    }
+}
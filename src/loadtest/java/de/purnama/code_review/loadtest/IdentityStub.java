@@ -0,0 +1,76 @@
+package de.purnama.code_review.loadtest;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * IdentityStub
+ *
+ * Stands in for an OAuth2 provider, so the load test signs in through the real login flow of
+ * the application. The authorization endpoint approves every request at once and sends the
+ * browser back with a code, the token endpoint exchanges any code, and the user info endpoint
+ * describes the one load test user.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+public class IdentityStub extends StubServer {
+
+    private final String email;
+
+    /**
+     * @param email Email of the user who signs in
+     */
+    public IdentityStub(String email) throws IOException {
+        super("Identity", new StubBehavior(Duration.ZERO, Duration.ZERO, 0));
+        this.email = email;
+    }
+
+    @Override
+    protected Response respond(String method, String path, String query, byte[] body) throws IOException {
+        switch (path) {
+            case "/authorize" -> {
+                Map<String, String> parameters = parameters(query);
+                return Response.redirect(parameters.get("redirect_uri") + "?code=load-test&state="
+                        + URLEncoder.encode(parameters.getOrDefault("state", ""), StandardCharsets.UTF_8));
+            }
+            case "/token" -> {
+                Map<String, Object> token = new LinkedHashMap<>();
+                token.put("access_token", "load-test");
+                token.put("token_type", "Bearer");
+                token.put("expires_in", 3600);
+                return Response.json(token);
+            }
+            case "/me" -> {
+                Map<String, Object> user = new LinkedHashMap<>();
+                user.put("id", "load-test");
+                user.put("email", email);
+                user.put("name", "Load Test");
+                return Response.json(user);
+            }
+            default -> {
+                return Response.notFound();
+            }
+        }
+    }
+
+    private static Map<String, String> parameters(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+}
@@ -0,0 +1,159 @@
+package de.purnama.code_review.loadtest;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * LoadDriver
+ *
+ * Fires a number of requests with a fixed number of concurrent callers and measures latency
+ * percentiles, throughput, allocation and garbage collection of the whole JVM while they run.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Slf4j
+public final class LoadDriver {
+
+    /**
+     * One request of a run
+     */
+    @FunctionalInterface
+    public interface Request {
+
+        /**
+         * @param index Number of the request in the run, from 0
+         * @return Whether the request succeeded
+         */
+        boolean execute(int index) throws Exception;
+    }
+
+    /**
+     * Measurements of a run; latencies are in milliseconds
+     *
+     * @param allocatedBytes Bytes allocated by all threads of the JVM during the run, including
+     *                       the in-process stubs; -1 if the JVM cannot tell
+     */
+    public record Result(String name, int requests, int errors, Duration wallTime,
+                         double p50, double p90, double p99, double max,
+                         double throughput, long allocatedBytes, long gcCount, long gcMillis) {
+
+        /**
+         * Allocated megabytes per second of wall time
+         */
+        public double allocationRate() {
+            double seconds = wallTime.toNanos() / 1e9;
+            return allocatedBytes < 0 || seconds == 0 ? -1 : allocatedBytes / 1048576.0 / seconds;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-10s %5d requests %4d errors | p50 %8.1f ms  p90 %8.1f ms  p99 %8.1f ms  max %8.1f ms"
+                            + " | %7.2f req/s | %8.1f MB/s allocated | %d GCs, %d ms",
+                    name, requests, errors, p50, p90, p99, max, throughput, allocationRate(), gcCount, gcMillis);
+        }
+    }
+
+    private LoadDriver() {
+    }
+
+    /**
+     * Run requests and wait until all of them finished
+     *
+     * @param name        Name of the run in the report
+     * @param requests    Number of requests
+     * @param concurrency Number of requests running at the same time
+     * @param request     The request
+     * @return The measurements
+     */
+    public static Result run(String name, int requests, int concurrency, Request request) throws InterruptedException {
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+
+        List<Callable<Void>> callers = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            callers.add(() -> {
+                int index;
+                while ((index = next.getAndIncrement()) < requests) {
+                    long start = System.nanoTime();
+                    boolean success;
+                    try {
+                        success = request.execute(index);
+                    } catch (Exception e) {
+                        log.warn("{} request {} failed: {}", name, index, e.getMessage());
+                        success = false;
+                    }
+                    latencies[index] = System.nanoTime() - start;
+                    if (!success) {
+                        errors.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        long allocatedBefore = allocatedBytes();
+        long[] gcBefore = garbageCollections();
+        long start = System.nanoTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            executor.invokeAll(callers);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Duration wallTime = Duration.ofNanos(System.nanoTime() - start);
+        long allocatedAfter = allocatedBytes();
+        long[] gcAfter = garbageCollections();
+
+        Arrays.sort(latencies);
+        return new Result(name, requests, errors.get(), wallTime,
+                percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                percentile(latencies, 1.0),
+                requests / Math.max(wallTime.toNanos() / 1e9, 1e-9),
+                allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore,
+                gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+    }
+
+    /**
+     * Nearest-rank percentile of sorted nanosecond latencies, in milliseconds
+     */
+    static double percentile(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile * sortedNanos.length);
+        return sortedNanos[Math.max(0, Math.min(sortedNanos.length, rank) - 1)] / 1e6;
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean hotspot && hotspot.isThreadAllocatedMemorySupported()
+                && hotspot.isThreadAllocatedMemoryEnabled()) {
+            return hotspot.getTotalThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    private static long[] garbageCollections() {
+        long count = 0;
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return new long[]{count, millis};
+    }
+}
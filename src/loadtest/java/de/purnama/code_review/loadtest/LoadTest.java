@@ -0,0 +1,266 @@
+package de.purnama.code_review.loadtest;
+
+import java.io.File;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import de.purnama.code_review.CodeReviewApplication;
+import de.purnama.code_review.repository.ContentBlockRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * LoadTest
+ *
+ * End-to-end load test of reviews and Confluence ingestion without external services. It
+ * starts stubs for OpenAI, GitHub and Confluence, a pgvector database, and the application
+ * pointed at them, then ingests guideline pages and reviews repositories with concurrent HTTP
+ * requests to the port the application listens on, as a user signed in through an OAuth2
+ * provider stub. Latency percentiles, throughput and allocation rate of each phase are printed
+ * and written as JSON.
+ * <p>
+ * Run with {@code ./mvnw -Pload-test verify}; see {@link LoadTestSettings} for the options.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Slf4j
+public final class LoadTest {
+
+    private static final String USER_EMAIL = "load-test@example.com";
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = new LoadTestSettings();
+        log.info("Load test with {}", settings);
+
+        PostgreSQLContainer<?> postgres = null;
+        try (OpenAIStub openAI = new OpenAIStub(settings.openAI, settings.reviewSize);
+             GitHubStub gitHub = new GitHubStub(settings.gitHub, settings.files, settings.fileSize);
+             ConfluenceStub confluence = new ConfluenceStub(settings.confluence, settings.pageSize);
+             IdentityStub identity = new IdentityStub(USER_EMAIL)) {
+            openAI.start();
+            gitHub.start();
+            confluence.start();
+            identity.start();
+
+            String jdbcUrl = settings.jdbcUrl;
+            String username = settings.jdbcUsername;
+            String password = settings.jdbcPassword;
+            if (jdbcUrl.isBlank()) {
+                postgres = new PostgreSQLContainer<>(DockerImageName.parse(settings.postgresImage)
+                        .asCompatibleSubstituteFor("postgres"));
+                postgres.start();
+                jdbcUrl = postgres.getJdbcUrl();
+                username = postgres.getUsername();
+                password = postgres.getPassword();
+            }
+
+            // Passed as command line arguments, which take precedence over application.properties
+            List<String> arguments = new ArrayList<>();
+            applicationProperties(jdbcUrl, username, password, openAI, gitHub, confluence, identity)
+                    .forEach((name, value) -> arguments.add("--" + name + "=" + value));
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CodeReviewApplication.class)
+                    .run(arguments.toArray(String[]::new))) {
+                String baseUrl = "http://localhost:"
+                        + ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+                Browser browser = Browser.signIn(baseUrl);
+
+                List<LoadDriver.Result> results = run(settings, browser, confluence);
+                // Ingestion swallows processing errors, so its success shows in the stored blocks
+                long contentBlocks = context.getBean(ContentBlockRepository.class).count();
+                report(settings, results, contentBlocks, List.of(openAI, gitHub, confluence, identity));
+            }
+        } finally {
+            if (postgres != null) {
+                postgres.stop();
+            }
+        }
+    }
+
+    private static List<LoadDriver.Result> run(LoadTestSettings settings, Browser browser, ConfluenceStub confluence)
+            throws InterruptedException {
+        List<LoadDriver.Result> results = new ArrayList<>();
+
+        // Guidelines first, so reviews search a populated content_blocks table
+        results.add(LoadDriver.run("ingestion", settings.ingestions, settings.concurrency, index ->
+                "/confluence-urls".equals(browser.post("/confluence-urls",
+                        Map.of("url", confluence.pageUrl(100_000L + index), "active", "true")))));
+
+        if (settings.warmupReviews > 0) {
+            // Warmup requests use their own repositories, so they are not coalesced with measured ones
+            LoadDriver.run("warmup", settings.warmupReviews, settings.concurrency,
+                    index -> review(browser, "warmup-" + index));
+        }
+        results.add(LoadDriver.run("review", settings.reviews, settings.concurrency,
+                index -> review(browser, "repository-" + index % Math.max(1, settings.repositories))));
+        return results;
+    }
+
+    private static boolean review(Browser browser, String repository) throws Exception {
+        String redirect = browser.post("/review", Map.of("repositoryUrl", "https://github.com/load-test/" + repository));
+        return redirect != null && redirect.startsWith("/review/history/");
+    }
+
+    private static Map<String, Object> applicationProperties(String jdbcUrl, String username, String password,
+                                                             OpenAIStub openAI, GitHubStub gitHub,
+                                                             ConfluenceStub confluence, IdentityStub identity) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("management.server.port", "0");
+        properties.put("spring.docker.compose.enabled", "false");
+        properties.put("spring.datasource.url", jdbcUrl);
+        properties.put("spring.datasource.username", username);
+        properties.put("spring.datasource.password", password);
+
+        properties.put("spring.ai.openai.api-key", "load-test");
+        properties.put("spring.ai.openai.base-url", openAI.getUrl());
+        properties.put("github.token", "");
+        properties.put("github.api-url", gitHub.getUrl());
+        properties.put("github.raw-url", gitHub.getRawUrl());
+        properties.put("confluence.base-url", confluence.getUrl());
+        properties.put("confluence.username", "load-test");
+        properties.put("confluence.api-token", "load-test");
+        properties.put("confluence.refresh.enabled", "false");
+
+        // Sign-in through the identity stub; a plain OAuth2 provider, so no ID token is needed
+        String registration = "spring.security.oauth2.client.registration." + Browser.REGISTRATION;
+        String provider = "spring.security.oauth2.client.provider." + Browser.REGISTRATION;
+        properties.put(registration + ".client-id", "load-test");
+        properties.put(registration + ".client-secret", "load-test");
+        properties.put(registration + ".scope", "email");
+        properties.put(registration + ".authorization-grant-type", "authorization_code");
+        properties.put(registration + ".redirect-uri", "{baseUrl}/login/oauth2/code/{registrationId}");
+        properties.put(provider + ".authorization-uri", identity.getUrl() + "/authorize");
+        properties.put(provider + ".token-uri", identity.getUrl() + "/token");
+        properties.put(provider + ".user-info-uri", identity.getUrl() + "/me");
+        properties.put(provider + ".user-name-attribute", "id");
+
+        // SQL and bind parameter logging would dominate every measurement
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("logging.level.de.purnama", "INFO");
+        properties.put("logging.level.org.hibernate.SQL", "WARN");
+        properties.put("logging.level.org.hibernate.type", "WARN");
+        properties.put("logging.level.org.hibernate.orm.jdbc.bind", "WARN");
+        properties.put("logging.level.org.hibernate.type.descriptor.sql.BasicBinder", "WARN");
+        return properties;
+    }
+
+    private static void report(LoadTestSettings settings, List<LoadDriver.Result> results, long contentBlocks,
+                               List<StubServer> stubs) throws Exception {
+        StringBuilder summary = new StringBuilder("\nLoad test results (").append(settings).append(")\n");
+        for (LoadDriver.Result result : results) {
+            summary.append("  ").append(result).append('\n');
+        }
+        summary.append("  ").append(contentBlocks).append(" content blocks stored\n");
+        for (StubServer stub : stubs) {
+            summary.append(String.format("  %-10s stub: %d requests, %d rejected by the rate limit%n",
+                    stub.getName(), stub.getRequestCount(), stub.getRejectedCount()));
+        }
+        log.info(summary.toString());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", settings.toString());
+        report.put("results", results);
+        report.put("contentBlocks", contentBlocks);
+        Map<String, Object> stubRequests = new LinkedHashMap<>();
+        for (StubServer stub : stubs) {
+            stubRequests.put(stub.getName(), Map.of("requests", stub.getRequestCount(), "rejected", stub.getRejectedCount()));
+        }
+        report.put("stubs", stubRequests);
+
+        File file = new File(settings.report);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(file, report);
+        log.info("Load test report written to {}", file.getAbsolutePath());
+    }
+
+    /**
+     * HTTP client with the session of the signed-in user, shared by all concurrent requests
+     * like the tabs of one browser
+     */
+    private static final class Browser {
+
+        // One of the providers the application knows users of
+        static final String REGISTRATION = "facebook";
+
+        private final String baseUrl;
+        private final HttpClient client;
+
+        private Browser(String baseUrl, HttpClient client) {
+            this.baseUrl = baseUrl;
+            this.client = client;
+        }
+
+        /**
+         * Sign in through the identity stub, following the redirects like a browser
+         */
+        static Browser signIn(String baseUrl) throws Exception {
+            CookieManager cookies = new CookieManager();
+            HttpClient login = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .cookieHandler(cookies)
+                    .followRedirects(HttpClient.Redirect.NORMAL)
+                    .build();
+            HttpResponse<Void> response = login.send(HttpRequest.newBuilder(
+                            URI.create(baseUrl + "/oauth2/authorization/" + REGISTRATION)).build(),
+                    HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200 || response.uri().getPath().startsWith("/login")) {
+                throw new IllegalStateException("Sign-in failed with status " + response.statusCode() + " at " + response.uri());
+            }
+            log.info("Signed in as {}", USER_EMAIL);
+
+            // Redirects are part of the measured answers, so the load requests do not follow them
+            return new Browser(baseUrl, HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .cookieHandler(cookies)
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .build());
+        }
+
+        /**
+         * Submit a form
+         *
+         * @return Path the application redirected to, or null if it did not redirect
+         */
+        String post(String path, Map<String, String> form) throws Exception {
+            StringBuilder body = new StringBuilder();
+            form.forEach((name, value) -> body.append(body.isEmpty() ? "" : "&")
+                    .append(URLEncoder.encode(name, StandardCharsets.UTF_8)).append('=')
+                    .append(URLEncoder.encode(value, StandardCharsets.UTF_8)));
+            HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                            .header("Content-Type", "application/x-www-form-urlencoded")
+                            .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                            .build(),
+                    HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() / 100 == 3
+                    ? response.headers().firstValue("Location").map(location -> URI.create(location).getPath()).orElse(null)
+                    : null;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package de.purnama.code_review.loadtest;
+
+import java.time.Duration;
+
+/**
+ * LoadTestSettings
+ *
+ * Settings of a load test run, read from {@code loadtest.*} system properties so that the
+ * Maven profile can pass them with {@code -D}.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+public final class LoadTestSettings {
+
+    /**
+     * Reviews and ingestions running at the same time
+     */
+    final int concurrency = integer("loadtest.concurrency", 8);
+
+    /**
+     * Measured review requests
+     */
+    final int reviews = integer("loadtest.reviews", 40);
+
+    /**
+     * Review requests before measuring, to warm up the JIT and the connection pools
+     */
+    final int warmupReviews = integer("loadtest.warmup-reviews", 4);
+
+    /**
+     * Measured ingestions of Confluence pages
+     */
+    final int ingestions = integer("loadtest.ingestions", 10);
+
+    /**
+     * Number of different repositories the reviews are spread over; fewer repositories than
+     * concurrent reviews exercise request coalescing
+     */
+    final int repositories = integer("loadtest.repositories", Integer.MAX_VALUE);
+
+    /**
+     * Files in every stub repository and characters per file
+     */
+    final int files = integer("loadtest.github.files", 10);
+    final int fileSize = integer("loadtest.github.file-size", 6000);
+
+    /**
+     * Characters of every chat completion and of every Confluence page
+     */
+    final int reviewSize = integer("loadtest.openai.review-size", 4000);
+    final int pageSize = integer("loadtest.confluence.page-size", 20000);
+
+    final StubBehavior openAI = StubBehavior.fromProperties("loadtest.openai",
+            Duration.ofMillis(800), Duration.ofMillis(400), 60);
+    final StubBehavior gitHub = StubBehavior.fromProperties("loadtest.github",
+            Duration.ofMillis(40), Duration.ofMillis(20), 0);
+    final StubBehavior confluence = StubBehavior.fromProperties("loadtest.confluence",
+            Duration.ofMillis(120), Duration.ofMillis(60), 0);
+
+    /**
+     * An existing Postgres with pgvector, e.g. a local installation; a Testcontainers
+     * pgvector container is started when not set
+     */
+    final String jdbcUrl = System.getProperty("loadtest.jdbc-url", "");
+    final String jdbcUsername = System.getProperty("loadtest.jdbc-username", "postgres");
+    final String jdbcPassword = System.getProperty("loadtest.jdbc-password", "password");
+    final String postgresImage = System.getProperty("loadtest.postgres-image", "pgvector/pgvector:pg17");
+
+    /**
+     * Where the JSON report is written
+     */
+    final String report = System.getProperty("loadtest.report", "target/loadtest-report.json");
+
+    static int integer(String name, int defaultValue) {
+        String value = System.getProperty(name);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    /**
+     * A duration property, as ISO-8601 ({@code PT0.5S}) or as plain milliseconds
+     */
+    static Duration duration(String name, Duration defaultValue) {
+        String value = System.getProperty(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        value = value.trim();
+        return value.chars().allMatch(Character::isDigit) ? Duration.ofMillis(Long.parseLong(value)) : Duration.parse(value);
+    }
+
+    @Override
+    public String toString() {
+        return "concurrency " + concurrency + ", " + reviews + " reviews (" + warmupReviews + " warmup), "
+                + ingestions + " ingestions, " + files + " files of " + fileSize + " characters per repository";
+    }
+}
@@ -0,0 +1,175 @@
+package de.purnama.code_review.loadtest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * OpenAIStub
+ *
+ * Stands in for the OpenAI chat completion and embedding endpoints. Chat completions answer
+ * with a Markdown review of a configurable size; embeddings are deterministic unit vectors
+ * derived from the input text, so equal texts get equal vectors and similarity search
+ * behaves plausibly.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+public class OpenAIStub extends StubServer {
+
+    // Dimensions of text-embedding-3-small, which the content_blocks columns are sized for
+    private static final int EMBEDDING_DIMENSIONS = 1536;
+
+    // Rough characters per token, only used for the usage numbers of the responses
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private static final String REVIEW_PARAGRAPH = """
+            ### Findings
+
+            | Severity | Finding |
+            |----------|---------|
+            | Major | A remote call is made inside a transaction |
+            | Minor | Field names use abbreviations |
+
+            The method keeps the database connection while it waits for the remote system. Move the call \
+            out of the transaction and store the result in a second, short transaction.
+
+            ```java
+            Order order = transactionTemplate.execute(status -> orderRepository.save(Order.pending(request)));
+            PaymentResult result = paymentGateway.charge(order.getCustomerId(), order.getTotal());
+            ```
+
+            """;
+
+    private final int reviewSize;
+    private final AtomicLong promptCharacters = new AtomicLong();
+
+    /**
+     * @param behavior   Latency and rate limit
+     * @param reviewSize Characters of each chat completion
+     */
+    public OpenAIStub(StubBehavior behavior, int reviewSize) throws IOException {
+        super("OpenAI", behavior);
+        this.reviewSize = reviewSize;
+    }
+
+    /**
+     * Characters of all prompts received, to relate latency to prompt size
+     */
+    public long getPromptCharacters() {
+        return promptCharacters.get();
+    }
+
+    @Override
+    protected Response respond(String method, String path, String query, byte[] body) throws IOException {
+        if (path.endsWith("/chat/completions")) {
+            return chatCompletion(JSON.readTree(body));
+        }
+        if (path.endsWith("/embeddings")) {
+            return embeddings(JSON.readTree(body));
+        }
+        return Response.notFound();
+    }
+
+    private Response chatCompletion(JsonNode request) throws IOException {
+        int promptLength = 0;
+        for (JsonNode message : request.path("messages")) {
+            promptLength += message.path("content").asText().length();
+        }
+        promptCharacters.addAndGet(promptLength);
+
+        StringBuilder review = new StringBuilder(reviewSize + REVIEW_PARAGRAPH.length());
+        review.append("## Summary\n\nThe code is readable; two findings need attention.\n\n");
+        while (review.length() < reviewSize) {
+            review.append(REVIEW_PARAGRAPH);
+        }
+
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("role", "assistant");
+        message.put("content", review.toString());
+
+        Map<String, Object> choice = new LinkedHashMap<>();
+        choice.put("index", 0);
+        choice.put("message", message);
+        choice.put("finish_reason", "stop");
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("id", "chatcmpl-loadtest");
+        response.put("object", "chat.completion");
+        response.put("created", System.currentTimeMillis() / 1000);
+        response.put("model", request.path("model").asText("gpt-4.1"));
+        response.put("choices", List.of(choice));
+        response.put("usage", usage(promptLength, review.length()));
+        return Response.json(response);
+    }
+
+    private Response embeddings(JsonNode request) throws IOException {
+        List<String> inputs = new ArrayList<>();
+        JsonNode input = request.path("input");
+        if (input.isArray()) {
+            input.forEach(text -> inputs.add(text.asText()));
+        } else {
+            inputs.add(input.asText());
+        }
+
+        List<Map<String, Object>> data = new ArrayList<>(inputs.size());
+        int promptLength = 0;
+        for (int i = 0; i < inputs.size(); i++) {
+            promptLength += inputs.get(i).length();
+            Map<String, Object> embedding = new LinkedHashMap<>();
+            embedding.put("object", "embedding");
+            embedding.put("index", i);
+            embedding.put("embedding", vectorOf(inputs.get(i)));
+            data.add(embedding);
+        }
+        promptCharacters.addAndGet(promptLength);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("object", "list");
+        response.put("data", data);
+        response.put("model", request.path("model").asText("text-embedding-3-small"));
+        response.put("usage", usage(promptLength, 0));
+        return Response.json(response);
+    }
+
+    private static float[] vectorOf(String text) {
+        SplittableRandom random = new SplittableRandom(hash(text));
+        float[] vector = new float[EMBEDDING_DIMENSIONS];
+        double norm = 0;
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) (random.nextDouble() * 2 - 1);
+            norm += vector[i] * vector[i];
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    private static long hash(String text) {
+        // FNV-1a over the UTF-8 bytes; String.hashCode has too few bits for a seed
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static Map<String, Object> usage(int promptCharacters, int completionCharacters) {
+        int promptTokens = promptCharacters / CHARS_PER_TOKEN;
+        int completionTokens = completionCharacters / CHARS_PER_TOKEN;
+        Map<String, Object> usage = new LinkedHashMap<>();
+        usage.put("prompt_tokens", promptTokens);
+        usage.put("completion_tokens", completionTokens);
+        usage.put("total_tokens", promptTokens + completionTokens);
+        return usage;
+    }
+}
@@ -0,0 +1,34 @@
+package de.purnama.code_review.loadtest;
+
+import java.time.Duration;
+
+/**
+ * StubBehavior
+ *
+ * How a stub server answers: every response is delayed by the latency plus a random share of
+ * the jitter, and requests above the rate limit are answered with 429 Too Many Requests.
+ *
+ * @param latency           Fixed delay of every response
+ * @param jitter            Upper bound of an additional random delay
+ * @param requestsPerSecond Requests accepted per second; 0 for no limit
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+public record StubBehavior(Duration latency, Duration jitter, int requestsPerSecond) {
+
+    /**
+     * Read the behavior from system properties {@code <prefix>.latency}, {@code <prefix>.jitter}
+     * and {@code <prefix>.rate-limit}; durations are ISO-8601 or plain milliseconds
+     */
+    public static StubBehavior fromProperties(String prefix, Duration latency, Duration jitter, int requestsPerSecond) {
+        return new StubBehavior(
+                LoadTestSettings.duration(prefix + ".latency", latency),
+                LoadTestSettings.duration(prefix + ".jitter", jitter),
+                LoadTestSettings.integer(prefix + ".rate-limit", requestsPerSecond));
+    }
+
+    @Override
+    public String toString() {
+        return "latency " + latency.toMillis() + " ms (+" + jitter.toMillis() + " ms), "
+                + (requestsPerSecond > 0 ? requestsPerSecond + " requests/s" : "no rate limit");
+    }
+}
@@ -0,0 +1,192 @@
+package de.purnama.code_review.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * StubServer
+ *
+ * A local HTTP server that stands in for an external API during load tests. It listens on a
+ * free loopback port, answers every request on a virtual thread, and applies the latency and
+ * rate limit of its {@link StubBehavior} before a subclass builds the response.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Slf4j
+public abstract class StubServer implements AutoCloseable {
+
+    protected static final ObjectMapper JSON = new ObjectMapper();
+
+    /**
+     * A response of the stub
+     */
+    protected record Response(int status, String contentType, byte[] body, Map<String, String> headers) {
+
+        Response(int status, String contentType, byte[] body) {
+            this(status, contentType, body, Map.of());
+        }
+
+        static Response json(Object body) throws IOException {
+            return new Response(200, "application/json", JSON.writeValueAsBytes(body));
+        }
+
+        static Response text(String body) {
+            return new Response(200, "text/plain; charset=utf-8", body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Response redirect(String location) {
+            return new Response(302, "text/plain", new byte[0], Map.of("Location", location));
+        }
+
+        static Response notFound() {
+            return new Response(404, "application/json", "{\"message\":\"Not Found\"}".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private final String name;
+    private final StubBehavior behavior;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    // Fixed one-second windows are enough to shape the load; no need for a smooth bucket
+    private final Object rateLock = new Object();
+    private long windowStart;
+    private int windowCount;
+
+    protected StubServer(String name, StubBehavior behavior) throws IOException {
+        this.name = name;
+        this.behavior = behavior;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.setExecutor(executor);
+        this.server.createContext("/", this::dispatch);
+    }
+
+    /**
+     * Build the response to a request that passed the rate limit
+     *
+     * @param method HTTP method
+     * @param path   Request path without the query
+     * @param query  Raw query, or null
+     * @param body   Request body
+     */
+    protected abstract Response respond(String method, String path, String query, byte[] body) throws IOException;
+
+    public StubServer start() {
+        server.start();
+        log.info("{} stub listening on {} with {}", name, getUrl(), behavior);
+        return this;
+    }
+
+    /**
+     * Base URL of the stub, without a trailing slash
+     */
+    public String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void dispatch(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readAllBytes();
+            }
+
+            if (!acquire()) {
+                rejected.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                send(exchange, new Response(429, "application/json",
+                        "{\"error\":{\"message\":\"Rate limit reached\",\"type\":\"requests\"}}".getBytes(StandardCharsets.UTF_8)));
+                return;
+            }
+
+            delay();
+            Response response;
+            try {
+                response = respond(exchange.getRequestMethod(), exchange.getRequestURI().getPath(),
+                        exchange.getRequestURI().getRawQuery(), body);
+            } catch (RuntimeException e) {
+                log.warn("{} stub failed on {}: {}", name, exchange.getRequestURI(), e.getMessage());
+                response = new Response(500, "text/plain", String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8));
+            }
+            send(exchange, response);
+        }
+    }
+
+    private boolean acquire() {
+        if (behavior.requestsPerSecond() <= 0) {
+            return true;
+        }
+        synchronized (rateLock) {
+            long now = System.nanoTime();
+            if (now - windowStart >= 1_000_000_000L) {
+                windowStart = now;
+                windowCount = 0;
+            }
+            return ++windowCount <= behavior.requestsPerSecond();
+        }
+    }
+
+    private void delay() {
+        long millis = behavior.latency().toMillis();
+        long jitter = behavior.jitter().toMillis();
+        if (jitter > 0) {
+            millis += ThreadLocalRandom.current().nextLong(jitter + 1);
+        }
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", response.contentType());
+        response.headers().forEach(exchange.getResponseHeaders()::set);
+        exchange.sendResponseHeaders(response.status(), response.body().length == 0 ? -1 : response.body().length);
+        if (response.body().length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response.body());
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package de.purnama.code_review;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Main application class for the Code Review application
@@ -9,6 +10,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * @author Arthur Purnama (arthur@purnama.de)
  */
 @SpringBootApplication
+@EnableScheduling
 public class CodeReviewApplication {
 
 	public static void main(String[] args) {
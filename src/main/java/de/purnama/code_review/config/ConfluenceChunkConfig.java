@@ -0,0 +1,33 @@
+package de.purnama.code_review.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * ConfluenceChunkConfig
+ * Settings for splitting Confluence pages into content blocks
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "confluence.chunk")
+public class ConfluenceChunkConfig {
+
+    /**
+     * Upper bound of a content block in estimated tokens; code examples larger than this stay whole
+     */
+    private int maxTokens = 400;
+
+    /**
+     * Tokens of trailing text repeated at the start of the next block when a section has to be split
+     */
+    private int overlapTokens = 50;
+
+    /**
+     * Deepest heading level that starts a new block; deeper headings stay inside their section
+     */
+    private int splitLevel = 3;
+}
@@ -0,0 +1,28 @@
+package de.purnama.code_review.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * ConfluenceCrawlConfig
+ * Settings for crawling all pages of a Confluence space or CQL query
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "confluence.crawl")
+public class ConfluenceCrawlConfig {
+
+    /**
+     * Number of search results requested per call; the crawl cursor advances by result page
+     */
+    private int pageSize = 50;
+
+    /**
+     * Number of page bodies fetched and ingested in parallel
+     */
+    private int concurrency = 4;
+}
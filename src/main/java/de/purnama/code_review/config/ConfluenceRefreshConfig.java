@@ -0,0 +1,60 @@
+package de.purnama.code_review.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * ConfluenceRefreshConfig
+ * Settings for the background refresh of active Confluence URLs
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "confluence.refresh")
+public class ConfluenceRefreshConfig {
+
+    /**
+     * Whether active Confluence URLs are refreshed periodically
+     */
+    private boolean enabled = false;
+
+    /**
+     * Delay between two scans for pages that are due
+     */
+    private Duration interval = Duration.ofMinutes(15);
+
+    /**
+     * Pages last fetched longer ago than this are refreshed
+     */
+    private Duration maxAge = Duration.ofHours(6);
+
+    /**
+     * Maximum number of due pages picked up per scan
+     */
+    private int batchSize = 100;
+
+    /**
+     * Number of pages refreshed in parallel on this node
+     */
+    private int workers = 4;
+
+    /**
+     * Maximum number of concurrent refreshes against the same Confluence host
+     */
+    private int perHostConcurrency = 2;
+
+    /**
+     * Upper bound of the random delay before a page is refreshed, spreads the load on Confluence
+     */
+    private Duration jitter = Duration.ofSeconds(30);
+
+    /**
+     * How long a node owns a page once it starts refreshing it; expired leases can be taken over
+     */
+    private Duration leaseDuration = Duration.ofMinutes(15);
+}
@@ -0,0 +1,75 @@
+package de.purnama.code_review.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * ContentGateConfig
+ * Thresholds for keeping binary, minified, generated and oversized files away from the AI model
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "code.review.content-gate")
+public class ContentGateConfig {
+
+    /**
+     * Whether downloaded content is classified before it is sent to review
+     */
+    private boolean enabled = true;
+
+    /**
+     * Files larger than this many bytes are skipped without being downloaded
+     */
+    private long maxFileSize = 256 * 1024;
+
+    /**
+     * Number of characters from the start of a file the classifier looks at
+     */
+    private int sampleSize = 64 * 1024;
+
+    /**
+     * Content whose average line length exceeds this is treated as minified
+     */
+    private int maxAverageLineLength = 250;
+
+    /**
+     * Lines longer than this count as long lines
+     */
+    private int longLineLength = 1000;
+
+    /**
+     * Content where more than this share of the characters sits in long lines is treated as minified
+     */
+    private double maxLongLineRatio = 0.5;
+
+    /**
+     * Content with a higher Shannon entropy (bits per character) and almost no whitespace is treated as encoded data
+     */
+    private double maxEntropy = 5.5;
+
+    /**
+     * Markers that identify generated files when found (case-insensitive) in the first lines.
+     * A bare "do not edit" is not one: hand-written files use it too, and Go's generated
+     * header is matched by "code generated by".
+     */
+    private List<String> generatedMarkers = new ArrayList<>(List.of(
+            "@generated",
+            "code generated by",
+            "auto-generated",
+            "autogenerated",
+            "this file was automatically generated",
+            "generated by the protocol buffer compiler"
+    ));
+
+    /**
+     * Number of lines at the start of a file searched for generated markers
+     */
+    private int markerLines = 25;
+}
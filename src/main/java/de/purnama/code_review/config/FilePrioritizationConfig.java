@@ -0,0 +1,69 @@
+package de.purnama.code_review.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * FilePrioritizationConfig
+ * Weights used to rank candidate files when a repository has more reviewable files than code.review.max-files
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "code.review.prioritization")
+public class FilePrioritizationConfig {
+
+    /**
+     * Whether candidates are ranked; when disabled the first files in listing order are reviewed
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of candidate files listed before ranking, protects against huge monorepos
+     */
+    private int candidateLimit = 5000;
+
+    /**
+     * Number of recent commits inspected to estimate churn per file; 0 disables the churn signal
+     */
+    private int churnCommits = 30;
+
+    /**
+     * Weight of the churn signal, applied as 1 + weight * ln(1 + commits touching the file)
+     */
+    private double churnWeight = 0.5;
+
+    /**
+     * Multiplier for test sources so that main code is reviewed first
+     */
+    private double testWeight = 0.5;
+
+    /**
+     * Files smaller than this many bytes are considered trivial
+     */
+    private long trivialSize = 128;
+
+    /**
+     * Files up to this many bytes are preferred; larger files are penalised in proportion to their size
+     */
+    private long preferredMaxSize = 48 * 1024;
+
+    /**
+     * Multiplier per extension; extensions not listed get 1.0
+     */
+    private Map<String, Double> languageWeights = new HashMap<>(Map.of(
+            ".html", 0.5,
+            ".css", 0.5,
+            ".scss", 0.5,
+            ".json", 0.3,
+            ".xml", 0.3,
+            ".yaml", 0.3,
+            ".yml", 0.3
+    ));
+}
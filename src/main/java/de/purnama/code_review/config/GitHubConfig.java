@@ -6,6 +6,9 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import de.purnama.code_review.service.ReviewMetrics;
+import io.micrometer.observation.ObservationRegistry;
+
 /**
  * GitHubConfig
  * Configuration for GitHub API access
@@ -24,12 +27,25 @@ public class GitHubConfig {
     private String token;
 
     /**
-     * Returns a WebClient specifically configured for GitHub API calls
+     * Base URL of the GitHub REST API; differs for GitHub Enterprise Server
+     */
+    private String apiUrl = "https://api.github.com";
+
+    /**
+     * Base URL raw file contents are downloaded from
+     */
+    private String rawUrl = "https://raw.githubusercontent.com";
+
+    /**
+     * Returns a WebClient specifically configured for GitHub API calls, recording latency,
+     * response size and remaining rate limit of every request, each in a span of its own
      */
     @Bean(name = "githubWebClient")
-    public WebClient githubWebClient() {
+    public WebClient githubWebClient(ReviewMetrics reviewMetrics, ObservationRegistry observationRegistry) {
         return WebClient.builder()
                 .defaultHeader("Accept", "application/vnd.github.v3+json")
+                .filter(reviewMetrics.gitRequests("github"))
+                .observationRegistry(observationRegistry)
                 .build();
     }
 }
\ No newline at end of file
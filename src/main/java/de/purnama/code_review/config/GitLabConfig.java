@@ -0,0 +1,64 @@
+package de.purnama.code_review.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * GitLabConfig
+ * Configuration for GitLab API access (gitlab.com or self-hosted instances)
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "gitlab")
+@Data
+public class GitLabConfig {
+
+    /**
+     * Base URL of the GitLab instance, e.g. https://gitlab.example.com
+     */
+    private String baseUrl = "https://gitlab.com";
+
+    /**
+     * GitLab personal or project access token (optional for public projects)
+     */
+    private String token;
+
+    /**
+     * Page size used for the repository tree endpoint (GitLab caps this at 100)
+     */
+    private int perPage = 100;
+
+    /**
+     * Maximum number of blob downloads running in parallel
+     */
+    private int concurrency = 8;
+
+    /**
+     * When at least this many files are selected for review, the repository archive
+     * is downloaded once instead of fetching every blob separately
+     */
+    private int archiveThreshold = 50;
+
+    /**
+     * Maximum number of tree and commit listing responses kept for conditional (If-None-Match) requests
+     */
+    private int etagCacheSize = 1000;
+
+    /**
+     * Returns a WebClient specifically configured for GitLab API calls
+     */
+    @Bean(name = "gitlabWebClient")
+    public WebClient gitlabWebClient() {
+        return WebClient.builder()
+                .exchangeStrategies(ExchangeStrategies.builder()
+                        // Archives and large blobs exceed the 256 KB default buffer
+                        .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(64 * 1024 * 1024))
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,36 @@
+package de.purnama.code_review.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * GuidelineBundleConfig
+ * Settings for the cached guideline bundles that replace the similarity search per reviewed file
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "code.review.guideline-bundles")
+public class GuidelineBundleConfig {
+
+    /**
+     * Use a cached bundle per file type instead of searching guidelines for every review
+     */
+    private boolean enabled = true;
+
+    /**
+     * Query used to build the bundle of an extension; %s is the language name
+     */
+    private String queryTemplate = "Coding guidelines and best practices for %s code";
+
+    /**
+     * Glob patterns on the file path with the query of their own bundle, checked before the extension
+     */
+    private Map<String, String> patterns = new LinkedHashMap<>();
+}
@@ -0,0 +1,38 @@
+package de.purnama.code_review.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * GuidelineSelectionConfig
+ * Settings for trimming the retrieved guideline blocks before they are added to the review prompt
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "code.review.guidelines")
+public class GuidelineSelectionConfig {
+
+    /**
+     * Candidates retrieved per guideline slot, so near-duplicates can be dropped without leaving slots empty
+     */
+    private int candidateFactor = 3;
+
+    /**
+     * Share of the smaller block's word shingles found in a better ranked block above which it is a duplicate
+     */
+    private double duplicateThreshold = 0.8;
+
+    /**
+     * Merge blocks that follow each other on the same Confluence page into one guideline
+     */
+    private boolean mergeAdjacent = true;
+
+    /**
+     * Upper bound of the guidelines in estimated tokens; 0 disables the budget
+     */
+    private int tokenBudget = 3000;
+}
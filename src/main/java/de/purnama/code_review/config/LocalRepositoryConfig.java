@@ -0,0 +1,42 @@
+package de.purnama.code_review.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * LocalRepositoryConfig
+ * Configuration for reviewing repositories mirrored on the review host (file:// URLs)
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "local-repository")
+public class LocalRepositoryConfig {
+
+    /**
+     * Directories under which local repositories may be reviewed.
+     * file:// URLs are rejected when this list is empty.
+     */
+    private List<String> allowedRoots = new ArrayList<>();
+
+    /**
+     * Files of at least this many bytes are memory-mapped instead of read into a heap buffer
+     */
+    private long mmapThreshold = 256 * 1024;
+
+    /**
+     * Git executable used to read bare repositories
+     */
+    private String gitExecutable = "git";
+
+    /**
+     * Timeout for a single git process, in seconds
+     */
+    private int gitTimeoutSeconds = 60;
+}
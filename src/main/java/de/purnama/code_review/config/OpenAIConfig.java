@@ -29,6 +29,9 @@ public class OpenAIConfig {
     @Value("${spring.ai.openai.api-key}")
     private String apiKey;
 
+    @Value("${spring.ai.openai.base-url:https://api.openai.com}")
+    private String baseUrl;
+
     @Value("${code.review.max-files:10}")
     private int maxFilesToReview;
 
@@ -48,6 +51,7 @@ public class OpenAIConfig {
         clientHttpRequestFactory.setConnectionRequestTimeout(Duration.ofSeconds(apiTimeoutSeconds));
         // Create a RestClient with extended timeout settings
         return OpenAiApi.builder()
+                .baseUrl(baseUrl)
                 .apiKey(apiKey)
                 .restClientBuilder(RestClient.builder().requestFactory(clientHttpRequestFactory))
                 .build();
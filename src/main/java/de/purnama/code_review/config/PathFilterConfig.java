@@ -0,0 +1,62 @@
+package de.purnama.code_review.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * PathFilterConfig
+ * Include/exclude rules applied by every Git provider when selecting files for review
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "code.review.path-filter")
+public class PathFilterConfig {
+
+    /**
+     * File extensions (including the leading dot) that are sent to review
+     */
+    private List<String> extensions = new ArrayList<>(List.of(
+            ".java", ".js", ".ts", ".py", ".rb", ".c", ".cpp", ".cs", ".go", ".php",
+            ".html", ".css", ".scss", ".json", ".xml", ".yaml", ".yml"
+    ));
+
+    /**
+     * gitignore-style exclude patterns; later patterns win and "!" re-includes
+     */
+    private List<String> exclude = new ArrayList<>(List.of(
+            "node_modules/", "target/", "build/", "dist/", "out/", "coverage/", "__pycache__/",
+            "bin/", "obj/", ".*/"
+    ));
+
+    /**
+     * .gitattributes-style lines; paths marked linguist-generated or linguist-vendored are skipped
+     */
+    private List<String> attributes = new ArrayList<>(List.of(
+            "*.min.js linguist-generated",
+            "*.min.css linguist-generated",
+            "*.map linguist-generated",
+            "package-lock.json linguist-generated",
+            "pnpm-lock.yaml linguist-generated",
+            "**/generated/** linguist-generated",
+            "**/generated-sources/** linguist-generated",
+            "vendor/** linguist-vendored",
+            "third_party/** linguist-vendored"
+    ));
+
+    /**
+     * Whether the reviewed repository's own .gitattributes is read and applied on top of the defaults
+     */
+    private boolean honorRepositoryAttributes = true;
+
+    /**
+     * Whether patterns are matched case-sensitively
+     */
+    private boolean caseSensitive = false;
+}
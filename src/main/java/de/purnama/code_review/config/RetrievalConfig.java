@@ -0,0 +1,38 @@
+package de.purnama.code_review.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * RetrievalConfig
+ * Settings for finding the guideline blocks that are relevant to the code under review
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "code.review.retrieval")
+public class RetrievalConfig {
+
+    /**
+     * Fuse full-text and vector ranking; when false only vector distance is used
+     */
+    private boolean hybrid = true;
+
+    /**
+     * Number of candidates taken from each ranking before they are fused
+     */
+    private int candidates = 50;
+
+    /**
+     * Reciprocal-rank fusion constant; larger values flatten the advantage of top ranks
+     */
+    private int rrfK = 60;
+
+    /**
+     * Maximum number of identifiers from the code used as full-text search terms
+     */
+    private int maxQueryTerms = 32;
+}
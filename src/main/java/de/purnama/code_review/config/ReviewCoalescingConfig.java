@@ -0,0 +1,55 @@
+package de.purnama.code_review.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * ReviewCoalescingConfig
+ * Settings for sharing one review between identical concurrent review requests
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "code.review.coalescing")
+public class ReviewCoalescingConfig {
+
+    /**
+     * Whether identical concurrent requests share one review
+     */
+    private boolean enabled = true;
+
+    /**
+     * How long a request waits for an identical review that is already running
+     */
+    private Duration waitTimeout = Duration.ofMinutes(15);
+
+    /**
+     * Also share reviews between nodes through a lease row in Postgres
+     */
+    private boolean distributed = false;
+
+    /**
+     * Delay between two attempts to claim the lease while another node reviews
+     */
+    private Duration pollInterval = Duration.ofSeconds(2);
+
+    /**
+     * How long a finished review is handed to identical requests on other nodes
+     */
+    private Duration resultTtl = Duration.ofMinutes(10);
+
+    /**
+     * How long a lease is valid without renewal; a node that stops reviewing loses the key after this
+     */
+    private Duration leaseDuration = Duration.ofMinutes(1);
+
+    /**
+     * Delay between two renewals of the leases this node holds; well below the lease duration
+     */
+    private Duration leaseRenewInterval = Duration.ofSeconds(20);
+}
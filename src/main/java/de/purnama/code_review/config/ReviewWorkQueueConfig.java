@@ -0,0 +1,55 @@
+package de.purnama.code_review.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * ReviewWorkQueueConfig
+ * Settings for reviewing files and chunks through the work queue shared by all nodes
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "code.review.work-queue")
+public class ReviewWorkQueueConfig {
+
+    /**
+     * Whether project and chunked reviews are split into units that any node can review
+     */
+    private boolean enabled = false;
+
+    /**
+     * Units reviewed in parallel on this node
+     */
+    private int workers = 4;
+
+    /**
+     * Delay between two looks for pending units, and between two progress checks of a job
+     */
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    /**
+     * Delay between two heartbeats of the units and jobs this node works on
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(10);
+
+    /**
+     * Units and jobs without a heartbeat for this long are abandoned; units are retried elsewhere
+     */
+    private Duration staleAfter = Duration.ofMinutes(1);
+
+    /**
+     * Reviews of a unit before it is given up
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * How long a coordinator waits for the units of its job
+     */
+    private Duration jobTimeout = Duration.ofMinutes(30);
+}
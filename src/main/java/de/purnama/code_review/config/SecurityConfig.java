@@ -1,5 +1,6 @@
 package de.purnama.code_review.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -27,13 +28,23 @@ public class SecurityConfig {
     private final OAuth2AuthenticationSuccessHandler oAuth2AuthenticationSuccessHandler;
     private final OidcUserInfoFilter oidcUserInfoFilter;
 
+    /**
+     * @param managementPort Port of the actuator endpoints; the Prometheus endpoint is only
+     *                       public on that port, which is not exposed to users
+     */
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   @Value("${management.server.port:-1}") int managementPort) throws Exception {
         http
             .csrf(AbstractHttpConfigurer::disable) // Disable CSRF for now
             .authorizeHttpRequests(authorize -> authorize
                 // Public resources
                 .requestMatchers("/", "/login", "/error", "/webjars/**", "/css/**", "/js/**", "/images/**").permitAll()
+                // Health checks
+                .requestMatchers("/actuator/health").permitAll()
+                // Prometheus scrapes through the internal management port only
+                .requestMatchers(request -> managementPort > 0 && request.getLocalPort() == managementPort
+                        && "/actuator/prometheus".equals(request.getRequestURI())).permitAll()
                 // All other requests need authentication
                 .anyRequest().authenticated()
             )
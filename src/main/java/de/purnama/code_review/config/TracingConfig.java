@@ -0,0 +1,37 @@
+package de.purnama.code_review.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import lombok.Data;
+
+/**
+ * TracingConfig
+ * Settings for exporting the spans of reviews without a collector; export to an OTLP
+ * collector is configured with the management.otlp.tracing.* properties
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "code.review.tracing")
+public class TracingConfig {
+
+    /**
+     * Whether every finished span is written to the log
+     */
+    private boolean logSpans = false;
+
+    /**
+     * Writes finished spans to the log, in addition to any other exporter
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "code.review.tracing", name = "log-spans", havingValue = "true")
+    public SpanExporter loggingSpanExporter() {
+        return LoggingSpanExporter.create();
+    }
+}
@@ -0,0 +1,45 @@
+package de.purnama.code_review.config;
+
+import java.math.BigDecimal;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * UsageLedgerConfig
+ * Settings for recording the tokens and cost of model calls and for the daily token quota
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "code.review.usage")
+public class UsageLedgerConfig {
+
+    /**
+     * Whether model calls are recorded in the usage ledger
+     */
+    private boolean enabled = true;
+
+    /**
+     * Price in USD per million prompt tokens of the chat model
+     */
+    private BigDecimal promptPrice = new BigDecimal("2.00");
+
+    /**
+     * Price in USD per million completion tokens of the chat model
+     */
+    private BigDecimal completionPrice = new BigDecimal("8.00");
+
+    /**
+     * Price in USD per million tokens of the embedding model
+     */
+    private BigDecimal embeddingPrice = new BigDecimal("0.02");
+
+    /**
+     * Tokens a user may use per day before project reviews are refused; 0 for no limit
+     */
+    private long dailyTokenQuota = 0;
+}
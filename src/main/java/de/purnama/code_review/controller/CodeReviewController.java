@@ -1,15 +1,33 @@
 package de.purnama.code_review.controller;
 
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
 import de.purnama.code_review.exception.GitProviderException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import de.purnama.code_review.exception.CodeReviewException;
+import de.purnama.code_review.model.CodeReview;
 import de.purnama.code_review.model.CodeReviewRequest;
 import de.purnama.code_review.model.CodeReviewResponse;
+import de.purnama.code_review.security.AuthenticatedUser;
+import de.purnama.code_review.service.CodeReviewHistoryService;
 import de.purnama.code_review.service.CodeReviewService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -26,7 +44,12 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class CodeReviewController {
 
+    private static final int HISTORY_PAGE_SIZE = 20;
+    private static final MediaType TEXT_MARKDOWN = MediaType.parseMediaType("text/markdown;charset=UTF-8");
+    private static final MediaType TEXT_HTML = MediaType.parseMediaType("text/html;charset=UTF-8");
+
     private final CodeReviewService codeReviewService;
+    private final CodeReviewHistoryService historyService;
 
     @GetMapping
     public String showReviewForm(Model model) {
@@ -37,19 +60,115 @@ public class CodeReviewController {
     /**
      * Process a code review request
      * The exceptions will be handled by GlobalExceptionHandler
+     * The finished review is stored and shown from the history, so reloading the result page
+     * does not review the code again
      */
     @PostMapping
     public String performReview(
             @ModelAttribute("reviewRequest") CodeReviewRequest request,
+            Authentication authentication,
             Model model) throws CodeReviewException, GitProviderException {
 
         log.info("Received code review request: {}", request);
 
         // Perform the review - this will throw appropriate exceptions when needed
-        CodeReviewResponse response = codeReviewService.reviewCode(request);
+        String userEmail = AuthenticatedUser.emailOf(authentication);
+        CodeReviewResponse response = codeReviewService.reviewCode(request, userEmail);
+
+        try {
+            CodeReview stored = historyService.save(response, userEmail);
+            return "redirect:/review/history/" + stored.getId();
+        } catch (DataAccessException e) {
+            // The review itself succeeded; show it even though it could not be kept
+            log.warn("Could not store review of {}: {}", request.getRepositoryUrl(), e.getMessage());
+        }
 
         model.addAttribute("reviewResponse", response);
         model.addAttribute("requestDetails", request);
         return "review/result";
     }
-}
\ No newline at end of file
+
+    /**
+     * List the reviews of the current user, newest first
+     */
+    @GetMapping("/history")
+    public String showHistory(
+            @RequestParam(required = false) String repositoryUrl,
+            @RequestParam(defaultValue = "0") int page,
+            Authentication authentication,
+            Model model) {
+        String email = AuthenticatedUser.emailOf(authentication);
+        model.addAttribute("reviews", historyService.findReviews(email, repositoryUrl,
+                PageRequest.of(Math.max(page, 0), HISTORY_PAGE_SIZE)));
+        model.addAttribute("repositoryUrl", repositoryUrl);
+        return "review/history";
+    }
+
+    /**
+     * Show a stored review
+     */
+    @GetMapping("/history/{id}")
+    public String showStoredReview(
+            @PathVariable Long id,
+            Authentication authentication,
+            Model model,
+            RedirectAttributes redirectAttributes) {
+        Optional<CodeReview> stored = historyService.findReview(id, AuthenticatedUser.emailOf(authentication));
+        if (stored.isEmpty()) {
+            redirectAttributes.addFlashAttribute("error", "Review not found");
+            return "redirect:/review/history";
+        }
+
+        CodeReview review = stored.get();
+        CodeReviewResponse response = CodeReviewResponse.builder()
+                .repositoryUrl(review.getRepositoryUrl())
+                .htmlSections(historyService.getHtmlSections(review.getId()))
+                .guidelines(historyService.getGuidelines(review))
+                .guidelineTokensSaved(review.getGuidelineTokensSaved())
+                .timestamp(review.getCreatedAt())
+                .build();
+
+        model.addAttribute("reviewResponse", response);
+        model.addAttribute("reviewId", review.getId());
+        return "review/result";
+    }
+
+    /**
+     * Download the Markdown of a stored review; the body is streamed section by section
+     */
+    @GetMapping("/history/{id}/download")
+    public ResponseEntity<StreamingResponseBody> downloadStoredReview(
+            @PathVariable Long id,
+            Authentication authentication) {
+        if (historyService.findReview(id, AuthenticatedUser.emailOf(authentication)).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        StreamingResponseBody body = out -> historyService.writeMarkdown(id, out);
+        return ResponseEntity.ok()
+                .contentType(TEXT_MARKDOWN)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"code-review-" + id + ".md\"")
+                .body(body);
+    }
+
+    /**
+     * Download the HTML of a stored review; sections are written to the response one by one and
+     * the review is never held as one string
+     */
+    @GetMapping("/history/{id}/download/html")
+    public ResponseEntity<StreamingResponseBody> downloadStoredReviewHtml(
+            @PathVariable Long id,
+            Authentication authentication) {
+        if (historyService.findReview(id, AuthenticatedUser.emailOf(authentication)).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        StreamingResponseBody body = out -> {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            historyService.writeHtml(id, writer);
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(TEXT_HTML)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"code-review-" + id + ".html\"")
+                .body(body);
+    }
+}
@@ -6,6 +6,8 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import de.purnama.code_review.model.ConfluenceUrl;
+import de.purnama.code_review.service.ConfluenceCrawlService;
+import de.purnama.code_review.service.ConfluenceRefreshScheduler;
 import de.purnama.code_review.service.ConfluenceUrlService;
 import de.purnama.code_review.service.ContentBlockService;
 import de.purnama.code_review.service.ContentGenerationService;
@@ -29,13 +31,27 @@ public class ConfluenceUrlController {
     private final ConfluenceUrlService confluenceUrlService;
     private final ContentBlockService contentBlockService;
     private final ContentGenerationService contentGenerationService;
+    private final ConfluenceRefreshScheduler confluenceRefreshScheduler;
+    private final ConfluenceCrawlService confluenceCrawlService;
 
     @GetMapping
     public String listUrls(Model model) {
         model.addAttribute("urls", confluenceUrlService.findAll());
+        model.addAttribute("crawls", confluenceCrawlService.findRecentCrawls());
         return "confluence-urls/list";
     }
 
+    @PostMapping("/crawl")
+    public String crawlSpace(@RequestParam(name = "cql", required = false) String cql,
+                             RedirectAttributes redirectAttributes) {
+        if (confluenceCrawlService.startCrawl(cql)) {
+            redirectAttributes.addFlashAttribute("message", "Confluence crawl started");
+        } else {
+            redirectAttributes.addFlashAttribute("error", "A crawl of this query is already running");
+        }
+        return "redirect:/confluence-urls";
+    }
+
     @GetMapping("/new")
     public String showNewForm(Model model) {
         model.addAttribute("confluenceUrl", new ConfluenceUrl());
@@ -131,9 +147,12 @@ public class ConfluenceUrlController {
         }
 
         try {
-            // Trigger content refresh
-            confluenceUrlService.refreshContent(id);
-            redirectAttributes.addFlashAttribute("message", "Content refreshed successfully from Confluence");
+            // Refresh runs on the background workers; the request returns immediately
+            if (confluenceRefreshScheduler.refreshNow(id, urlOpt.get().getUrl())) {
+                redirectAttributes.addFlashAttribute("message", "Content refresh from Confluence started");
+            } else {
+                redirectAttributes.addFlashAttribute("message", "Content refresh from Confluence is already in progress");
+            }
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", "Failed to refresh content: " + e.getMessage());
         }
@@ -51,7 +51,9 @@ public class HomeController {
             builder.append("Principal: " + authentication.getPrincipal() + "<br>");
         }
 
-        log.debug("Authentication debug info: {}", builder.toString().replaceAll("<br>", "\n"));
+        if (log.isDebugEnabled()) {
+            log.debug("Authentication debug info: {}", builder.toString().replaceAll("<br>", "\n"));
+        }
 
         return builder.toString();
     }
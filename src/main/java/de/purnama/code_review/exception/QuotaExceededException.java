@@ -0,0 +1,13 @@
+package de.purnama.code_review.exception;
+
+/**
+ * Exception thrown when a user has used up the daily token quota
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+public class QuotaExceededException extends CodeReviewException {
+
+    public QuotaExceededException(String message) {
+        super(message);
+    }
+}
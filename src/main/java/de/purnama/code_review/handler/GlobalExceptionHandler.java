@@ -100,6 +100,22 @@ public class GlobalExceptionHandler {
         return "error/503";
     }
 
+    /**
+     * Handles users who used up their daily token quota
+     */
+    @ExceptionHandler(QuotaExceededException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public String handleQuotaExceededException(QuotaExceededException ex, Model model, HttpServletRequest request) {
+        log.warn("Quota exceeded: {}", ex.getMessage());
+
+        model.addAttribute("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        model.addAttribute("error", "Too Many Requests");
+        model.addAttribute("message", ex.getMessage());
+        model.addAttribute("path", request.getRequestURI());
+
+        return "error/error";
+    }
+
     /**
      * Handles Confluence-related exceptions
      */
@@ -0,0 +1,40 @@
+package de.purnama.code_review.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * CoalescedReview
+ * 
+ * Entity for a finished review that is handed to identical requests on other nodes
+ * 
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "coalesced_reviews")
+public class CoalescedReview {
+
+    // Normalized repository URL, branch and head commit
+    @Id
+    @Column(name = "coalescing_key", columnDefinition = "TEXT")
+    private String coalescingKey;
+
+    // Deflate-compressed JSON of the review response
+    @Column(nullable = false)
+    private byte[] response;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,66 @@
+package de.purnama.code_review.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 
+ * Entity for a finished code review. The review text itself is stored per section in
+ * {@link CodeReviewSection}, so listing reviews never loads it.
+ * 
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "code_reviews")
+public class CodeReview {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Email of the user who requested the review
+    @Column(name = "user_email")
+    private String userEmail;
+
+    @Column(name = "repository_url", columnDefinition = "TEXT", nullable = false)
+    private String repositoryUrl;
+
+    // Deflate-compressed JSON array of the guidelines the review was based on
+    @Column(name = "guidelines")
+    private byte[] guidelines;
+
+    @Column(name = "guideline_tokens_saved")
+    private Integer guidelineTokensSaved;
+
+    @Column(name = "section_count", nullable = false)
+    private int sectionCount;
+
+    // Uncompressed length of the review Markdown in characters
+    @Column(name = "markdown_length", nullable = false)
+    private long markdownLength;
+
+    // Review run whose model calls are in the usage ledger
+    @Column(name = "review_ref")
+    private UUID reviewRef;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
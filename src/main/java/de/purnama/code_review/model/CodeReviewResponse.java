@@ -2,6 +2,10 @@ package de.purnama.code_review.model;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -19,9 +23,39 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class CodeReviewResponse {
+    // review and htmlReview are serialized as stored, not joined, so a sectioned review is
+    // only serialized as its sections
+    @JsonProperty
     private String review;          // Markdown content
+    private List<String> reviewSections;  // Markdown per section of a sectioned review, instead of review
+    @JsonProperty
     private String htmlReview;      // HTML converted content 
+    private List<String> htmlSections;  // HTML per section of a sectioned review, instead of htmlReview
     private List<String> guidelines;
+    private Integer guidelineTokensSaved;  // Estimated prompt tokens saved by guideline selection
     private LocalDateTime timestamp;
     private String repositoryUrl;
+    private UUID reviewRef;         // Review run whose model calls are in the usage ledger
+
+    /**
+     * Markdown of the review; for a sectioned review the sections are joined
+     */
+    @JsonIgnore
+    public String getReview() {
+        if (review == null && reviewSections != null) {
+            return String.join("", reviewSections);
+        }
+        return review;
+    }
+
+    /**
+     * HTML of the review; for a sectioned review the sections are joined
+     */
+    @JsonIgnore
+    public String getHtmlReview() {
+        if (htmlReview == null && htmlSections != null) {
+            return String.join("", htmlSections);
+        }
+        return htmlReview;
+    }
 }
@@ -0,0 +1,47 @@
+package de.purnama.code_review.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 
+ * Entity for one section of a stored code review, usually the review of one file or one
+ * chunk of a large file. Markdown and HTML are stored deflate-compressed; the HTML is
+ * rendered the first time the review is viewed.
+ * 
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "code_review_sections")
+public class CodeReviewSection {
+
+    // Pooled sequence, so the sections of a review are inserted in one batch
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "code_review_sections_seq")
+    @SequenceGenerator(name = "code_review_sections_seq", sequenceName = "code_review_sections_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "code_review_id", nullable = false)
+    private Long codeReviewId;
+
+    @Column(nullable = false)
+    private int position;
+
+    @Column(nullable = false)
+    private byte[] markdown;
+
+    private byte[] html;
+}
@@ -0,0 +1,86 @@
+package de.purnama.code_review.model;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 
+ * Entity recording the progress of a crawl over the pages matched by a CQL query,
+ * so that an interrupted crawl resumes from its last completed result page.
+ * 
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "confluence_crawls")
+public class ConfluenceCrawl {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String cql;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private Status status = Status.RUNNING;
+
+    // Search offset of the first result page that has not been fully ingested yet
+    @Column(name = "next_start", nullable = false)
+    private int nextStart;
+
+    @Column(name = "pages_seen", nullable = false)
+    private int pagesSeen;
+
+    @Column(name = "pages_ingested", nullable = false)
+    private int pagesIngested;
+
+    @Column(name = "pages_skipped", nullable = false)
+    private int pagesSkipped;
+
+    @Column(name = "pages_failed", nullable = false)
+    private int pagesFailed;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    /**
+     * Lifecycle of a crawl; anything but COMPLETED is resumed by the next crawl of the same query
+     */
+    public enum Status {
+        RUNNING,
+        FAILED,
+        COMPLETED
+    }
+}
@@ -58,6 +58,14 @@ public class ConfluenceUrl {
     @Builder.Default
     private boolean active = true;
     
+    // Confluence version.number of the page as last ingested
+    @Column(name = "page_version")
+    private Integer pageVersion;
+    
+    // SHA-256 of the page body as last ingested
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+    
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -77,4 +85,8 @@ public class ConfluenceUrl {
     // Page ID from Confluence
     @Transient
     private String pageId;
+    
+    // Version of the fetched HTML content, recorded as pageVersion once it has been ingested
+    @Transient
+    private Integer fetchedVersion;
 }
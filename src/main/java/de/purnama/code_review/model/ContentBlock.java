@@ -8,14 +8,18 @@ import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.type.SqlTypes;
 
+import de.purnama.code_review.service.ContentBlockChangeListener;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -35,10 +39,13 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "content_blocks")
+@EntityListeners(ContentBlockChangeListener.class)
 public class ContentBlock {
     
+    // Pooled sequence instead of IDENTITY, so inserts of a page's blocks can be JDBC batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "content_blocks_seq")
+    @SequenceGenerator(name = "content_blocks_seq", sequenceName = "content_blocks_id_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -54,6 +61,10 @@ public class ContentBlock {
     
     private Integer sequence;
     
+    // SHA-256 of the content, used to match blocks when a page is re-ingested
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+    
     // Using pgvector-hibernate's Vector type
     @Column(name = "embedding", columnDefinition = "vector(1536)")
     @JdbcTypeCode(SqlTypes.VECTOR)
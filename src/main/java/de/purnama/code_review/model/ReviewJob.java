@@ -0,0 +1,64 @@
+package de.purnama.code_review.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ReviewJob
+ * 
+ * Entity for a review whose files or chunks are reviewed as {@link ReviewWorkUnit}s by any
+ * node. The node that received the request coordinates the job and keeps its heartbeat
+ * fresh; a job without a fresh heartbeat is abandoned and removed with its units.
+ * 
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "review_jobs")
+public class ReviewJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "repository_url", columnDefinition = "TEXT", nullable = false)
+    private String repositoryUrl;
+
+    // Deflate-compressed guidelines, formatted for the prompt
+    private byte[] guidelines;
+
+    // Node that coordinates the job
+    @Column(nullable = false)
+    private String coordinator;
+
+    @Column(name = "unit_count", nullable = false)
+    private int unitCount;
+
+    // Usage of the units is charged to this user and review run
+    @Column(name = "user_email")
+    private String userEmail;
+
+    @Column(name = "review_ref")
+    private UUID reviewRef;
+
+    // Set by the database; written natively so node clocks do not matter
+    @Column(name = "heartbeat_at", insertable = false, updatable = false)
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "created_at", insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,86 @@
+package de.purnama.code_review.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ReviewWorkUnit
+ * 
+ * Entity for the review of one file or chunk of a {@link ReviewJob}. Units are claimed with
+ * FOR UPDATE SKIP LOCKED, so each one is reviewed by a single node at a time.
+ * 
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "review_work_units")
+public class ReviewWorkUnit {
+
+    // Pooled sequence, so the units of a job are inserted in one batch
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "review_work_units_seq")
+    @SequenceGenerator(name = "review_work_units_seq", sequenceName = "review_work_units_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    // Order of the unit's section in the review
+    @Column(nullable = false)
+    private int position;
+
+    // What the prompt calls the reviewed code, e.g. the repository URL and chunk number
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String label;
+
+    // Deflate-compressed code to review
+    @Column(nullable = false)
+    private byte[] content;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    // Node that currently reviews the unit
+    private String owner;
+
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    // Deflate-compressed review Markdown
+    private byte[] result;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    /**
+     * Lifecycle of a unit; RUNNING units without a fresh heartbeat go back to PENDING until
+     * they run out of attempts
+     */
+    public enum Status {
+        PENDING,
+        RUNNING,
+        DONE,
+        FAILED
+    }
+}
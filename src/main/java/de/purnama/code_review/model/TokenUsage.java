@@ -0,0 +1,72 @@
+package de.purnama.code_review.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.hibernate.annotations.Immutable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * TokenUsage
+ * 
+ * Entity for one chat or embedding model call in the append-only usage ledger. The database
+ * rejects updates and deletes, and rolls every entry up into the daily usage of its user.
+ * 
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Data
+@Entity
+@Immutable
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "token_usage")
+public class TokenUsage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "created_at", insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "user_email")
+    private String userEmail;
+
+    @Column(name = "repository_url", columnDefinition = "TEXT")
+    private String repositoryUrl;
+
+    // The review run the call belongs to, shared by all its calls on every node
+    @Column(name = "review_ref")
+    private UUID reviewRef;
+
+    // What the call was for, e.g. review or embedding
+    @Column(nullable = false)
+    private String operation;
+
+    private String model;
+
+    @Column(name = "prompt_tokens", nullable = false)
+    private int promptTokens;
+
+    @Column(name = "completion_tokens", nullable = false)
+    private int completionTokens;
+
+    // Whether the tokens were estimated from the text because the model reported no usage
+    @Column(nullable = false)
+    private boolean estimated;
+
+    @Column(nullable = false)
+    private BigDecimal cost;
+}
@@ -0,0 +1,23 @@
+package de.purnama.code_review.model.git;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A reviewable file found while listing a repository, before its content is downloaded
+ * The id is provider specific (blob sha, download URL) and is used to fetch the content later
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileCandidate {
+    private String path;
+    private String id;
+
+    // Size in bytes, or -1 if the listing does not report it
+    @Builder.Default
+    private long size = -1;
+}
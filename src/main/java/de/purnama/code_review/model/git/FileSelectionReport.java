@@ -0,0 +1,35 @@
+package de.purnama.code_review.model.git;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Collects which reviewable files of a repository were left out of a review and why
+ * Filled in by the Git provider while it selects files, read by the review to tell the user
+ */
+@Data
+public class FileSelectionReport {
+
+    // Number of reviewable files found in the listing
+    private int candidateCount;
+
+    private final List<SkippedFile> skippedFiles = new ArrayList<>();
+
+    public void skip(String path, String reason) {
+        skippedFiles.add(new SkippedFile(path, reason));
+    }
+
+    public boolean hasSkippedFiles() {
+        return !skippedFiles.isEmpty();
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class SkippedFile {
+        private String path;
+        private String reason;
+    }
+}
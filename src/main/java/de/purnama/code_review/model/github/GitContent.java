@@ -14,10 +14,13 @@ public class GitContent {
     private String name;
     private String path;
     private String type;
+    private long size = -1;
 
     @JsonProperty("download_url")
     private String downloadUrl;
 
     private String url;
+
+    @JsonProperty("html_url")
     private String htmlUrl;
 }
@@ -0,0 +1,19 @@
+package de.purnama.code_review.model.github;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+/**
+ * Represents a recursive tree returned from the GitHub git trees API
+ * Truncated is set when the repository is too large to be listed in one response
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class GitTree {
+    private String sha;
+    private List<GitTreeEntry> tree = new ArrayList<>();
+    private boolean truncated;
+}
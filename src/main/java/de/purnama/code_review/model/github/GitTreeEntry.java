@@ -0,0 +1,17 @@
+package de.purnama.code_review.model.github;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+/**
+ * Represents an entry of a GitHub git tree
+ * Type is either "blob" (file), "tree" (directory) or "commit" (submodule)
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class GitTreeEntry {
+    private String path;
+    private String type;
+    private String sha;
+    private long size = -1;
+}
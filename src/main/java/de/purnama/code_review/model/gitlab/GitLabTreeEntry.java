@@ -0,0 +1,18 @@
+package de.purnama.code_review.model.gitlab;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+/**
+ * Represents an entry returned from the GitLab repository tree API
+ * Type is either "blob" (file) or "tree" (directory)
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class GitLabTreeEntry {
+    private String id;
+    private String name;
+    private String type;
+    private String path;
+    private String mode;
+}
@@ -0,0 +1,70 @@
+package de.purnama.code_review.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import de.purnama.code_review.model.CoalescedReview;
+
+/**
+ * CoalescedReviewRepository
+ * 
+ * Repository for reviews shared between nodes and the leases of the nodes reviewing them; ages
+ * and expiry are measured with the database clock so node clocks do not matter
+ * 
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Repository
+public interface CoalescedReviewRepository extends JpaRepository<CoalescedReview, String> {
+
+    @Query(value = "SELECT * FROM coalesced_reviews WHERE coalescing_key = :key "
+            + "AND created_at > now() - (:seconds * INTERVAL '1 second')", nativeQuery = true)
+    Optional<CoalescedReview> findFresh(@Param("key") String key, @Param("seconds") long seconds);
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO coalesced_reviews (coalescing_key, response, created_at) VALUES (:key, :response, now()) "
+            + "ON CONFLICT (coalescing_key) DO UPDATE SET response = EXCLUDED.response, created_at = EXCLUDED.created_at",
+            nativeQuery = true)
+    int upsert(@Param("key") String key, @Param("response") byte[] response);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM coalesced_reviews WHERE created_at < now() - (:seconds * INTERVAL '1 second')", nativeQuery = true)
+    int deleteOlderThan(@Param("seconds") long seconds);
+
+    /**
+     * Claim the lease of a key unless another owner holds an unexpired one; the row lock of the
+     * upsert makes the claim atomic, so no connection is held beyond this statement
+     *
+     * @return 1 if the lease was claimed, 0 if another owner holds it
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO coalesced_review_leases (coalescing_key, owner, expires_at) "
+            + "VALUES (:key, :owner, now() + (:seconds * INTERVAL '1 second')) "
+            + "ON CONFLICT (coalescing_key) DO UPDATE SET owner = EXCLUDED.owner, expires_at = EXCLUDED.expires_at "
+            + "WHERE coalesced_review_leases.expires_at < now()", nativeQuery = true)
+    int claimLease(@Param("key") String key, @Param("owner") String owner, @Param("seconds") long seconds);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE coalesced_review_leases SET expires_at = now() + (:seconds * INTERVAL '1 second') "
+            + "WHERE coalescing_key = :key AND owner = :owner", nativeQuery = true)
+    int renewLease(@Param("key") String key, @Param("owner") String owner, @Param("seconds") long seconds);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM coalesced_review_leases WHERE coalescing_key = :key AND owner = :owner", nativeQuery = true)
+    int releaseLease(@Param("key") String key, @Param("owner") String owner);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM coalesced_review_leases WHERE expires_at < now()", nativeQuery = true)
+    int deleteExpiredLeases();
+}
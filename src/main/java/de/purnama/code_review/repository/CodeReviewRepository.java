@@ -0,0 +1,27 @@
+package de.purnama.code_review.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import de.purnama.code_review.model.CodeReview;
+
+/**
+ * CodeReviewRepository
+ * 
+ * Repository for stored code reviews; listings are served by the (user_email, ..., id) indexes
+ * 
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Repository
+public interface CodeReviewRepository extends JpaRepository<CodeReview, Long> {
+
+    Page<CodeReview> findByUserEmailOrderByIdDesc(String userEmail, Pageable pageable);
+
+    Page<CodeReview> findByUserEmailAndRepositoryUrlOrderByIdDesc(String userEmail, String repositoryUrl, Pageable pageable);
+
+    Optional<CodeReview> findByIdAndUserEmail(Long id, String userEmail);
+}
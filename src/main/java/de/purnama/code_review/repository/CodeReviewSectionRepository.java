@@ -0,0 +1,36 @@
+package de.purnama.code_review.repository;
+
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import de.purnama.code_review.model.CodeReviewSection;
+import jakarta.persistence.QueryHint;
+
+/**
+ * CodeReviewSectionRepository
+ * 
+ * Repository for the sections of stored code reviews
+ * 
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Repository
+public interface CodeReviewSectionRepository extends JpaRepository<CodeReviewSection, Long> {
+
+    /**
+     * Sections of a review in order, fetched a few rows at a time; must be consumed inside a transaction
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "8"))
+    @Query("SELECT s FROM CodeReviewSection s WHERE s.codeReviewId = :codeReviewId ORDER BY s.position")
+    Stream<CodeReviewSection> streamByCodeReviewId(@Param("codeReviewId") Long codeReviewId);
+
+    @Modifying
+    @Query("UPDATE CodeReviewSection s SET s.html = :html WHERE s.id = :id")
+    int updateHtml(@Param("id") Long id, @Param("html") byte[] html);
+}
@@ -0,0 +1,24 @@
+package de.purnama.code_review.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import de.purnama.code_review.model.ConfluenceCrawl;
+
+/**
+ * ConfluenceCrawlRepository
+ * 
+ * Repository for the persisted progress of Confluence crawls
+ * 
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Repository
+public interface ConfluenceCrawlRepository extends JpaRepository<ConfluenceCrawl, Long> {
+
+    Optional<ConfluenceCrawl> findFirstByCqlAndStatusNotOrderByIdDesc(String cql, ConfluenceCrawl.Status status);
+
+    List<ConfluenceCrawl> findTop10ByOrderByIdDesc();
+}
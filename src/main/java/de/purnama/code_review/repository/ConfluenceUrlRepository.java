@@ -1,11 +1,16 @@
 package de.purnama.code_review.repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import de.purnama.code_review.model.ConfluenceUrl;
 
 /**
@@ -24,4 +29,27 @@ public interface ConfluenceUrlRepository extends JpaRepository<ConfluenceUrl, Lo
     // Modified query with better handling to avoid "No results" error
     @Query(value = "SELECT DISTINCT cu FROM ConfluenceUrl cu LEFT JOIN FETCH cu.contentBlocks cb WHERE cu.id = :id")
     Optional<ConfluenceUrl> findByIdWithContentBlocks(@Param("id") Long id);
-}
\ No newline at end of file
+
+    // Active pages never fetched or fetched before the given time, stalest first
+    @Query("SELECT cu FROM ConfluenceUrl cu WHERE cu.active = true AND (cu.lastFetched IS NULL OR cu.lastFetched < :before) ORDER BY cu.lastFetched ASC NULLS FIRST")
+    List<ConfluenceUrl> findDueForRefresh(@Param("before") LocalDateTime before, Pageable pageable);
+
+    // Take the refresh lease if nobody holds it or it expired; the database clock is used so node clocks do not matter
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE confluence_urls SET refresh_lease_owner = :owner, refresh_lease_until = now() + (:seconds * INTERVAL '1 second') "
+            + "WHERE id = :id AND (refresh_lease_until IS NULL OR refresh_lease_until < now())", nativeQuery = true)
+    int acquireRefreshLease(@Param("id") Long id, @Param("owner") String owner, @Param("seconds") long seconds);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE confluence_urls SET refresh_lease_owner = NULL, refresh_lease_until = NULL WHERE id = :id AND refresh_lease_owner = :owner", nativeQuery = true)
+    int releaseRefreshLease(@Param("id") Long id, @Param("owner") String owner);
+
+    // Record a completed ingestion without merging the entity and its block collection
+    @Transactional
+    @Modifying
+    @Query("UPDATE ConfluenceUrl cu SET cu.pageVersion = :version, cu.contentHash = :hash, cu.lastFetched = :fetched WHERE cu.id = :id")
+    int recordIngestion(@Param("id") Long id, @Param("version") Integer version, @Param("hash") String hash,
+                        @Param("fetched") LocalDateTime fetched);
+}
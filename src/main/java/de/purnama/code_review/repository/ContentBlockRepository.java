@@ -28,6 +28,44 @@ public interface ContentBlockRepository extends JpaRepository<ContentBlock, Long
     @Query(value = "SELECT * FROM content_blocks WHERE embedding IS NOT NULL ORDER BY embedding <=> CAST(:embedding AS vector) LIMIT :limit", nativeQuery = true)
     List<ContentBlock> findSimilarContent(@Param("embedding") float[] embedding, @Param("limit") int limit);
 
+    // Hybrid retrieval in one round-trip: the nearest blocks by cosine distance and the best
+    // full-text matches are ranked separately, then fused by reciprocal rank (1 / (k + rank)).
+    // A block found by both rankings adds up both contributions.
+    @Query(value = """
+            WITH vector_hits AS (
+                SELECT id, ROW_NUMBER() OVER (ORDER BY distance) AS rank
+                FROM (SELECT id, embedding <=> CAST(:embedding AS vector) AS distance
+                      FROM content_blocks
+                      WHERE embedding IS NOT NULL
+                      ORDER BY distance
+                      LIMIT :candidates) nearest
+            ),
+            text_hits AS (
+                SELECT id, ROW_NUMBER() OVER (ORDER BY score DESC) AS rank
+                FROM (SELECT cb.id, ts_rank_cd(cb.search_vector, query) AS score
+                      FROM content_blocks cb, websearch_to_tsquery('simple', :terms) query
+                      WHERE cb.search_vector @@ query
+                      ORDER BY score DESC
+                      LIMIT :candidates) matches
+            ),
+            fused AS (
+                SELECT id, SUM(1.0 / (:rrfK + rank)) AS score
+                FROM (SELECT id, rank FROM vector_hits
+                      UNION ALL
+                      SELECT id, rank FROM text_hits) hits
+                GROUP BY id
+            )
+            SELECT cb.* FROM content_blocks cb
+            JOIN fused ON fused.id = cb.id
+            ORDER BY fused.score DESC, cb.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<ContentBlock> findHybridContent(@Param("embedding") float[] embedding,
+                                         @Param("terms") String terms,
+                                         @Param("candidates") int candidates,
+                                         @Param("rrfK") int rrfK,
+                                         @Param("limit") int limit);
+
     // Native query for findAll - useful as a fallback
     @Query(value = "SELECT * FROM content_blocks", nativeQuery = true)
     List<ContentBlock> findAllNative();
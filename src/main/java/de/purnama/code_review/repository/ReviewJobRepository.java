@@ -0,0 +1,32 @@
+package de.purnama.code_review.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import de.purnama.code_review.model.ReviewJob;
+
+/**
+ * ReviewJobRepository
+ * 
+ * Repository for distributed review jobs; heartbeats use the database clock so node clocks do not matter
+ * 
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Repository
+public interface ReviewJobRepository extends JpaRepository<ReviewJob, Long> {
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE review_jobs SET heartbeat_at = now() WHERE id = :id", nativeQuery = true)
+    int heartbeat(@Param("id") Long id);
+
+    // Jobs whose coordinator stopped; their units are removed with them
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM review_jobs WHERE heartbeat_at < now() - (:seconds * INTERVAL '1 second')", nativeQuery = true)
+    int deleteAbandoned(@Param("seconds") long seconds);
+}
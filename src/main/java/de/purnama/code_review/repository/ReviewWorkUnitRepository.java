@@ -0,0 +1,75 @@
+package de.purnama.code_review.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import de.purnama.code_review.model.ReviewWorkUnit;
+
+/**
+ * ReviewWorkUnitRepository
+ * 
+ * Repository for the units of distributed review jobs. Every state change after the claim is
+ * guarded by the owner, so a node that lost a unit to a retry cannot overwrite it.
+ * 
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Repository
+public interface ReviewWorkUnitRepository extends JpaRepository<ReviewWorkUnit, Long> {
+
+    /**
+     * Lock pending units, oldest first, skipping units another node is claiming; must be called in a transaction
+     */
+    @Query(value = "SELECT * FROM review_work_units WHERE status = 'PENDING' ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<ReviewWorkUnit> lockPending(@Param("limit") int limit);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE review_work_units SET status = 'RUNNING', owner = :owner, attempts = attempts + 1, heartbeat_at = now() "
+            + "WHERE id IN (:ids)", nativeQuery = true)
+    int markClaimed(@Param("ids") Collection<Long> ids, @Param("owner") String owner);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE review_work_units SET status = 'DONE', result = :result, owner = NULL, last_error = NULL "
+            + "WHERE id = :id AND owner = :owner AND status = 'RUNNING'", nativeQuery = true)
+    int complete(@Param("id") Long id, @Param("owner") String owner, @Param("result") byte[] result);
+
+    // Back to the queue, or FAILED once the unit ran out of attempts
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE review_work_units SET status = CASE WHEN attempts >= :maxAttempts THEN 'FAILED' ELSE 'PENDING' END, "
+            + "owner = NULL, last_error = :error WHERE id = :id AND owner = :owner AND status = 'RUNNING'", nativeQuery = true)
+    int fail(@Param("id") Long id, @Param("owner") String owner, @Param("error") String error,
+             @Param("maxAttempts") int maxAttempts);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE review_work_units SET heartbeat_at = now() WHERE owner = :owner AND status = 'RUNNING'", nativeQuery = true)
+    int heartbeat(@Param("owner") String owner);
+
+    // Units of a node that is shutting down go back to the queue without using up an attempt
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE review_work_units SET status = 'PENDING', owner = NULL, attempts = GREATEST(attempts - 1, 0) "
+            + "WHERE owner = :owner AND status = 'RUNNING'", nativeQuery = true)
+    int release(@Param("owner") String owner);
+
+    // Units whose node stopped sending heartbeats
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE review_work_units SET status = CASE WHEN attempts >= :maxAttempts THEN 'FAILED' ELSE 'PENDING' END, "
+            + "owner = NULL, last_error = 'Abandoned by node ' || owner "
+            + "WHERE status = 'RUNNING' AND heartbeat_at < now() - (:seconds * INTERVAL '1 second')", nativeQuery = true)
+    int requeueAbandoned(@Param("seconds") long seconds, @Param("maxAttempts") int maxAttempts);
+
+    long countByJobIdAndStatusIn(Long jobId, Collection<ReviewWorkUnit.Status> statuses);
+
+    List<ReviewWorkUnit> findByJobIdOrderByPosition(Long jobId);
+}
@@ -0,0 +1,28 @@
+package de.purnama.code_review.repository;
+
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import de.purnama.code_review.model.TokenUsage;
+
+/**
+ * TokenUsageRepository
+ * 
+ * Repository for the usage ledger; daily totals are read from the rollup the database keeps
+ * 
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Repository
+public interface TokenUsageRepository extends JpaRepository<TokenUsage, Long> {
+
+    @Query(value = "SELECT coalesce(sum(prompt_tokens + completion_tokens), 0) FROM token_usage_daily "
+            + "WHERE day = CURRENT_DATE AND user_email = :userEmail", nativeQuery = true)
+    long sumTokensToday(@Param("userEmail") String userEmail);
+
+    @Query("SELECT coalesce(sum(u.promptTokens + u.completionTokens), 0) FROM TokenUsage u WHERE u.reviewRef = :reviewRef")
+    long sumTokensOfReview(@Param("reviewRef") UUID reviewRef);
+}
@@ -0,0 +1,33 @@
+package de.purnama.code_review.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+
+/**
+ * Resolves the email of the signed-in user, which identifies a user across OAuth2 providers
+ */
+public final class AuthenticatedUser {
+
+    private AuthenticatedUser() {
+    }
+
+    /**
+     * Email of the authenticated user
+     *
+     * @param authentication The current authentication, may be null
+     * @return The email, the principal name if the provider did not share an email, or null
+     */
+    public static String emailOf(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof CustomOAuth2User customUser && customUser.getEmail() != null) {
+            return customUser.getEmail();
+        }
+        if (principal instanceof OAuth2User oAuth2User && oAuth2User.getAttribute("email") != null) {
+            return oAuth2User.getAttribute("email");
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,235 @@
+package de.purnama.code_review.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.purnama.code_review.model.CodeReview;
+import de.purnama.code_review.model.CodeReviewResponse;
+import de.purnama.code_review.model.CodeReviewSection;
+import de.purnama.code_review.repository.CodeReviewRepository;
+import de.purnama.code_review.repository.CodeReviewSectionRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * CodeReviewHistoryService
+ *
+ * Stores finished reviews and reads them back. Each section of a review is stored as its own
+ * row with deflate-compressed Markdown; HTML is kept when the review already rendered it and
+ * is otherwise rendered and stored on first view. Reading a review walks its sections with a
+ * database cursor, so a download never holds the whole review in memory.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CodeReviewHistoryService {
+
+    private static final TypeReference<List<String>> STRING_LIST = new TypeReference<>() {
+    };
+
+    private final CodeReviewRepository codeReviewRepository;
+    private final CodeReviewSectionRepository sectionRepository;
+    private final MarkdownConverter markdownConverter;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Store a finished review
+     *
+     * @param response  The review
+     * @param userEmail Email of the user who requested it
+     * @return The stored review
+     */
+    @Transactional
+    public CodeReview save(CodeReviewResponse response, String userEmail) {
+        List<String> markdownSections = response.getReviewSections() != null
+                ? response.getReviewSections()
+                : List.of(response.getReview() != null ? response.getReview() : "");
+        List<String> htmlSections = response.getHtmlSections() != null
+                ? response.getHtmlSections()
+                : response.getHtmlReview() != null ? List.of(response.getHtmlReview()) : null;
+        if (htmlSections != null && htmlSections.size() != markdownSections.size()) {
+            htmlSections = null;
+        }
+
+        long markdownLength = 0;
+        for (String section : markdownSections) {
+            markdownLength += section.length();
+        }
+
+        CodeReview review = codeReviewRepository.save(CodeReview.builder()
+                .userEmail(userEmail)
+                .repositoryUrl(response.getRepositoryUrl())
+                .guidelines(CompressedText.compress(toJson(response.getGuidelines())))
+                .guidelineTokensSaved(response.getGuidelineTokensSaved())
+                .sectionCount(markdownSections.size())
+                .markdownLength(markdownLength)
+                .reviewRef(response.getReviewRef())
+                .build());
+
+        List<CodeReviewSection> sections = new ArrayList<>(markdownSections.size());
+        for (int i = 0; i < markdownSections.size(); i++) {
+            String html = htmlSections != null ? htmlSections.get(i) : null;
+            sections.add(CodeReviewSection.builder()
+                    .codeReviewId(review.getId())
+                    .position(i)
+                    .markdown(CompressedText.compress(markdownSections.get(i)))
+                    .html(html != null ? CompressedText.compress(html) : null)
+                    .build());
+        }
+        sectionRepository.saveAll(sections);
+
+        log.info("Stored review {} of {} with {} sections ({} characters)",
+                review.getId(), review.getRepositoryUrl(), sections.size(), markdownLength);
+        return review;
+    }
+
+    /**
+     * A page of a user's reviews, newest first
+     *
+     * @param userEmail     Email of the user
+     * @param repositoryUrl Only reviews of this repository URL; null or blank for all
+     * @param pageable      The page to return
+     * @return The reviews without their text
+     */
+    @Transactional(readOnly = true)
+    public Page<CodeReview> findReviews(String userEmail, String repositoryUrl, Pageable pageable) {
+        if (repositoryUrl == null || repositoryUrl.isBlank()) {
+            return codeReviewRepository.findByUserEmailOrderByIdDesc(userEmail, pageable);
+        }
+        return codeReviewRepository.findByUserEmailAndRepositoryUrlOrderByIdDesc(userEmail, repositoryUrl.trim(), pageable);
+    }
+
+    /**
+     * A review of a user
+     *
+     * @param id        Id of the review
+     * @param userEmail Email of the user; reviews of other users are not found
+     */
+    @Transactional(readOnly = true)
+    public Optional<CodeReview> findReview(Long id, String userEmail) {
+        return codeReviewRepository.findByIdAndUserEmail(id, userEmail);
+    }
+
+    /**
+     * Guidelines a stored review was based on
+     */
+    public List<String> getGuidelines(CodeReview review) {
+        String json = CompressedText.decompress(review.getGuidelines());
+        if (json == null || json.isEmpty()) {
+            return List.of();
+        }
+        try {
+            return objectMapper.readValue(json, STRING_LIST);
+        } catch (JsonProcessingException e) {
+            log.warn("Cannot read guidelines of review {}: {}", review.getId(), e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * HTML of each section of a review; sections viewed for the first time are rendered and
+     * their HTML is stored
+     *
+     * @param reviewId Id of the review
+     * @return The HTML sections in order
+     */
+    @Transactional
+    public List<String> getHtmlSections(Long reviewId) {
+        List<String> htmlSections = new ArrayList<>();
+        try (Stream<CodeReviewSection> sections = sectionRepository.streamByCodeReviewId(reviewId)) {
+            sections.forEach(section -> {
+                htmlSections.add(htmlOf(section));
+                entityManager.detach(section);
+            });
+        }
+        return htmlSections;
+    }
+
+    /**
+     * Write the Markdown of a review section by section
+     *
+     * @param reviewId Id of the review
+     * @param out      Receives the UTF-8 Markdown
+     * @throws IOException If writing fails
+     */
+    @Transactional(readOnly = true)
+    public void writeMarkdown(Long reviewId, OutputStream out) throws IOException {
+        try (Stream<CodeReviewSection> sections = sectionRepository.streamByCodeReviewId(reviewId)) {
+            sections.forEach(section -> {
+                try {
+                    CompressedText.decompressTo(section.getMarkdown(), out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                entityManager.detach(section);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Write the HTML of a review section by section; sections without stored HTML are rendered
+     * straight into the writer
+     *
+     * @param reviewId Id of the review
+     * @param out      Receives the HTML
+     * @throws IOException If writing fails
+     */
+    @Transactional(readOnly = true)
+    public void writeHtml(Long reviewId, Writer out) throws IOException {
+        try (Stream<CodeReviewSection> sections = sectionRepository.streamByCodeReviewId(reviewId)) {
+            sections.forEach(section -> {
+                try {
+                    if (section.getHtml() != null) {
+                        out.write(CompressedText.decompress(section.getHtml()));
+                    } else {
+                        markdownConverter.convertMarkdownToHtml(CompressedText.decompress(section.getMarkdown()), out);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                entityManager.detach(section);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private String htmlOf(CodeReviewSection section) {
+        if (section.getHtml() != null) {
+            return CompressedText.decompress(section.getHtml());
+        }
+        String html = markdownConverter.convertMarkdownToHtml(CompressedText.decompress(section.getMarkdown()));
+        sectionRepository.updateHtml(section.getId(), CompressedText.compress(html));
+        return html;
+    }
+
+    private String toJson(List<String> guidelines) {
+        try {
+            return objectMapper.writeValueAsString(guidelines != null ? guidelines : List.of());
+        } catch (JsonProcessingException e) {
+            // A list of strings always serializes
+            throw new IllegalStateException(e);
+        }
+    }
+}
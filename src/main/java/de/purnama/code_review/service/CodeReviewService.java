@@ -3,12 +3,16 @@ package de.purnama.code_review.service;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
+import de.purnama.code_review.model.git.FileSelectionReport;
 import de.purnama.code_review.model.git.GitFile;
 import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.model.ChatModel;
@@ -25,8 +29,11 @@ import de.purnama.code_review.exception.RequestInterruptedException;
 import de.purnama.code_review.model.CodeReviewRequest;
 import de.purnama.code_review.model.CodeReviewResponse;
 import de.purnama.code_review.model.ContentBlock;
+import de.purnama.code_review.service.git.ContentClassifier;
 import de.purnama.code_review.service.git.GitProvider;
 import de.purnama.code_review.service.git.GitProviderFactory;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -48,16 +55,25 @@ public class CodeReviewService {
     private final OpenAIConfig openAIConfig;
     private final MarkdownConverter markdownConverter;
     private final GitProviderFactory gitProviderFactory;
+    private final ContentClassifier contentClassifier;
+    private final GuidelineSelector guidelineSelector;
+    private final GuidelineBundleCache guidelineBundleCache;
+    private final ReviewCoalescer reviewCoalescer;
+    private final ReviewWorkQueue reviewWorkQueue;
+    private final ReviewMetrics reviewMetrics;
+    private final ReviewTracing reviewTracing;
+    private final UsageLedger usageLedger;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     // Configurable timeout for reactive operations
     private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
 
-    // List of file extensions to include (can be expanded)
-    private static final List<String> SUPPORTED_EXTENSIONS = Arrays.asList(
-            ".java", ".js", ".ts", ".py", ".rb", ".c", ".cpp", ".cs", ".go", ".php",
-            ".html", ".css", ".scss", ".json", ".xml", ".yaml", ".yml"
-    );
+    // Skipped files listed by name in the review; the rest are only counted
+    private static final int MAX_LISTED_SKIPPED_FILES = 50;
+
+    // Per-chunk and per-file debug messages, at most one per second each
+    private static final LogSampler CHUNK_LOG = new LogSampler(Duration.ofSeconds(1));
+    private static final LogSampler SKIP_LOG = new LogSampler(Duration.ofSeconds(1));
 
     private static final String REVIEW_PROMPT_TEMPLATE = """
             You are an expert code reviewer with a deep understanding of software engineering best practices.
@@ -102,8 +118,20 @@ public class CodeReviewService {
     /**
      * Processes a code review and returns the results to the client
      * Uses server-side markdown to HTML conversion
+     * Identical requests (same repository, branch and head commit) that arrive while the
+     * review is running share its result
      */
     public CodeReviewResponse reviewCode(CodeReviewRequest request) throws CodeReviewException, GitProviderException {
+        return reviewCode(request, null);
+    }
+
+    /**
+     * Processes a code review for a user; the model calls of the review are charged to the user
+     * in the usage ledger, and project reviews are refused once the user's daily quota is used up
+     *
+     * @param userEmail The signed-in user, or null
+     */
+    public CodeReviewResponse reviewCode(CodeReviewRequest request, String userEmail) throws CodeReviewException, GitProviderException {
         // Use the generic repositoryUrl getter
         String repositoryUrl = request.getRepositoryUrl();
         log.info("Starting code review for repository URL: {}", repositoryUrl);
@@ -121,13 +149,51 @@ public class CodeReviewService {
             throw new InvalidCodeReviewRequestException("Could not extract repository information from URL. Please provide a valid repository URL.");
         }
 
-        // Check if URL points to a specific file or the whole repository
-        if (repoInfo.get("path") != null && !repoInfo.get("path").isEmpty()) {
-            // Single file review
-            return reviewSingleFile(repositoryUrl);
-        } else {
-            // Project review
-            return reviewProject(owner, repo, branch, repositoryUrl);
+        boolean singleFile = repoInfo.get("path") != null && !repoInfo.get("path").isEmpty();
+        if (!singleFile) {
+            // Checked before coalescing, so a caller who joins an identical running review is checked against their own quota
+            usageLedger.checkQuota(userEmail);
+        }
+
+        // Identical requests are only recognised by commit when coalescing is on; resolving it costs a request
+        ReviewCoalescer.ReviewKey key = reviewCoalescer.isEnabled()
+                ? ReviewCoalescer.ReviewKey.of(repositoryUrl, branch, gitProvider.resolveHeadCommit(owner, repo, branch))
+                : null;
+
+        Timer.Sample sample = reviewMetrics.start();
+        Observation observation = reviewTracing.start("code.review", "review " + (singleFile ? "file" : "project"))
+                .lowCardinalityKeyValue("review.type", singleFile ? "file" : "project")
+                .highCardinalityKeyValue("repository.url", repositoryUrl);
+        boolean success = false;
+        boolean[] ranHere = new boolean[1];
+        UUID reviewRef = UUID.randomUUID();
+        try (Observation.Scope scope = observation.openScope();
+             UsageLedger.Scope usage = UsageLedger.attribute(new UsageLedger.Attribution(userEmail, repositoryUrl, reviewRef))) {
+            CodeReviewResponse response = reviewCoalescer.review(key, () -> {
+                ranHere[0] = true;
+                CodeReviewResponse result;
+                // Check if URL points to a specific file or the whole repository
+                if (singleFile) {
+                    // Single file review
+                    result = reviewSingleFile(repositoryUrl);
+                } else {
+                    // Project review
+                    result = reviewProject(owner, repo, branch, repositoryUrl);
+                }
+                // Identical requests share the run, and with it its ledger entries
+                result.setReviewRef(reviewRef);
+                return result;
+            });
+            success = true;
+            return response;
+        } catch (Exception e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            // A review that did not run here was shared with an identical one that was running
+            observation.highCardinalityKeyValue("review.coalesced", String.valueOf(!ranHere[0]));
+            observation.stop();
+            reviewMetrics.review(sample, singleFile ? "file" : "project", success);
         }
     }
 
@@ -137,18 +203,39 @@ public class CodeReviewService {
     private CodeReviewResponse reviewSingleFile(String repositoryUrl) throws CodeReviewException, AIModelException, GitProviderException {
         // Fetch code content from Git provider
         GitProvider gitProvider = gitProviderFactory.getProvider(repositoryUrl);
-        String codeContent = gitProvider.fetchFileContent(repositoryUrl);
-
-        // Find relevant guidelines using embeddings-based similarity search
-        List<ContentBlock> relevantBlocks = embeddingService.findSimilarContent(codeContent, openAIConfig.getContentBlocksLimit());
-
-        // Extract and format the content from relevant blocks
-        List<String> relevantGuidelines = relevantBlocks.stream()
-                .map(block -> {
-                    String title = block.getTitle() != null ? block.getTitle() : "Guideline";
-                    return "# " + title + "\n" + block.getContent();
-                })
-                .collect(Collectors.toList());
+        Timer.Sample fetch = reviewMetrics.start();
+        Observation fetchSpan = reviewTracing.start("code.review.fetch", "fetch file");
+        String codeContent;
+        try (Observation.Scope scope = fetchSpan.openScope()) {
+            codeContent = gitProvider.fetchFileContent(repositoryUrl);
+            fetchSpan.highCardinalityKeyValue("file.characters", String.valueOf(codeContent.length()));
+        } catch (Exception e) {
+            fetchSpan.error(e);
+            throw e;
+        } finally {
+            fetchSpan.stop();
+        }
+        reviewMetrics.stage(fetch, ReviewMetrics.STAGE_FETCH);
+
+        // Use the cached guidelines of the file type, or search them with the file's content
+        int limit = openAIConfig.getContentBlocksLimit();
+        Timer.Sample retrieval = reviewMetrics.start();
+        Observation retrievalSpan = reviewTracing.start("code.review.retrieval", "find guidelines");
+        GuidelineSelector.Selection selection;
+        try (Observation.Scope scope = retrievalSpan.openScope()) {
+            Optional<GuidelineSelector.Selection> bundle = guidelineBundleCache.bundleFor(repositoryUrl);
+            retrievalSpan.lowCardinalityKeyValue("guidelines.cache", bundle.isPresent() ? "hit" : "miss");
+            selection = bundle.orElseGet(() -> {
+                List<ContentBlock> relevantBlocks = embeddingService.findSimilarContent(
+                        codeContent, guidelineSelector.candidateCount(limit));
+                // Drop repeated rules, merge neighbouring blocks and fit them to the token budget
+                return guidelineSelector.select(relevantBlocks, limit);
+            });
+        } finally {
+            retrievalSpan.stop();
+        }
+        reviewMetrics.stage(retrieval, ReviewMetrics.STAGE_RETRIEVAL);
+        List<String> relevantGuidelines = selection.guidelines();
 
         String formattedGuidelines = String.join("\n\n", relevantGuidelines);
 
@@ -162,6 +249,7 @@ public class CodeReviewService {
             if (response.getReview() != null && response.getReview().contains("Error processing this chunk")) {
                 throw new AIModelException("AI model error: " + response.getReview());
             }
+            response.setGuidelineTokensSaved(selection.tokensSaved());
             return response;
         }
 
@@ -176,17 +264,20 @@ public class CodeReviewService {
         // Generate code review using the LLM
         UserMessage userMessage = new UserMessage(promptContent);
         Prompt prompt = new Prompt(userMessage);
-        ChatResponse response = chatModel.call(prompt);
+        ChatResponse response = callModel(prompt, promptContent.length());
         String review = response.getResult().getOutput().getText();
 
         // Convert markdown to HTML
+        Timer.Sample rendering = reviewMetrics.start();
         String htmlReview = markdownConverter.convertMarkdownToHtml(review);
+        reviewMetrics.stage(rendering, ReviewMetrics.STAGE_RENDERING);
 
         // Build and return the response
         return CodeReviewResponse.builder()
                 .review(review)
                 .htmlReview(htmlReview)
                 .guidelines(relevantGuidelines)
+                .guidelineTokensSaved(selection.tokensSaved())
                 .timestamp(LocalDateTime.now())
                 .repositoryUrl(repositoryUrl)
                 .build();
@@ -231,17 +322,27 @@ public class CodeReviewService {
             return new ChunkProcessingResult(review.toString(), 1);
         }
 
+        if (reviewWorkQueue.isEnabled()) {
+            return processFileChunksOnWorkQueue(repositoryUrl, codeContent, formattedGuidelines, chunkSize);
+        }
+
+        long chunkingNanos = System.nanoTime();
         int totalChunks = calculateTotalChunks(codeContent, chunkSize);
+        chunkingNanos = System.nanoTime() - chunkingNanos;
 
         log.info("Estimated {} chunks needed for file", totalChunks);
 
-        StringBuilder finalReview = createInitialReviewBuilder(totalChunks);
+        // Each chunk's review is rendered as soon as it completes
+        SectionedMarkdown finalReview = new SectionedMarkdown(markdownConverter);
+        finalReview.addSection(createInitialReviewBuilder(totalChunks));
 
         int currentChunk = 1;
         int start = 0;
 
         while (start < codeContent.length() && currentChunk <= totalChunks) {
+            long boundaryStart = System.nanoTime();
             int end = calculateChunkEndPosition(codeContent, start, chunkSize);
+            chunkingNanos += System.nanoTime() - boundaryStart;
 
             // Safety check: ensure we're making progress
             if (end <= start) {
@@ -251,8 +352,18 @@ public class CodeReviewService {
 
             String chunk = codeContent.substring(start, end);
 
-            String chunkResult = processChunkSafely(repositoryUrl, chunk, formattedGuidelines, currentChunk, totalChunks);
-            appendChunkResult(finalReview, chunkResult, currentChunk, totalChunks);
+            String chunkResult;
+            Observation chunkSpan = reviewTracing.start("code.review.chunk", "review chunk")
+                    .highCardinalityKeyValue("chunk.number", String.valueOf(currentChunk))
+                    .highCardinalityKeyValue("chunk.characters", String.valueOf(chunk.length()));
+            try (Observation.Scope scope = chunkSpan.openScope()) {
+                chunkResult = processChunkSafely(repositoryUrl, chunk, formattedGuidelines, currentChunk, totalChunks);
+            } finally {
+                chunkSpan.stop();
+            }
+            StringBuilder chunkReview = new StringBuilder();
+            appendChunkResult(chunkReview, chunkResult, currentChunk, totalChunks);
+            finalReview.addSection(chunkReview);
 
             start = end;
             currentChunk++;
@@ -261,9 +372,72 @@ public class CodeReviewService {
             performPeriodicMemoryCleanup(currentChunk);
         }
 
-        finalReview.append(createFinalSummary());
+        finalReview.addSection(createFinalSummary());
+        reviewMetrics.stage(ReviewMetrics.STAGE_CHUNKING, chunkingNanos);
+        reviewMetrics.chunks(currentChunk - 1);
+
+        return new ChunkProcessingResult(finalReview, totalChunks);
+    }
+
+    /**
+     * Review the chunks of a large file as units of the work queue, so any node can take them
+     */
+    private ChunkProcessingResult processFileChunksOnWorkQueue(String repositoryUrl, String codeContent,
+                                                               String formattedGuidelines, int chunkSize)
+            throws CodeReviewException {
+        Timer.Sample chunking = reviewMetrics.start();
+        List<String> chunks = splitCodeIntoChunks(codeContent, chunkSize);
+        reviewMetrics.stage(chunking, ReviewMetrics.STAGE_CHUNKING);
+        int totalChunks = chunks.size();
+        reviewMetrics.chunks(totalChunks);
+        log.info("Queueing {} chunks of {} for review", totalChunks, repositoryUrl);
+
+        List<ReviewWorkQueue.WorkItem> items = new ArrayList<>(totalChunks);
+        for (int i = 0; i < totalChunks; i++) {
+            items.add(new ReviewWorkQueue.WorkItem(
+                    repositoryUrl + " (Chunk " + (i + 1) + " of " + totalChunks + ")", chunks.get(i)));
+        }
+        List<ReviewWorkQueue.UnitResult> results = reviewWorkQueue.run(repositoryUrl, formattedGuidelines, items);
+
+        SectionedMarkdown finalReview = new SectionedMarkdown(markdownConverter);
+        finalReview.addSection(createInitialReviewBuilder(totalChunks));
+        for (int i = 0; i < totalChunks; i++) {
+            ReviewWorkQueue.UnitResult result = results.get(i);
+            StringBuilder chunkReview = new StringBuilder();
+            appendChunkResult(chunkReview,
+                    result.isDone() ? result.review() : "Error processing this chunk: " + result.error(),
+                    i + 1, totalChunks);
+            finalReview.addSection(chunkReview);
+        }
+        finalReview.addSection(createFinalSummary());
+
+        return new ChunkProcessingResult(finalReview, totalChunks);
+    }
 
-        return new ChunkProcessingResult(finalReview.toString(), totalChunks);
+    /**
+     * Review one unit of the work queue, whichever node queued it
+     *
+     * @param label               What the prompt calls the code, e.g. the repository URL and chunk number
+     * @param formattedGuidelines The guidelines of the unit's job
+     * @param content             The code to review
+     * @return The review text
+     * @throws AIModelException            If the AI model fails to generate a review
+     * @throws RequestInterruptedException If the request is interrupted
+     */
+    public String reviewWorkUnit(String label, String formattedGuidelines, String content)
+            throws AIModelException, RequestInterruptedException {
+        Observation observation = reviewTracing.start("code.review.unit", "review work unit")
+                .highCardinalityKeyValue("unit.label", label)
+                .highCardinalityKeyValue("unit.characters", String.valueOf(content.length()));
+        try (Observation.Scope scope = observation.openScope()) {
+            String prompt = String.format(REVIEW_PROMPT_TEMPLATE, label, formattedGuidelines, content);
+            return generateAIReview(prompt, label);
+        } catch (Exception e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
     }
 
     /**
@@ -321,11 +495,21 @@ public class CodeReviewService {
      * Build the final CodeReviewResponse from processed chunks
      */
     protected CodeReviewResponse buildChunkedReviewResponse(ChunkProcessingResult result, List<String> relevantGuidelines, String repositoryUrl) {
-        String htmlReview = markdownConverter.convertMarkdownToHtml(result.getReview());
+        // Sectioned results were rendered chunk by chunk
+        SectionedMarkdown sections = result.getSections();
+        Timer.Sample rendering = reviewMetrics.start();
+        String htmlReview = sections == null ? markdownConverter.convertMarkdownToHtml(result.getReview()) : null;
+        if (sections == null) {
+            reviewMetrics.stage(rendering, ReviewMetrics.STAGE_RENDERING);
+        } else {
+            reviewMetrics.stage(ReviewMetrics.STAGE_RENDERING, sections.getRenderNanos());
+        }
 
         return CodeReviewResponse.builder()
-                .review(result.getReview())
+                .review(sections == null ? result.getReview() : null)
+                .reviewSections(sections == null ? null : sections.getMarkdownSections())
                 .htmlReview(htmlReview)
+                .htmlSections(sections == null ? null : sections.getHtmlSections())
                 .guidelines(relevantGuidelines)
                 .timestamp(LocalDateTime.now())
                 .repositoryUrl(repositoryUrl)
@@ -337,14 +521,23 @@ public class CodeReviewService {
      */
     protected static class ChunkProcessingResult {
         private final String review;
+        private final SectionedMarkdown sections;
         private final int totalChunks;
 
         public ChunkProcessingResult(String review, int totalChunks) {
             this.review = review;
+            this.sections = null;
+            this.totalChunks = totalChunks;
+        }
+
+        public ChunkProcessingResult(SectionedMarkdown sections, int totalChunks) {
+            this.review = null;
+            this.sections = sections;
             this.totalChunks = totalChunks;
         }
 
-        public String getReview() { return review; }
+        public String getReview() { return sections != null ? sections.getMarkdown() : review; }
+        public SectionedMarkdown getSections() { return sections; }
         public int getTotalChunks() { return totalChunks; }
     }
 
@@ -417,7 +610,13 @@ public class CodeReviewService {
      */
     protected String processIndividualChunk(String repositoryUrl, String chunk, String formattedGuidelines,
                                             int chunkNumber, int totalChunks) throws AIModelException {
-        log.info("Processing chunk {} of {}, size: {} characters", chunkNumber, totalChunks, chunk.length());
+        if (log.isDebugEnabled()) {
+            long leftOut = CHUNK_LOG.pass();
+            if (leftOut >= 0) {
+                log.debug("Processing chunk {} of {}, size: {} characters ({} chunk messages left out)",
+                        chunkNumber, totalChunks, chunk.length(), leftOut);
+            }
+        }
 
         String chunkPrompt = String.format(
                 REVIEW_PROMPT_TEMPLATE,
@@ -428,7 +627,7 @@ public class CodeReviewService {
 
         UserMessage userMessage = new UserMessage(chunkPrompt);
         Prompt prompt = new Prompt(userMessage);
-        ChatResponse response = chatModel.call(prompt);
+        ChatResponse response = callModel(prompt, chunkPrompt.length());
         if (response == null) {
             throw new AIModelException("AI model returned null response for file: " + repositoryUrl);
         }
@@ -537,8 +736,22 @@ public class CodeReviewService {
             throws CodeReviewException, GitProviderException {
         log.info("Starting project review for {}/{} on branch {}", owner, repo, branch);
 
-        // Step 1: Fetch repository files
-        List<GitFile> filesToReview = fetchRepositoryFilesForReview(owner, repo, branch, repositoryUrl);
+        // Step 1: Fetch the highest ranked repository files
+        FileSelectionReport selectionReport = new FileSelectionReport();
+        Timer.Sample fetch = reviewMetrics.start();
+        Observation fetchSpan = reviewTracing.start("code.review.fetch", "fetch repository files");
+        List<GitFile> filesToReview;
+        try (Observation.Scope scope = fetchSpan.openScope()) {
+            filesToReview = excludeUnreviewableContent(
+                    fetchRepositoryFilesForReview(owner, repo, branch, repositoryUrl, selectionReport), selectionReport);
+            fetchSpan.highCardinalityKeyValue("files", String.valueOf(filesToReview == null ? 0 : filesToReview.size()));
+        } catch (Exception e) {
+            fetchSpan.error(e);
+            throw e;
+        } finally {
+            fetchSpan.stop();
+        }
+        reviewMetrics.stage(fetch, ReviewMetrics.STAGE_FETCH);
 
         // Step 2: If no files to review, return early
         if (filesToReview == null || filesToReview.isEmpty()) {
@@ -546,13 +759,24 @@ public class CodeReviewService {
         }
 
         // Step 3: Find relevant guidelines
-        List<String> relevantGuidelines = findRelevantGuidelines(filesToReview);
+        Timer.Sample retrieval = reviewMetrics.start();
+        Observation retrievalSpan = reviewTracing.start("code.review.retrieval", "find guidelines");
+        GuidelineSelector.Selection guidelines;
+        try (Observation.Scope scope = retrievalSpan.openScope()) {
+            guidelines = findRelevantGuidelines(filesToReview);
+        } finally {
+            retrievalSpan.stop();
+        }
+        reviewMetrics.stage(retrieval, ReviewMetrics.STAGE_RETRIEVAL);
 
-        // Step 4: Process all repository files
-        String review = processAllRepositoryFiles(filesToReview, repositoryUrl, relevantGuidelines);
+        // Step 4: Process all repository files and tell the user what was left out
+        SectionedMarkdown review = processAllRepositoryFiles(filesToReview, repositoryUrl, guidelines.guidelines());
+        review.addSection(describeSkippedFiles(selectionReport));
 
         // Step 5: Build and return the response
-        return buildProjectReviewResponse(review, relevantGuidelines, repositoryUrl);
+        CodeReviewResponse response = buildProjectReviewResponse(review, guidelines.guidelines(), repositoryUrl);
+        response.setGuidelineTokensSaved(guidelines.tokensSaved());
+        return response;
 
 
     }
@@ -564,25 +788,101 @@ public class CodeReviewService {
      * @param repo the repository name
      * @param branch the branch to review
      * @param repositoryUrl the repository URL
+     * @param selectionReport receives the files that were not selected for review
      * @return list of files to review
      * @throws GitProviderException if there's an error fetching files
      */
-    private List<GitFile> fetchRepositoryFilesForReview(String owner, String repo, String branch, String repositoryUrl)
+    private List<GitFile> fetchRepositoryFilesForReview(String owner, String repo, String branch, String repositoryUrl,
+                                                        FileSelectionReport selectionReport)
             throws GitProviderException {
         log.info("Fetching repository files for review");
         GitProvider gitProvider = gitProviderFactory.getProvider(repositoryUrl);
-        return gitProvider.fetchRepositoryFiles(owner, repo, branch, openAIConfig.getMaxFilesToReview());
+        return gitProvider.fetchRepositoryFiles(owner, repo, branch, openAIConfig.getMaxFilesToReview(), selectionReport);
+    }
+
+    /**
+     * Drops binary, minified, generated and oversized files before they are sent to the AI model
+     *
+     * @param files the downloaded files
+     * @param selectionReport receives the dropped files with the reason
+     * @return the files that are worth reviewing
+     */
+    protected List<GitFile> excludeUnreviewableContent(List<GitFile> files, FileSelectionReport selectionReport) {
+        if (files == null) {
+            return null;
+        }
+
+        List<GitFile> reviewable = new ArrayList<>(files.size());
+        for (GitFile file : files) {
+            ContentClassifier.Verdict verdict = contentClassifier.classify(file.getContent());
+            if (verdict.isReviewable()) {
+                reviewable.add(file);
+            } else {
+                // Every skipped file is listed in the review; the log only samples them
+                if (log.isDebugEnabled()) {
+                    long leftOut = SKIP_LOG.pass();
+                    if (leftOut >= 0) {
+                        log.debug("Skipping {}: {} ({} skip messages left out)", file.getPath(), verdict.reason(), leftOut);
+                    }
+                }
+                selectionReport.skip(file.getPath(), verdict.reason());
+            }
+        }
+        return reviewable;
+    }
+
+    /**
+     * Creates the review section that lists the files left out of the review
+     *
+     * @param selectionReport the report filled in by the Git provider
+     * @return markdown section, or an empty string if every candidate was reviewed
+     */
+    protected String describeSkippedFiles(FileSelectionReport selectionReport) {
+        if (selectionReport == null || !selectionReport.hasSkippedFiles()) {
+            return "";
+        }
+
+        List<FileSelectionReport.SkippedFile> skippedFiles = selectionReport.getSkippedFiles();
+        log.info("{} of {} candidate files were not reviewed", skippedFiles.size(), selectionReport.getCandidateCount());
+
+        StringBuilder section = new StringBuilder();
+        section.append("# Files Not Reviewed\n\n");
+        section.append(skippedFiles.size()).append(" of ").append(selectionReport.getCandidateCount())
+                .append(" candidate files were not reviewed.\n\n");
+        for (int i = 0; i < Math.min(skippedFiles.size(), MAX_LISTED_SKIPPED_FILES); i++) {
+            FileSelectionReport.SkippedFile skipped = skippedFiles.get(i);
+            section.append("- `").append(skipped.getPath()).append("`: ").append(skipped.getReason()).append("\n");
+        }
+        if (skippedFiles.size() > MAX_LISTED_SKIPPED_FILES) {
+            section.append("- ... and ").append(skippedFiles.size() - MAX_LISTED_SKIPPED_FILES).append(" more\n");
+        }
+        return section.append("\n").toString();
     }
 
     /**
      * Finds relevant guidelines using embeddings-based similarity search
      *
      * @param filesToReview the files to analyze for guideline discovery
-     * @return list of relevant guidelines
+     * @return the selected guidelines and the tokens saved by the selection
      */
-    private List<String> findRelevantGuidelines(List<GitFile> filesToReview) {
+    private GuidelineSelector.Selection findRelevantGuidelines(List<GitFile> filesToReview) {
         log.info("Finding relevant guidelines for {} files", filesToReview.size());
 
+        // Files of a single type share the cached guidelines of that type
+        Set<String> bundleKeys = new HashSet<>();
+        for (GitFile file : filesToReview) {
+            bundleKeys.add(guidelineBundleCache.keyFor(file.getPath()));
+        }
+        if (bundleKeys.size() == 1 && !bundleKeys.contains(null)) {
+            Optional<GuidelineSelector.Selection> bundle = guidelineBundleCache.bundle(bundleKeys.iterator().next());
+            if (bundle.isPresent()) {
+                log.info("Using cached guideline bundle {}", bundleKeys.iterator().next());
+                reviewTracing.attribute("guidelines.cache", "hit");
+                return bundle.get();
+            }
+        }
+        reviewTracing.attribute("guidelines.cache", "miss");
+
         // Combine code content for embedding search
         log.info("Combining code content for embedding search");
         String combinedCode = filesToReview.stream()
@@ -591,14 +891,13 @@ public class CodeReviewService {
 
         // Find similar content blocks
         log.info("Finding similar content blocks");
+        int limit = openAIConfig.getContentBlocksLimit();
         List<ContentBlock> relevantBlocks = embeddingService.findSimilarContent(
-                combinedCode, openAIConfig.getContentBlocksLimit());
+                combinedCode, guidelineSelector.candidateCount(limit));
         log.info("Found {} relevant content blocks", relevantBlocks.size());
 
-        // Extract and format the content from relevant blocks
-        return relevantBlocks.stream()
-                .map(block -> "# " + block.getTitle() + "\n" + block.getContent())
-                .collect(Collectors.toList());
+        // Drop repeated rules, merge neighbouring blocks and fit them to the token budget
+        return guidelineSelector.select(relevantBlocks, limit);
     }
 
     /**
@@ -607,44 +906,98 @@ public class CodeReviewService {
      * @param filesToReview the files to review
      * @param repositoryUrl the repository URL
      * @param relevantGuidelines the relevant guidelines to apply
-     * @return the combined review text
+     * @return the combined review, one section per file, each rendered as soon as its file is reviewed
      */
-    private String processAllRepositoryFiles(List<GitFile> filesToReview, String repositoryUrl, List<String> relevantGuidelines) throws AIModelException, RequestInterruptedException {
-        log.info("Beginning sequential file review for {} files", filesToReview.size());
-
+    private SectionedMarkdown processAllRepositoryFiles(List<GitFile> filesToReview, String repositoryUrl, List<String> relevantGuidelines) throws CodeReviewException {
         String formattedGuidelines = String.join("\n\n", relevantGuidelines);
-        StringBuilder finalReview = new StringBuilder();
-        finalReview.append("# Code Review Summary\n\n");
-        finalReview.append("The following files were reviewed:\n\n");
+        SectionedMarkdown finalReview = new SectionedMarkdown(markdownConverter);
+        finalReview.addSection("# Code Review Summary\n\nThe following files were reviewed:\n\n");
+
+        if (reviewWorkQueue.isEnabled()) {
+            queueRepositoryFiles(filesToReview, repositoryUrl, formattedGuidelines, finalReview);
+            return finalReview;
+        }
+
+        log.info("Beginning sequential file review for {} files", filesToReview.size());
 
         for (int i = 0; i < filesToReview.size(); i++) {
             GitFile file = filesToReview.get(i);
             log.info("Reviewing file {} of {}: {}", (i + 1), filesToReview.size(), file.getPath());
 
             // Process this file and add its review to the final review
-            processRepositoryFile(file, repositoryUrl, formattedGuidelines, finalReview);
+            StringBuilder fileReview = new StringBuilder();
+            Observation fileSpan = reviewTracing.start("code.review.file", "review file")
+                    .highCardinalityKeyValue("file.path", file.getPath())
+                    .highCardinalityKeyValue("file.characters", String.valueOf(file.getContent().length()));
+            try (Observation.Scope scope = fileSpan.openScope()) {
+                processRepositoryFile(file, repositoryUrl, formattedGuidelines, fileReview);
+            } catch (Exception e) {
+                fileSpan.error(e);
+                throw e;
+            } finally {
+                fileSpan.stop();
+            }
+            finalReview.addSection(fileReview);
         }
 
-        return finalReview.toString();
+        return finalReview;
+    }
+
+    /**
+     * Reviews the files as units of the work queue, so any node can take them. Files larger
+     * than the chunk size are split and each chunk is a unit of its own.
+     *
+     * @param filesToReview the files to review
+     * @param repositoryUrl the repository URL
+     * @param formattedGuidelines the formatted coding guidelines for the review
+     * @param finalReview receives one section per file or chunk, in file order
+     */
+    private void queueRepositoryFiles(List<GitFile> filesToReview, String repositoryUrl, String formattedGuidelines,
+                                      SectionedMarkdown finalReview) throws CodeReviewException {
+        int chunkSize = openAIConfig.getFileChunkSize();
+        List<ReviewWorkQueue.WorkItem> items = new ArrayList<>();
+        List<String> headers = new ArrayList<>();
+        for (GitFile file : filesToReview) {
+            Timer.Sample chunking = reviewMetrics.start();
+            List<String> chunks = chunkSize > 0 ? splitCodeIntoChunks(file.getContent(), chunkSize) : List.of(file.getContent());
+            reviewMetrics.stage(chunking, ReviewMetrics.STAGE_CHUNKING);
+            if (chunks.size() > 1) {
+                reviewMetrics.chunks(chunks.size());
+            }
+            for (int i = 0; i < chunks.size(); i++) {
+                boolean chunked = chunks.size() > 1;
+                headers.add("## File: " + file.getPath()
+                        + (chunked ? " (Chunk " + (i + 1) + " of " + chunks.size() + ")" : "") + "\n\n");
+                items.add(new ReviewWorkQueue.WorkItem(
+                        chunked ? repositoryUrl + " (" + file.getPath() + ", Chunk " + (i + 1) + " of " + chunks.size() + ")" : repositoryUrl,
+                        chunks.get(i)));
+            }
+        }
+        log.info("Queueing {} files as {} review units", filesToReview.size(), items.size());
+
+        List<ReviewWorkQueue.UnitResult> results = reviewWorkQueue.run(repositoryUrl, formattedGuidelines, items);
+        for (int i = 0; i < items.size(); i++) {
+            ReviewWorkQueue.UnitResult result = results.get(i);
+            finalReview.addSection(headers.get(i)
+                    + (result.isDone() ? result.review() : "Error reviewing this file: " + result.error()) + "\n\n");
+        }
     }
 
     /**
      * Builds the final CodeReviewResponse with all necessary data
      *
-     * @param review the review text
+     * @param review the review, already rendered section by section
      * @param relevantGuidelines the guidelines that were applied
      * @param repositoryUrl the repository URL
      * @return the complete CodeReviewResponse
      */
-    private CodeReviewResponse buildProjectReviewResponse(String review, List<String> relevantGuidelines, String repositoryUrl) {
-        log.info("Building final response object");
-
-        // Convert markdown to HTML
-        String htmlReview = markdownConverter.convertMarkdownToHtml(review);
+    private CodeReviewResponse buildProjectReviewResponse(SectionedMarkdown review, List<String> relevantGuidelines, String repositoryUrl) {
+        log.info("Building final response object from {} review sections", review.getSectionCount());
+        reviewMetrics.stage(ReviewMetrics.STAGE_RENDERING, review.getRenderNanos());
 
         return CodeReviewResponse.builder()
-                .review(review)
-                .htmlReview(htmlReview)
+                .reviewSections(review.getMarkdownSections())
+                .htmlSections(review.getHtmlSections())
                 .guidelines(relevantGuidelines)
                 .timestamp(LocalDateTime.now())
                 .repositoryUrl(repositoryUrl)
@@ -692,9 +1045,9 @@ public class CodeReviewService {
         UserMessage userMessage = new UserMessage(prompt);
         Prompt aiPrompt = new Prompt(userMessage);
 
-        log.info("Calling AI model for file: {}", fileIdentifier);
+        log.debug("Calling AI model for file: {}", fileIdentifier);
 
-        ChatResponse response = chatModel.call(aiPrompt);
+        ChatResponse response = callModel(aiPrompt, prompt.length());
 
         if (response == null) {
             throw new AIModelException("AI model returned null response for file: " + fileIdentifier);
@@ -704,6 +1057,32 @@ public class CodeReviewService {
         return response.getResult().getOutput().getText();
     }
 
+    /**
+     * Calls the chat model in a span of its own and records the call's duration, prompt size
+     * and token usage, and its tokens and cost in the usage ledger
+     *
+     * @param prompt           The prompt
+     * @param promptCharacters Characters of the prompt text
+     * @return The model's response
+     */
+    private ChatResponse callModel(Prompt prompt, int promptCharacters) {
+        Timer.Sample sample = reviewMetrics.start();
+        Observation observation = reviewTracing.start("code.review.llm.call", "chat model call");
+        ChatResponse response = null;
+        try (Observation.Scope scope = observation.openScope()) {
+            response = chatModel.call(prompt);
+            return response;
+        } catch (RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            reviewTracing.modelCall(observation, promptCharacters, response);
+            observation.stop();
+            reviewMetrics.modelCall(sample, promptCharacters, response);
+            usageLedger.recordChat(UsageLedger.OPERATION_REVIEW, prompt, response);
+        }
+    }
+
     /**
      * Creates a response for an empty repository (no files to review)
      *
@@ -0,0 +1,78 @@
+package de.purnama.code_review.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * CompressedText
+ *
+ * Deflate compression of UTF-8 text for storage in bytea columns. Review Markdown is highly
+ * repetitive and typically shrinks to a fifth of its size.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+public final class CompressedText {
+
+    private CompressedText() {
+    }
+
+    /**
+     * Compress a text
+     *
+     * @param text The text; null is stored as an empty text
+     * @return The deflate-compressed UTF-8 bytes
+     */
+    public static byte[] compress(String text) {
+        byte[] bytes = (text == null ? "" : text).getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, bytes.length / 4));
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(compressed, deflater)) {
+            out.write(bytes);
+        } catch (IOException e) {
+            // In-memory streams do not fail
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Decompress a text
+     *
+     * @param compressed Bytes from {@link #compress(String)}, or null
+     * @return The text, or null for null input
+     */
+    public static String decompress(byte[] compressed) {
+        if (compressed == null) {
+            return null;
+        }
+        ByteArrayOutputStream text = new ByteArrayOutputStream(compressed.length * 4);
+        try {
+            decompressTo(compressed, text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return text.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decompress a text straight to a stream without holding the whole text in memory
+     *
+     * @param compressed Bytes from {@link #compress(String)}
+     * @param out        Receives the UTF-8 bytes of the text
+     * @throws IOException If writing to the stream fails or the bytes are not deflate data
+     */
+    public static void decompressTo(byte[] compressed, OutputStream out) throws IOException {
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(compressed))) {
+            in.transferTo(out);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package de.purnama.code_review.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import de.purnama.code_review.config.ConfluenceConfig;
+import de.purnama.code_review.config.ConfluenceCrawlConfig;
+import de.purnama.code_review.config.ConfluenceRefreshConfig;
+import de.purnama.code_review.exception.ConfluenceException;
+import de.purnama.code_review.model.ConfluenceCrawl;
+import de.purnama.code_review.model.ConfluenceUrl;
+import de.purnama.code_review.model.ContentBlock;
+import de.purnama.code_review.repository.ConfluenceCrawlRepository;
+import de.purnama.code_review.repository.ConfluenceUrlRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * ConfluenceCrawlService
+ *
+ * Ingests every page of a Confluence space, or of any CQL query, in one run. The search is
+ * paged with limit/start and only returns version metadata; pages whose version is already
+ * ingested are skipped without downloading their body. The remaining bodies of a result page
+ * are fetched concurrently and each one goes straight through chunking, batched embedding and
+ * a single insert of its blocks. The search offset is persisted after every result page, so a
+ * crawl that is interrupted resumes where it stopped. A page that is already stored is only
+ * re-ingested under the same refresh lease the ConfluenceRefreshScheduler takes, so a crawl
+ * and a background refresh never replace the blocks of one page at the same time.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ConfluenceCrawlService {
+
+    private final ConfluenceService confluenceService;
+    private final ConfluenceUrlRepository confluenceUrlRepository;
+    private final ConfluenceCrawlRepository confluenceCrawlRepository;
+    private final ContentBlockService contentBlockService;
+    private final EmbeddingService embeddingService;
+    private final ConfluenceConfig confluenceConfig;
+    private final ConfluenceCrawlConfig crawlConfig;
+    private final ConfluenceRefreshConfig refreshConfig;
+
+    private final Set<String> runningQueries = ConcurrentHashMap.newKeySet();
+    // Owner of the refresh leases this node takes while crawling
+    private final String leaseOwner = "crawl-" + UUID.randomUUID().toString().substring(0, 8);
+    private ExecutorService crawlExecutor;
+
+    @PostConstruct
+    public void init() {
+        // Crawls run in the trace of the request that started them
+        crawlExecutor = ReviewTracing.propagating(Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "confluence-crawl");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * Outcome of ingesting a single page
+     */
+    enum PageOutcome { INGESTED, SKIPPED, FAILED }
+
+    /**
+     * CQL selecting all pages of a space
+     *
+     * @param spaceKey The space key
+     * @return The CQL query
+     */
+    public static String spaceQuery(String spaceKey) {
+        return "space = \"" + spaceKey.replace("\"", "\\\"") + "\" AND type = page";
+    }
+
+    /**
+     * Start crawling a query in the background
+     *
+     * @param cql The CQL query; when blank, the configured space is crawled
+     * @return false if a crawl of the same query is already running on this node
+     */
+    public boolean startCrawl(String cql) {
+        String query = cql == null || cql.isBlank() ? spaceQuery(confluenceConfig.getSpaceKey()) : cql.trim();
+        if (!runningQueries.add(query)) {
+            return false;
+        }
+        crawlExecutor.submit(() -> {
+            try {
+                crawl(query);
+            } catch (Exception e) {
+                log.error("Confluence crawl failed for '{}': {}", query, e.getMessage(), e);
+            } finally {
+                runningQueries.remove(query);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Most recent crawls, newest first
+     */
+    public List<ConfluenceCrawl> findRecentCrawls() {
+        return confluenceCrawlRepository.findTop10ByOrderByIdDesc();
+    }
+
+    /**
+     * Crawl all pages matched by a query, resuming an unfinished crawl of the same query
+     *
+     * @param cql The CQL query
+     * @return The crawl record with its final status and counters
+     */
+    public ConfluenceCrawl crawl(String cql) {
+        Optional<ConfluenceCrawl> unfinished =
+                confluenceCrawlRepository.findFirstByCqlAndStatusNotOrderByIdDesc(cql, ConfluenceCrawl.Status.COMPLETED);
+        ConfluenceCrawl crawl = unfinished.orElseGet(() -> ConfluenceCrawl.builder().cql(cql).build());
+        if (unfinished.isPresent()) {
+            log.info("Resuming Confluence crawl {} for '{}' at offset {}", crawl.getId(), cql, crawl.getNextStart());
+        } else {
+            log.info("Starting Confluence crawl for '{}'", cql);
+        }
+        crawl.setStatus(ConfluenceCrawl.Status.RUNNING);
+        crawl.setLastError(null);
+        crawl = confluenceCrawlRepository.save(crawl);
+
+        int pageSize = Math.max(1, crawlConfig.getPageSize());
+        int concurrency = Math.max(1, crawlConfig.getConcurrency());
+
+        try {
+            while (true) {
+                JsonNode response = confluenceService.searchContent(cql, crawl.getNextStart(), pageSize);
+                JsonNode results = response.path("results");
+                if (!results.isArray() || results.isEmpty()) {
+                    break;
+                }
+
+                String base = response.path("_links").path("base").asText(defaultBase());
+                List<JsonNode> pages = new ArrayList<>(results.size());
+                results.forEach(pages::add);
+
+                // Bodies of one result page are fetched and ingested concurrently; the cursor only
+                // moves once all of them are done, so a resumed crawl never misses a page
+                List<PageOutcome> outcomes = Flux.fromIterable(pages)
+                        .flatMap(page -> Mono.fromCallable(() -> ingestPage(page, base))
+                                .subscribeOn(Schedulers.boundedElastic()), concurrency)
+                        .collectList()
+                        .block();
+
+                crawl.setNextStart(crawl.getNextStart() + pages.size());
+                crawl.setPagesSeen(crawl.getPagesSeen() + pages.size());
+                if (outcomes != null) {
+                    for (PageOutcome outcome : outcomes) {
+                        switch (outcome) {
+                            case INGESTED -> crawl.setPagesIngested(crawl.getPagesIngested() + 1);
+                            case SKIPPED -> crawl.setPagesSkipped(crawl.getPagesSkipped() + 1);
+                            case FAILED -> crawl.setPagesFailed(crawl.getPagesFailed() + 1);
+                        }
+                    }
+                }
+                crawl = confluenceCrawlRepository.save(crawl);
+                log.info("Confluence crawl {}: {} pages seen, {} ingested, {} unchanged, {} failed",
+                        crawl.getId(), crawl.getPagesSeen(), crawl.getPagesIngested(),
+                        crawl.getPagesSkipped(), crawl.getPagesFailed());
+
+                if (!response.path("_links").hasNonNull("next")) {
+                    break;
+                }
+            }
+
+            crawl.setStatus(ConfluenceCrawl.Status.COMPLETED);
+            crawl.setCompletedAt(LocalDateTime.now());
+        } catch (Exception e) {
+            log.error("Confluence crawl {} stopped at offset {}: {}", crawl.getId(), crawl.getNextStart(), e.getMessage());
+            crawl.setStatus(ConfluenceCrawl.Status.FAILED);
+            crawl.setLastError(e.getMessage());
+        }
+        return confluenceCrawlRepository.save(crawl);
+    }
+
+    /**
+     * Ingest one search result. Runs without a surrounding transaction: the Confluence and
+     * embedding calls happen first, each database write commits on its own.
+     */
+    PageOutcome ingestPage(JsonNode page, String base) {
+        String pageUrl = pageUrl(page, base);
+        try {
+            JsonNode versionNode = page.path("version").path("number");
+            Integer version = versionNode.isNumber() ? versionNode.asInt() : null;
+
+            ConfluenceUrl url = confluenceUrlRepository.findByUrl(pageUrl).orElse(null);
+            if (url != null && (!url.isActive() || (version != null && version.equals(url.getPageVersion())))) {
+                return PageOutcome.SKIPPED;
+            }
+
+            if (url == null) {
+                url = ConfluenceUrl.builder()
+                        .url(pageUrl)
+                        .title(page.path("title").asText("Untitled Page"))
+                        .build();
+                return ingest(url, true);
+            }
+
+            if (confluenceUrlRepository.acquireRefreshLease(url.getId(), leaseOwner,
+                    refreshConfig.getLeaseDuration().toSeconds()) == 0) {
+                // Being refreshed right now, which brings it up to date as well
+                log.debug("Skipping Confluence page {}: it is being refreshed", pageUrl);
+                return PageOutcome.SKIPPED;
+            }
+            try {
+                return ingest(url, false);
+            } finally {
+                confluenceUrlRepository.releaseRefreshLease(url.getId(), leaseOwner);
+            }
+        } catch (ConfluenceException e) {
+            log.warn("Skipping Confluence page {}: {}", pageUrl, e.getMessage());
+            return PageOutcome.FAILED;
+        } catch (Exception e) {
+            log.warn("Error ingesting Confluence page {}: {}", pageUrl, e.getMessage(), e);
+            return PageOutcome.FAILED;
+        }
+    }
+
+    /**
+     * Fetch, chunk and embed a page and write its blocks
+     */
+    private PageOutcome ingest(ConfluenceUrl url, boolean isNew) throws ConfluenceException {
+        confluenceService.fetchConfluenceContent(url);
+        String bodyHash = ContentBlockService.hashContent(url.getHtmlContent());
+        if (!isNew && bodyHash.equals(url.getContentHash())) {
+            confluenceUrlRepository.recordIngestion(url.getId(), url.getFetchedVersion(), bodyHash, LocalDateTime.now());
+            return PageOutcome.SKIPPED;
+        }
+
+        List<ContentBlock> blocks = confluenceService.chunkContent(url);
+        if (isNew) {
+            // Embed before the first insert so every block is written exactly once
+            embeddingService.embedBlocks(blocks);
+            url = confluenceUrlRepository.save(url);
+            contentBlockService.synchronizeBlocks(url, blocks);
+        } else {
+            List<ContentBlock> changed = new ArrayList<>();
+            for (ContentBlock block : contentBlockService.synchronizeBlocks(url, blocks)) {
+                if (block.getEmbedding() == null) {
+                    changed.add(block);
+                }
+            }
+            if (embeddingService.embedBlocks(changed) > 0) {
+                contentBlockService.saveAll(changed);
+            }
+        }
+
+        confluenceUrlRepository.recordIngestion(url.getId(), url.getFetchedVersion(), bodyHash, LocalDateTime.now());
+        return PageOutcome.INGESTED;
+    }
+
+    /**
+     * Browser URL of a search result, which is what users paste when they add a page by hand
+     */
+    static String pageUrl(JsonNode page, String base) {
+        String webui = page.path("_links").path("webui").asText("");
+        if (!webui.isEmpty()) {
+            return base + webui;
+        }
+        return base + "/pages/viewpage.action?pageId=" + page.path("id").asText();
+    }
+
+    private String defaultBase() {
+        String baseUrl = confluenceConfig.getBaseUrl() != null ? confluenceConfig.getBaseUrl() : "";
+        if (baseUrl.endsWith("/")) {
+            baseUrl = baseUrl.substring(0, baseUrl.length() - 1);
+        }
+        return baseUrl + "/wiki";
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        crawlExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,166 @@
+package de.purnama.code_review.service;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import de.purnama.code_review.config.ConfluenceRefreshConfig;
+import de.purnama.code_review.model.ConfluenceUrl;
+import de.purnama.code_review.repository.ConfluenceUrlRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ConfluenceRefreshScheduler
+ *
+ * Refreshes active Confluence URLs in the background, off the request path. A periodic scan
+ * picks up pages whose lastFetched is older than the configured age and hands them to a
+ * bounded worker pool. Each page starts after a random delay, a host that already has the
+ * maximum number of refreshes running pushes the page back instead of blocking a worker, and
+ * a lease row in the database makes sure only one node refreshes a page at a time.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Slf4j
+@Service
+public class ConfluenceRefreshScheduler {
+
+    private final ConfluenceUrlRepository confluenceUrlRepository;
+    private final ConfluenceUrlService confluenceUrlService;
+    private final ConfluenceRefreshConfig config;
+
+    private final ScheduledThreadPoolExecutor workers;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    private final String nodeId;
+
+    public ConfluenceRefreshScheduler(ConfluenceUrlRepository confluenceUrlRepository,
+                                      ConfluenceUrlService confluenceUrlService,
+                                      ConfluenceRefreshConfig config) {
+        this.confluenceUrlRepository = confluenceUrlRepository;
+        this.confluenceUrlService = confluenceUrlService;
+        this.config = config;
+        this.nodeId = resolveNodeId();
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ScheduledThreadPoolExecutor(Math.max(1, config.getWorkers()), runnable -> {
+            Thread thread = new Thread(runnable, "confluence-refresh-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.workers.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Queue every active page that is due for a refresh
+     */
+    @Scheduled(fixedDelayString = "${confluence.refresh.interval:PT15M}",
+               initialDelayString = "${confluence.refresh.initial-delay:PT1M}")
+    public void refreshDuePages() {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        LocalDateTime before = LocalDateTime.now().minus(config.getMaxAge());
+        List<ConfluenceUrl> due = confluenceUrlRepository.findDueForRefresh(before,
+                PageRequest.of(0, Math.max(1, config.getBatchSize())));
+
+        int queued = 0;
+        for (ConfluenceUrl url : due) {
+            if (schedule(url.getId(), url.getUrl(), jitterMillis())) {
+                queued++;
+            }
+        }
+        if (queued > 0) {
+            log.info("Queued {} of {} due Confluence pages for background refresh", queued, due.size());
+        }
+    }
+
+    /**
+     * Queue a single page for refresh right away, e.g. when a user asks for it
+     *
+     * @param id  ID of the ConfluenceUrl
+     * @param url The page URL, used for the per-host limit
+     * @return false if the page is already being refreshed on this node
+     */
+    public boolean refreshNow(Long id, String url) {
+        return schedule(id, url, 0);
+    }
+
+    private boolean schedule(Long id, String url, long delayMillis) {
+        if (!inFlight.add(id)) {
+            return false;
+        }
+        workers.schedule(() -> runRefresh(id, url), delayMillis, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    void runRefresh(Long id, String url) {
+        Semaphore permits = hostPermits.computeIfAbsent(hostOf(url),
+                host -> new Semaphore(Math.max(1, config.getPerHostConcurrency())));
+        if (!permits.tryAcquire()) {
+            // Host is busy; try again later rather than parking a worker thread
+            workers.schedule(() -> runRefresh(id, url), Math.max(1000, jitterMillis()), TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        try {
+            if (confluenceUrlRepository.acquireRefreshLease(id, nodeId, config.getLeaseDuration().toSeconds()) == 0) {
+                log.debug("Confluence URL {} is being refreshed by another node", id);
+                return;
+            }
+            try {
+                confluenceUrlService.refreshContent(id);
+            } finally {
+                confluenceUrlRepository.releaseRefreshLease(id, nodeId);
+            }
+        } catch (Exception e) {
+            log.warn("Background refresh of Confluence URL {} failed: {}", id, e.getMessage());
+        } finally {
+            permits.release();
+            inFlight.remove(id);
+        }
+    }
+
+    private long jitterMillis() {
+        long bound = config.getJitter().toMillis();
+        return bound > 0 ? ThreadLocalRandom.current().nextLong(bound) : 0;
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host : "";
+        } catch (Exception e) {
+            return "";
+        }
+    }
+
+    private static String resolveNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
@@ -11,10 +11,13 @@ import org.springframework.web.reactive.function.client.WebClient;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
+import de.purnama.code_review.config.ConfluenceChunkConfig;
 import de.purnama.code_review.config.ConfluenceConfig;
 import de.purnama.code_review.exception.ConfluenceException;
 import de.purnama.code_review.model.ConfluenceUrl;
 import de.purnama.code_review.model.ContentBlock;
+import de.purnama.code_review.service.confluence.StructureChunker;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -33,8 +36,8 @@ public class ConfluenceService {
     private final ConfluenceConfig confluenceConfig;
     private final ContentBlockService contentBlockService;
     private final WebClient.Builder webClientBuilder;
-
-    private static final int MAX_CHUNK_SIZE = 1000; // Maximum characters per content block
+    private final ConfluenceChunkConfig chunkConfig;
+    private final ReviewMetrics reviewMetrics;
 
     /**
      * Fetch content and metadata from a Confluence page and populate the ConfluenceUrl object
@@ -55,11 +58,13 @@ public class ConfluenceService {
             WebClient webClient = createConfluenceWebClient();
 
             // Fetch content from Confluence API
+            Timer.Sample fetch = reviewMetrics.start();
             JsonNode contentNode = webClient.get()
-                    .uri("/wiki/rest/api/content/{pageId}?expand=body.storage", pageId)
+                    .uri("/wiki/rest/api/content/{pageId}?expand=body.storage,version", pageId)
                     .retrieve()
                     .bodyToMono(JsonNode.class)
                     .block();
+            reviewMetrics.confluence(fetch, "fetch");
 
             if (contentNode == null) {
                 throw new ConfluenceException("Failed to retrieve content for page ID: " + pageId);
@@ -77,6 +82,7 @@ public class ConfluenceService {
             // Update the confluence URL object
             confluenceUrl.setPageId(pageId);
             confluenceUrl.setHtmlContent(htmlContent);
+            confluenceUrl.setFetchedVersion(readVersionNumber(contentNode));
 
             // Only set title if it's not already set
             if (confluenceUrl.getTitle() == null || confluenceUrl.getTitle().isEmpty()) {
@@ -95,51 +101,99 @@ public class ConfluenceService {
     }
 
     /**
-     * Process content from Confluence into content blocks
+     * Fetch only the version metadata of a Confluence page, without the body
+     *
+     * @param confluenceUrl The Confluence URL to check
+     * @return The current version number, or null if Confluence did not report one
+     * @throws ConfluenceException if the metadata cannot be fetched
+     */
+    public Integer fetchPageVersion(ConfluenceUrl confluenceUrl) throws ConfluenceException {
+        try {
+            String pageId = extractPageIdFromUrl(confluenceUrl.getUrl());
+            if (pageId == null) {
+                throw new ConfluenceException("Could not extract page ID from URL: " + confluenceUrl.getUrl());
+            }
+
+            Timer.Sample version = reviewMetrics.start();
+            JsonNode contentNode = createConfluenceWebClient().get()
+                    .uri("/wiki/rest/api/content/{pageId}?expand=version", pageId)
+                    .retrieve()
+                    .bodyToMono(JsonNode.class)
+                    .block();
+            reviewMetrics.confluence(version, "version");
+
+            if (contentNode == null) {
+                throw new ConfluenceException("Failed to retrieve version for page ID: " + pageId);
+            }
+
+            return readVersionNumber(contentNode);
+
+        } catch (ConfluenceException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ConfluenceException("Error fetching page version from Confluence: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Process content from Confluence into content blocks. Blocks are synchronized with the
+     * ones already stored for the URL, so blocks whose content did not change keep their
+     * embedding and only new or edited blocks come back without one.
      *
      * @param confluenceUrl The Confluence URL with HTML content to process
      * @return List of processed content blocks
      * @throws ConfluenceException if content cannot be processed
      */
     public List<ContentBlock> processContentIntoBlocks(ConfluenceUrl confluenceUrl) throws ConfluenceException {
+        List<ContentBlock> contentBlocks = chunkContent(confluenceUrl);
+        try {
+            // Diff against the stored blocks so unchanged ones keep their embeddings
+            return contentBlockService.synchronizeBlocks(confluenceUrl, contentBlocks);
+        } catch (Exception e) {
+            throw new ConfluenceException("Error processing content into blocks: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Split the HTML content of a Confluence URL into content blocks without storing them
+     *
+     * @param confluenceUrl The Confluence URL with HTML content to process
+     * @return The content blocks in page order, with sequence and title set
+     * @throws ConfluenceException if there is no content or it cannot be processed
+     */
+    public List<ContentBlock> chunkContent(ConfluenceUrl confluenceUrl) throws ConfluenceException {
         try {
             if (confluenceUrl.getHtmlContent() == null || confluenceUrl.getHtmlContent().isEmpty()) {
                 throw new ConfluenceException("No HTML content available in the ConfluenceUrl object");
             }
 
-            // Simple HTML to text conversion using String manipulation instead of regex
-            // First, remove HTML tags
-            String text = removeHtmlTags(confluenceUrl.getHtmlContent());
-            // Then replace HTML entities and normalize whitespace
-            String plainText = normalizeWhitespace(text);
-
-            List<ContentBlock> contentBlocks = new ArrayList<>();
-
-            // First delete any existing content blocks
-            contentBlockService.deleteByConfluenceUrl(confluenceUrl);
-
-            // Split by headers to create logical chunks
-            List<String> chunks = splitIntoChunks(plainText);
+            // Sections up to the configured heading level become blocks titled with their path
+            Timer.Sample parse = reviewMetrics.start();
+            StructureChunker chunker = new StructureChunker(chunkConfig.getMaxTokens(),
+                    chunkConfig.getOverlapTokens(), chunkConfig.getSplitLevel());
+            List<StructureChunker.Chunk> chunks = chunker.chunk(confluenceUrl.getHtmlContent(), confluenceUrl.getTitle());
+            reviewMetrics.confluence(parse, "parse");
 
+            List<ContentBlock> contentBlocks = new ArrayList<>(chunks.size());
             int sequence = 1;
-            for (String chunk : chunks) {
-                if (chunk.trim().length() > 30) { // Skip very small chunks
-                    ContentBlock contentBlock = ContentBlock.builder()
+            for (StructureChunker.Chunk chunk : chunks) {
+                String content = chunk.content().trim();
+                if (content.length() > 30) { // Skip very small chunks
+                    contentBlocks.add(ContentBlock.builder()
                             .confluenceUrl(confluenceUrl)
-                            .content(chunk.trim())
+                            .content(content)
                             .sequence(sequence++)
-                            .title(extractTitle(chunk))
-                            .build();
-
-                    contentBlocks.add(contentBlock);
+                            .title(chunk.title())
+                            .build());
                 }
             }
 
+            reviewMetrics.confluenceChunks(contentBlocks.size());
             if (contentBlocks.isEmpty()) {
                 log.warn("No content blocks created for URL: {}", confluenceUrl.getUrl());
             }
 
-            return contentBlockService.saveAll(contentBlocks);
+            return contentBlocks;
 
         } catch (ConfluenceException e) {
             // Re-throw ConfluenceException directly
@@ -150,6 +204,36 @@ public class ConfluenceService {
         }
     }
 
+    /**
+     * Run a CQL search and return one page of results with their version metadata, without bodies
+     *
+     * @param cql   The CQL query, e.g. {@code space = "DEV" AND type = page}
+     * @param start Offset of the first result
+     * @param limit Maximum number of results
+     * @return The search response (results, size, _links)
+     * @throws ConfluenceException if the search fails
+     */
+    public JsonNode searchContent(String cql, int start, int limit) throws ConfluenceException {
+        try {
+            JsonNode response = createConfluenceWebClient().get()
+                    .uri("/wiki/rest/api/content/search?cql={cql}&start={start}&limit={limit}&expand=version",
+                            cql, start, limit)
+                    .retrieve()
+                    .bodyToMono(JsonNode.class)
+                    .block();
+
+            if (response == null) {
+                throw new ConfluenceException("Empty search response from Confluence for CQL: " + cql);
+            }
+            return response;
+
+        } catch (ConfluenceException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ConfluenceException("Error searching Confluence: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * For backward compatibility - now uses the separated methods with the updated model
      */
@@ -161,6 +245,11 @@ public class ConfluenceService {
         return processContentIntoBlocks(updatedUrl);
     }
 
+    private Integer readVersionNumber(JsonNode contentNode) {
+        JsonNode number = contentNode.path("version").path("number");
+        return number.isNumber() ? number.asInt() : null;
+    }
+
     /**
      * Create a WebClient for the Confluence API with authentication
      */
@@ -240,285 +329,4 @@ public class ConfluenceService {
         
         return true;
     }
-
-    /**
-     * Split text into manageable chunks, trying to preserve context
-     */
-    private List<String> splitIntoChunks(String text) {
-        List<String> chunks = new ArrayList<>();
-
-        // Try to split by paragraphs first
-        List<String> paragraphs = splitIntoParagraphs(text);
-
-        for (String paragraph : paragraphs) {
-            if (paragraph.length() <= MAX_CHUNK_SIZE) {
-                chunks.add(paragraph);
-            } else {
-                // If paragraph is too large, split by sentences
-                List<String> sentences = splitIntoSentences(paragraph);
-
-                StringBuilder currentChunk = new StringBuilder();
-                for (String sentence : sentences) {
-                    if (currentChunk.length() + sentence.length() > MAX_CHUNK_SIZE) {
-                        if (currentChunk.length() > 0) {
-                            chunks.add(currentChunk.toString());
-                            currentChunk = new StringBuilder();
-                        }
-
-                        // If single sentence is too long, split arbitrarily
-                        if (sentence.length() > MAX_CHUNK_SIZE) {
-                            int start = 0;
-                            while (start < sentence.length()) {
-                                int end = Math.min(start + MAX_CHUNK_SIZE, sentence.length());
-                                chunks.add(sentence.substring(start, end));
-                                start = end;
-                            }
-                        } else {
-                            currentChunk.append(sentence);
-                        }
-                    } else {
-                        currentChunk.append(sentence).append(" ");
-                    }
-                }
-
-                if (currentChunk.length() > 0) {
-                    chunks.add(currentChunk.toString().trim());
-                }
-            }
-        }
-
-        return chunks;
-    }
-
-    /**
-     * Try to extract a title from the content chunk
-     */
-    private String extractTitle(String chunk) {
-        // Find the first sentence or first few words
-        String firstSentence = extractFirstSentence(chunk);
-
-        if (firstSentence.length() <= 100) {
-            return firstSentence;
-        } else {
-            // Just use the first few words
-            String[] words = splitIntoWords(chunk);
-            StringBuilder title = new StringBuilder();
-
-            for (int i = 0; i < Math.min(10, words.length); i++) {
-                title.append(words[i]).append(" ");
-            }
-
-            return title.toString().trim() + "...";
-        }
-    }
-    
-    /**
-     * Remove HTML tags from a string using character-by-character parsing
-     * instead of regular expressions for improved performance.
-     */
-    private String removeHtmlTags(String html) {
-        if (html == null || html.isEmpty()) {
-            return "";
-        }
-        
-        StringBuilder result = new StringBuilder(html.length());
-        boolean inTag = false;
-        
-        for (int i = 0; i < html.length(); i++) {
-            char c = html.charAt(i);
-            
-            if (c == '<') {
-                inTag = true;
-                // Add space to preserve word boundaries
-                result.append(' ');
-                continue;
-            }
-            
-            if (c == '>') {
-                inTag = false;
-                continue;
-            }
-            
-            // Only append characters that are not inside tags
-            if (!inTag) {
-                result.append(c);
-            }
-        }
-        
-        return result.toString();
-    }
-    
-    /**
-     * Normalize whitespace and replace common HTML entities
-     */
-    private String normalizeWhitespace(String text) {
-        if (text == null || text.isEmpty()) {
-            return "";
-        }
-        
-        // Replace common HTML entities
-        String result = text.replace("&nbsp;", " ")
-                           .replace("&lt;", "<")
-                           .replace("&gt;", ">")
-                           .replace("&amp;", "&")
-                           .replace("&quot;", "\"")
-                           .replace("&apos;", "'");
-        
-        // Normalize whitespace using character-by-character processing
-        StringBuilder normalized = new StringBuilder(result.length());
-        boolean lastWasSpace = false;
-        
-        for (int i = 0; i < result.length(); i++) {
-            char c = result.charAt(i);
-            
-            // Consider various whitespace characters
-            boolean isWhitespace = Character.isWhitespace(c);
-            
-            // Skip consecutive whitespace
-            if (isWhitespace) {
-                if (!lastWasSpace) {
-                    normalized.append(' ');
-                    lastWasSpace = true;
-                }
-            } else {
-                normalized.append(c);
-                lastWasSpace = false;
-            }
-        }
-        
-        return normalized.toString().trim();
-    }
-    
-    /**
-     * Extract the first sentence from a string without using complex regex
-     */
-    private String extractFirstSentence(String text) {
-        if (text == null || text.isEmpty()) {
-            return "";
-        }
-        
-        int end = text.length();
-        
-        // Look for common sentence endings followed by whitespace
-        for (int i = 0; i < text.length() - 1; i++) {
-            char c = text.charAt(i);
-            
-            if ((c == '.' || c == '!' || c == '?') && 
-                Character.isWhitespace(text.charAt(i + 1))) {
-                end = i + 1;
-                break;
-            }
-        }
-        
-        return text.substring(0, end);
-    }
-    
-    /**
-     * Split text into words without using regex
-     */
-    private String[] splitIntoWords(String text) {
-        if (text == null || text.isEmpty()) {
-            return new String[0];
-        }
-        
-        List<String> words = new ArrayList<>();
-        StringBuilder currentWord = new StringBuilder();
-        
-        for (int i = 0; i < text.length(); i++) {
-            char c = text.charAt(i);
-            
-            if (Character.isWhitespace(c)) {
-                // End of word
-                if (currentWord.length() > 0) {
-                    words.add(currentWord.toString());
-                    currentWord = new StringBuilder();
-                }
-            } else {
-                currentWord.append(c);
-            }
-        }
-        
-        // Add last word if any
-        if (currentWord.length() > 0) {
-            words.add(currentWord.toString());
-        }
-        
-        return words.toArray(String[]::new);
-    }
-    
-    /**
-     * Split text into paragraphs based on double line breaks
-     */
-    private List<String> splitIntoParagraphs(String text) {
-        if (text == null || text.isEmpty()) {
-            return new ArrayList<>();
-        }
-        
-        List<String> paragraphs = new ArrayList<>();
-        StringBuilder currentParagraph = new StringBuilder();
-        int consecutiveNewlines = 0;
-        
-        for (int i = 0; i < text.length(); i++) {
-            char c = text.charAt(i);
-            
-            if (c == '\n') {
-                consecutiveNewlines++;
-                
-                if (consecutiveNewlines == 2) {
-                    // Two or more consecutive newlines - end of paragraph
-                    if (currentParagraph.length() > 0) {
-                        paragraphs.add(currentParagraph.toString().trim());
-                        currentParagraph = new StringBuilder();
-                    }
-                    // We'll stay in this state until we find a non-newline character
-                } else if (consecutiveNewlines == 1) {
-                    currentParagraph.append(' '); // Replace single newline with space
-                }
-                // If consecutiveNewlines > 2, just ignore additional newlines
-            } else {
-                consecutiveNewlines = 0;
-                currentParagraph.append(c);
-            }
-        }
-        
-        // Add last paragraph if any
-        if (currentParagraph.length() > 0) {
-            paragraphs.add(currentParagraph.toString().trim());
-        }
-        
-        return paragraphs;
-    }
-    
-    /**
-     * Split text into sentences without using complex regex
-     */
-    private List<String> splitIntoSentences(String text) {
-        if (text == null || text.isEmpty()) {
-            return new ArrayList<>();
-        }
-        
-        List<String> sentences = new ArrayList<>();
-        StringBuilder currentSentence = new StringBuilder();
-        
-        for (int i = 0; i < text.length(); i++) {
-            char c = text.charAt(i);
-            currentSentence.append(c);
-            
-            // Check for end of sentence markers followed by whitespace
-            if ((c == '.' || c == '!' || c == '?') && 
-                (i + 1 < text.length() && Character.isWhitespace(text.charAt(i + 1)))) {
-                sentences.add(currentSentence.toString().trim());
-                currentSentence = new StringBuilder();
-                // Skip the whitespace
-                i++;
-            }
-        }
-        
-        // Add the last sentence if there's anything left
-        if (currentSentence.length() > 0) {
-            sentences.add(currentSentence.toString().trim());
-        }
-        
-        return sentences;
-    }
-}
\ No newline at end of file
+}
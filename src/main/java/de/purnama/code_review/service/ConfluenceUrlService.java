@@ -1,6 +1,7 @@
 package de.purnama.code_review.service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -99,6 +100,7 @@ public class ConfluenceUrlService {
 
             // Generate embeddings for each content block
             generateEmbeddingsForBlocks(contentBlocks);
+            recordIngestedVersion(savedUrl);
 
             // Update the last fetched timestamp
             savedUrl.setLastFetched(LocalDateTime.now());
@@ -124,6 +126,7 @@ public class ConfluenceUrlService {
 
             // Generate embeddings for each content block
             generateEmbeddingsForBlocks(contentBlocks);
+            recordIngestedVersion(savedUrl);
 
             // Update the last fetched timestamp
             savedUrl.setLastFetched(LocalDateTime.now());
@@ -136,13 +139,21 @@ public class ConfluenceUrlService {
     }
 
     /**
-     * Generate embeddings for content blocks
+     * Generate embeddings for content blocks that are new or whose content changed.
+     * Blocks carried over unchanged from the previous ingestion still have their embedding.
      */
     private void generateEmbeddingsForBlocks(List<ContentBlock> contentBlocks) {
+        List<ContentBlock> missing = new ArrayList<>();
         for (ContentBlock block : contentBlocks) {
-            embeddingService.generateAndSaveEmbedding(block);
-            log.debug("Generated embedding for content block ID: {}", block.getId());
+            if (block.getEmbedding() == null) {
+                missing.add(block);
+            }
         }
+        if (!missing.isEmpty()) {
+            // Batched embedding calls, then a single batched update of the new vectors
+            embeddingService.generateAndSaveEmbeddings(missing);
+        }
+        log.info("Generated {} embeddings, reused {}", missing.size(), contentBlocks.size() - missing.size());
     }
 
     @Transactional
@@ -173,9 +184,10 @@ public class ConfluenceUrlService {
     }
 
     /**
-     * Manually trigger content refresh from Confluence
+     * Refresh content from Confluence. Not transactional on purpose: the Confluence and embedding
+     * calls run outside any transaction and each database write commits on its own, so a slow
+     * page does not hold a connection or locks for the duration of the HTTP calls.
      */
-    @Transactional
     public void refreshContent(Long id) {
         Optional<ConfluenceUrl> optionalUrl = confluenceUrlRepository.findById(id);
         if (optionalUrl.isPresent()) {
@@ -187,19 +199,37 @@ public class ConfluenceUrlService {
     }
 
     /**
-     * Refresh content for a URL
+     * Refresh content for a URL. Pages that were ingested before are first checked with a
+     * metadata-only request, and nothing is downloaded when the version did not change. A new
+     * version whose body is identical (e.g. only the title or labels changed) is not re-chunked.
      */
     private void refreshUrlContent(ConfluenceUrl url) {
         try {
+            if (url.getPageVersion() != null && url.getContentHash() != null) {
+                Integer currentVersion = confluenceService.fetchPageVersion(url);
+                if (url.getPageVersion().equals(currentVersion)) {
+                    log.info("Confluence page unchanged at version {}, skipping refresh: {}", currentVersion, url.getUrl());
+                    url.setLastFetched(LocalDateTime.now());
+                    confluenceUrlRepository.save(url);
+                    return;
+                }
+            }
+
             // Fetch content from Confluence
             ConfluenceUrl updatedUrl = confluenceService.fetchConfluenceContent(url);
 
-            // Process into content blocks
-            List<ContentBlock> contentBlocks = confluenceService.processContentIntoBlocks(updatedUrl);
-            log.info("Refreshed {} content blocks from Confluence URL: {}", contentBlocks.size(), url.getUrl());
+            if (isBodyUnchanged(updatedUrl)) {
+                log.info("Confluence page body unchanged at version {}, skipping re-ingestion: {}",
+                        updatedUrl.getFetchedVersion(), url.getUrl());
+            } else {
+                // Process into content blocks
+                List<ContentBlock> contentBlocks = confluenceService.processContentIntoBlocks(updatedUrl);
+                log.info("Refreshed {} content blocks from Confluence URL: {}", contentBlocks.size(), url.getUrl());
 
-            // Generate embeddings for each content block
-            generateEmbeddingsForBlocks(contentBlocks);
+                // Generate embeddings for each content block
+                generateEmbeddingsForBlocks(contentBlocks);
+            }
+            recordIngestedVersion(updatedUrl);
 
             // Update the last fetched timestamp
             url.setLastFetched(LocalDateTime.now());
@@ -213,6 +243,22 @@ public class ConfluenceUrlService {
         }
     }
 
+    private boolean isBodyUnchanged(ConfluenceUrl url) {
+        return url.getContentHash() != null && url.getHtmlContent() != null
+                && url.getContentHash().equals(ContentBlockService.hashContent(url.getHtmlContent()));
+    }
+
+    /**
+     * Remember which version and body were ingested, so the next refresh can skip unchanged pages
+     */
+    private void recordIngestedVersion(ConfluenceUrl url) {
+        if (url.getHtmlContent() == null) {
+            return;
+        }
+        url.setPageVersion(url.getFetchedVersion());
+        url.setContentHash(ContentBlockService.hashContent(url.getHtmlContent()));
+    }
+
     /**
      * Find a ConfluenceUrl by ID and eagerly load its content blocks
      */
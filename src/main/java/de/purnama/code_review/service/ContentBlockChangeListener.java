@@ -0,0 +1,34 @@
+package de.purnama.code_review.service;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import de.purnama.code_review.model.ContentBlock;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * ContentBlockChangeListener
+ *
+ * JPA entity listener of {@link ContentBlock} that turns every write into a
+ * {@link GuidelinesChangedEvent}. Hooking the entity instead of the services catches all
+ * ingestion paths: page processing, crawls, refreshes, embedding updates and the
+ * cascading delete of a Confluence URL.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Component
+@RequiredArgsConstructor
+public class ContentBlockChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void contentBlockChanged(ContentBlock contentBlock) {
+        eventPublisher.publishEvent(new GuidelinesChangedEvent(contentBlock.getId()));
+    }
+}
@@ -1,7 +1,20 @@
 package de.purnama.code_review.service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -63,6 +76,137 @@ public class ContentBlockService {
         return contentBlockRepository.saveAll(contentBlocks);
     }
 
+    /**
+     * Replace the content blocks of a Confluence URL with a freshly chunked set, touching only
+     * what changed. Existing blocks are matched by content hash and sequence first, then by
+     * hash alone (the block moved), and finally by sequence (the block was edited in place).
+     * Matched blocks keep their id and embedding unless their content changed; unmatched new
+     * blocks are inserted and existing blocks that vanished are deleted. Blocks whose content
+     * is new or changed carry the embedding of the given block, normally none, so the caller
+     * re-embeds only those.
+     *
+     * @param confluenceUrl The Confluence URL the blocks belong to
+     * @param blocks        The new blocks in page order, with sequence set
+     * @return The persisted blocks in page order
+     */
+    @Transactional
+    public List<ContentBlock> synchronizeBlocks(ConfluenceUrl confluenceUrl, List<ContentBlock> blocks) {
+        List<ContentBlock> existing = confluenceUrl.getId() != null
+                ? contentBlockRepository.findByConfluenceUrlOrderBySequenceAsc(confluenceUrl)
+                : List.of();
+
+        Map<String, Deque<ContentBlock>> existingByHash = new HashMap<>();
+        Map<Integer, ContentBlock> existingBySequence = new HashMap<>();
+        for (ContentBlock block : existing) {
+            if (block.getContentHash() == null) {
+                // Blocks stored before hashing was introduced
+                block.setContentHash(hashContent(block.getContent()));
+            }
+            existingByHash.computeIfAbsent(block.getContentHash(), hash -> new ArrayDeque<>()).add(block);
+            existingBySequence.putIfAbsent(block.getSequence(), block);
+        }
+
+        // Entities are compared by identity; @Data equality would touch the lazy page association
+        Set<ContentBlock> claimed = Collections.newSetFromMap(new IdentityHashMap<>());
+        ContentBlock[] result = new ContentBlock[blocks.size()];
+        List<Integer> unmatched = new ArrayList<>();
+
+        // Pass 1: same content at the same position
+        for (int i = 0; i < blocks.size(); i++) {
+            ContentBlock block = blocks.get(i);
+            block.setContentHash(hashContent(block.getContent()));
+            ContentBlock match = existingBySequence.get(block.getSequence());
+            if (match != null && match.getContentHash().equals(block.getContentHash()) && claimed.add(match)) {
+                match.setTitle(block.getTitle());
+                result[i] = match;
+            } else {
+                unmatched.add(i);
+            }
+        }
+
+        int unchanged = blocks.size() - unmatched.size();
+        int moved = 0;
+        int updated = 0;
+        int inserted = 0;
+
+        // Pass 2: same content at another position
+        List<Integer> changed = new ArrayList<>();
+        for (int i : unmatched) {
+            ContentBlock block = blocks.get(i);
+            ContentBlock match = claimByHash(existingByHash.get(block.getContentHash()), claimed);
+            if (match != null) {
+                match.setSequence(block.getSequence());
+                match.setTitle(block.getTitle());
+                result[i] = match;
+                moved++;
+            } else {
+                changed.add(i);
+            }
+        }
+
+        // Pass 3: new content, reusing the row of a leftover block at the same position
+        for (int i : changed) {
+            ContentBlock block = blocks.get(i);
+            ContentBlock match = existingBySequence.get(block.getSequence());
+            if (match != null && claimed.add(match)) {
+                match.setContent(block.getContent());
+                match.setTitle(block.getTitle());
+                match.setContentHash(block.getContentHash());
+                match.setEmbedding(block.getEmbedding());
+                result[i] = match;
+                updated++;
+            } else {
+                block.setConfluenceUrl(confluenceUrl);
+                result[i] = block;
+                inserted++;
+            }
+        }
+
+        List<ContentBlock> vanished = new ArrayList<>();
+        for (ContentBlock block : existing) {
+            if (!claimed.contains(block)) {
+                vanished.add(block);
+            }
+        }
+        if (!vanished.isEmpty()) {
+            contentBlockRepository.deleteAll(vanished);
+        }
+
+        log.info("Synchronized content blocks for {}: {} unchanged, {} moved, {} updated, {} inserted, {} deleted",
+                confluenceUrl.getUrl(), unchanged, moved, updated, inserted, vanished.size());
+
+        return contentBlockRepository.saveAll(Arrays.asList(result));
+    }
+
+    private static ContentBlock claimByHash(Deque<ContentBlock> candidates, Set<ContentBlock> claimed) {
+        if (candidates == null) {
+            return null;
+        }
+        ContentBlock candidate;
+        while ((candidate = candidates.poll()) != null) {
+            if (claimed.add(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Hash block content for change detection
+     *
+     * @param content The block content
+     * @return Hex encoded SHA-256 of the content
+     */
+    public static String hashContent(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((content != null ? content : "").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     @Transactional
     public void delete(Long id) {
         contentBlockRepository.deleteById(id);
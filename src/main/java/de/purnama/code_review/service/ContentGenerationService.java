@@ -12,6 +12,7 @@ import org.springframework.stereotype.Service;
 
 import de.purnama.code_review.exception.ConfluenceException;
 import de.purnama.code_review.model.ConfluenceUrl;
+import de.purnama.code_review.service.confluence.StorageFormatTokenizer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -29,6 +30,7 @@ public class ContentGenerationService {
 
     private final ChatModel chatModel;
     private final ConfluenceService confluenceService;
+    private final UsageLedger usageLedger;
 
     private static final String SYSTEM_PROMPT = """
             You are a helpful assistant that analyzes Confluence page content and generates metadata.
@@ -80,8 +82,7 @@ public class ContentGenerationService {
             }
 
             // Log a sample of the content to help with debugging
-            log.info("Content sample (first 200 chars): {}",
-                    plainText.length() > 200 ? plainText.substring(0, 200) + "..." : plainText);
+            log.debug("Content sample: {}", LogPreview.of(plainText));
 
             // Generate just the description using OpenAI
             String description = generateDescription(plainText);
@@ -110,9 +111,10 @@ public class ContentGenerationService {
             log.info("Sending prompt to OpenAI with content length: {}", content.length());
 
             ChatResponse response = chatModel.call(prompt);
+            usageLedger.recordChat(UsageLedger.OPERATION_DESCRIPTION, prompt, response);
             String responseText = response.getResult().getOutput().getText();
 
-            log.info("Received response from OpenAI: {}", responseText);
+            log.debug("Received response from OpenAI: {}", LogPreview.of(responseText));
 
             // Parse the JSON response
             responseText = responseText.trim();
@@ -154,84 +156,12 @@ public class ContentGenerationService {
     }
 
     /**
-     * Convert HTML content to plain text without using regular expressions
-     * for better performance and reliability.
-     * 
+     * Convert storage format content to plain text in a single pass, one block per paragraph
+     *
      * @param html The HTML content to convert
-     * @return Plain text with HTML tags removed and whitespace normalized
+     * @return Plain text with markup removed and whitespace normalized
      */
     private String convertHtmlToPlainText(String html) {
-        if (html == null || html.isEmpty()) {
-            return "";
-        }
-        
-        // Remove HTML tags
-        StringBuilder plainText = new StringBuilder();
-        boolean insideTag = false;
-        
-        for (int i = 0; i < html.length(); i++) {
-            char c = html.charAt(i);
-            
-            if (c == '<') {
-                insideTag = true;
-                plainText.append(' '); // Replace tags with a space
-            } else if (c == '>') {
-                insideTag = false;
-            } else if (!insideTag) {
-                // Only append characters outside of tags
-                plainText.append(c);
-            }
-        }
-        
-        // Replace common HTML entities
-        String text = plainText.toString()
-                .replace("&nbsp;", " ")
-                .replace("&lt;", "<")
-                .replace("&gt;", ">")
-                .replace("&amp;", "&")
-                .replace("&quot;", "\"")
-                .replace("&apos;", "'");
-        
-        // Normalize whitespace
-        return normalizeWhitespace(text);
-    }
-    
-    /**
-     * Normalize whitespace in text without using regular expressions
-     * 
-     * @param text The text to normalize
-     * @return Text with consecutive whitespace characters replaced with a single space
-     */
-    private String normalizeWhitespace(String text) {
-        if (text == null || text.isEmpty()) {
-            return "";
-        }
-        
-        StringBuilder normalized = new StringBuilder();
-        boolean lastWasSpace = true; // Start with true to trim leading spaces
-        
-        for (int i = 0; i < text.length(); i++) {
-            char c = text.charAt(i);
-            
-            // Check if the current character is a whitespace character
-            boolean isSpace = Character.isWhitespace(c);
-            
-            // Only append non-whitespace characters or a single space
-            if (!isSpace) {
-                normalized.append(c);
-                lastWasSpace = false;
-            } else if (!lastWasSpace) {
-                normalized.append(' ');
-                lastWasSpace = true;
-            }
-        }
-        
-        // Trim trailing space if necessary
-        int length = normalized.length();
-        if (length > 0 && normalized.charAt(length - 1) == ' ') {
-            normalized.deleteCharAt(length - 1);
-        }
-        
-        return normalized.toString();
+        return StorageFormatTokenizer.toPlainText(html);
     }
 }
\ No newline at end of file
@@ -1,13 +1,22 @@
 package de.purnama.code_review.service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import de.purnama.code_review.config.RetrievalConfig;
 import de.purnama.code_review.model.ContentBlock;
 import de.purnama.code_review.repository.ContentBlockRepository;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -25,11 +34,28 @@ public class EmbeddingService {
 
     private final ContentBlockRepository contentBlockRepository;
     private final EmbeddingModel embeddingModel;
+    private final RetrievalConfig retrievalConfig;
+    private final ReviewMetrics reviewMetrics;
+    private final ReviewTracing reviewTracing;
+    private final UsageLedger usageLedger;
+
+    // Inputs per embedding request; keeps a request well below the model's token limit
+    private static final int EMBEDDING_BATCH_SIZE = 64;
+
+    // Identifiers that say nothing about which guideline applies
+    private static final int MIN_TERM_LENGTH = 3;
+    private static final Set<String> SEARCH_STOP_WORDS = Set.of(
+            "abstract", "and", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+            "continue", "def", "default", "do", "double", "else", "enum", "export", "extends", "false",
+            "final", "finally", "float", "for", "from", "func", "function", "if", "implements", "import",
+            "int", "interface", "let", "long", "new", "nil", "none", "not", "null", "package", "private",
+            "protected", "public", "return", "self", "short", "static", "string", "super", "switch", "the",
+            "this", "throw", "throws", "true", "try", "var", "void", "while", "with");
 
     /**
-     * Generates embeddings for a content block and saves it to the database
+     * Generates embeddings for a content block and saves it to the database.
+     * Only the save is transactional, the embedding call happens before it.
      */
-    @Transactional
     public ContentBlock generateAndSaveEmbedding(ContentBlock contentBlock) {
         if (contentBlock.getContent() == null || contentBlock.getContent().isBlank()) {
             log.warn("Cannot generate embedding for empty content block");
@@ -38,7 +64,7 @@ public class EmbeddingService {
 
         try {
             // Generate embedding using OpenAI's embedding model
-            float[] vector = embeddingModel.embed(contentBlock.getContent());
+            float[] vector = embed(contentBlock.getContent());
 
             // Set the embedding on the content block
             contentBlock.setEmbedding(vector);
@@ -52,35 +78,184 @@ public class EmbeddingService {
     }
 
     /**
-     * Finds content blocks similar to the given query text
+     * Generates embeddings for the blocks that do not have one yet, in batched calls to the
+     * embedding model, without saving them. Lets a caller embed freshly chunked blocks before
+     * their first insert so each block is written once.
+     *
+     * @param contentBlocks The blocks to embed
+     * @return Number of blocks that were embedded
+     */
+    public int embedBlocks(List<ContentBlock> contentBlocks) {
+        List<ContentBlock> pending = new ArrayList<>();
+        for (ContentBlock block : contentBlocks) {
+            if (block.getEmbedding() == null && block.getContent() != null && !block.getContent().isBlank()) {
+                pending.add(block);
+            }
+        }
+
+        for (int from = 0; from < pending.size(); from += EMBEDDING_BATCH_SIZE) {
+            List<ContentBlock> batch = pending.subList(from, Math.min(from + EMBEDDING_BATCH_SIZE, pending.size()));
+            Timer.Sample sample = reviewMetrics.start();
+            Observation observation = reviewTracing.start("code.review.embedding.call", "embed content blocks")
+                    .highCardinalityKeyValue("embedding.inputs", String.valueOf(batch.size()));
+            List<String> texts = batch.stream().map(ContentBlock::getContent).toList();
+            List<float[]> vectors;
+            try (Observation.Scope scope = observation.openScope()) {
+                vectors = embeddingModel.embed(texts);
+            } catch (RuntimeException e) {
+                observation.error(e);
+                throw e;
+            } finally {
+                observation.stop();
+            }
+            reviewMetrics.embedding(sample, batch.size());
+            usageLedger.recordEmbedding(texts);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).setEmbedding(vectors.get(i));
+            }
+        }
+        return pending.size();
+    }
+
+    /**
+     * Generates embeddings for the blocks that do not have one yet and writes them back in one
+     * batched update. The embedding calls happen before, and outside of, the write.
+     *
+     * @param contentBlocks The blocks to embed
+     * @return Number of blocks that were embedded and saved
+     */
+    public int generateAndSaveEmbeddings(List<ContentBlock> contentBlocks) {
+        List<ContentBlock> pending = new ArrayList<>();
+        for (ContentBlock block : contentBlocks) {
+            if (block.getEmbedding() == null && block.getContent() != null && !block.getContent().isBlank()) {
+                pending.add(block);
+            }
+        }
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            embedBlocks(pending);
+            contentBlockRepository.saveAll(pending);
+            return pending.size();
+        } catch (Exception e) {
+            log.error("Error generating embeddings for {} content blocks: {}", pending.size(), e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * Finds content blocks similar to the given query text. In hybrid mode the vector ranking is
+     * fused with a full-text ranking on the identifiers that occur in the query text.
      */
     public List<ContentBlock> findSimilarContent(String queryText, int limit) {
         try {
             // Generate embedding for the query text
-            log.info("Generating embedding for query: {}", queryText);
-            float[] queryEmbedding = embeddingModel.embed(queryText);
+            // The query can be the code of a whole repository; only its size and start are logged
+            log.debug("Generating embedding for query of {} characters: {}", queryText.length(), LogPreview.of(queryText));
+            float[] queryEmbedding = embed(queryText);
 
-            // Find similar content blocks using pgvector similarity search
-            log.info("Finding similar content blocks using pgvector");
-            return contentBlockRepository.findSimilarContent(queryEmbedding, limit);
+            String terms = retrievalConfig.isHybrid()
+                    ? buildSearchTerms(queryText, retrievalConfig.getMaxQueryTerms())
+                    : "";
+            String mode = terms.isEmpty() ? "vector" : "hybrid";
+            Timer.Sample sample = reviewMetrics.start();
+            Observation observation = reviewTracing.start("code.review.vector.query", "pgvector query")
+                    .lowCardinalityKeyValue("search.mode", mode)
+                    .highCardinalityKeyValue("search.limit", String.valueOf(limit));
+            List<ContentBlock> blocks;
+            try (Observation.Scope scope = observation.openScope()) {
+                if (!terms.isEmpty()) {
+                    log.debug("Finding content blocks by hybrid full-text and vector ranking");
+                    blocks = contentBlockRepository.findHybridContent(queryEmbedding, terms,
+                            Math.max(limit, retrievalConfig.getCandidates()), retrievalConfig.getRrfK(), limit);
+                } else {
+                    // Find similar content blocks using pgvector similarity search
+                    log.debug("Finding similar content blocks using pgvector");
+                    blocks = contentBlockRepository.findSimilarContent(queryEmbedding, limit);
+                }
+                observation.highCardinalityKeyValue("search.results", String.valueOf(blocks.size()));
+            } catch (RuntimeException e) {
+                observation.error(e);
+                throw e;
+            } finally {
+                observation.stop();
+            }
+            reviewMetrics.search(sample, mode);
+            return blocks;
         } catch (Exception e) {
             log.error("Error finding similar content: {}", e.getMessage(), e);
             return List.of();
         }
     }
 
+    private float[] embed(String text) {
+        Timer.Sample sample = reviewMetrics.start();
+        Observation observation = reviewTracing.start("code.review.embedding.call", "embed text")
+                .highCardinalityKeyValue("embedding.characters", String.valueOf(text.length()));
+        try (Observation.Scope scope = observation.openScope()) {
+            float[] vector = embeddingModel.embed(text);
+            usageLedger.recordEmbedding(List.of(text));
+            return vector;
+        } catch (RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+            reviewMetrics.embedding(sample, 1);
+        }
+    }
+
     /**
      * Generates embeddings for all content blocks that don't have embeddings
      */
     @Transactional
     public void generateEmbeddingsForAllContent() {
         List<ContentBlock> allBlocks = contentBlockRepository.findAll();
+        int generated = generateAndSaveEmbeddings(allBlocks);
+        log.info("Generated embeddings for {} content blocks", generated);
+    }
 
-        for (ContentBlock block : allBlocks) {
-            if (block.getEmbedding() == null && block.getContent() != null && !block.getContent().isBlank()) {
-                generateAndSaveEmbedding(block);
-                log.info("Generated embedding for content block ID: {}", block.getId());
+    /**
+     * Build a full-text query from the identifiers in a piece of code: the most frequent
+     * identifiers, with annotations counting triple, joined as alternatives for
+     * websearch_to_tsquery. Keywords and very short names are ignored.
+     *
+     * @param text     The code or text to search for
+     * @param maxTerms Maximum number of terms
+     * @return The query, e.g. "transactional or optional", or an empty string without terms
+     */
+    static String buildSearchTerms(String text, int maxTerms) {
+        if (text == null || text.isEmpty() || maxTerms <= 0) {
+            return "";
+        }
+
+        Map<String, Integer> weights = new HashMap<>();
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (!Character.isJavaIdentifierStart(c) || c == '$') {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < length && Character.isJavaIdentifierPart(text.charAt(i)) && text.charAt(i) != '$') {
+                i++;
             }
+            String term = text.substring(start, i).toLowerCase(Locale.ROOT);
+            if (term.length() < MIN_TERM_LENGTH || SEARCH_STOP_WORDS.contains(term)) {
+                continue;
+            }
+            boolean annotation = start > 0 && text.charAt(start - 1) == '@';
+            weights.merge(term, annotation ? 3 : 1, Integer::sum);
         }
+
+        return weights.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(maxTerms)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.joining(" or "));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,169 @@
+package de.purnama.code_review.service;
+
+import java.nio.file.FileSystems;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import de.purnama.code_review.config.GuidelineBundleConfig;
+import de.purnama.code_review.config.OpenAIConfig;
+import de.purnama.code_review.model.ContentBlock;
+import de.purnama.code_review.service.git.RepositoryPathFilter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * GuidelineBundleCache
+ *
+ * Keeps one selected, token-budgeted set of guidelines per file type, so that a review only
+ * embeds and searches once per file type instead of once per file. A file belongs to the
+ * first configured path pattern it matches, otherwise to its extension if that extension is
+ * reviewed at all. Bundles are built on first use from a query that names the language and
+ * are dropped whenever a content block changes.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Slf4j
+@Service
+public class GuidelineBundleCache {
+
+    private static final String PATTERN_KEY_PREFIX = "pattern:";
+
+    private static final Map<String, String> LANGUAGE_NAMES = Map.ofEntries(
+            Map.entry(".java", "Java"), Map.entry(".js", "JavaScript"), Map.entry(".ts", "TypeScript"),
+            Map.entry(".py", "Python"), Map.entry(".rb", "Ruby"), Map.entry(".c", "C"),
+            Map.entry(".cpp", "C++"), Map.entry(".cs", "C#"), Map.entry(".go", "Go"),
+            Map.entry(".php", "PHP"), Map.entry(".html", "HTML"), Map.entry(".css", "CSS"),
+            Map.entry(".scss", "SCSS"), Map.entry(".json", "JSON"), Map.entry(".xml", "XML"),
+            Map.entry(".yaml", "YAML"), Map.entry(".yml", "YAML"), Map.entry(".kt", "Kotlin"));
+
+    private final EmbeddingService embeddingService;
+    private final GuidelineSelector guidelineSelector;
+    private final OpenAIConfig openAIConfig;
+    private final GuidelineBundleConfig config;
+    private final RepositoryPathFilter pathFilter;
+    private final Map<String, PathMatcher> patterns = new LinkedHashMap<>();
+
+    private final Map<String, GuidelineSelector.Selection> bundles = new ConcurrentHashMap<>();
+    // Incremented on every invalidation; a bundle built across an invalidation is not stored
+    private final AtomicLong generation = new AtomicLong();
+
+    public GuidelineBundleCache(EmbeddingService embeddingService, GuidelineSelector guidelineSelector,
+                                OpenAIConfig openAIConfig, GuidelineBundleConfig config, RepositoryPathFilter pathFilter) {
+        this.embeddingService = embeddingService;
+        this.guidelineSelector = guidelineSelector;
+        this.openAIConfig = openAIConfig;
+        this.config = config;
+        this.pathFilter = pathFilter;
+        for (String pattern : config.getPatterns().keySet()) {
+            patterns.put(pattern, FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+        }
+    }
+
+    /**
+     * Bundle key of a file
+     *
+     * @param path File path or file URL; query and fragment are ignored
+     * @return The matching pattern or the extension, or null if the file has no bundle
+     */
+    public String keyFor(String path) {
+        if (!config.isEnabled() || path == null) {
+            return null;
+        }
+        String cleanPath = path.replaceFirst("[?#].*$", "");
+
+        if (!patterns.isEmpty()) {
+            try {
+                Path filePath = Path.of(cleanPath);
+                for (Map.Entry<String, PathMatcher> pattern : patterns.entrySet()) {
+                    if (pattern.getValue().matches(filePath)) {
+                        return PATTERN_KEY_PREFIX + pattern.getKey();
+                    }
+                }
+            } catch (InvalidPathException e) {
+                log.debug("Cannot match {} against bundle patterns: {}", cleanPath, e.getMessage());
+            }
+        }
+
+        int slash = cleanPath.lastIndexOf('/');
+        int dot = cleanPath.lastIndexOf('.');
+        if (dot <= slash + 1) {
+            return null;
+        }
+        String extension = cleanPath.substring(dot).toLowerCase(Locale.ROOT);
+        return pathFilter.getSupportedExtensions().contains(extension) ? extension : null;
+    }
+
+    /**
+     * Guidelines for a file from its cached bundle, building the bundle if needed
+     *
+     * @param path File path or file URL
+     * @return The bundle, or empty if the file has no bundle or no guidelines were found
+     */
+    public Optional<GuidelineSelector.Selection> bundleFor(String path) {
+        String key = keyFor(path);
+        return key == null ? Optional.empty() : bundle(key);
+    }
+
+    /**
+     * Guidelines of a bundle key as returned by {@link #keyFor(String)}
+     */
+    public Optional<GuidelineSelector.Selection> bundle(String key) {
+        GuidelineSelector.Selection bundle = bundles.get(key);
+        if (bundle != null) {
+            return Optional.of(bundle);
+        }
+
+        long builtFor = generation.get();
+        String query = queryFor(key);
+        log.info("Building guideline bundle {} from query: {}", key, query);
+        int limit = openAIConfig.getContentBlocksLimit();
+        List<ContentBlock> candidates = embeddingService.findSimilarContent(query, guidelineSelector.candidateCount(limit));
+        bundle = guidelineSelector.select(candidates, limit);
+        if (bundle.guidelines().isEmpty()) {
+            // Nothing ingested yet, or the search failed; let the caller search for itself
+            return Optional.empty();
+        }
+
+        if (generation.get() == builtFor) {
+            bundles.putIfAbsent(key, bundle);
+        }
+        return Optional.of(bundle);
+    }
+
+    /**
+     * Drop all bundles once a change to the guideline content is committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGuidelinesChanged(GuidelinesChangedEvent event) {
+        invalidate();
+    }
+
+    /**
+     * Drop all bundles; they are rebuilt on next use
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        if (!bundles.isEmpty()) {
+            log.info("Guideline content changed, dropping {} guideline bundles", bundles.size());
+            bundles.clear();
+        }
+    }
+
+    private String queryFor(String key) {
+        if (key.startsWith(PATTERN_KEY_PREFIX)) {
+            return config.getPatterns().get(key.substring(PATTERN_KEY_PREFIX.length()));
+        }
+        String language = LANGUAGE_NAMES.getOrDefault(key, key.substring(1).toUpperCase(Locale.ROOT));
+        return String.format(config.getQueryTemplate(), language);
+    }
+}
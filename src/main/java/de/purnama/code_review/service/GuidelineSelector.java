@@ -0,0 +1,256 @@
+package de.purnama.code_review.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.springframework.stereotype.Service;
+
+import de.purnama.code_review.config.GuidelineSelectionConfig;
+import de.purnama.code_review.model.ContentBlock;
+import de.purnama.code_review.service.confluence.StructureChunker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * GuidelineSelector
+ *
+ * Turns the ranked content blocks found for a review into the guidelines of the prompt. Blocks
+ * whose word shingles are mostly contained in a better ranked block are dropped, so a rule that
+ * is repeated on several pages is sent once. Blocks that follow each other on the same page are
+ * merged into one guideline without the overlap the chunker repeated between them, and the
+ * result is cut to a token budget in rank order.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GuidelineSelector {
+
+    private static final int SHINGLE_SIZE = 5;
+    private static final String DEFAULT_TITLE = "Guideline";
+
+    private final GuidelineSelectionConfig config;
+
+    /**
+     * The guidelines for the prompt
+     *
+     * @param guidelines  Formatted guidelines in rank order
+     * @param tokens      Estimated tokens of the guidelines
+     * @param tokensSaved Estimated tokens saved compared to sending the top blocks verbatim
+     */
+    public record Selection(List<String> guidelines, int tokens, int tokensSaved) {
+    }
+
+    /**
+     * Number of blocks to retrieve for a given number of guidelines
+     */
+    public int candidateCount(int limit) {
+        return Math.max(limit, limit * Math.max(1, config.getCandidateFactor()));
+    }
+
+    /**
+     * Select the guidelines for a review
+     *
+     * @param candidates Retrieved blocks, best match first
+     * @param limit      Maximum number of distinct blocks to use
+     * @return The selected guidelines
+     */
+    public Selection select(List<ContentBlock> candidates, int limit) {
+        if (candidates == null || candidates.isEmpty() || limit <= 0) {
+            return new Selection(List.of(), 0, 0);
+        }
+
+        // What the prompt contained without this stage: the top blocks verbatim
+        int baselineTokens = 0;
+        for (ContentBlock block : candidates.subList(0, Math.min(limit, candidates.size()))) {
+            baselineTokens += StructureChunker.estimateTokens(format(title(block), block.getContent()));
+        }
+
+        List<ContentBlock> distinct = removeNearDuplicates(candidates, limit);
+        List<Guideline> guidelines = mergeAdjacent(distinct);
+
+        List<String> selected = new ArrayList<>();
+        int tokens = 0;
+        int budget = config.getTokenBudget();
+        for (Guideline guideline : guidelines) {
+            String text = format(guideline.title, guideline.content.toString());
+            int guidelineTokens = StructureChunker.estimateTokens(text);
+            if (budget > 0 && tokens + guidelineTokens > budget) {
+                log.debug("Guideline '{}' ({} tokens) does not fit the remaining budget", guideline.title, guidelineTokens);
+                continue;
+            }
+            selected.add(text);
+            tokens += guidelineTokens;
+        }
+
+        int tokensSaved = Math.max(0, baselineTokens - tokens);
+        log.info("Selected {} guidelines from {} candidates ({} distinct): {} tokens, {} saved",
+                selected.size(), candidates.size(), distinct.size(), tokens, tokensSaved);
+        return new Selection(selected, tokens, tokensSaved);
+    }
+
+    /**
+     * Keep up to limit blocks in rank order, skipping blocks that repeat a kept block
+     */
+    private List<ContentBlock> removeNearDuplicates(List<ContentBlock> candidates, int limit) {
+        List<ContentBlock> kept = new ArrayList<>();
+        List<Set<Integer>> keptShingles = new ArrayList<>();
+        for (ContentBlock block : candidates) {
+            if (kept.size() >= limit) {
+                break;
+            }
+            Set<Integer> shingles = shingles(block.getContent());
+            if (shingles.isEmpty()) {
+                continue;
+            }
+            if (isNearDuplicate(shingles, keptShingles)) {
+                log.debug("Skipping near-duplicate guideline block {}", block.getId());
+                continue;
+            }
+            kept.add(block);
+            keptShingles.add(shingles);
+        }
+        return kept;
+    }
+
+    private boolean isNearDuplicate(Set<Integer> shingles, List<Set<Integer>> keptShingles) {
+        for (Set<Integer> other : keptShingles) {
+            if (containment(shingles, other) >= config.getDuplicateThreshold()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Share of the smaller set that is contained in the larger one
+     */
+    static double containment(Set<Integer> first, Set<Integer> second) {
+        Set<Integer> smaller = first.size() <= second.size() ? first : second;
+        Set<Integer> larger = smaller == first ? second : first;
+        if (smaller.isEmpty()) {
+            return 0;
+        }
+        int common = 0;
+        for (Integer shingle : smaller) {
+            if (larger.contains(shingle)) {
+                common++;
+            }
+        }
+        return (double) common / smaller.size();
+    }
+
+    /**
+     * Hashes of the lower-cased word 5-grams of a text; a shorter text is a single shingle
+     */
+    static Set<Integer> shingles(String text) {
+        Set<Integer> shingles = new HashSet<>();
+        if (text == null) {
+            return shingles;
+        }
+        List<String> words = new ArrayList<>();
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        if (words.isEmpty()) {
+            return shingles;
+        }
+        if (words.size() < SHINGLE_SIZE) {
+            shingles.add(String.join(" ", words).hashCode());
+            return shingles;
+        }
+        for (int i = 0; i + SHINGLE_SIZE <= words.size(); i++) {
+            shingles.add(String.join(" ", words.subList(i, i + SHINGLE_SIZE)).hashCode());
+        }
+        return shingles;
+    }
+
+    /**
+     * Merge runs of consecutive blocks of the same page; a merged guideline takes the best rank of its blocks
+     */
+    private List<Guideline> mergeAdjacent(List<ContentBlock> ranked) {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < ranked.size(); i++) {
+            order.add(i);
+        }
+        if (config.isMergeAdjacent()) {
+            order.sort(Comparator.comparing((Integer i) -> pageId(ranked.get(i)), Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparing(i -> ranked.get(i).getSequence(), Comparator.nullsLast(Comparator.naturalOrder())));
+        }
+
+        List<Guideline> guidelines = new ArrayList<>();
+        Guideline current = null;
+        ContentBlock previous = null;
+        for (int rank : order) {
+            ContentBlock block = ranked.get(rank);
+            if (config.isMergeAdjacent() && current != null && follows(previous, block)) {
+                current.rank = Math.min(current.rank, rank);
+                String continuation = stripOverlap(current.content, block.getContent());
+                if (!continuation.isEmpty()) {
+                    current.content.append('\n').append(continuation);
+                }
+            } else {
+                current = new Guideline(rank, title(block), block.getContent());
+                guidelines.add(current);
+            }
+            previous = block;
+        }
+        guidelines.sort(Comparator.comparingInt(guideline -> guideline.rank));
+        return guidelines;
+    }
+
+    private static boolean follows(ContentBlock previous, ContentBlock next) {
+        Long pageId = pageId(previous);
+        return pageId != null && pageId.equals(pageId(next))
+                && previous.getSequence() != null && next.getSequence() != null
+                && next.getSequence() == previous.getSequence() + 1;
+    }
+
+    /**
+     * Drop the first line of a continuation block when it repeats the end of the text before it
+     */
+    static String stripOverlap(CharSequence previous, String next) {
+        String text = next.strip();
+        int firstBreak = text.indexOf('\n');
+        String firstLine = (firstBreak < 0 ? text : text.substring(0, firstBreak)).strip();
+        String before = previous.toString().stripTrailing();
+        String lastLine = before.substring(before.lastIndexOf('\n') + 1).strip();
+        if (!firstLine.isEmpty() && lastLine.endsWith(firstLine)) {
+            return firstBreak < 0 ? "" : text.substring(firstBreak + 1);
+        }
+        return text;
+    }
+
+    // Id of the lazy page reference, read without initializing it
+    private static Long pageId(ContentBlock block) {
+        return block.getConfluenceUrl() == null ? null : block.getConfluenceUrl().getId();
+    }
+
+    private static String title(ContentBlock block) {
+        return block.getTitle() != null ? block.getTitle() : DEFAULT_TITLE;
+    }
+
+    private static String format(String title, String content) {
+        return "# " + title + "\n" + content;
+    }
+
+    private static final class Guideline {
+
+        private int rank;
+        private final String title;
+        private final StringBuilder content;
+
+        private Guideline(int rank, String title, String content) {
+            this.rank = rank;
+            this.title = title;
+            this.content = new StringBuilder(content.strip());
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package de.purnama.code_review.service;
+
+/**
+ * GuidelinesChangedEvent
+ *
+ * Published when a content block is inserted, updated or removed, so that anything derived
+ * from the guideline content can be dropped once the change is committed.
+ *
+ * @param contentBlockId Id of the changed block, or null if it was not assigned yet
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+public record GuidelinesChangedEvent(Long contentBlockId) {
+}
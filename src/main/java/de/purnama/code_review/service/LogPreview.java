@@ -0,0 +1,51 @@
+package de.purnama.code_review.service;
+
+/**
+ * LogPreview
+ *
+ * Size-capped preview of a payload (code, prompts, model responses) for a log argument. The
+ * preview is only built when the message is actually logged, because the logger calls
+ * {@link #toString()} after the level check, so passing it to a disabled level costs nothing.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+public final class LogPreview {
+
+    public static final int DEFAULT_LIMIT = 200;
+
+    private final CharSequence text;
+    private final int limit;
+
+    private LogPreview(CharSequence text, int limit) {
+        this.text = text;
+        this.limit = limit;
+    }
+
+    /**
+     * Preview of the first {@value #DEFAULT_LIMIT} characters
+     */
+    public static LogPreview of(CharSequence text) {
+        return of(text, DEFAULT_LIMIT);
+    }
+
+    /**
+     * Preview of the first characters
+     *
+     * @param text  The payload, may be null
+     * @param limit Maximum number of characters shown
+     */
+    public static LogPreview of(CharSequence text, int limit) {
+        return new LogPreview(text, Math.max(0, limit));
+    }
+
+    @Override
+    public String toString() {
+        if (text == null) {
+            return "null";
+        }
+        if (text.length() <= limit) {
+            return text.toString();
+        }
+        return text.subSequence(0, limit) + "... (" + text.length() + " characters)";
+    }
+}
@@ -0,0 +1,48 @@
+package de.purnama.code_review.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * LogSampler
+ *
+ * Rate limit for log messages written in hot loops, e.g. once per file or chunk: at most one
+ * message passes per interval and the others are counted, so the next message that passes can
+ * say how many were left out. Safe to share between threads.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+public final class LogSampler {
+
+    private final long intervalNanos;
+    private final LongSupplier clock;
+    private final AtomicLong nextPass;
+    private final AtomicLong suppressed = new AtomicLong();
+
+    public LogSampler(Duration interval) {
+        this(interval, System::nanoTime);
+    }
+
+    LogSampler(Duration interval, LongSupplier clock) {
+        this.intervalNanos = interval.toNanos();
+        this.clock = clock;
+        this.nextPass = new AtomicLong(clock.getAsLong());
+    }
+
+    /**
+     * Decide whether a message is logged
+     *
+     * @return The number of messages left out since the last one that passed, or -1 if this
+     * message is left out
+     */
+    public long pass() {
+        long now = clock.getAsLong();
+        long next = nextPass.get();
+        if (now - next >= 0 && nextPass.compareAndSet(next, now + intervalNanos)) {
+            return suppressed.getAndSet(0);
+        }
+        suppressed.incrementAndGet();
+        return -1;
+    }
+}
@@ -58,4 +58,17 @@ public class MarkdownConverter {
         // Render AST to HTML
         return renderer.render(document);
     }
+
+    /**
+     * Convert markdown text to HTML, writing the HTML to the output instead of building a string
+     *
+     * @param markdown The markdown text to convert
+     * @param out      Receives the HTML
+     */
+    public void convertMarkdownToHtml(String markdown, Appendable out) {
+        if (markdown == null || markdown.isEmpty()) {
+            return;
+        }
+        renderer.render(parser.parse(markdown), out);
+    }
 }
@@ -0,0 +1,243 @@
+package de.purnama.code_review.service;
+
+import java.net.URI;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import de.purnama.code_review.config.ReviewCoalescingConfig;
+import de.purnama.code_review.exception.CodeReviewException;
+import de.purnama.code_review.exception.GitProviderException;
+import de.purnama.code_review.exception.RequestInterruptedException;
+import de.purnama.code_review.model.CodeReviewResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ReviewCoalescer
+ *
+ * Single-flight execution of identical review requests. Requests for the same repository,
+ * branch and head commit that arrive while a review of it is running wait for that review
+ * and all receive its result. Optionally the review is also shared between nodes: the node
+ * holding the lease of the key in Postgres runs it and stores the result, the others wait
+ * for the lease and pick the result up.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Slf4j
+@Service
+public class ReviewCoalescer {
+
+    /**
+     * A review that can fail the way {@link CodeReviewService#reviewCode} does
+     */
+    @FunctionalInterface
+    public interface ReviewCall {
+        CodeReviewResponse call() throws CodeReviewException, GitProviderException;
+    }
+
+    /**
+     * Identity of a review request
+     *
+     * @param repositoryUrl Normalized repository URL
+     * @param branch        Branch or ref, may be null
+     * @param headCommit    Commit the branch points to, or null if it could not be resolved
+     */
+    public record ReviewKey(String repositoryUrl, String branch, String headCommit) {
+
+        /**
+         * Key of a request; the URL is normalized so trivially different spellings match
+         */
+        public static ReviewKey of(String repositoryUrl, String branch, String headCommit) {
+            return new ReviewKey(normalizeUrl(repositoryUrl), branch, headCommit);
+        }
+
+        /**
+         * @return The key as one string
+         */
+        public String value() {
+            return repositoryUrl + "|" + (branch != null ? branch : "") + "|" + (headCommit != null ? headCommit : "");
+        }
+    }
+
+    private final ReviewCoalescingConfig config;
+    private final ReviewLeases leases;
+    private final ConcurrentHashMap<String, CompletableFuture<CodeReviewResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public ReviewCoalescer(ReviewCoalescingConfig config, ReviewLeases leases) {
+        this.config = config;
+        this.leases = leases;
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * Run a review, or wait for the identical review that is already running
+     *
+     * @param key  Identity of the request
+     * @param call Runs the review
+     * @return The review, possibly shared with other requests
+     */
+    public CodeReviewResponse review(ReviewKey key, ReviewCall call) throws CodeReviewException, GitProviderException {
+        if (!config.isEnabled() || key == null) {
+            return call.call();
+        }
+
+        String value = key.value();
+        CompletableFuture<CodeReviewResponse> own = new CompletableFuture<>();
+        CompletableFuture<CodeReviewResponse> running = inFlight.putIfAbsent(value, own);
+        if (running != null) {
+            log.info("Joining review in progress for {}", value);
+            return await(running, value);
+        }
+
+        try {
+            CodeReviewResponse response = shareBetweenNodes(key) ? reviewOnce(value, call) : call.call();
+            own.complete(response);
+            return response;
+        } catch (Throwable e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(value, own);
+        }
+    }
+
+    /**
+     * Number of distinct reviews currently running on this node
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private boolean shareBetweenNodes(ReviewKey key) {
+        // Without a head commit a stored result could be stale, so only running reviews are shared
+        return config.isDistributed() && leases != null && key.headCommit() != null;
+    }
+
+    /**
+     * Run the review on the node that holds the lease; the others wait for its result
+     */
+    private CodeReviewResponse reviewOnce(String key, ReviewCall call) throws CodeReviewException, GitProviderException {
+        long deadline = System.nanoTime() + config.getWaitTimeout().toNanos();
+        while (true) {
+            ReviewLeases.Lease lease = null;
+            try {
+                CodeReviewResponse shared = leases.findResult(key, config.getResultTtl()).orElse(null);
+                if (shared == null) {
+                    lease = leases.tryLock(key);
+                    // The other node may have finished between the lookup and claiming the lease
+                    shared = lease != null ? leases.findResult(key, config.getResultTtl()).orElse(null) : null;
+                }
+                if (shared != null) {
+                    log.info("Using review shared by another node for {}", key);
+                    closeQuietly(lease);
+                    return shared;
+                }
+            } catch (DataAccessException e) {
+                closeQuietly(lease);
+                log.warn("Cannot coordinate review of {} with other nodes, reviewing here: {}", key, e.getMessage());
+                return call.call();
+            }
+
+            if (lease != null) {
+                try (ReviewLeases.Lease held = lease) {
+                    CodeReviewResponse response = call.call();
+                    storeQuietly(key, response);
+                    return response;
+                }
+            }
+
+            if (System.nanoTime() > deadline) {
+                log.warn("Gave up waiting for another node to review {}, reviewing here", key);
+                return call.call();
+            }
+            try {
+                Thread.sleep(config.getPollInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RequestInterruptedException("Interrupted while waiting for the review of " + key, e);
+            }
+        }
+    }
+
+    private static void closeQuietly(ReviewLeases.Lease lease) {
+        if (lease != null) {
+            lease.close();
+        }
+    }
+
+    private void storeQuietly(String key, CodeReviewResponse response) {
+        try {
+            leases.storeResult(key, response, config.getResultTtl());
+        } catch (DataAccessException e) {
+            log.warn("Could not share review of {} with other nodes: {}", key, e.getMessage());
+        }
+    }
+
+    private CodeReviewResponse await(CompletableFuture<CodeReviewResponse> running, String key)
+            throws CodeReviewException, GitProviderException {
+        try {
+            return running.get(config.getWaitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestInterruptedException("Interrupted while waiting for the review of " + key, e);
+        } catch (TimeoutException e) {
+            throw new CodeReviewException("Timed out waiting for an identical review of " + key, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CodeReviewException codeReviewException) {
+                throw codeReviewException;
+            }
+            if (cause instanceof GitProviderException gitProviderException) {
+                throw gitProviderException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new CodeReviewException("Identical review failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Lower-case scheme and host, and drop fragment, trailing slashes and a ".git" suffix.
+     * The path and query are kept: they carry owner, repository, ref and file.
+     */
+    static String normalizeUrl(String url) {
+        if (url == null) {
+            return "";
+        }
+        String trimmed = url.strip();
+        int hash = trimmed.indexOf('#');
+        if (hash >= 0) {
+            trimmed = trimmed.substring(0, hash);
+        }
+        try {
+            URI uri = URI.create(trimmed);
+            if (uri.getScheme() != null && uri.getRawAuthority() != null) {
+                String path = uri.getRawPath() != null ? uri.getRawPath() : "";
+                while (path.endsWith("/")) {
+                    path = path.substring(0, path.length() - 1);
+                }
+                if (path.endsWith(".git")) {
+                    path = path.substring(0, path.length() - 4);
+                }
+                return uri.getScheme().toLowerCase(Locale.ROOT) + "://" + uri.getRawAuthority().toLowerCase(Locale.ROOT)
+                        + path + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
+            }
+        } catch (IllegalArgumentException e) {
+            // Not a URI; compare it as typed
+        }
+        return trimmed;
+    }
+}
@@ -0,0 +1,156 @@
+package de.purnama.code_review.service;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.purnama.code_review.config.ReviewCoalescingConfig;
+import de.purnama.code_review.model.CodeReviewResponse;
+import de.purnama.code_review.model.CoalescedReview;
+import de.purnama.code_review.repository.CoalescedReviewRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ReviewLeases
+ *
+ * Lets one node at a time run the review of a coalescing key and hands its result to the
+ * other nodes. The node reviewing a key holds a lease row with an expiry that it renews while
+ * it reviews; if the node dies, the lease expires and another node can claim the key. Every
+ * claim, renewal and release is a single statement, so no pooled connection is held for the
+ * duration of a review.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Slf4j
+@Component
+public class ReviewLeases {
+
+    private final CoalescedReviewRepository coalescedReviewRepository;
+    private final ObjectMapper objectMapper;
+    private final ReviewCoalescingConfig config;
+    private final String nodeId;
+
+    // Leases held by this node, by key, with the owner token they were claimed with
+    private final Map<String, String> held = new ConcurrentHashMap<>();
+
+    public ReviewLeases(CoalescedReviewRepository coalescedReviewRepository, ObjectMapper objectMapper,
+                        ReviewCoalescingConfig config) {
+        this.coalescedReviewRepository = coalescedReviewRepository;
+        this.objectMapper = objectMapper;
+        this.config = config;
+        this.nodeId = resolveNodeId();
+    }
+
+    /**
+     * Claim the lease of a key without waiting
+     *
+     * @param key The coalescing key
+     * @return The held lease, or null if another node holds it
+     */
+    public Lease tryLock(String key) {
+        String owner = nodeId + "-" + UUID.randomUUID().toString().substring(0, 8);
+        if (coalescedReviewRepository.claimLease(key, owner, config.getLeaseDuration().toSeconds()) == 0) {
+            return null;
+        }
+        held.put(key, owner);
+        return new Lease(key, owner);
+    }
+
+    /**
+     * Renew the leases of the reviews this node is running
+     */
+    @Scheduled(fixedDelayString = "${code.review.coalescing.lease-renew-interval:PT20S}")
+    public void renew() {
+        held.forEach((key, owner) -> {
+            try {
+                if (coalescedReviewRepository.renewLease(key, owner, config.getLeaseDuration().toSeconds()) == 0) {
+                    log.warn("Lost the lease of {}; another node may review it as well", key);
+                }
+            } catch (DataAccessException e) {
+                log.warn("Could not renew the lease of {}: {}", key, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * A review another node stored for a key
+     *
+     * @param key    The coalescing key
+     * @param maxAge Reviews stored longer ago are ignored
+     */
+    public Optional<CodeReviewResponse> findResult(String key, Duration maxAge) {
+        return coalescedReviewRepository.findFresh(key, maxAge.toSeconds()).flatMap(this::read);
+    }
+
+    /**
+     * Store a finished review for the other nodes and drop expired reviews and leases
+     *
+     * @param key      The coalescing key
+     * @param response The finished review
+     * @param ttl      How long stored reviews are kept
+     */
+    public void storeResult(String key, CodeReviewResponse response, Duration ttl) {
+        try {
+            byte[] json = CompressedText.compress(objectMapper.writeValueAsString(response));
+            coalescedReviewRepository.upsert(key, json);
+            coalescedReviewRepository.deleteOlderThan(ttl.toSeconds());
+            coalescedReviewRepository.deleteExpiredLeases();
+        } catch (JsonProcessingException e) {
+            log.warn("Could not share review for {}: {}", key, e.getMessage());
+        }
+    }
+
+    private Optional<CodeReviewResponse> read(CoalescedReview stored) {
+        try {
+            return Optional.of(objectMapper.readValue(CompressedText.decompress(stored.getResponse()), CodeReviewResponse.class));
+        } catch (JsonProcessingException e) {
+            log.warn("Could not read shared review for {}: {}", stored.getCoalescingKey(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static String resolveNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * A held lease; closing it stops the renewals and releases the key
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final String key;
+        private final String owner;
+
+        private Lease(String key, String owner) {
+            this.key = key;
+            this.owner = owner;
+        }
+
+        @Override
+        public void close() {
+            held.remove(key, owner);
+            try {
+                coalescedReviewRepository.releaseLease(key, owner);
+            } catch (DataAccessException e) {
+                // Without renewals the lease expires on its own
+                log.warn("Could not release the lease of {}: {}", key, e.getMessage());
+            }
+        }
+    }
+}
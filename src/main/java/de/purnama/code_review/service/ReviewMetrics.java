@@ -0,0 +1,259 @@
+package de.purnama.code_review.service;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * ReviewMetrics
+ *
+ * Micrometer meters of the review pipeline, so that the time of a review can be broken down
+ * into fetching, guideline retrieval, chunking, model calls and rendering. All meters are
+ * named {@code code.review.*} and are exported by the Actuator Prometheus endpoint.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Component
+public class ReviewMetrics {
+
+    public static final String STAGE_FETCH = "fetch";
+    public static final String STAGE_RETRIEVAL = "retrieval";
+    public static final String STAGE_LLM = "llm";
+    public static final String STAGE_CHUNKING = "chunking";
+    public static final String STAGE_RENDERING = "rendering";
+
+    private final MeterRegistry registry;
+    private final Map<String, AtomicLong> rateLimitRemaining = new ConcurrentHashMap<>();
+
+    public ReviewMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Start timing something; pass the sample to one of the recording methods when it is done
+     */
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * Record a whole review as the user saw it, including the wait of coalesced requests
+     *
+     * @param type    {@code file} or {@code project}
+     * @param success Whether the review completed
+     */
+    public void review(Timer.Sample sample, String type, boolean success) {
+        sample.stop(Timer.builder("code.review.duration")
+                .description("Duration of code reviews")
+                .tags("type", type, "outcome", success ? "success" : "error")
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    /**
+     * Record one stage of a review, e.g. {@link #STAGE_FETCH}
+     */
+    public void stage(Timer.Sample sample, String stage) {
+        sample.stop(stageTimer(stage));
+    }
+
+    /**
+     * Record a stage that was measured in several parts, e.g. the rendering of each section
+     */
+    public void stage(String stage, long nanos) {
+        stageTimer(stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record a call to the chat model with its prompt size and the token usage it reported
+     *
+     * @param promptCharacters Characters of the prompt
+     * @param response         The response, or null if the call failed
+     */
+    public void modelCall(Timer.Sample sample, int promptCharacters, ChatResponse response) {
+        stage(sample, STAGE_LLM);
+        DistributionSummary.builder("code.review.llm.prompt.size")
+                .description("Characters of the prompts sent to the chat model")
+                .baseUnit("characters")
+                .register(registry)
+                .record(promptCharacters);
+
+        Usage usage = response != null && response.getMetadata() != null ? response.getMetadata().getUsage() : null;
+        if (usage != null) {
+            countTokens("prompt", usage.getPromptTokens());
+            countTokens("completion", usage.getCompletionTokens());
+        }
+    }
+
+    /**
+     * Record the number of chunks a large file was split into
+     */
+    public void chunks(int count) {
+        DistributionSummary.builder("code.review.chunks")
+                .description("Chunks per file that was too large for a single prompt")
+                .register(registry)
+                .record(count);
+    }
+
+    /**
+     * Record a call to the embedding model
+     *
+     * @param inputs Number of texts embedded by the call
+     */
+    public void embedding(Timer.Sample sample, int inputs) {
+        sample.stop(Timer.builder("code.review.embedding.requests")
+                .description("Duration of embedding model calls")
+                .register(registry));
+        DistributionSummary.builder("code.review.embedding.inputs")
+                .description("Texts per embedding model call")
+                .register(registry)
+                .record(inputs);
+    }
+
+    /**
+     * Record a guideline search in pgvector
+     *
+     * @param mode {@code vector} or {@code hybrid}
+     */
+    public void search(Timer.Sample sample, String mode) {
+        sample.stop(Timer.builder("code.review.embedding.search")
+                .description("Duration of content block similarity queries")
+                .tag("mode", mode)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    /**
+     * Record fetching or parsing a Confluence page
+     *
+     * @param stage {@code fetch}, {@code version} or {@code parse}
+     */
+    public void confluence(Timer.Sample sample, String stage) {
+        sample.stop(Timer.builder("code.review.confluence.duration")
+                .description("Duration of Confluence page fetches, version checks and parsing")
+                .tag("stage", stage)
+                .register(registry));
+    }
+
+    /**
+     * Record the number of content blocks a Confluence page was split into
+     */
+    public void confluenceChunks(int count) {
+        DistributionSummary.builder("code.review.confluence.chunks")
+                .description("Content blocks per Confluence page")
+                .register(registry)
+                .record(count);
+    }
+
+    /**
+     * A WebClient filter that records latency, status and response size of every request to a
+     * Git provider, and the rate limit the provider reports as remaining
+     *
+     * @param provider Name of the provider, e.g. {@code github}
+     */
+    public ExchangeFilterFunction gitRequests(String provider) {
+        return (request, next) -> {
+            Timer.Sample sample = start();
+            String operation = gitOperation(request.url());
+            return next.exchange(request)
+                    .doOnError(e -> sample.stop(gitTimer(provider, operation, "IO_ERROR")))
+                    .map(response -> {
+                        sample.stop(gitTimer(provider, operation, String.valueOf(response.statusCode().value())));
+                        recordRateLimit(provider, response.headers().asHttpHeaders());
+
+                        DistributionSummary size = DistributionSummary.builder("code.review.git.response.size")
+                                .description("Body size of Git provider responses")
+                                .baseUnit("bytes")
+                                .tags("provider", provider, "operation", operation)
+                                .register(registry);
+                        AtomicLong bytes = new AtomicLong();
+                        return response.mutate()
+                                .body(body -> body
+                                        .doOnNext(buffer -> bytes.addAndGet(buffer.readableByteCount()))
+                                        .doOnComplete(() -> size.record(bytes.get())))
+                                .build();
+                    });
+        };
+    }
+
+    /**
+     * The kind of API call a URL stands for, without owner, repository or ref so that the tag
+     * values stay few: the segment after {@code /repos/{owner}/{repo}/} (or after {@code git/}),
+     * e.g. {@code trees} or {@code commits}, or the segment after
+     * {@code /projects/{id}/repository/} without extension, e.g. {@code tree}, {@code blobs} or
+     * {@code archive}; {@code raw} for file downloads
+     */
+    static String gitOperation(URI url) {
+        // The raw path keeps an encoded GitLab project path ("group%2Frepo") in one segment
+        String[] segments = url.getRawPath().split("/");
+        for (int i = 0; i + 3 < segments.length; i++) {
+            if ("repos".equals(segments[i])) {
+                String operation = segments[i + 3];
+                return "git".equals(operation) && i + 4 < segments.length ? segments[i + 4] : operation;
+            }
+            if ("projects".equals(segments[i]) && "repository".equals(segments[i + 2])) {
+                String operation = segments[i + 3];
+                int extension = operation.indexOf('.');
+                return extension > 0 ? operation.substring(0, extension) : operation;
+            }
+        }
+        return "raw";
+    }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder("code.review.stage")
+                .description("Duration of the stages of code reviews")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Timer gitTimer(String provider, String operation, String status) {
+        return Timer.builder("code.review.git.requests")
+                .description("Duration of Git provider requests until the response headers arrive")
+                .tags("provider", provider, "operation", operation, "status", status)
+                .register(registry);
+    }
+
+    private void countTokens(String type, Integer tokens) {
+        if (tokens != null && tokens > 0) {
+            Counter.builder("code.review.llm.tokens")
+                    .description("Tokens used by chat model calls")
+                    .tag("type", type)
+                    .register(registry)
+                    .increment(tokens);
+        }
+    }
+
+    private void recordRateLimit(String provider, HttpHeaders headers) {
+        // GitHub sends X-RateLimit-Remaining, GitLab RateLimit-Remaining
+        String remaining = headers.getFirst("X-RateLimit-Remaining");
+        if (remaining == null) {
+            remaining = headers.getFirst("RateLimit-Remaining");
+        }
+        if (remaining == null) {
+            return;
+        }
+        try {
+            rateLimitRemaining.computeIfAbsent(provider, key -> registry.gauge(
+                            "code.review.git.rate.limit.remaining", Tags.of("provider", key), new AtomicLong(-1)))
+                    .set(Long.parseLong(remaining.trim()));
+        } catch (NumberFormatException e) {
+            // Not a number, nothing to record
+        }
+    }
+}
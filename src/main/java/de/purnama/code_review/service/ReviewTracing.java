@@ -0,0 +1,83 @@
+package de.purnama.code_review.service;
+
+import java.util.concurrent.ExecutorService;
+
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * ReviewTracing
+ *
+ * Spans of the review pipeline, created as Micrometer observations and exported through
+ * OpenTelemetry: a span per review, with children per file, chunk, model call, embedding call
+ * and vector query. A span is started with {@link #start}, made current with
+ * {@code openScope()} so that spans started below it become its children, and stopped in a
+ * finally block.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Component
+@RequiredArgsConstructor
+public class ReviewTracing {
+
+    private static final ContextSnapshotFactory SNAPSHOTS = ContextSnapshotFactory.builder().build();
+
+    private final ObservationRegistry observationRegistry;
+
+    /**
+     * Start a span as a child of the current one
+     *
+     * @param name           Name of the observation, e.g. {@code code.review.file}
+     * @param contextualName Name of the span
+     * @return The started span; call {@code stop()} when done
+     */
+    public Observation start(String name, String contextualName) {
+        return Observation.createNotStarted(name, observationRegistry)
+                .contextualName(contextualName)
+                .start();
+    }
+
+    /**
+     * Add an attribute to the current span, for facts that are only known further down, e.g.
+     * whether a cache was hit
+     */
+    public void attribute(String key, Object value) {
+        Observation current = observationRegistry.getCurrentObservation();
+        if (current != null) {
+            current.highCardinalityKeyValue(key, String.valueOf(value));
+        }
+    }
+
+    /**
+     * Add the prompt size and the token usage of a chat model call to its span
+     *
+     * @param response The response, or null if the call failed
+     */
+    public void modelCall(Observation observation, int promptCharacters, ChatResponse response) {
+        observation.highCardinalityKeyValue("prompt.characters", String.valueOf(promptCharacters));
+        Usage usage = response != null && response.getMetadata() != null ? response.getMetadata().getUsage() : null;
+        if (usage != null) {
+            if (usage.getPromptTokens() != null) {
+                observation.highCardinalityKeyValue("tokens.prompt", String.valueOf(usage.getPromptTokens()));
+            }
+            if (usage.getCompletionTokens() != null) {
+                observation.highCardinalityKeyValue("tokens.completion", String.valueOf(usage.getCompletionTokens()));
+            }
+        }
+    }
+
+    /**
+     * Wrap an executor so that tasks run with the span, and the rest of the context, of the
+     * thread that submitted them
+     */
+    public static ExecutorService propagating(ExecutorService executor) {
+        return ContextExecutorService.wrap(executor, SNAPSHOTS::captureAll);
+    }
+}
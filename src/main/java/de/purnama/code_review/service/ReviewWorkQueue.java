@@ -0,0 +1,317 @@
+package de.purnama.code_review.service;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import de.purnama.code_review.config.ReviewWorkQueueConfig;
+import de.purnama.code_review.exception.CodeReviewException;
+import de.purnama.code_review.exception.RequestInterruptedException;
+import de.purnama.code_review.model.ReviewJob;
+import de.purnama.code_review.model.ReviewWorkUnit;
+import de.purnama.code_review.repository.ReviewJobRepository;
+import de.purnama.code_review.repository.ReviewWorkUnitRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ReviewWorkQueue
+ *
+ * Durable queue of file and chunk reviews in Postgres, shared by all nodes. The node that
+ * received a review request stores it as a job with one unit per file or chunk and then
+ * coordinates it: it keeps the job's heartbeat fresh, waits until every unit is done and
+ * collects the results in order. Units are claimed by the {@link ReviewWorker} of any node
+ * with FOR UPDATE SKIP LOCKED, so claiming never blocks and no unit is reviewed twice at once.
+ * Units whose node stops sending heartbeats are put back and retried a limited number of times.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Slf4j
+@Service
+public class ReviewWorkQueue {
+
+    private static final Set<ReviewWorkUnit.Status> OPEN = EnumSet.of(ReviewWorkUnit.Status.PENDING, ReviewWorkUnit.Status.RUNNING);
+
+    // Errors are stored for the review text, not for debugging
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    // Guidelines and attribution of recently seen jobs, so a worker does not load them for every unit
+    private static final int JOB_CACHE_SIZE = 16;
+
+    /**
+     * Code to review as one unit
+     *
+     * @param label   What the prompt calls the code, e.g. the repository URL and chunk number
+     * @param content The code
+     */
+    public record WorkItem(String label, String content) {
+    }
+
+    /**
+     * A unit claimed by this node
+     */
+    public record ClaimedUnit(Long id, Long jobId, String label, String content) {
+    }
+
+    /**
+     * What a worker needs of a job besides its units
+     */
+    private record JobContext(String guidelines, UsageLedger.Attribution attribution) {
+    }
+
+    /**
+     * Outcome of a unit
+     *
+     * @param review The review Markdown, or null if the unit failed
+     * @param error  Why the unit failed, or null
+     */
+    public record UnitResult(String review, String error) {
+
+        public boolean isDone() {
+            return review != null;
+        }
+    }
+
+    private final ReviewJobRepository jobRepository;
+    private final ReviewWorkUnitRepository unitRepository;
+    private final ReviewWorkQueueConfig config;
+    private final String nodeId;
+
+    private final Map<Long, JobContext> jobCache = new LinkedHashMap<>(JOB_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, JobContext> eldest) {
+            return size() > JOB_CACHE_SIZE;
+        }
+    };
+
+    public ReviewWorkQueue(ReviewJobRepository jobRepository, ReviewWorkUnitRepository unitRepository,
+                           ReviewWorkQueueConfig config) {
+        this.jobRepository = jobRepository;
+        this.unitRepository = unitRepository;
+        this.config = config;
+        this.nodeId = resolveNodeId();
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Queue the units of a review and wait until all nodes together reviewed them; their model
+     * calls are charged to the usage attribution of the calling thread
+     *
+     * @param repositoryUrl       The reviewed repository
+     * @param formattedGuidelines Guidelines for every unit, formatted for the prompt
+     * @param items               The units, in review order
+     * @return The outcome of each unit, in the order of the items
+     * @throws CodeReviewException If the job does not finish in time or is lost
+     */
+    public List<UnitResult> run(String repositoryUrl, String formattedGuidelines, List<WorkItem> items)
+            throws CodeReviewException {
+        UsageLedger.Attribution attribution = UsageLedger.current();
+        ReviewJob job = jobRepository.save(ReviewJob.builder()
+                .repositoryUrl(repositoryUrl)
+                .userEmail(attribution != null ? attribution.userEmail() : null)
+                .reviewRef(attribution != null ? attribution.reviewRef() : null)
+                .guidelines(CompressedText.compress(formattedGuidelines))
+                .coordinator(nodeId)
+                .unitCount(items.size())
+                .build());
+        Long jobId = job.getId();
+
+        try {
+            List<ReviewWorkUnit> units = new ArrayList<>(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                units.add(ReviewWorkUnit.builder()
+                        .jobId(jobId)
+                        .position(i)
+                        .label(items.get(i).label())
+                        .content(CompressedText.compress(items.get(i).content()))
+                        .build());
+            }
+            unitRepository.saveAll(units);
+            log.info("Queued review job {} of {} with {} units", jobId, repositoryUrl, units.size());
+
+            awaitUnits(jobId);
+            return collectResults(jobId, items.size());
+        } finally {
+            try {
+                jobRepository.deleteById(jobId);
+            } catch (DataAccessException e) {
+                // Abandoned jobs are removed by the workers
+                log.warn("Could not remove review job {}: {}", jobId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Claim pending units for this node
+     *
+     * @param limit Maximum number of units
+     * @return The claimed units, oldest first
+     */
+    @Transactional
+    public List<ClaimedUnit> claim(int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        List<ReviewWorkUnit> pending = unitRepository.lockPending(limit);
+        if (pending.isEmpty()) {
+            return List.of();
+        }
+
+        List<ClaimedUnit> claimed = new ArrayList<>(pending.size());
+        List<Long> ids = new ArrayList<>(pending.size());
+        for (ReviewWorkUnit unit : pending) {
+            claimed.add(new ClaimedUnit(unit.getId(), unit.getJobId(), unit.getLabel(),
+                    CompressedText.decompress(unit.getContent())));
+            ids.add(unit.getId());
+        }
+        unitRepository.markClaimed(ids, nodeId);
+        return claimed;
+    }
+
+    /**
+     * Guidelines of a job, formatted for the prompt
+     *
+     * @return The guidelines, or null if the job no longer exists
+     */
+    public String guidelinesOf(Long jobId) {
+        JobContext job = jobContextOf(jobId);
+        return job != null ? job.guidelines() : null;
+    }
+
+    /**
+     * Who the model calls of a job's units are charged to
+     *
+     * @return The attribution, or null if the job no longer exists
+     */
+    public UsageLedger.Attribution attributionOf(Long jobId) {
+        JobContext job = jobContextOf(jobId);
+        return job != null ? job.attribution() : null;
+    }
+
+    /**
+     * Store the review of a unit this node claimed
+     */
+    public void complete(Long unitId, String review) {
+        if (unitRepository.complete(unitId, nodeId, CompressedText.compress(review)) == 0) {
+            log.warn("Work unit {} was taken over by another node before its review was stored", unitId);
+        }
+    }
+
+    /**
+     * Give a unit this node claimed back for a retry, or fail it once it ran out of attempts
+     */
+    public void fail(Long unitId, String error) {
+        String message = error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        unitRepository.fail(unitId, nodeId, message, config.getMaxAttempts());
+    }
+
+    /**
+     * Keep the units this node works on from being taken over
+     */
+    public void heartbeat() {
+        unitRepository.heartbeat(nodeId);
+    }
+
+    /**
+     * Put units of stopped nodes back in the queue and remove jobs whose coordinator stopped
+     */
+    public void requeueAbandoned() {
+        long staleSeconds = config.getStaleAfter().toSeconds();
+        int requeued = unitRepository.requeueAbandoned(staleSeconds, config.getMaxAttempts());
+        int removed = jobRepository.deleteAbandoned(staleSeconds);
+        if (requeued > 0 || removed > 0) {
+            log.info("Requeued {} abandoned work units, removed {} abandoned review jobs", requeued, removed);
+        }
+    }
+
+    /**
+     * Put the units this node works on back in the queue, e.g. on shutdown
+     */
+    public void release() {
+        int released = unitRepository.release(nodeId);
+        if (released > 0) {
+            log.info("Released {} work units for other nodes", released);
+        }
+    }
+
+    private JobContext jobContextOf(Long jobId) {
+        synchronized (jobCache) {
+            JobContext cached = jobCache.get(jobId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        JobContext job = jobRepository.findById(jobId)
+                .map(found -> new JobContext(CompressedText.decompress(found.getGuidelines()),
+                        new UsageLedger.Attribution(found.getUserEmail(), found.getRepositoryUrl(), found.getReviewRef())))
+                .orElse(null);
+        if (job != null) {
+            synchronized (jobCache) {
+                jobCache.put(jobId, job);
+            }
+        }
+        return job;
+    }
+
+    private void awaitUnits(Long jobId) throws CodeReviewException {
+        long deadline = System.nanoTime() + config.getJobTimeout().toNanos();
+        long nextHeartbeat = System.nanoTime() + config.getHeartbeatInterval().toNanos();
+
+        while (unitRepository.countByJobIdAndStatusIn(jobId, OPEN) > 0) {
+            if (System.nanoTime() > deadline) {
+                throw new CodeReviewException("Review job " + jobId + " did not finish within " + config.getJobTimeout());
+            }
+            try {
+                Thread.sleep(config.getPollInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RequestInterruptedException("Interrupted while waiting for review job " + jobId, e);
+            }
+            if (System.nanoTime() >= nextHeartbeat) {
+                jobRepository.heartbeat(jobId);
+                nextHeartbeat = System.nanoTime() + config.getHeartbeatInterval().toNanos();
+            }
+        }
+    }
+
+    private List<UnitResult> collectResults(Long jobId, int expected) throws CodeReviewException {
+        List<ReviewWorkUnit> units = unitRepository.findByJobIdOrderByPosition(jobId);
+        if (units.size() != expected) {
+            // The job was removed as abandoned while this node still waited for it
+            throw new CodeReviewException("Review job " + jobId + " lost " + (expected - units.size()) + " of its units");
+        }
+
+        List<UnitResult> results = new ArrayList<>(units.size());
+        for (ReviewWorkUnit unit : units) {
+            results.add(unit.getStatus() == ReviewWorkUnit.Status.DONE
+                    ? new UnitResult(CompressedText.decompress(unit.getResult()), null)
+                    : new UnitResult(null, unit.getLastError() != null ? unit.getLastError() : "Review failed"));
+        }
+        return results;
+    }
+
+    private static String resolveNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
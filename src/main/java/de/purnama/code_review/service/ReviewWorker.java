@@ -0,0 +1,135 @@
+package de.purnama.code_review.service;
+
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import de.purnama.code_review.config.ReviewWorkQueueConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ReviewWorker
+ *
+ * Reviews units of the {@link ReviewWorkQueue} on this node, whichever node queued them. It
+ * claims only as many units as it has idle workers, sends heartbeats for the units it holds
+ * and puts back units of nodes that stopped. On shutdown its units go back to the queue.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Slf4j
+@Service
+public class ReviewWorker {
+
+    private final ReviewWorkQueue workQueue;
+    private final CodeReviewService codeReviewService;
+    private final ReviewWorkQueueConfig config;
+
+    private final ThreadPoolExecutor workers;
+    private final AtomicInteger active = new AtomicInteger();
+
+    public ReviewWorker(ReviewWorkQueue workQueue, CodeReviewService codeReviewService, ReviewWorkQueueConfig config) {
+        this.workQueue = workQueue;
+        this.codeReviewService = codeReviewService;
+        this.config = config;
+
+        int size = Math.max(1, config.getWorkers());
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "review-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Claim pending units for the idle workers
+     */
+    @Scheduled(fixedDelayString = "${code.review.work-queue.poll-interval:PT1S}")
+    public void claimWork() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        int idle = Math.max(1, config.getWorkers()) - active.get();
+        if (idle <= 0) {
+            return;
+        }
+
+        List<ReviewWorkQueue.ClaimedUnit> units;
+        try {
+            units = workQueue.claim(idle);
+        } catch (DataAccessException e) {
+            log.warn("Could not claim review work units: {}", e.getMessage());
+            return;
+        }
+        for (ReviewWorkQueue.ClaimedUnit unit : units) {
+            active.incrementAndGet();
+            workers.execute(() -> process(unit));
+        }
+    }
+
+    /**
+     * Send heartbeats for the units of this node and put back units of stopped nodes
+     */
+    @Scheduled(fixedDelayString = "${code.review.work-queue.heartbeat-interval:PT10S}")
+    public void maintain() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        try {
+            if (active.get() > 0) {
+                workQueue.heartbeat();
+            }
+            workQueue.requeueAbandoned();
+        } catch (DataAccessException e) {
+            log.warn("Could not maintain the review work queue: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Number of units this node is reviewing
+     */
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    void process(ReviewWorkQueue.ClaimedUnit unit) {
+        try (UsageLedger.Scope usage = UsageLedger.attribute(workQueue.attributionOf(unit.jobId()))) {
+            String guidelines = workQueue.guidelinesOf(unit.jobId());
+            if (guidelines == null) {
+                log.info("Review job {} of work unit {} is gone, skipping it", unit.jobId(), unit.id());
+                return;
+            }
+            String review = codeReviewService.reviewWorkUnit(unit.label(), guidelines, unit.content());
+            workQueue.complete(unit.id(), review);
+        } catch (Exception e) {
+            log.warn("Review of work unit {} failed: {}", unit.id(), e.getMessage());
+            try {
+                workQueue.fail(unit.id(), e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            } catch (DataAccessException failure) {
+                // The unit is retried once its heartbeat is stale
+                log.warn("Could not record failure of work unit {}: {}", unit.id(), failure.getMessage());
+            }
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+        if (config.isEnabled()) {
+            try {
+                workQueue.release();
+            } catch (Exception e) {
+                log.warn("Could not release review work units: {}", e.getMessage());
+            }
+        }
+    }
+}
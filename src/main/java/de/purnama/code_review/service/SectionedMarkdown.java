@@ -0,0 +1,110 @@
+package de.purnama.code_review.service;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SectionedMarkdown
+ *
+ * A Markdown document that is built section by section, for example one section per reviewed
+ * file or per chunk of a large file. Each section is rendered to HTML when it is added, so the
+ * HTML is ready as soon as the last section completes and is never rendered as one large
+ * string. The HTML can be written to a {@link Writer} fragment by fragment.
+ * <p>
+ * Sections are rendered independently: a section should start at a block boundary, and
+ * heading anchors are only unique within their section.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+public class SectionedMarkdown {
+
+    private final MarkdownConverter markdownConverter;
+    private final List<String> markdownSections = new ArrayList<>();
+    private final List<String> htmlSections = new ArrayList<>();
+    private long renderNanos;
+
+    public SectionedMarkdown(MarkdownConverter markdownConverter) {
+        this.markdownConverter = markdownConverter;
+    }
+
+    /**
+     * Add a completed section and render it
+     *
+     * @param markdown The Markdown of the section; empty sections are ignored
+     */
+    public void addSection(CharSequence markdown) {
+        if (markdown == null || markdown.isEmpty()) {
+            return;
+        }
+        String section = markdown.toString();
+        markdownSections.add(section);
+        long start = System.nanoTime();
+        htmlSections.add(markdownConverter.convertMarkdownToHtml(section));
+        renderNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * @return The Markdown of all sections
+     */
+    public String getMarkdown() {
+        return String.join("", markdownSections);
+    }
+
+    /**
+     * @return The Markdown of each section, in order
+     */
+    public List<String> getMarkdownSections() {
+        return Collections.unmodifiableList(markdownSections);
+    }
+
+    /**
+     * @return The rendered HTML of each section, in order
+     */
+    public List<String> getHtmlSections() {
+        return Collections.unmodifiableList(htmlSections);
+    }
+
+    /**
+     * Write the HTML of all sections
+     *
+     * @param out Receives the HTML
+     * @throws IOException If writing fails
+     */
+    public void writeHtml(Writer out) throws IOException {
+        for (String html : htmlSections) {
+            if (html != null) {
+                out.write(html);
+            }
+        }
+    }
+
+    /**
+     * @return The HTML of all sections as one string
+     */
+    public String getHtml() {
+        StringWriter html = new StringWriter();
+        try {
+            writeHtml(html);
+        } catch (IOException e) {
+            // A StringWriter does not fail
+            throw new UncheckedIOException(e);
+        }
+        return html.toString();
+    }
+
+    public int getSectionCount() {
+        return markdownSections.size();
+    }
+
+    /**
+     * @return Nanoseconds spent rendering the sections so far
+     */
+    public long getRenderNanos() {
+        return renderNanos;
+    }
+}
@@ -0,0 +1,188 @@
+package de.purnama.code_review.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import de.purnama.code_review.config.UsageLedgerConfig;
+import de.purnama.code_review.exception.QuotaExceededException;
+import de.purnama.code_review.model.TokenUsage;
+import de.purnama.code_review.repository.TokenUsageRepository;
+import de.purnama.code_review.service.confluence.StructureChunker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * UsageLedger
+ *
+ * Records the tokens and cost of every chat and embedding model call in the append-only
+ * {@code token_usage} table. Calls are attributed to the user, repository and review run that
+ * is current on the calling thread (see {@link #attribute}); the tokens the model reports are
+ * used, and estimated from the text when it reports none. Recording never fails the call.
+ * <p>
+ * The daily totals also enforce a per-user token quota before project reviews start.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UsageLedger {
+
+    public static final String OPERATION_REVIEW = "review";
+    public static final String OPERATION_EMBEDDING = "embedding";
+    public static final String OPERATION_DESCRIPTION = "description";
+
+    private static final BigDecimal MILLION = BigDecimal.valueOf(1_000_000);
+    private static final ThreadLocal<Attribution> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Who a model call is charged to; any part may be null
+     *
+     * @param reviewRef Identifies one review run, including its units reviewed on other nodes
+     */
+    public record Attribution(String userEmail, String repositoryUrl, UUID reviewRef) {
+    }
+
+    /**
+     * Ends an attribution and restores the one that was current before
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final TokenUsageRepository tokenUsageRepository;
+    private final UsageLedgerConfig config;
+
+    /**
+     * Charge the model calls of this thread to an attribution until the scope is closed
+     *
+     * @param attribution The attribution, or null to leave the calls unattributed
+     */
+    public static Scope attribute(Attribution attribution) {
+        Attribution previous = CURRENT.get();
+        CURRENT.set(attribution);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * @return The attribution of this thread, or null
+     */
+    public static Attribution current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Record a chat model call
+     *
+     * @param operation What the call was for, e.g. {@link #OPERATION_REVIEW}
+     * @param prompt    The prompt, to estimate the prompt tokens if the model reported none
+     * @param response  The response, or null if the call failed; failed calls are not recorded
+     */
+    public void recordChat(String operation, Prompt prompt, ChatResponse response) {
+        if (!config.isEnabled() || response == null) {
+            return;
+        }
+        ChatResponseMetadata metadata = response.getMetadata();
+        Usage usage = metadata != null ? metadata.getUsage() : null;
+        Integer promptTokens = usage != null ? usage.getPromptTokens() : null;
+        Integer completionTokens = usage != null ? usage.getCompletionTokens() : null;
+        boolean estimated = promptTokens == null || promptTokens == 0;
+        if (estimated) {
+            promptTokens = StructureChunker.estimateTokens(prompt.getContents());
+            completionTokens = response.getResult() != null && response.getResult().getOutput() != null
+                    ? StructureChunker.estimateTokens(response.getResult().getOutput().getText())
+                    : 0;
+        }
+        int completion = completionTokens != null ? completionTokens : 0;
+
+        BigDecimal cost = price(promptTokens, config.getPromptPrice()).add(price(completion, config.getCompletionPrice()));
+        record(operation, metadata != null ? metadata.getModel() : null, promptTokens, completion, estimated, cost);
+    }
+
+    /**
+     * Record an embedding model call; embedding calls report no usage, so the tokens are estimated
+     *
+     * @param texts The embedded texts
+     */
+    public void recordEmbedding(List<String> texts) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        int tokens = 0;
+        for (String text : texts) {
+            tokens += StructureChunker.estimateTokens(text);
+        }
+        record(OPERATION_EMBEDDING, null, tokens, 0, true, price(tokens, config.getEmbeddingPrice()));
+    }
+
+    /**
+     * Refuse to start an expensive review for a user who used up the daily quota
+     *
+     * @param userEmail The user, or null for requests without one, which are not limited
+     * @throws QuotaExceededException If the user's tokens of today reached the quota
+     */
+    public void checkQuota(String userEmail) throws QuotaExceededException {
+        long quota = config.getDailyTokenQuota();
+        if (quota <= 0 || userEmail == null) {
+            return;
+        }
+        long used = tokensUsedToday(userEmail);
+        if (used >= quota) {
+            throw new QuotaExceededException("Daily token quota of " + quota + " tokens is used up (" + used
+                    + " tokens used today). Single files can still be reviewed, project reviews are possible again tomorrow.");
+        }
+    }
+
+    /**
+     * @return Tokens the user used today, or 0 if the ledger cannot be read
+     */
+    public long tokensUsedToday(String userEmail) {
+        try {
+            return tokenUsageRepository.sumTokensToday(userEmail);
+        } catch (DataAccessException e) {
+            log.warn("Could not read the token usage of {}: {}", userEmail, e.getMessage());
+            return 0;
+        }
+    }
+
+    private void record(String operation, String model, int promptTokens, int completionTokens,
+                        boolean estimated, BigDecimal cost) {
+        Attribution attribution = CURRENT.get();
+        try {
+            tokenUsageRepository.save(TokenUsage.builder()
+                    .userEmail(attribution != null ? attribution.userEmail() : null)
+                    .repositoryUrl(attribution != null ? attribution.repositoryUrl() : null)
+                    .reviewRef(attribution != null ? attribution.reviewRef() : null)
+                    .operation(operation)
+                    .model(model)
+                    .promptTokens(promptTokens)
+                    .completionTokens(completionTokens)
+                    .estimated(estimated)
+                    .cost(cost)
+                    .build());
+        } catch (DataAccessException e) {
+            // The call itself succeeded; losing its entry must not fail the review
+            log.warn("Could not record {} tokens of a {} call: {}", promptTokens + completionTokens, operation, e.getMessage());
+        }
+    }
+
+    private static BigDecimal price(int tokens, BigDecimal pricePerMillion) {
+        return pricePerMillion.multiply(BigDecimal.valueOf(tokens)).divide(MILLION, 6, RoundingMode.HALF_UP);
+    }
+}
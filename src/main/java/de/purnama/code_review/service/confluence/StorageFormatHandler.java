@@ -0,0 +1,49 @@
+package de.purnama.code_review.service.confluence;
+
+import java.util.List;
+
+/**
+ * StorageFormatHandler
+ *
+ * Receives the structural events of a Confluence storage format document from
+ * {@link StorageFormatTokenizer}, in document order. Text is already decoded and, except for
+ * code, whitespace-normalized.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+public interface StorageFormatHandler {
+
+    /**
+     * A heading, h1 to h6
+     *
+     * @param level Heading level, 1 for h1
+     * @param text  Heading text
+     */
+    default void heading(int level, String text) {
+    }
+
+    /**
+     * A paragraph, list item or any other run of inline text
+     *
+     * @param text Paragraph text; list items start with "- "
+     */
+    default void paragraph(String text) {
+    }
+
+    /**
+     * A code or noformat macro, or a pre element; whitespace is preserved
+     *
+     * @param language Language parameter of the macro, or null
+     * @param code     The code
+     */
+    default void codeBlock(String language, String code) {
+    }
+
+    /**
+     * A table, emitted once it is closed
+     *
+     * @param rows Rows of cell texts, header rows included
+     */
+    default void table(List<List<String>> rows) {
+    }
+}
@@ -0,0 +1,656 @@
+package de.purnama.code_review.service.confluence;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * StorageFormatTokenizer
+ *
+ * Single-pass tokenizer for Confluence storage format (XHTML with ac: and ri: elements).
+ * Walks the document once, decoding entities and collapsing whitespace while it goes, and
+ * reports headings, paragraphs, code blocks and tables to a {@link StorageFormatHandler}
+ * as soon as each one is complete. Only the text of the current block is buffered, so the
+ * cost is one pass over the input and one copy of the visible text.
+ *
+ * Code and noformat macros keep their CDATA body verbatim, together with the language
+ * parameter; other macro parameters, placeholders and non-code plain-text bodies (e.g. the
+ * html macro) are dropped. Malformed markup never throws: a '<' that does not start a tag
+ * is text, and an unterminated tag ends the document.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+public final class StorageFormatTokenizer {
+
+    private static final Set<String> BLOCK_ELEMENTS = Set.of(
+            "p", "div", "li", "ul", "ol", "blockquote", "hr", "section", "dl", "dt", "dd",
+            "ac:structured-macro", "ac:rich-text-body", "ac:layout", "ac:layout-section", "ac:layout-cell",
+            "ac:task", "ac:task-list", "ac:task-body");
+
+    private static final Set<String> SKIPPED_ELEMENTS = Set.of(
+            "script", "style", "ac:placeholder", "ac:parameter", "ac:plain-text-body");
+
+    private static final Set<String> CODE_MACROS = Set.of("code", "noformat");
+
+    private static final Map<String, String> ENTITIES = Map.ofEntries(
+            Map.entry("nbsp", " "), Map.entry("lt", "<"), Map.entry("gt", ">"), Map.entry("amp", "&"),
+            Map.entry("quot", "\""), Map.entry("apos", "'"), Map.entry("ndash", "–"),
+            Map.entry("mdash", "—"), Map.entry("hellip", "…"), Map.entry("lsquo", "‘"),
+            Map.entry("rsquo", "’"), Map.entry("ldquo", "“"), Map.entry("rdquo", "”"),
+            Map.entry("bull", "•"), Map.entry("middot", "·"), Map.entry("copy", "©"),
+            Map.entry("reg", "®"), Map.entry("trade", "™"), Map.entry("times", "×"),
+            Map.entry("rarr", "→"), Map.entry("larr", "←"), Map.entry("harr", "↔"),
+            Map.entry("laquo", "«"), Map.entry("raquo", "»"), Map.entry("euro", "€"));
+
+    // Longest entity name we try to decode, including '#' and 'x' for numeric references
+    private static final int MAX_ENTITY_LENGTH = 10;
+
+    private final CharSequence input;
+    private final StorageFormatHandler handler;
+
+    private final StringBuilder text = new StringBuilder();
+    private boolean pendingSpace;
+    private int headingLevel;
+    private boolean listItem;
+
+    private String skipElement;
+    private int skipDepth;
+
+    private final Deque<String> macros = new ArrayDeque<>();
+    private StringBuilder code;
+    private String codeLanguage;
+    private boolean inCodeBody;
+    private StringBuilder languageParameter;
+    private int preDepth;
+
+    private int tableDepth;
+    private List<List<String>> rows;
+    private List<String> row;
+    private boolean inCell;
+
+    private StorageFormatTokenizer(CharSequence input, StorageFormatHandler handler) {
+        this.input = input;
+        this.handler = handler;
+    }
+
+    /**
+     * Tokenize a storage format document
+     *
+     * @param html    The storage format (or plain XHTML) content
+     * @param handler Receives the events in document order
+     */
+    public static void parse(CharSequence html, StorageFormatHandler handler) {
+        if (html == null || html.isEmpty()) {
+            return;
+        }
+        new StorageFormatTokenizer(html, handler).run();
+    }
+
+    /**
+     * Convert a storage format document to plain text with one block per paragraph.
+     * Blocks are separated by a blank line, table cells by " | " and table rows by a newline.
+     *
+     * @param html The storage format content
+     * @return The plain text
+     */
+    public static String toPlainText(CharSequence html) {
+        StringBuilder out = new StringBuilder(html != null ? html.length() / 2 : 0);
+        parse(html, new StorageFormatHandler() {
+            @Override
+            public void heading(int level, String text) {
+                append(text);
+            }
+
+            @Override
+            public void paragraph(String text) {
+                append(text);
+            }
+
+            @Override
+            public void codeBlock(String language, String code) {
+                append(code);
+            }
+
+            @Override
+            public void table(List<List<String>> rows) {
+                separate();
+                for (int i = 0; i < rows.size(); i++) {
+                    if (i > 0) {
+                        out.append('\n');
+                    }
+                    out.append(String.join(" | ", rows.get(i)));
+                }
+            }
+
+            private void append(String block) {
+                separate();
+                out.append(block);
+            }
+
+            private void separate() {
+                if (!out.isEmpty()) {
+                    out.append("\n\n");
+                }
+            }
+        });
+        return out.toString();
+    }
+
+    private void run() {
+        int length = input.length();
+        int i = 0;
+        while (i < length) {
+            char c = input.charAt(i);
+            if (c == '<') {
+                int next = readMarkup(i);
+                if (next > i) {
+                    i = next;
+                    continue;
+                }
+            } else if (c == '&') {
+                i = readEntity(i);
+                continue;
+            }
+            appendChar(c);
+            i++;
+        }
+        finish();
+    }
+
+    /**
+     * Handle the markup starting at '<'
+     *
+     * @return Index after the markup, or the same index if the '<' is plain text
+     */
+    private int readMarkup(int start) {
+        int length = input.length();
+        if (startsWith(start, "<!--")) {
+            int end = indexOf("-->", start + 4);
+            return end < 0 ? length : end + 3;
+        }
+        if (startsWith(start, "<![CDATA[")) {
+            int end = indexOf("]]>", start + 9);
+            int stop = end < 0 ? length : end;
+            if (skipElement == null || inCodeBody) {
+                for (int i = start + 9; i < stop; i++) {
+                    appendChar(input.charAt(i));
+                }
+            }
+            return end < 0 ? length : end + 3;
+        }
+        if (start + 1 >= length) {
+            return start;
+        }
+        char next = input.charAt(start + 1);
+        if (next == '!' || next == '?') {
+            int end = indexOf(">", start + 2);
+            return end < 0 ? length : end + 1;
+        }
+        boolean closing = next == '/';
+        int nameStart = closing ? start + 2 : start + 1;
+        if (nameStart >= length || !Character.isLetter(input.charAt(nameStart))) {
+            return start;
+        }
+
+        int end = findTagEnd(nameStart);
+        if (end < 0) {
+            return length;
+        }
+        int nameEnd = nameStart;
+        while (nameEnd < end && !Character.isWhitespace(input.charAt(nameEnd))
+                && input.charAt(nameEnd) != '/' && input.charAt(nameEnd) != '>') {
+            nameEnd++;
+        }
+        String name = input.subSequence(nameStart, nameEnd).toString().toLowerCase(Locale.ROOT);
+        boolean selfClosing = !closing && input.charAt(end - 1) == '/';
+
+        if (closing) {
+            closeElement(name);
+        } else {
+            openElement(name, nameEnd, end, selfClosing);
+            if (selfClosing) {
+                closeElement(name);
+            }
+        }
+        return end + 1;
+    }
+
+    private void openElement(String name, int attributesStart, int attributesEnd, boolean selfClosing) {
+        if (skipElement != null) {
+            if (name.equals(skipElement)) {
+                skipDepth++;
+            }
+            return;
+        }
+
+        switch (name) {
+            case "ac:structured-macro" -> {
+                String macro = attribute(attributesStart, attributesEnd, "ac:name");
+                macros.push(macro != null ? macro.toLowerCase(Locale.ROOT) : "");
+                if (!selfClosing && isCodeMacro()) {
+                    flushBlock();
+                    code = new StringBuilder();
+                    codeLanguage = null;
+                } else {
+                    blockBoundary();
+                }
+                return;
+            }
+            case "ac:parameter" -> {
+                if (isCodeMacro() && "language".equals(attribute(attributesStart, attributesEnd, "ac:name"))) {
+                    languageParameter = new StringBuilder();
+                    return;
+                }
+            }
+            case "ac:plain-text-body" -> {
+                if (isCodeMacro()) {
+                    inCodeBody = true;
+                    return;
+                }
+            }
+            case "pre" -> {
+                if (code == null) {
+                    flushBlock();
+                    code = new StringBuilder();
+                    codeLanguage = null;
+                }
+                preDepth++;
+                return;
+            }
+            case "table" -> {
+                if (tableDepth++ == 0) {
+                    flushBlock();
+                    rows = new ArrayList<>();
+                } else {
+                    space();
+                }
+                return;
+            }
+            case "tr" -> {
+                if (tableDepth == 1) {
+                    closeRow();
+                    row = new ArrayList<>();
+                }
+                return;
+            }
+            case "td", "th" -> {
+                if (tableDepth == 1) {
+                    closeCell();
+                    if (row == null) {
+                        row = new ArrayList<>();
+                    }
+                    inCell = true;
+                } else {
+                    space();
+                }
+                return;
+            }
+            case "br" -> {
+                if (code != null) {
+                    code.append('\n');
+                } else {
+                    space();
+                }
+                return;
+            }
+            case "li" -> {
+                if (!inCell && code == null) {
+                    flushBlock();
+                    listItem = true;
+                    return;
+                }
+            }
+            default -> {
+                if (isHeading(name)) {
+                    if (!inCell && code == null) {
+                        flushBlock();
+                        headingLevel = name.charAt(1) - '0';
+                    } else {
+                        space();
+                    }
+                    return;
+                }
+            }
+        }
+
+        if (SKIPPED_ELEMENTS.contains(name) && !selfClosing) {
+            skipElement = name;
+            skipDepth = 1;
+        } else if (BLOCK_ELEMENTS.contains(name)) {
+            blockBoundary();
+        }
+    }
+
+    private void closeElement(String name) {
+        if (skipElement != null) {
+            if (name.equals(skipElement) && --skipDepth == 0) {
+                skipElement = null;
+            }
+            return;
+        }
+
+        switch (name) {
+            case "ac:structured-macro" -> {
+                if (isCodeMacro() && code != null) {
+                    emitCode();
+                }
+                if (!macros.isEmpty()) {
+                    macros.pop();
+                }
+                blockBoundary();
+            }
+            case "ac:parameter" -> {
+                if (languageParameter != null) {
+                    String language = languageParameter.toString().trim();
+                    codeLanguage = language.isEmpty() ? null : language;
+                    languageParameter = null;
+                }
+            }
+            case "ac:plain-text-body" -> inCodeBody = false;
+            case "pre" -> {
+                if (preDepth > 0 && --preDepth == 0 && !isCodeMacro()) {
+                    emitCode();
+                }
+            }
+            case "table" -> {
+                if (tableDepth > 0 && --tableDepth == 0) {
+                    closeRow();
+                    if (rows != null && !rows.isEmpty()) {
+                        handler.table(rows);
+                    }
+                    rows = null;
+                } else {
+                    space();
+                }
+            }
+            case "tr" -> {
+                if (tableDepth == 1) {
+                    closeRow();
+                }
+            }
+            case "td", "th" -> {
+                if (tableDepth == 1) {
+                    closeCell();
+                } else {
+                    space();
+                }
+            }
+            case "li" -> {
+                blockBoundary();
+                if (!inCell && code == null) {
+                    listItem = false;
+                }
+            }
+            default -> {
+                if (headingLevel > 0 && isHeading(name)) {
+                    String heading = takeText();
+                    if (!heading.isEmpty()) {
+                        handler.heading(headingLevel, heading);
+                    }
+                    headingLevel = 0;
+                } else if (BLOCK_ELEMENTS.contains(name)) {
+                    blockBoundary();
+                }
+            }
+        }
+    }
+
+    private void appendChar(char c) {
+        if (languageParameter != null) {
+            languageParameter.append(c);
+            return;
+        }
+        if (skipElement != null && !inCodeBody) {
+            return;
+        }
+        if (code != null && (inCodeBody || preDepth > 0)) {
+            code.append(c);
+            return;
+        }
+        if (code != null) {
+            // Text of a code macro outside its body, e.g. a stray parameter value
+            return;
+        }
+        if (Character.isWhitespace(c) || c == '\u00A0') {
+            pendingSpace = !text.isEmpty();
+            return;
+        }
+        if (pendingSpace) {
+            text.append(' ');
+            pendingSpace = false;
+        }
+        text.append(c);
+    }
+
+    private int readEntity(int start) {
+        int length = input.length();
+        int limit = Math.min(length, start + MAX_ENTITY_LENGTH + 2);
+        int semicolon = -1;
+        for (int i = start + 1; i < limit; i++) {
+            char c = input.charAt(i);
+            if (c == ';') {
+                semicolon = i;
+                break;
+            }
+            if (!Character.isLetterOrDigit(c) && c != '#') {
+                break;
+            }
+        }
+        if (semicolon < 0) {
+            appendChar('&');
+            return start + 1;
+        }
+
+        String decoded = decodeEntity(input.subSequence(start + 1, semicolon).toString());
+        if (decoded == null) {
+            appendChar('&');
+            return start + 1;
+        }
+        for (int i = 0; i < decoded.length(); i++) {
+            appendChar(decoded.charAt(i));
+        }
+        return semicolon + 1;
+    }
+
+    private static String decodeEntity(String name) {
+        if (name.startsWith("#")) {
+            try {
+                int codePoint = name.length() > 1 && (name.charAt(1) == 'x' || name.charAt(1) == 'X')
+                        ? Integer.parseInt(name.substring(2), 16)
+                        : Integer.parseInt(name.substring(1));
+                return Character.isValidCodePoint(codePoint) ? new String(Character.toChars(codePoint)) : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return ENTITIES.get(name);
+    }
+
+    private static boolean isHeading(String name) {
+        return name.length() == 2 && name.charAt(0) == 'h' && name.charAt(1) >= '1' && name.charAt(1) <= '6';
+    }
+
+    private boolean isCodeMacro() {
+        return !macros.isEmpty() && CODE_MACROS.contains(macros.peek());
+    }
+
+    private void emitCode() {
+        String body = trimBlankLines(code);
+        if (!body.isEmpty()) {
+            handler.codeBlock(codeLanguage, body);
+        }
+        code = null;
+        codeLanguage = null;
+        inCodeBody = false;
+        preDepth = 0;
+    }
+
+    private void space() {
+        pendingSpace = !text.isEmpty();
+    }
+
+    private void blockBoundary() {
+        if (inCell || code != null) {
+            space();
+        } else {
+            flushBlock();
+        }
+    }
+
+    private void flushBlock() {
+        if (inCell) {
+            return;
+        }
+        String block = takeText();
+        if (block.isEmpty()) {
+            return;
+        }
+        if (headingLevel > 0) {
+            handler.heading(headingLevel, block);
+            headingLevel = 0;
+        } else if (listItem) {
+            // Only the first paragraph of a list item carries the marker
+            handler.paragraph("- " + block);
+            listItem = false;
+        } else {
+            handler.paragraph(block);
+        }
+    }
+
+    private void closeCell() {
+        if (inCell && row != null) {
+            row.add(takeText());
+        }
+        inCell = false;
+    }
+
+    private void closeRow() {
+        closeCell();
+        if (row != null && rows != null && row.stream().anyMatch(cell -> !cell.isEmpty())) {
+            rows.add(row);
+        }
+        row = null;
+    }
+
+    private String takeText() {
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) == ' ') {
+            end--;
+        }
+        String value = text.substring(0, end);
+        text.setLength(0);
+        pendingSpace = false;
+        return value;
+    }
+
+    private void finish() {
+        if (code != null) {
+            emitCode();
+        }
+        if (rows != null) {
+            closeRow();
+            if (!rows.isEmpty()) {
+                handler.table(rows);
+            }
+            rows = null;
+        }
+        inCell = false;
+        flushBlock();
+    }
+
+    private static String trimBlankLines(CharSequence value) {
+        int start = 0;
+        int end = value.length();
+        // Drop leading blank lines but keep the indentation of the first code line
+        for (int i = 0; i < end; i++) {
+            char c = value.charAt(i);
+            if (c == '\n') {
+                start = i + 1;
+            } else if (!Character.isWhitespace(c)) {
+                break;
+            }
+        }
+        while (end > start && Character.isWhitespace(value.charAt(end - 1))) {
+            end--;
+        }
+        return start < end ? value.subSequence(start, end).toString() : "";
+    }
+
+    private int findTagEnd(int from) {
+        char quote = 0;
+        for (int i = from; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String attribute(int from, int to, String name) {
+        int i = from;
+        while (i < to) {
+            int found = indexOf(name, i);
+            if (found < 0 || found >= to) {
+                return null;
+            }
+            int j = found + name.length();
+            boolean boundary = found > from && Character.isWhitespace(input.charAt(found - 1));
+            while (j < to && Character.isWhitespace(input.charAt(j))) {
+                j++;
+            }
+            if (boundary && j < to && input.charAt(j) == '=') {
+                j++;
+                while (j < to && Character.isWhitespace(input.charAt(j))) {
+                    j++;
+                }
+                if (j < to && (input.charAt(j) == '"' || input.charAt(j) == '\'')) {
+                    char quote = input.charAt(j);
+                    int valueEnd = j + 1;
+                    while (valueEnd < to && input.charAt(valueEnd) != quote) {
+                        valueEnd++;
+                    }
+                    return input.subSequence(j + 1, valueEnd).toString();
+                }
+            }
+            i = found + name.length();
+        }
+        return null;
+    }
+
+    private boolean startsWith(int at, String prefix) {
+        if (at + prefix.length() > input.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (input.charAt(at + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(String needle, int from) {
+        int last = input.length() - needle.length();
+        outer:
+        for (int i = from; i <= last; i++) {
+            for (int j = 0; j < needle.length(); j++) {
+                if (input.charAt(i + j) != needle.charAt(j)) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
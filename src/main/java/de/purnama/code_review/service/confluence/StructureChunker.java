@@ -0,0 +1,333 @@
+package de.purnama.code_review.service.confluence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * StructureChunker
+ *
+ * Splits a Confluence storage format document into content blocks along its structure. Every
+ * heading up to the split level starts a new block, and the block title is the section path
+ * (page title, then the enclosing headings). A section that is larger than the token limit is
+ * split between paragraphs, or between sentences for a very long paragraph, and each
+ * continuation repeats the tail of the previous block as overlap. Code examples and tables are
+ * never cut; a code example that is larger than the limit becomes a block of its own.
+ *
+ * Token counts are estimated at four characters per token, which is close enough for English
+ * text and code with the embedding model's tokenizer.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+public final class StructureChunker {
+
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final String PATH_SEPARATOR = " > ";
+
+    private final int maxTokens;
+    private final int overlapTokens;
+    private final int splitLevel;
+
+    /**
+     * A content block: section path title and text
+     */
+    public record Chunk(String title, String content) {
+    }
+
+    /**
+     * @param maxTokens     Upper bound of a chunk in estimated tokens
+     * @param overlapTokens Tokens repeated at the start of a continuation chunk
+     * @param splitLevel    Deepest heading level, 1 to 6, that starts a new chunk
+     */
+    public StructureChunker(int maxTokens, int overlapTokens, int splitLevel) {
+        this.maxTokens = Math.max(1, maxTokens);
+        this.overlapTokens = Math.max(0, Math.min(overlapTokens, this.maxTokens / 2));
+        this.splitLevel = Math.max(1, Math.min(6, splitLevel));
+    }
+
+    /**
+     * Chunk a storage format document
+     *
+     * @param storageFormat The page body in storage format
+     * @param pageTitle     Title of the page, the root of every section path; may be null
+     * @return The chunks in document order
+     */
+    public List<Chunk> chunk(CharSequence storageFormat, String pageTitle) {
+        Builder builder = new Builder(pageTitle);
+        StorageFormatTokenizer.parse(storageFormat, builder);
+        builder.flush(false);
+        return builder.chunks;
+    }
+
+    /**
+     * Estimated number of tokens of a text
+     */
+    public static int estimateTokens(CharSequence text) {
+        return text == null ? 0 : (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    private final class Builder implements StorageFormatHandler {
+
+        private final String pageTitle;
+        private final String[] path = new String[7];
+        private final List<Chunk> chunks = new ArrayList<>();
+
+        private final List<String> units = new ArrayList<>();
+        private int tokens;
+        // Units at the head of the current chunk that are not new content (heading, overlap)
+        private int leadingUnits;
+        private boolean lastUnitIsCode;
+
+        private Builder(String pageTitle) {
+            this.pageTitle = pageTitle == null || pageTitle.isBlank() ? null : pageTitle.trim();
+        }
+
+        @Override
+        public void heading(int level, String text) {
+            if (level > splitLevel) {
+                add(text, false);
+                return;
+            }
+            flush(false);
+            path[level] = text;
+            for (int i = level + 1; i < path.length; i++) {
+                path[i] = null;
+            }
+            units.add(text);
+            tokens = estimateTokens(text);
+            leadingUnits = 1;
+        }
+
+        @Override
+        public void paragraph(String text) {
+            add(text, false);
+        }
+
+        @Override
+        public void codeBlock(String language, String code) {
+            add(code, true);
+        }
+
+        @Override
+        public void table(List<List<String>> rows) {
+            StringBuilder table = new StringBuilder();
+            for (List<String> row : rows) {
+                if (!table.isEmpty()) {
+                    table.append('\n');
+                }
+                table.append(String.join(" | ", row));
+            }
+            add(table.toString(), true);
+        }
+
+        private void add(String text, boolean keepWhole) {
+            int unitTokens = estimateTokens(text);
+            if (unitTokens > maxTokens) {
+                if (keepWhole) {
+                    // Keep an oversized example with its heading when nothing else is pending
+                    if (units.size() > leadingUnits) {
+                        flush(false);
+                    }
+                    append(text, unitTokens, true);
+                    flush(false);
+                } else {
+                    for (String piece : splitToLimit(text)) {
+                        add(piece, false);
+                    }
+                }
+                return;
+            }
+
+            if (tokens + unitTokens > maxTokens && units.size() > leadingUnits) {
+                flush(true);
+                if (tokens + unitTokens > maxTokens) {
+                    // No room for the overlap next to this unit
+                    units.clear();
+                    tokens = 0;
+                    leadingUnits = 0;
+                }
+            }
+            append(text, unitTokens, keepWhole);
+        }
+
+        private void append(String text, int unitTokens, boolean code) {
+            units.add(text);
+            tokens += unitTokens;
+            lastUnitIsCode = code;
+        }
+
+        /**
+         * Emit the pending chunk; with overlap the next chunk starts with the tail of this one
+         */
+        private void flush(boolean overlap) {
+            if (units.size() > leadingUnits) {
+                chunks.add(new Chunk(title(), String.join("\n", units)));
+            }
+            String tail = overlap && overlapTokens > 0 && !lastUnitIsCode && units.size() > leadingUnits
+                    ? tail(units.get(units.size() - 1), overlapTokens)
+                    : null;
+            units.clear();
+            tokens = 0;
+            leadingUnits = 0;
+            lastUnitIsCode = false;
+            if (tail != null && !tail.isEmpty()) {
+                units.add(tail);
+                tokens = estimateTokens(tail);
+                leadingUnits = 1;
+            }
+        }
+
+        private String title() {
+            StringBuilder title = new StringBuilder();
+            if (pageTitle != null) {
+                title.append(pageTitle);
+            }
+            for (int level = 1; level <= splitLevel; level++) {
+                if (path[level] != null && !path[level].equals(pageTitle)) {
+                    if (!title.isEmpty()) {
+                        title.append(PATH_SEPARATOR);
+                    }
+                    title.append(path[level]);
+                }
+            }
+            if (title.isEmpty()) {
+                title.append(leadingWords(units.get(leadingUnits)));
+            }
+            return title.toString();
+        }
+    }
+
+    /**
+     * Split a paragraph that exceeds the limit into sentences, and sentences into word runs
+     */
+    private List<String> splitToLimit(String text) {
+        List<String> pieces = new ArrayList<>();
+        int maxChars = maxTokens * CHARS_PER_TOKEN;
+        StringBuilder current = new StringBuilder();
+        for (String sentence : splitIntoSentences(text)) {
+            if (sentence.length() > maxChars) {
+                if (!current.isEmpty()) {
+                    pieces.add(current.toString());
+                    current.setLength(0);
+                }
+                for (String word : splitIntoWords(sentence)) {
+                    // A single word longer than the limit is cut hard
+                    for (int start = 0; start < word.length(); start += maxChars) {
+                        String part = word.substring(start, Math.min(word.length(), start + maxChars));
+                        if (!current.isEmpty() && current.length() + 1 + part.length() > maxChars) {
+                            pieces.add(current.toString());
+                            current.setLength(0);
+                        }
+                        if (!current.isEmpty()) {
+                            current.append(' ');
+                        }
+                        current.append(part);
+                    }
+                }
+                continue;
+            }
+            if (!current.isEmpty() && current.length() + 1 + sentence.length() > maxChars) {
+                pieces.add(current.toString());
+                current.setLength(0);
+            }
+            if (!current.isEmpty()) {
+                current.append(' ');
+            }
+            current.append(sentence);
+        }
+        if (!current.isEmpty()) {
+            pieces.add(current.toString());
+        }
+        return pieces;
+    }
+
+    /**
+     * Trailing sentences of a text that fit the budget, or its trailing words if even the last
+     * sentence is too long
+     */
+    static String tail(String text, int budgetTokens) {
+        List<String> sentences = splitIntoSentences(text);
+        int budgetChars = budgetTokens * CHARS_PER_TOKEN;
+        int start = sentences.size();
+        int length = 0;
+        while (start > 0 && length + sentences.get(start - 1).length() + 1 <= budgetChars) {
+            length += sentences.get(start - 1).length() + 1;
+            start--;
+        }
+        if (start < sentences.size()) {
+            return String.join(" ", sentences.subList(start, sentences.size()));
+        }
+
+        String[] words = splitIntoWords(text);
+        int first = words.length;
+        length = 0;
+        while (first > 0 && length + words[first - 1].length() + 1 <= budgetChars) {
+            length += words[first - 1].length() + 1;
+            first--;
+        }
+        return String.join(" ", Arrays.asList(words).subList(first, words.length));
+    }
+
+    /**
+     * First sentence of a text, or its first ten words when that sentence is long
+     */
+    static String leadingWords(String text) {
+        String firstLine = text.lines().findFirst().orElse("");
+        List<String> sentences = splitIntoSentences(firstLine);
+        String first = sentences.isEmpty() ? "" : sentences.get(0);
+        if (first.length() <= 100) {
+            return first;
+        }
+        String[] words = splitIntoWords(first);
+        return String.join(" ", Arrays.asList(words).subList(0, Math.min(10, words.length))) + "...";
+    }
+
+    /**
+     * Split text into sentences at '.', '!' or '?' followed by whitespace
+     */
+    static List<String> splitIntoSentences(String text) {
+        List<String> sentences = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return sentences;
+        }
+
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if ((c == '.' || c == '!' || c == '?')
+                    && i + 1 < text.length() && Character.isWhitespace(text.charAt(i + 1))) {
+                addTrimmed(sentences, text, start, i + 1);
+                start = i + 1;
+            }
+        }
+        addTrimmed(sentences, text, start, text.length());
+        return sentences;
+    }
+
+    /**
+     * Split text into words at whitespace
+     */
+    static String[] splitIntoWords(String text) {
+        List<String> words = new ArrayList<>();
+        if (text != null) {
+            int start = -1;
+            for (int i = 0; i <= text.length(); i++) {
+                boolean boundary = i == text.length() || Character.isWhitespace(text.charAt(i));
+                if (boundary && start >= 0) {
+                    words.add(text.substring(start, i));
+                    start = -1;
+                } else if (!boundary && start < 0) {
+                    start = i;
+                }
+            }
+        }
+        return words.toArray(String[]::new);
+    }
+
+    private static void addTrimmed(List<String> target, String text, int start, int end) {
+        String value = text.substring(start, end).trim();
+        if (!value.isEmpty()) {
+            target.add(value);
+        }
+    }
+}
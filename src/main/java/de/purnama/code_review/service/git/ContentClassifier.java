@@ -0,0 +1,214 @@
+package de.purnama.code_review.service.git;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import de.purnama.code_review.config.ContentGateConfig;
+
+/**
+ * ContentClassifier
+ *
+ * Cheap gate in front of the AI model. Before download it rejects files whose listed size
+ * exceeds the limit; after download it classifies the content in a single pass over the
+ * first characters (line length distribution, control characters, character entropy and
+ * generated-file markers) so that binary, minified, encoded and generated files do not
+ * cost tokens or chunk fan-out.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Component
+public class ContentClassifier {
+
+    // Below this many sampled characters the line length and entropy statistics are not meaningful
+    private static final int MIN_STATISTICS_SAMPLE = 1024;
+
+    // Share of control or undecodable characters above which content is treated as binary
+    private static final double MAX_NON_TEXT_RATIO = 0.05;
+
+    // Share of whitespace below which high-entropy content is treated as encoded data
+    private static final double MIN_WHITESPACE_RATIO = 0.05;
+
+    private final ContentGateConfig config;
+    private final List<String> markers;
+
+    /**
+     * Create a classifier with the built-in defaults
+     */
+    public ContentClassifier() {
+        this(new ContentGateConfig());
+    }
+
+    @Autowired
+    public ContentClassifier(ContentGateConfig config) {
+        this.config = config;
+        this.markers = config.getGeneratedMarkers().stream()
+                .map(marker -> marker.toLowerCase(Locale.ROOT))
+                .toList();
+    }
+
+    /**
+     * Kind of content as far as the review is concerned
+     */
+    public enum Kind { REVIEWABLE, OVERSIZED, BINARY, GENERATED, MINIFIED, ENCODED }
+
+    /**
+     * Classification result with a human readable reason for the review report
+     */
+    public record Verdict(Kind kind, String reason) {
+
+        static final Verdict REVIEWABLE = new Verdict(Kind.REVIEWABLE, null);
+
+        public boolean isReviewable() {
+            return kind == Kind.REVIEWABLE;
+        }
+    }
+
+    /**
+     * Largest file in bytes that passes the size gate, for providers that only learn the size
+     * while downloading
+     *
+     * @return The limit, or -1 if the gate is disabled
+     */
+    public long getMaxFileSize() {
+        return config.isEnabled() ? config.getMaxFileSize() : -1;
+    }
+
+    /**
+     * Pre-download gate on the size reported by the repository listing
+     *
+     * @param size Size in bytes, or a negative value if unknown
+     * @return The verdict; unknown sizes are reviewable
+     */
+    public Verdict checkSize(long size) {
+        if (config.isEnabled() && size > config.getMaxFileSize()) {
+            return new Verdict(Kind.OVERSIZED, "larger than " + formatSize(config.getMaxFileSize())
+                    + " (" + formatSize(size) + ")");
+        }
+        return Verdict.REVIEWABLE;
+    }
+
+    /**
+     * Classify downloaded content
+     *
+     * @param content The file content
+     * @return The verdict
+     */
+    public Verdict classify(CharSequence content) {
+        if (!config.isEnabled() || content == null || content.isEmpty()) {
+            return Verdict.REVIEWABLE;
+        }
+
+        Verdict sizeVerdict = checkSize(content.length());
+        if (!sizeVerdict.isReviewable()) {
+            return sizeVerdict;
+        }
+
+        int sample = Math.min(content.length(), Math.max(1, config.getSampleSize()));
+        int longLineLength = config.getLongLineLength();
+        int[] histogram = new int[129];
+        int lines = 0;
+        int lineLength = 0;
+        int longLineCharacters = 0;
+        int whitespace = 0;
+        int nonText = 0;
+        int headerEnd = -1;
+
+        for (int i = 0; i < sample; i++) {
+            char c = content.charAt(i);
+            if (c == '\n') {
+                lines++;
+                if (lineLength > longLineLength) {
+                    longLineCharacters += lineLength;
+                }
+                lineLength = 0;
+                if (lines == config.getMarkerLines()) {
+                    headerEnd = i;
+                }
+                whitespace++;
+                histogram[c]++;
+                continue;
+            }
+            if (c == 0) {
+                return new Verdict(Kind.BINARY, "binary content");
+            }
+
+            lineLength++;
+            if (c == '\uFFFD' || (c < 0x20 && c != '\t' && c != '\r' && c != '\f')) {
+                nonText++;
+            } else if (Character.isWhitespace(c)) {
+                whitespace++;
+            }
+            histogram[c < 128 ? c : 128]++;
+        }
+        if (lineLength > 0) {
+            lines++;
+            if (lineLength > longLineLength) {
+                longLineCharacters += lineLength;
+            }
+        }
+
+        if (nonText > sample * MAX_NON_TEXT_RATIO) {
+            return new Verdict(Kind.BINARY, "binary content");
+        }
+
+        String marker = findGeneratedMarker(content, headerEnd >= 0 ? headerEnd : sample);
+        if (marker != null) {
+            return new Verdict(Kind.GENERATED, "generated file (\"" + marker + "\")");
+        }
+
+        if (sample < MIN_STATISTICS_SAMPLE) {
+            return Verdict.REVIEWABLE;
+        }
+
+        int averageLineLength = sample / Math.max(1, lines);
+        if (averageLineLength > config.getMaxAverageLineLength()
+                || longLineCharacters > sample * config.getMaxLongLineRatio()) {
+            return new Verdict(Kind.MINIFIED, "minified (average line length " + averageLineLength + " characters)");
+        }
+
+        double entropy = entropy(histogram, sample);
+        if (entropy > config.getMaxEntropy() && whitespace < sample * MIN_WHITESPACE_RATIO) {
+            return new Verdict(Kind.ENCODED, String.format(Locale.ROOT,
+                    "encoded data (%.1f bits of entropy per character)", entropy));
+        }
+
+        return Verdict.REVIEWABLE;
+    }
+
+    private String findGeneratedMarker(CharSequence content, int headerEnd) {
+        if (markers.isEmpty()) {
+            return null;
+        }
+        String header = content.subSequence(0, headerEnd).toString().toLowerCase(Locale.ROOT);
+        for (String marker : markers) {
+            if (header.contains(marker)) {
+                return marker;
+            }
+        }
+        return null;
+    }
+
+    private static double entropy(int[] histogram, int total) {
+        double entropy = 0;
+        for (int count : histogram) {
+            if (count > 0) {
+                double p = (double) count / total;
+                entropy -= p * Math.log(p);
+            }
+        }
+        return entropy / Math.log(2);
+    }
+
+    static String formatSize(long bytes) {
+        if (bytes >= 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024.0));
+        }
+        if (bytes >= 1024) {
+            return (bytes / 1024) + " KB";
+        }
+        return bytes + " bytes";
+    }
+}
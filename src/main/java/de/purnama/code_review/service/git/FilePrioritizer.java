@@ -0,0 +1,211 @@
+package de.purnama.code_review.service.git;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import de.purnama.code_review.config.FilePrioritizationConfig;
+import de.purnama.code_review.model.git.FileCandidate;
+import de.purnama.code_review.model.git.FileSelectionReport;
+
+/**
+ * FilePrioritizer
+ *
+ * Ranks the reviewable files of a repository before any content is downloaded, so that
+ * when code.review.max-files truncates the review the token budget goes to main code in
+ * the languages that matter, of a reviewable size, and that changes often. The score is
+ * the product of a language weight, a size factor, a test penalty and a churn bonus; ties
+ * are broken by path so the selection is stable between runs. Files whose listed size is
+ * over the content gate limit are skipped here, before anything is downloaded.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Component
+public class FilePrioritizer {
+
+    static final String SKIPPED_BY_RANKING = "ranked below the review limit";
+
+    private static final Set<String> TEST_DIRECTORIES = Set.of("test", "tests", "__tests__", "spec", "specs", "testing");
+
+    private final FilePrioritizationConfig config;
+    private final ContentClassifier contentClassifier;
+
+    /**
+     * Create a prioritizer with the built-in defaults
+     */
+    public FilePrioritizer() {
+        this(new FilePrioritizationConfig(), new ContentClassifier());
+    }
+
+    public FilePrioritizer(FilePrioritizationConfig config) {
+        this(config, new ContentClassifier());
+    }
+
+    @Autowired
+    public FilePrioritizer(FilePrioritizationConfig config, ContentClassifier contentClassifier) {
+        this.config = config;
+        this.contentClassifier = contentClassifier;
+    }
+
+    /**
+     * Maximum number of candidates a provider should list before ranking
+     *
+     * @return The candidate limit
+     */
+    public int getCandidateLimit() {
+        return Math.max(1, config.getCandidateLimit());
+    }
+
+    /**
+     * Whether it is worth asking the provider for commit history. Churn only changes the
+     * outcome when there are more candidates than files to review.
+     *
+     * @param candidateCount Number of reviewable files listed
+     * @param maxFiles       Number of files that will be reviewed
+     * @return true if churn should be collected
+     */
+    public boolean needsChurn(int candidateCount, int maxFiles) {
+        return config.isEnabled() && config.getChurnCommits() > 0 && candidateCount > maxFiles;
+    }
+
+    /**
+     * Number of recent commits to inspect for churn
+     *
+     * @return The commit count
+     */
+    public int getChurnCommits() {
+        return config.getChurnCommits();
+    }
+
+    /**
+     * Largest file in bytes worth downloading, for listings that carry no sizes
+     *
+     * @return The limit, or -1 if there is none
+     */
+    public long getMaxFileSize() {
+        return contentClassifier.getMaxFileSize();
+    }
+
+    /**
+     * Select the files to review and record the others in the report
+     *
+     * @param candidates All reviewable files in listing order
+     * @param churn      Commits touching each path (may be empty)
+     * @param maxFiles   Number of files to select
+     * @param report     Receives the candidate count and the skipped files
+     * @return The selected candidates, highest priority first
+     */
+    public List<FileCandidate> select(List<FileCandidate> candidates, Map<String, Integer> churn,
+                                      int maxFiles, FileSelectionReport report) {
+        report.setCandidateCount(report.getCandidateCount() + candidates.size());
+
+        // Oversized files never reach the ranking, so they cannot take a slot from a reviewable one
+        List<FileCandidate> admitted = new ArrayList<>(candidates.size());
+        for (FileCandidate candidate : candidates) {
+            ContentClassifier.Verdict verdict = contentClassifier.checkSize(candidate.getSize());
+            if (verdict.isReviewable()) {
+                admitted.add(candidate);
+            } else {
+                report.skip(candidate.getPath(), verdict.reason());
+            }
+        }
+
+        List<FileCandidate> ranked = new ArrayList<>(admitted);
+        if (config.isEnabled()) {
+            List<Scored> scored = new ArrayList<>(admitted.size());
+            for (FileCandidate candidate : admitted) {
+                int commits = churn != null ? churn.getOrDefault(candidate.getPath(), 0) : 0;
+                scored.add(new Scored(candidate, score(candidate, commits)));
+            }
+            scored.sort(Comparator.comparingDouble(Scored::score).reversed()
+                    .thenComparing(s -> s.candidate().getPath()));
+            ranked.clear();
+            for (Scored s : scored) {
+                ranked.add(s.candidate());
+            }
+        }
+
+        int limit = Math.max(0, Math.min(maxFiles, ranked.size()));
+        for (FileCandidate skipped : ranked.subList(limit, ranked.size())) {
+            report.skip(skipped.getPath(), SKIPPED_BY_RANKING);
+        }
+        return new ArrayList<>(ranked.subList(0, limit));
+    }
+
+    /**
+     * Priority of a single candidate, higher is reviewed first
+     *
+     * @param candidate The candidate file
+     * @param commits   Number of recent commits that touched the file
+     * @return The score
+     */
+    double score(FileCandidate candidate, int commits) {
+        String path = candidate.getPath();
+        double score = languageWeight(path) * sizeFactor(candidate.getSize());
+        if (isTestPath(path)) {
+            score *= config.getTestWeight();
+        }
+        if (commits > 0) {
+            score *= 1.0 + config.getChurnWeight() * Math.log1p(commits);
+        }
+        return score;
+    }
+
+    private double languageWeight(String path) {
+        int dot = path.lastIndexOf('.');
+        if (dot < 0 || dot < path.lastIndexOf('/')) {
+            return 1.0;
+        }
+        Double weight = config.getLanguageWeights().get(path.substring(dot).toLowerCase(Locale.ROOT));
+        return weight != null ? weight : 1.0;
+    }
+
+    private double sizeFactor(long size) {
+        if (size < 0) {
+            return 1.0;
+        }
+        if (size < config.getTrivialSize()) {
+            return 0.3;
+        }
+        if (size <= config.getPreferredMaxSize()) {
+            return 1.0;
+        }
+        // Oversized files are chunked into several prompts; prefer two normal files over one huge one
+        return Math.max(0.1, (double) config.getPreferredMaxSize() / size);
+    }
+
+    /**
+     * Checks whether a path looks like test code, by directory or by file naming convention
+     *
+     * @param path Repository-relative path using '/' as separator
+     * @return true for test sources
+     */
+    public static boolean isTestPath(String path) {
+        String lower = path.toLowerCase(Locale.ROOT);
+        int start = 0;
+        int slash;
+        while ((slash = lower.indexOf('/', start)) >= 0) {
+            if (TEST_DIRECTORIES.contains(lower.substring(start, slash))) {
+                return true;
+            }
+            start = slash + 1;
+        }
+
+        String name = path.substring(start);
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String lowerBase = base.toLowerCase(Locale.ROOT);
+        return base.endsWith("Test") || base.endsWith("Tests") || base.endsWith("IT")
+                || lowerBase.endsWith("_test") || lowerBase.startsWith("test_")
+                || lowerBase.endsWith(".test") || lowerBase.endsWith(".spec");
+    }
+
+    private record Scored(FileCandidate candidate, double score) {
+    }
+}
@@ -1,26 +1,39 @@
 package de.purnama.code_review.service.git;
 
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Matcher;
 
 import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import de.purnama.code_review.config.GitHubConfig;
 import de.purnama.code_review.exception.GitProviderException;
+import de.purnama.code_review.model.git.FileCandidate;
+import de.purnama.code_review.model.git.FileSelectionReport;
 import de.purnama.code_review.model.git.GitFile;
 import de.purnama.code_review.model.github.GitContent;
+import de.purnama.code_review.model.github.GitTree;
+import de.purnama.code_review.model.github.GitTreeEntry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * GitHub-specific implementation of GitProvider interface
+ * The repository is listed with one recursive git trees call, candidates are ranked
+ * (using recent commits for churn) and only the selected files are downloaded.
  */
 @Service
 @Slf4j
@@ -30,10 +43,15 @@ public class GitHubProvider implements GitProvider {
     private final WebClient githubWebClient;
     private final GitHubConfig githubConfig;
     private final ObjectMapper objectMapper;
+    private final RepositoryPathFilter pathFilter;
+    private final FilePrioritizer filePrioritizer;
 
     // Configurable timeout for reactive operations
     private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
 
+    // Commit details fetched in parallel when estimating churn
+    private static final int CHURN_CONCURRENCY = 4;
+
     @Override
     public boolean canHandle(String url) {
         return url != null && url.contains("github.com");
@@ -87,9 +105,14 @@ public class GitHubProvider implements GitProvider {
             // Convert GitHub web URL to raw content URL
             String rawUrl = convertToRawGitHubUrl(githubUrl);
 
-            // Fetch the raw content
+            // Fetch the raw content; private repositories need the token here as well
             String codeContent = githubWebClient.get()
                     .uri(rawUrl)
+                    .headers(httpHeaders -> {
+                        if (githubConfig.getToken() != null && !githubConfig.getToken().isEmpty()) {
+                            httpHeaders.set("Authorization", "token " + githubConfig.getToken());
+                        }
+                    })
                     .retrieve()
                     .bodyToMono(String.class)
                     .timeout(REQUEST_TIMEOUT)
@@ -110,21 +133,11 @@ public class GitHubProvider implements GitProvider {
     }
 
     @Override
-    public List<GitFile> fetchRepositoryFiles(String owner, String repo, String branch, int maxFiles)
-            throws GitProviderException {
+    public List<GitFile> fetchRepositoryFiles(String owner, String repo, String branch, int maxFiles,
+                                              FileSelectionReport report) throws GitProviderException {
         try {
             log.info("Fetching repository contents for {}/{} on branch {}", owner, repo, branch);
-
-            // Fetch important files from the repository
-            List<GitFile> filesToReview = new ArrayList<>();
-
-            // First fetch the root contents
-            String rootUrl = String.format("https://api.github.com/repos/%s/%s/contents", owner, repo);
-            if (branch != null && !branch.isEmpty()) {
-                rootUrl += "?ref=" + branch;
-            }
-
-            log.info("Fetching root contents from URL: {}", rootUrl);
+            String ref = branch != null && !branch.isEmpty() ? branch : "HEAD";
 
             HttpHeaders headers = new HttpHeaders();
             headers.set("Accept", "application/vnd.github.v3+json");
@@ -132,10 +145,25 @@ public class GitHubProvider implements GitProvider {
                 headers.set("Authorization", "token " + githubConfig.getToken());
             }
 
-            // Now recursively fetch files worth reviewing directly
-            recursivelyFetchContentsForReview(rootUrl, headers, filesToReview, maxFiles);
+            // Apply the repository's own linguist-generated/vendored markers on top of the configured rules
+            RepositoryPathFilter filter = pathFilter.withGitAttributes(fetchGitAttributes(owner, repo, branch, headers));
+
+            // List and rank every reviewable file before downloading any content
+            List<FileCandidate> candidates = listReviewableFiles(owner, repo, ref, headers, filter);
+            Map<String, Integer> churn = filePrioritizer.needsChurn(candidates.size(), maxFiles)
+                    ? fetchChurn(owner, repo, ref, headers)
+                    : Map.of();
+            List<FileCandidate> selected = filePrioritizer.select(candidates, churn, maxFiles, report);
+
+            List<GitFile> filesToReview = new ArrayList<>();
+            for (FileCandidate candidate : selected) {
+                GitFile file = downloadFile(owner, repo, ref, candidate, headers);
+                if (file != null) {
+                    filesToReview.add(file);
+                }
+            }
 
-            log.info("Total files collected for review: {}", filesToReview.size());
+            log.info("Total files collected for review: {} of {} candidates", filesToReview.size(), candidates.size());
             return filesToReview;
 
         } catch (Exception e) {
@@ -144,6 +172,24 @@ public class GitHubProvider implements GitProvider {
         }
     }
 
+    @Override
+    public String resolveHeadCommit(String owner, String repo, String branch) {
+        String ref = branch != null && !branch.isEmpty() ? branch : "HEAD";
+        HttpHeaders headers = new HttpHeaders();
+        // The sha media type answers with the bare commit id instead of the full commit
+        headers.set("Accept", "application/vnd.github.sha");
+        if (githubConfig.getToken() != null && !githubConfig.getToken().isEmpty()) {
+            headers.set("Authorization", "token " + githubConfig.getToken());
+        }
+        try {
+            String sha = get(String.format("%s/repos/%s/%s/commits/%s", githubConfig.getApiUrl(), owner, repo, ref), headers).strip();
+            return sha.isEmpty() ? null : sha;
+        } catch (Exception e) {
+            log.debug("Could not resolve head commit of {}/{} at {}: {}", owner, repo, ref, e.getMessage());
+            return null;
+        }
+    }
+
     @Override
     public String getProviderName() {
         return "GitHub";
@@ -154,7 +200,7 @@ public class GitHubProvider implements GitProvider {
      */
     private String convertToRawGitHubUrl(String githubUrl) throws GitProviderException {
         if (githubUrl.contains("github.com") && githubUrl.contains("/blob/")) {
-            return githubUrl.replace("github.com", "raw.githubusercontent.com")
+            return githubUrl.replaceFirst("^https?://github\\.com", Matcher.quoteReplacement(githubConfig.getRawUrl()))
                     .replace("/blob/", "/");
         } else {
             throw new GitProviderException("Invalid GitHub URL format. Please provide a URL to a specific file.");
@@ -162,24 +208,17 @@ public class GitHubProvider implements GitProvider {
     }
 
     /**
-     * Recursively fetches contents from GitHub API, filtering and collecting only files worth reviewing
+     * Fetch the repository's .gitattributes, or null if it has none
      */
-    private void recursivelyFetchContentsForReview(String url, HttpHeaders headers,
-                                                   List<GitFile> filesToReview, int maxFilesToReview) {
-        // If we've reached the maximum files to review, stop collecting
-        if (filesToReview.size() >= maxFilesToReview) {
-            log.info("Reached maximum number of files to review ({})", maxFilesToReview);
-            return;
+    private String fetchGitAttributes(String owner, String repo, String branch, HttpHeaders headers) {
+        if (!pathFilter.isHonorRepositoryAttributes()) {
+            return null;
         }
-
+        String ref = branch != null && !branch.isEmpty() ? branch : "HEAD";
         try {
-            // Use WebClient to fetch contents
-            String responseBody = githubWebClient.get()
-                    .uri(url)
+            return githubWebClient.get()
+                    .uri(githubConfig.getRawUrl() + "/{owner}/{repo}/{ref}/.gitattributes", owner, repo, ref)
                     .headers(httpHeaders -> {
-                        if (headers.containsKey("Accept")) {
-                            httpHeaders.add("Accept", headers.getFirst("Accept"));
-                        }
                         if (headers.containsKey("Authorization")) {
                             httpHeaders.add("Authorization", headers.getFirst("Authorization"));
                         }
@@ -188,99 +227,192 @@ public class GitHubProvider implements GitProvider {
                     .bodyToMono(String.class)
                     .timeout(REQUEST_TIMEOUT)
                     .block();
+        } catch (Exception e) {
+            log.debug("No .gitattributes found for {}/{}: {}", owner, repo, e.getMessage());
+            return null;
+        }
+    }
 
-            if (responseBody == null) {
-                return;
+    /**
+     * List the reviewable files with a single recursive git trees call. GitHub truncates the
+     * tree of very large repositories; those are listed directory by directory instead.
+     */
+    private List<FileCandidate> listReviewableFiles(String owner, String repo, String ref, HttpHeaders headers,
+                                                    RepositoryPathFilter filter) throws Exception {
+        List<FileCandidate> candidates = new ArrayList<>();
+        int candidateLimit = filePrioritizer.getCandidateLimit();
+
+        String treeUrl = String.format("%s/repos/%s/%s/git/trees/%s?recursive=1", githubConfig.getApiUrl(), owner, repo, ref);
+        log.info("Fetching repository tree from URL: {}", treeUrl);
+        GitTree tree = objectMapper.readValue(get(treeUrl, headers), GitTree.class);
+
+        if (!tree.isTruncated()) {
+            for (GitTreeEntry entry : tree.getTree()) {
+                if ("blob".equals(entry.getType()) && filter.isReviewablePath(entry.getPath())) {
+                    candidates.add(FileCandidate.builder()
+                            .path(entry.getPath())
+                            .id(rawUrl(owner, repo, ref, entry.getPath()))
+                            .size(entry.getSize())
+                            .build());
+                    if (candidates.size() >= candidateLimit) {
+                        log.info("Reached candidate limit ({}), remaining files are not considered", candidateLimit);
+                        break;
+                    }
+                }
             }
+            return candidates;
+        }
+
+        log.info("Repository tree of {}/{} is truncated, listing directories one by one", owner, repo);
+        String rootUrl = String.format("%s/repos/%s/%s/contents?ref=%s", githubConfig.getApiUrl(), owner, repo, ref);
+        recursivelyListContents(rootUrl, headers, filter, candidates, candidateLimit);
+        return candidates;
+    }
 
-            try {
-                // Parse the response
-                GitContent[] contents = objectMapper.readValue(responseBody, GitContent[].class);
+    /**
+     * Recursively lists contents from GitHub API, collecting only files worth reviewing
+     */
+    private void recursivelyListContents(String url, HttpHeaders headers, RepositoryPathFilter filter,
+                                         List<FileCandidate> candidates, int candidateLimit) {
+        if (candidates.size() >= candidateLimit) {
+            return;
+        }
 
-                // Process each item
-                for (GitContent content : contents) {
-                    // Skip if we've reached the maximum files
-                    if (filesToReview.size() >= maxFilesToReview) {
-                        return;
-                    }
+        try {
+            GitContent[] contents = objectMapper.readValue(get(url, headers), GitContent[].class);
 
-                    // If it's a directory, recursively process it if not ignored
-                    if ("dir".equals(content.getType())) {
-                        if (!shouldIgnoreDirectory(content.getName())) {
-                            recursivelyFetchContentsForReview(content.getUrl(), headers, filesToReview, maxFilesToReview);
-                        }
-                    }
-                    // If it's a file and it's a supported type, add it to the files to review
-                    else if ("file".equals(content.getType()) && isSupportedFileType(content.getName())) {
-                        try {
-                            // Fetch the file content using WebClient
-                            String fileContent = githubWebClient.get()
-                                    .uri(content.getDownloadUrl())
-                                    .retrieve()
-                                    .bodyToMono(String.class)
-                                    .timeout(REQUEST_TIMEOUT)
-                                    .block();
-
-                            if (fileContent != null && !fileContent.isBlank()) {
-                                // Convert to our generic GitFile model
-                                GitFile file = GitFile.builder()
-                                    .name(content.getName())
-                                    .path(content.getPath())
-                                    .content(fileContent)
-                                    .url(content.getHtmlUrl())
-                                    .build();
-                                filesToReview.add(file);
-                            }
-                        } catch (Exception e) {
-                            log.warn("Could not fetch content for file {}: {}", content.getPath(), e.getMessage());
-                        }
+            for (GitContent content : contents) {
+                if (candidates.size() >= candidateLimit) {
+                    log.info("Reached candidate limit ({}), remaining files are not considered", candidateLimit);
+                    return;
+                }
+
+                // If it's a directory, recursively process it if not ignored
+                if ("dir".equals(content.getType())) {
+                    if (!filter.shouldIgnoreDirectory(content.getPath())) {
+                        recursivelyListContents(content.getUrl(), headers, filter, candidates, candidateLimit);
                     }
                 }
-            } catch (Exception e) {
-                log.error("Error parsing GitHub API response: {}", e.getMessage());
+                // If it's a file and it's a supported type, it is a candidate for review
+                else if ("file".equals(content.getType()) && filter.isReviewablePath(content.getPath())
+                        && content.getDownloadUrl() != null) {
+                    candidates.add(FileCandidate.builder()
+                            .path(content.getPath())
+                            .id(content.getDownloadUrl())
+                            .size(content.getSize())
+                            .build());
+                }
             }
-
         } catch (Exception e) {
-            log.error("Error during recursively fetching content: {}", e.getMessage());
+            log.error("Error during recursively listing content: {}", e.getMessage());
         }
     }
 
     /**
-     * Check if a directory should be ignored during the recursive traversal
+     * Count how many of the most recent commits touched each path
      */
-    private boolean shouldIgnoreDirectory(String dirName) {
-        // Ignore common directories that don't typically contain application code
-        // or might contain too many files (like node_modules)
-        return dirName != null && (
-                dirName.equalsIgnoreCase("node_modules") ||
-                        dirName.equalsIgnoreCase(".git") ||
-                        dirName.equalsIgnoreCase(".github") ||
-                        dirName.equalsIgnoreCase(".idea") ||
-                        dirName.equalsIgnoreCase(".vscode") ||
-                        dirName.equalsIgnoreCase("target") ||
-                        dirName.equalsIgnoreCase("build") ||
-                        dirName.equalsIgnoreCase("dist") ||
-                        dirName.equalsIgnoreCase("out") ||
-                        dirName.equalsIgnoreCase("coverage") ||
-                        dirName.equalsIgnoreCase(".metadata") ||
-                        dirName.equalsIgnoreCase("__pycache__") ||
-                        dirName.equals("bin") ||   // Binary outputs
-                        dirName.equals("obj") ||   // Object files
-                        dirName.startsWith(".")    // Any hidden directory
-        );
+    private Map<String, Integer> fetchChurn(String owner, String repo, String ref, HttpHeaders headers) {
+        try {
+            String commitsUrl = String.format("%s/repos/%s/%s/commits?sha=%s&per_page=%d",
+                    githubConfig.getApiUrl(), owner, repo, ref, filePrioritizer.getChurnCommits());
+            List<String> commitUrls = new ArrayList<>();
+            for (JsonNode commit : objectMapper.readTree(get(commitsUrl, headers))) {
+                commitUrls.add(commit.path("url").asText());
+            }
+
+            // The commit list does not contain the changed files, so each commit is fetched on its own
+            List<String> details = Flux.fromIterable(commitUrls)
+                    .flatMap(commitUrl -> request(commitUrl, headers)
+                                    .onErrorResume(e -> Mono.empty()),
+                            CHURN_CONCURRENCY)
+                    .collectList()
+                    .block();
+
+            Map<String, Integer> churn = new HashMap<>();
+            if (details != null) {
+                for (String detail : details) {
+                    for (JsonNode file : objectMapper.readTree(detail).path("files")) {
+                        churn.merge(file.path("filename").asText(), 1, Integer::sum);
+                    }
+                }
+            }
+            return churn;
+        } catch (Exception e) {
+            log.debug("Could not read commit history of {}/{}: {}", owner, repo, e.getMessage());
+            return Map.of();
+        }
     }
 
-    /**
-     * Checks if a file is a supported code file based on its extension
-     */
-    private boolean isSupportedFileType(String fileName) {
-        // List of file extensions to include
-        List<String> SUPPORTED_EXTENSIONS = List.of(
-            ".java", ".js", ".ts", ".py", ".rb", ".c", ".cpp", ".cs", ".go", ".php",
-            ".html", ".css", ".scss", ".json", ".xml", ".yaml", ".yml"
-        );
-
-        return fileName != null && SUPPORTED_EXTENSIONS.stream()
-                .anyMatch(ext -> fileName.toLowerCase().endsWith(ext));
+    private GitFile downloadFile(String owner, String repo, String ref, FileCandidate candidate, HttpHeaders headers) {
+        try {
+            // Raw downloads of private repositories are only answered with the token
+            String fileContent = githubWebClient.get()
+                    .uri(URI.create(candidate.getId()))
+                    .headers(httpHeaders -> {
+                        if (headers.containsKey("Authorization")) {
+                            httpHeaders.add("Authorization", headers.getFirst("Authorization"));
+                        }
+                    })
+                    .retrieve()
+                    .bodyToMono(String.class)
+                    .timeout(REQUEST_TIMEOUT)
+                    .block();
+
+            if (fileContent == null || fileContent.isBlank()) {
+                return null;
+            }
+
+            // Convert to our generic GitFile model
+            String path = candidate.getPath();
+            int lastSlash = path.lastIndexOf('/');
+            return GitFile.builder()
+                    .name(lastSlash >= 0 ? path.substring(lastSlash + 1) : path)
+                    .path(path)
+                    .content(fileContent)
+                    .url(String.format("https://github.com/%s/%s/blob/%s/%s", owner, repo, ref, encodePath(path)))
+                    .build();
+        } catch (Exception e) {
+            log.warn("Could not fetch content for file {}: {}", candidate.getPath(), e.getMessage());
+            return null;
+        }
+    }
+
+    private String get(String url, HttpHeaders headers) throws GitProviderException {
+        String responseBody = request(url, headers).block();
+        if (responseBody == null) {
+            throw new GitProviderException("Empty response from GitHub API: " + url);
+        }
+        return responseBody;
+    }
+
+    private Mono<String> request(String url, HttpHeaders headers) {
+        return githubWebClient.get()
+                .uri(url)
+                .headers(httpHeaders -> {
+                    if (headers.containsKey("Accept")) {
+                        httpHeaders.add("Accept", headers.getFirst("Accept"));
+                    }
+                    if (headers.containsKey("Authorization")) {
+                        httpHeaders.add("Authorization", headers.getFirst("Authorization"));
+                    }
+                })
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(REQUEST_TIMEOUT);
+    }
+
+    private String rawUrl(String owner, String repo, String ref, String path) {
+        return String.format("%s/%s/%s/%s/%s", githubConfig.getRawUrl(), owner, repo, ref, encodePath(path));
+    }
+
+    private static String encodePath(String path) {
+        StringBuilder encoded = new StringBuilder(path.length() + 16);
+        for (String segment : path.split("/")) {
+            if (!encoded.isEmpty()) {
+                encoded.append('/');
+            }
+            encoded.append(URLEncoder.encode(segment, StandardCharsets.UTF_8).replace("+", "%20"));
+        }
+        return encoded.toString();
     }
 }
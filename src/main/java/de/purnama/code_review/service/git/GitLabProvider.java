@@ -0,0 +1,511 @@
+package de.purnama.code_review.service.git;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.purnama.code_review.config.GitLabConfig;
+import de.purnama.code_review.exception.GitProviderException;
+import de.purnama.code_review.model.git.FileCandidate;
+import de.purnama.code_review.model.git.FileSelectionReport;
+import de.purnama.code_review.model.git.GitFile;
+import de.purnama.code_review.model.gitlab.GitLabTreeEntry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * GitLabProvider
+ *
+ * GitLab-specific implementation of GitProvider interface. Lists the whole repository
+ * with the paginated tree endpoint, ranks the candidates (using recent commit diffs for
+ * churn), then downloads the selected blobs concurrently
+ * (or the repository archive once when many files are selected). Tree and commit listings
+ * are revalidated with ETags so repeated reviews of an unchanged project are cheap; file
+ * contents are fetched without, since they are addressed by blob id and would only fill the
+ * cache.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class GitLabProvider implements GitProvider {
+
+    private final WebClient gitlabWebClient;
+    private final GitLabConfig gitlabConfig;
+    private final ObjectMapper objectMapper;
+    private final RepositoryPathFilter pathFilter;
+    private final FilePrioritizer filePrioritizer;
+
+    // Configurable timeout for reactive operations
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration ARCHIVE_TIMEOUT = Duration.ofMinutes(5);
+
+    // Separator GitLab puts between the project path and the blob/tree part of a web URL
+    private static final String ROUTE_SEPARATOR = "/-/";
+
+    // Least recently used cache of listing responses, keyed by request URL, for If-None-Match revalidation
+    private final Map<String, GitLabResponse> etagCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, GitLabResponse> eldest) {
+                    return size() > gitlabConfig.getEtagCacheSize();
+                }
+            });
+
+    @Override
+    public boolean canHandle(String url) {
+        String host = extractHost(url);
+        if (host == null) {
+            return false;
+        }
+        String configuredHost = extractHost(gitlabConfig.getBaseUrl());
+        return host.equalsIgnoreCase(configuredHost) || host.toLowerCase().startsWith("gitlab.");
+    }
+
+    @Override
+    public Map<String, String> extractRepositoryInfoFromUrl(String gitlabUrl) throws GitProviderException {
+        if (!canHandle(gitlabUrl)) {
+            throw new GitProviderException("URL is not a GitLab URL: " + gitlabUrl);
+        }
+
+        String path = URI.create(gitlabUrl).getPath();
+        if (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+
+        // Split "group/subgroup/project/-/blob/branch/file" into project part and route part
+        String projectPath = path;
+        String route = "";
+        int separator = path.indexOf(ROUTE_SEPARATOR);
+        if (separator >= 0) {
+            projectPath = path.substring(0, separator);
+            route = path.substring(separator + ROUTE_SEPARATOR.length());
+        }
+        if (projectPath.endsWith("/")) {
+            projectPath = projectPath.substring(0, projectPath.length() - 1);
+        }
+        if (projectPath.endsWith(".git")) {
+            projectPath = projectPath.substring(0, projectPath.length() - 4);
+        }
+
+        int lastSlash = projectPath.lastIndexOf('/');
+        if (lastSlash <= 0 || lastSlash == projectPath.length() - 1) {
+            throw new GitProviderException("Invalid GitLab URL format. Could not extract repository information.");
+        }
+
+        Map<String, String> result = new HashMap<>();
+        // GitLab namespaces can be nested (group/subgroup), so the owner may contain slashes
+        result.put("owner", projectPath.substring(0, lastSlash));
+        result.put("repo", projectPath.substring(lastSlash + 1));
+        result.put("branch", "main");
+
+        String[] routeParts = route.split("/", 3);
+        if (routeParts.length >= 2 && ("tree".equals(routeParts[0]) || "blob".equals(routeParts[0]))) {
+            result.put("branch", routeParts[1]);
+            if ("blob".equals(routeParts[0]) && routeParts.length == 3 && !routeParts[2].isEmpty()) {
+                result.put("path", routeParts[2]);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public String fetchFileContent(String gitlabUrl) throws GitProviderException {
+        log.info("Fetching code from GitLab URL: {}", gitlabUrl);
+
+        Map<String, String> info = extractRepositoryInfoFromUrl(gitlabUrl);
+        if (info.get("path") == null) {
+            throw new GitProviderException("Invalid GitLab URL format. Please provide a URL to a specific file.");
+        }
+
+        try {
+            String rawUrl = projectApiUrl(info.get("owner"), info.get("repo"))
+                    + "/repository/files/" + encode(info.get("path"))
+                    + "/raw?ref=" + encode(info.get("branch"));
+
+            GitLabResponse response = get(rawUrl).block();
+            if (response == null || response.body() == null || response.body().isBlank()) {
+                throw new GitProviderException("Could not fetch code content from GitLab");
+            }
+            return response.body();
+        } catch (GitProviderException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error fetching code from GitLab: {}", e.getMessage(), e);
+            throw new GitProviderException("Failed to fetch code from GitLab: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<GitFile> fetchRepositoryFiles(String owner, String repo, String branch, int maxFiles,
+                                              FileSelectionReport report) throws GitProviderException {
+        try {
+            log.info("Fetching repository contents for {}/{} on branch {}", owner, repo, branch);
+
+            List<FileCandidate> candidates = listReviewableBlobs(owner, repo, branch);
+            Map<String, Integer> churn = filePrioritizer.needsChurn(candidates.size(), maxFiles)
+                    ? fetchChurn(owner, repo, branch)
+                    : Map.of();
+            List<FileCandidate> selected = filePrioritizer.select(candidates, churn, maxFiles, report);
+            if (selected.isEmpty()) {
+                return new ArrayList<>();
+            }
+
+            List<GitFile> filesToReview = selected.size() >= gitlabConfig.getArchiveThreshold()
+                    ? fetchFromArchive(owner, repo, branch, selected)
+                    : fetchBlobsConcurrently(owner, repo, branch, selected);
+
+            log.info("Total files collected for review: {} of {} candidates", filesToReview.size(), candidates.size());
+            return filesToReview;
+        } catch (Exception e) {
+            log.error("Error fetching repository contents: {}", e.getMessage(), e);
+            throw new GitProviderException("Failed to fetch repository contents: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String resolveHeadCommit(String owner, String repo, String branch) {
+        try {
+            String url = branch != null && !branch.isEmpty()
+                    ? projectApiUrl(owner, repo) + "/repository/commits/" + encode(branch)
+                    : projectApiUrl(owner, repo) + "/repository/commits?per_page=1";
+            GitLabResponse response = conditionalGet(url).block();
+            if (response == null || response.body() == null) {
+                return null;
+            }
+            JsonNode commit = objectMapper.readTree(response.body());
+            String id = (commit.isArray() ? commit.path(0) : commit).path("id").asText();
+            return id.isEmpty() ? null : id;
+        } catch (Exception e) {
+            log.debug("Could not resolve head commit of {}/{} at {}: {}", owner, repo, branch, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public String getProviderName() {
+        return "GitLab";
+    }
+
+    /**
+     * Page through the recursive repository tree and collect the reviewable blobs, up to the candidate limit
+     */
+    private List<FileCandidate> listReviewableBlobs(String owner, String repo, String branch) throws Exception {
+        List<FileCandidate> candidates = new ArrayList<>();
+        int candidateLimit = filePrioritizer.getCandidateLimit();
+        RepositoryPathFilter filter = pathFilter.withGitAttributes(fetchGitAttributes(owner, repo, branch));
+        String baseTreeUrl = projectApiUrl(owner, repo) + "/repository/tree?recursive=true"
+                + "&per_page=" + gitlabConfig.getPerPage()
+                + (branch != null && !branch.isEmpty() ? "&ref=" + encode(branch) : "");
+
+        String page = "1";
+        while (page != null && !page.isEmpty() && candidates.size() < candidateLimit) {
+            GitLabResponse response = conditionalGet(baseTreeUrl + "&page=" + page).block();
+            if (response == null || response.body() == null) {
+                break;
+            }
+
+            GitLabTreeEntry[] entries = objectMapper.readValue(response.body(), GitLabTreeEntry[].class);
+            for (GitLabTreeEntry entry : entries) {
+                if ("blob".equals(entry.getType()) && filter.isReviewablePath(entry.getPath())) {
+                    candidates.add(FileCandidate.builder().path(entry.getPath()).id(entry.getId()).build());
+                    if (candidates.size() >= candidateLimit) {
+                        log.info("Reached candidate limit ({}), remaining files are not considered", candidateLimit);
+                        break;
+                    }
+                }
+            }
+            page = response.nextPage();
+        }
+
+        return candidates;
+    }
+
+    /**
+     * Count how many of the most recent commits touched each path. Commit diffs never change,
+     * so repeated reviews are answered from the ETag cache.
+     */
+    private Map<String, Integer> fetchChurn(String owner, String repo, String branch) {
+        String projectApiUrl = projectApiUrl(owner, repo);
+        try {
+            GitLabResponse commits = conditionalGet(projectApiUrl + "/repository/commits?per_page="
+                    + filePrioritizer.getChurnCommits()
+                    + (branch != null && !branch.isEmpty() ? "&ref_name=" + encode(branch) : "")).block();
+            if (commits == null || commits.body() == null) {
+                return Map.of();
+            }
+
+            List<String> ids = new ArrayList<>();
+            for (JsonNode commit : objectMapper.readTree(commits.body())) {
+                ids.add(commit.path("id").asText());
+            }
+
+            Map<String, Integer> churn = new HashMap<>();
+            List<String> diffs = Flux.fromIterable(ids)
+                    .flatMap(id -> conditionalGet(projectApiUrl + "/repository/commits/" + id + "/diff")
+                                    .map(GitLabResponse::body)
+                                    .onErrorResume(e -> Mono.empty()),
+                            Math.max(1, gitlabConfig.getConcurrency()))
+                    .collectList()
+                    .block();
+            if (diffs != null) {
+                for (String diff : diffs) {
+                    for (JsonNode change : objectMapper.readTree(diff)) {
+                        churn.merge(change.path("new_path").asText(), 1, Integer::sum);
+                    }
+                }
+            }
+            return churn;
+        } catch (Exception e) {
+            log.debug("Could not read commit history of {}/{}: {}", owner, repo, e.getMessage());
+            return Map.of();
+        }
+    }
+
+    /**
+     * Fetch the repository's .gitattributes, or null if it has none
+     */
+    private String fetchGitAttributes(String owner, String repo, String branch) {
+        if (!pathFilter.isHonorRepositoryAttributes()) {
+            return null;
+        }
+        try {
+            GitLabResponse response = get(projectApiUrl(owner, repo) + "/repository/files/.gitattributes/raw"
+                    + (branch != null && !branch.isEmpty() ? "?ref=" + encode(branch) : "")).block();
+            return response != null ? response.body() : null;
+        } catch (Exception e) {
+            log.debug("No .gitattributes found for {}/{}: {}", owner, repo, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Download the selected blobs in parallel, bounded by the configured concurrency
+     */
+    private List<GitFile> fetchBlobsConcurrently(String owner, String repo, String branch,
+                                                 List<FileCandidate> selected) {
+        String projectApiUrl = projectApiUrl(owner, repo);
+
+        List<GitFile> files = Flux.fromIterable(selected)
+                .flatMapSequential(candidate -> getBlob(projectApiUrl + "/repository/blobs/" + candidate.getId() + "/raw")
+                                .filter(content -> !content.isBlank())
+                                .map(content -> toGitFile(owner, repo, branch, candidate.getPath(), content))
+                                .onErrorResume(e -> {
+                                    log.warn("Could not fetch content for file {}: {}", candidate.getPath(), e.getMessage());
+                                    return Mono.empty();
+                                }),
+                        Math.max(1, gitlabConfig.getConcurrency()))
+                .collectList()
+                .block();
+
+        return files != null ? files : new ArrayList<>();
+    }
+
+    /**
+     * Download the repository archive once and extract only the selected files
+     */
+    private List<GitFile> fetchFromArchive(String owner, String repo, String branch, List<FileCandidate> selected)
+            throws Exception {
+        log.info("Fetching {} files for {}/{} from the repository archive", selected.size(), owner, repo);
+
+        String archiveUrl = projectApiUrl(owner, repo) + "/repository/archive.tar.gz"
+                + (branch != null && !branch.isEmpty() ? "?sha=" + encode(branch) : "");
+
+        Path archiveFile = Files.createTempFile("gitlab-archive-", ".tar.gz");
+        try {
+            // Stream the archive to disk so large repositories never have to fit in memory
+            var body = gitlabWebClient.get()
+                    .uri(URI.create(archiveUrl))
+                    .headers(this::applyAuthentication)
+                    .retrieve()
+                    .bodyToFlux(DataBuffer.class);
+            DataBufferUtils.write(body, archiveFile).timeout(ARCHIVE_TIMEOUT).block();
+
+            Set<String> wantedPaths = new LinkedHashSet<>();
+            for (FileCandidate candidate : selected) {
+                wantedPaths.add(candidate.getPath());
+            }
+
+            Map<String, String> contents;
+            try (InputStream in = Files.newInputStream(archiveFile)) {
+                // The tree listing has no sizes, so the size gate applies here, before an entry is read
+                contents = TarArchiveReader.readTextEntries(in, wantedPaths, true, filePrioritizer.getMaxFileSize());
+            }
+
+            // Keep the ranked order
+            List<GitFile> files = new ArrayList<>();
+            for (String path : wantedPaths) {
+                String content = contents.get(path);
+                if (content != null && !content.isBlank()) {
+                    files.add(toGitFile(owner, repo, branch, path, content));
+                }
+            }
+            return files;
+        } finally {
+            Files.deleteIfExists(archiveFile);
+        }
+    }
+
+    /**
+     * Plain GET, for file contents that are not worth caching
+     */
+    private Mono<GitLabResponse> get(String url) {
+        return gitlabWebClient.get()
+                .uri(URI.create(url))
+                .headers(this::applyAuthentication)
+                .exchangeToMono(response -> response.toEntity(String.class))
+                .timeout(REQUEST_TIMEOUT)
+                .flatMap(entity -> handleResponse(url, entity, null, false));
+    }
+
+    /**
+     * GET of a blob that gives up on blobs above the size gate. The tree listing has no sizes,
+     * so the Content-Length is checked before the body is read, and the body is cut off at the
+     * limit when there is none.
+     *
+     * @return The content, or empty if the blob is too large
+     */
+    private Mono<String> getBlob(String url) {
+        long maxSize = filePrioritizer.getMaxFileSize();
+        return gitlabWebClient.get()
+                .uri(URI.create(url))
+                .headers(this::applyAuthentication)
+                .exchangeToMono(response -> {
+                    if (!response.statusCode().is2xxSuccessful()) {
+                        return response.releaseBody().then(Mono.error(new GitProviderException(
+                                "GitLab API request failed with status " + response.statusCode().value() + ": " + url)));
+                    }
+                    if (maxSize >= 0 && response.headers().contentLength().orElse(-1) > maxSize) {
+                        log.info("Skipping blob larger than {} bytes: {}", maxSize, url);
+                        return response.releaseBody().then(Mono.<String>empty());
+                    }
+                    return DataBufferUtils.join(response.bodyToFlux(DataBuffer.class), (int) Math.min(maxSize, Integer.MAX_VALUE))
+                            .map(buffer -> {
+                                try {
+                                    return buffer.toString(StandardCharsets.UTF_8);
+                                } finally {
+                                    DataBufferUtils.release(buffer);
+                                }
+                            })
+                            .onErrorResume(DataBufferLimitException.class, e -> {
+                                log.info("Skipping blob larger than {} bytes: {}", maxSize, url);
+                                return Mono.empty();
+                            });
+                })
+                .timeout(REQUEST_TIMEOUT);
+    }
+
+    /**
+     * GET with If-None-Match revalidation, for tree and commit listings. A 304 answer is served
+     * from the local cache.
+     */
+    private Mono<GitLabResponse> conditionalGet(String url) {
+        GitLabResponse cached = etagCache.get(url);
+
+        return gitlabWebClient.get()
+                .uri(URI.create(url))
+                .headers(headers -> {
+                    applyAuthentication(headers);
+                    if (cached != null) {
+                        headers.setIfNoneMatch(cached.etag());
+                    }
+                })
+                .exchangeToMono(response -> response.toEntity(String.class))
+                .timeout(REQUEST_TIMEOUT)
+                .flatMap(entity -> handleResponse(url, entity, cached, true));
+    }
+
+    private Mono<GitLabResponse> handleResponse(String url, ResponseEntity<String> entity, GitLabResponse cached,
+                                                boolean cache) {
+        if (entity.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) && cached != null) {
+            log.debug("GitLab response not modified, using cached copy for {}", url);
+            return Mono.just(cached);
+        }
+        if (!entity.getStatusCode().is2xxSuccessful()) {
+            return Mono.error(new GitProviderException(
+                    "GitLab API request failed with status " + entity.getStatusCode().value() + ": " + url));
+        }
+
+        HttpHeaders headers = entity.getHeaders();
+        GitLabResponse response = new GitLabResponse(headers.getETag(), entity.getBody(), headers.getFirst("X-Next-Page"));
+        if (cache && response.etag() != null) {
+            etagCache.put(url, response);
+        }
+        return Mono.just(response);
+    }
+
+    private void applyAuthentication(HttpHeaders headers) {
+        if (gitlabConfig.getToken() != null && !gitlabConfig.getToken().isEmpty()) {
+            headers.set("PRIVATE-TOKEN", gitlabConfig.getToken());
+        }
+    }
+
+    private GitFile toGitFile(String owner, String repo, String branch, String path, String content) {
+        int lastSlash = path.lastIndexOf('/');
+        String ref = branch != null && !branch.isEmpty() ? branch : "HEAD";
+        return GitFile.builder()
+                .name(lastSlash >= 0 ? path.substring(lastSlash + 1) : path)
+                .path(path)
+                .content(content)
+                .url(trimTrailingSlash(gitlabConfig.getBaseUrl()) + "/" + owner + "/" + repo + "/-/blob/" + ref + "/" + path)
+                .build();
+    }
+
+    private String projectApiUrl(String owner, String repo) {
+        // The project can be addressed by its URL-encoded full path instead of the numeric id
+        return trimTrailingSlash(gitlabConfig.getBaseUrl()) + "/api/v4/projects/" + encode(owner + "/" + repo);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    private static String trimTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    private static String extractHost(String url) {
+        if (url == null || url.isBlank()) {
+            return null;
+        }
+        try {
+            return URI.create(url.trim()).getHost();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Response body with the headers needed for caching and pagination
+     */
+    private record GitLabResponse(String etag, String body, String nextPage) {
+    }
+}
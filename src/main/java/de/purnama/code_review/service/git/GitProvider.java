@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Map;
 
 import de.purnama.code_review.exception.GitProviderException;
+import de.purnama.code_review.model.git.FileSelectionReport;
 import de.purnama.code_review.model.git.GitRepository;
 import de.purnama.code_review.model.git.GitFile;
 
@@ -48,7 +49,39 @@ public interface GitProvider {
      * @return List of Git files
      * @throws GitProviderException If the repository contents cannot be fetched
      */
-    List<GitFile> fetchRepositoryFiles(String owner, String repo, String branch, int maxFiles) throws GitProviderException;
+    default List<GitFile> fetchRepositoryFiles(String owner, String repo, String branch, int maxFiles)
+            throws GitProviderException {
+        return fetchRepositoryFiles(owner, repo, branch, maxFiles, new FileSelectionReport());
+    }
+
+    /**
+     * Fetch the highest ranked repository files suitable for code review. Candidates are
+     * ranked before any content is downloaded; files that are left out are recorded in
+     * the report.
+     *
+     * @param owner Repository owner
+     * @param repo Repository name
+     * @param branch Repository branch
+     * @param maxFiles Maximum number of files to fetch
+     * @param report Receives the files that were not selected
+     * @return List of Git files, highest priority first
+     * @throws GitProviderException If the repository contents cannot be fetched
+     */
+    List<GitFile> fetchRepositoryFiles(String owner, String repo, String branch, int maxFiles,
+                                       FileSelectionReport report) throws GitProviderException;
+
+    /**
+     * Resolve the commit a branch currently points to. Used to recognise identical review
+     * requests, so a provider that cannot tell returns null instead of failing.
+     *
+     * @param owner Repository owner
+     * @param repo Repository name
+     * @param branch Repository branch, or null for the default branch
+     * @return The commit id, or null if it cannot be resolved
+     */
+    default String resolveHeadCommit(String owner, String repo, String branch) {
+        return null;
+    }
 
     /**
      * Get the name of the provider (e.g., "GitHub", "GitLab")
@@ -0,0 +1,531 @@
+package de.purnama.code_review.service.git;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.stereotype.Service;
+
+import de.purnama.code_review.config.LocalRepositoryConfig;
+import de.purnama.code_review.exception.GitProviderException;
+import de.purnama.code_review.model.git.FileCandidate;
+import de.purnama.code_review.model.git.FileSelectionReport;
+import de.purnama.code_review.model.git.GitFile;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * LocalRepositoryProvider
+ *
+ * GitProvider for repositories that are mirrored on the review host and addressed with
+ * file:// URLs. Working trees are walked directly on disk; bare repositories are read
+ * through a single {@code git cat-file --batch} process. No HTTP calls are made, which
+ * also makes this provider a deterministic fixture for benchmarks. Candidates are ranked
+ * before they are read, with churn taken from {@code git log} when history is available.
+ * <p>
+ * URL format: {@code file:///srv/mirrors/project[.git][/path/to/File.java][?ref=branch]}
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class LocalRepositoryProvider implements GitProvider {
+
+    private final LocalRepositoryConfig localRepositoryConfig;
+    private final RepositoryPathFilter pathFilter;
+    private final FilePrioritizer filePrioritizer;
+
+    private static final String DEFAULT_REF = "HEAD";
+
+    @Override
+    public boolean canHandle(String url) {
+        return url != null && url.startsWith("file:");
+    }
+
+    @Override
+    public Map<String, String> extractRepositoryInfoFromUrl(String url) throws GitProviderException {
+        if (!canHandle(url)) {
+            throw new GitProviderException("URL is not a local file URL: " + url);
+        }
+
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            throw new GitProviderException("Invalid local repository URL: " + url, e);
+        }
+
+        Path target = Path.of(uri.getPath()).toAbsolutePath().normalize();
+        Path root = findRepositoryRoot(target);
+        if (root == null || root.getParent() == null || root.getFileName() == null) {
+            throw new GitProviderException("No local repository found for URL: " + url);
+        }
+        assertAllowed(root);
+
+        Map<String, String> result = new HashMap<>();
+        result.put("owner", root.getParent().toString());
+        result.put("repo", root.getFileName().toString());
+
+        String ref = extractRef(uri.getRawQuery());
+        if (ref != null && ref.startsWith("-")) {
+            // Never let a ref be interpreted as a git option
+            throw new GitProviderException("Invalid ref in local repository URL: " + ref);
+        }
+        result.put("branch", ref != null ? ref : DEFAULT_REF);
+
+        String relativePath = root.relativize(target).toString().replace('\\', '/');
+        if (!relativePath.isEmpty()) {
+            result.put("path", relativePath);
+        }
+
+        return result;
+    }
+
+    @Override
+    public String fetchFileContent(String url) throws GitProviderException {
+        log.info("Reading code from local repository URL: {}", url);
+
+        Map<String, String> info = extractRepositoryInfoFromUrl(url);
+        String relativePath = info.get("path");
+        if (relativePath == null) {
+            throw new GitProviderException("Invalid local repository URL. Please provide a URL to a specific file.");
+        }
+
+        Path root = Path.of(info.get("owner"), info.get("repo"));
+        try {
+            String content = isBareRepository(root)
+                    ? runGit(root, "cat-file", "blob", info.get("branch") + ":" + relativePath)
+                    : readContent(resolveInside(root, relativePath));
+
+            if (content == null || content.isBlank()) {
+                throw new GitProviderException("Could not read code content from local repository");
+            }
+            return content;
+        } catch (GitProviderException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error reading code from local repository: {}", e.getMessage(), e);
+            throw new GitProviderException("Failed to read code from local repository: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<GitFile> fetchRepositoryFiles(String owner, String repo, String branch, int maxFiles,
+                                              FileSelectionReport report) throws GitProviderException {
+        Path root = Path.of(owner, repo).toAbsolutePath().normalize();
+        assertAllowed(root);
+
+        try {
+            log.info("Reading local repository {} at {}", root, branch);
+
+            List<GitFile> filesToReview;
+            if (isBareRepository(root)) {
+                String ref = branch != null && !branch.isEmpty() ? branch : DEFAULT_REF;
+                RepositoryPathFilter filter = pathFilter.withGitAttributes(readBareGitAttributes(root, ref));
+                List<FileCandidate> candidates = listBareRepository(root, ref, filter);
+                Map<String, Integer> churn = filePrioritizer.needsChurn(candidates.size(), maxFiles)
+                        ? readChurn(root, ref)
+                        : Map.of();
+                filesToReview = readFromBareRepository(root, filePrioritizer.select(candidates, churn, maxFiles, report));
+            } else {
+                RepositoryPathFilter filter = pathFilter.withGitAttributes(readWorkingTreeGitAttributes(root));
+                List<FileCandidate> candidates = new ArrayList<>();
+                collectFromWorkingTree(root, root, filter, candidates, filePrioritizer.getCandidateLimit());
+                Map<String, Integer> churn = filePrioritizer.needsChurn(candidates.size(), maxFiles)
+                        && Files.isDirectory(root.resolve(".git"))
+                        ? readChurn(root.resolve(".git"), DEFAULT_REF)
+                        : Map.of();
+                filesToReview = readFromWorkingTree(root, filePrioritizer.select(candidates, churn, maxFiles, report));
+            }
+
+            log.info("Total files collected for review: {} of {} candidates", filesToReview.size(), report.getCandidateCount());
+            return filesToReview;
+        } catch (Exception e) {
+            log.error("Error reading local repository: {}", e.getMessage(), e);
+            throw new GitProviderException("Failed to read local repository: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String resolveHeadCommit(String owner, String repo, String branch) {
+        Path root = Path.of(owner, repo).toAbsolutePath().normalize();
+        try {
+            assertAllowed(root);
+            String commit;
+            if (isBareRepository(root)) {
+                String ref = branch != null && !branch.isEmpty() ? branch : DEFAULT_REF;
+                commit = runGit(root, "rev-parse", "--verify", ref + "^{commit}");
+            } else if (Files.isDirectory(root.resolve(".git"))) {
+                // A working tree is reviewed as it is on disk, so the commit only identifies it
+                // together with the URL; uncommitted edits are not part of the key
+                commit = runGit(root.resolve(".git"), "rev-parse", "--verify", DEFAULT_REF + "^{commit}");
+            } else {
+                return null;
+            }
+            commit = commit.strip();
+            return commit.isEmpty() ? null : commit;
+        } catch (Exception e) {
+            log.debug("Could not resolve head commit of {}: {}", root, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public String getProviderName() {
+        return "Local";
+    }
+
+    /**
+     * Depth-first walk in name order so the listing is stable between runs.
+     * Ignored directories are pruned before they are opened.
+     */
+    private void collectFromWorkingTree(Path root, Path directory, RepositoryPathFilter filter,
+                                        List<FileCandidate> candidates, int candidateLimit) throws IOException {
+        List<Path> children = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path child : stream) {
+                children.add(child);
+            }
+        }
+        children.sort(null);
+
+        for (Path child : children) {
+            if (candidates.size() >= candidateLimit) {
+                log.info("Reached candidate limit ({}), remaining files are not considered", candidateLimit);
+                return;
+            }
+
+            String relativePath = root.relativize(child).toString().replace('\\', '/');
+            if (Files.isDirectory(child)) {
+                if (!Files.isSymbolicLink(child) && !filter.shouldIgnoreDirectory(relativePath)) {
+                    collectFromWorkingTree(root, child, filter, candidates, candidateLimit);
+                }
+            } else if (Files.isRegularFile(child, LinkOption.NOFOLLOW_LINKS) && filter.isReviewablePath(relativePath)) {
+                candidates.add(FileCandidate.builder()
+                        .path(relativePath)
+                        .id(child.toString())
+                        .size(Files.size(child))
+                        .build());
+            }
+        }
+    }
+
+    private List<GitFile> readFromWorkingTree(Path root, List<FileCandidate> selected) {
+        List<GitFile> filesToReview = new ArrayList<>();
+        for (FileCandidate candidate : selected) {
+            try {
+                String content = readContent(Path.of(candidate.getId()));
+                if (!content.isBlank()) {
+                    filesToReview.add(toGitFile(root, candidate.getPath(), content));
+                }
+            } catch (IOException e) {
+                log.warn("Could not read file {}: {}", candidate.getId(), e.getMessage());
+            }
+        }
+        return filesToReview;
+    }
+
+    /**
+     * List the reviewable blobs of a bare repository together with their sizes
+     */
+    private List<FileCandidate> listBareRepository(Path root, String ref, RepositoryPathFilter filter)
+            throws IOException, InterruptedException, GitProviderException {
+        // Entries are NUL-terminated: "<mode> <type> <sha> <padded size>\t<path>"
+        String listing = runGit(root, "ls-tree", "-r", "-l", "-z", "--full-tree", ref);
+        int candidateLimit = filePrioritizer.getCandidateLimit();
+
+        List<FileCandidate> candidates = new ArrayList<>();
+        for (String entry : listing.split("\0")) {
+            int tab = entry.indexOf('\t');
+            if (tab < 0) {
+                continue;
+            }
+            String[] meta = entry.substring(0, tab).trim().split("\\s+");
+            String path = entry.substring(tab + 1);
+            if (meta.length == 4 && "blob".equals(meta[1]) && filter.isReviewablePath(path)) {
+                candidates.add(FileCandidate.builder()
+                        .path(path)
+                        .id(meta[2])
+                        .size(parseSize(meta[3]))
+                        .build());
+                if (candidates.size() >= candidateLimit) {
+                    log.info("Reached candidate limit ({}), remaining files are not considered", candidateLimit);
+                    break;
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Stream the selected blobs of a bare repository through one cat-file process. The reads
+     * block on the pipe, so a watchdog kills git once the timeout passes, which ends them.
+     */
+    private List<GitFile> readFromBareRepository(Path root, List<FileCandidate> selected)
+            throws IOException, InterruptedException, GitProviderException {
+        List<GitFile> filesToReview = new ArrayList<>();
+        if (selected.isEmpty()) {
+            return filesToReview;
+        }
+
+        Process process = startGit(root, "cat-file", "--batch");
+        AtomicBoolean timedOut = new AtomicBoolean();
+        CompletableFuture<Void> watchdog = CompletableFuture.runAsync(() -> {
+            timedOut.set(true);
+            process.destroyForcibly();
+        }, CompletableFuture.delayedExecutor(localRepositoryConfig.getGitTimeoutSeconds(), TimeUnit.SECONDS));
+        try (OutputStream requests = process.getOutputStream();
+             InputStream responses = new BufferedInputStream(process.getInputStream(), 64 * 1024)) {
+            for (FileCandidate blob : selected) {
+                // cat-file flushes each object unless --buffer is given, so request/response can alternate
+                requests.write((blob.getId() + "\n").getBytes(StandardCharsets.UTF_8));
+                requests.flush();
+
+                String header = readLine(responses);
+                String[] parts = header.split(" ");
+                if (parts.length < 3 || "missing".equals(parts[parts.length - 1])) {
+                    if (timedOut.get()) {
+                        break;
+                    }
+                    log.warn("Object {} for {} is missing in {}", blob.getId(), blob.getPath(), root);
+                    continue;
+                }
+                byte[] data = responses.readNBytes(Integer.parseInt(parts[2]));
+                responses.read(); // trailing newline after each object
+
+                String content = new String(data, StandardCharsets.UTF_8);
+                if (!content.isBlank()) {
+                    filesToReview.add(toGitFile(root, blob.getPath(), content));
+                }
+            }
+        } catch (IOException e) {
+            if (!timedOut.get()) {
+                throw e;
+            }
+        } finally {
+            watchdog.cancel(false);
+            if (!process.waitFor(localRepositoryConfig.getGitTimeoutSeconds(), TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+        if (timedOut.get()) {
+            throw new GitProviderException("git cat-file timed out for " + root);
+        }
+        return filesToReview;
+    }
+
+    /**
+     * Count how many of the most recent commits touched each path. Missing history is not an error.
+     */
+    private Map<String, Integer> readChurn(Path gitDirectory, String ref) {
+        try {
+            String history = runGit(gitDirectory, "log", "-n", String.valueOf(filePrioritizer.getChurnCommits()),
+                    "--name-only", "--format=", ref, "--");
+            Map<String, Integer> churn = new LinkedHashMap<>();
+            for (String line : history.split("\n")) {
+                if (!line.isBlank()) {
+                    churn.merge(line.strip(), 1, Integer::sum);
+                }
+            }
+            return churn;
+        } catch (Exception e) {
+            log.debug("No commit history available in {}: {}", gitDirectory, e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private static long parseSize(String size) {
+        try {
+            return Long.parseLong(size);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private String readWorkingTreeGitAttributes(Path root) {
+        Path attributes = root.resolve(".gitattributes");
+        if (!pathFilter.isHonorRepositoryAttributes() || !Files.isRegularFile(attributes, LinkOption.NOFOLLOW_LINKS)) {
+            return null;
+        }
+        try {
+            return Files.readString(attributes);
+        } catch (IOException e) {
+            log.debug("Could not read {}: {}", attributes, e.getMessage());
+            return null;
+        }
+    }
+
+    private String readBareGitAttributes(Path root, String ref) {
+        if (!pathFilter.isHonorRepositoryAttributes()) {
+            return null;
+        }
+        try {
+            return runGit(root, "cat-file", "blob", ref + ":.gitattributes");
+        } catch (Exception e) {
+            log.debug("No .gitattributes found in {}: {}", root, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Read a file as UTF-8, memory-mapping it when it is larger than the configured threshold
+     */
+    private String readContent(Path file) throws IOException {
+        long size = Files.size(file);
+        if (size < localRepositoryConfig.getMmapThreshold()) {
+            return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return StandardCharsets.UTF_8.decode(buffer).toString();
+        }
+    }
+
+    private String runGit(Path root, String... arguments) throws IOException, InterruptedException, GitProviderException {
+        // Output goes to a file, so a hanging git cannot block the read and the timeout always applies
+        Path output = Files.createTempFile("git-", ".out");
+        try {
+            Process process = gitCommand(root, arguments)
+                    .redirectOutput(output.toFile())
+                    .start();
+            process.getOutputStream().close();
+
+            if (!process.waitFor(localRepositoryConfig.getGitTimeoutSeconds(), TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                throw new GitProviderException("git " + arguments[0] + " timed out for " + root);
+            }
+            if (process.exitValue() != 0) {
+                throw new GitProviderException("git " + arguments[0] + " failed for " + root + " with exit code " + process.exitValue());
+            }
+            return Files.readString(output, StandardCharsets.UTF_8);
+        } finally {
+            Files.deleteIfExists(output);
+        }
+    }
+
+    private Process startGit(Path root, String... arguments) throws IOException {
+        return gitCommand(root, arguments).start();
+    }
+
+    private ProcessBuilder gitCommand(Path root, String... arguments) {
+        List<String> command = new ArrayList<>();
+        command.add(localRepositoryConfig.getGitExecutable());
+        command.add("--git-dir=" + root);
+        command.addAll(List.of(arguments));
+        return new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.DISCARD);
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            line.write(b);
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Walk up from the target until a working tree (contains .git) or a bare repository is found.
+     * Falls back to the target directory itself, or the parent of a plain file.
+     */
+    private Path findRepositoryRoot(Path target) {
+        for (Path candidate = target; candidate != null; candidate = candidate.getParent()) {
+            if (Files.isDirectory(candidate.resolve(".git")) || isBareRepository(candidate)) {
+                return candidate;
+            }
+        }
+        if (Files.isDirectory(target)) {
+            return target;
+        }
+        return Files.isRegularFile(target) ? target.getParent() : null;
+    }
+
+    private boolean isBareRepository(Path directory) {
+        return Files.isRegularFile(directory.resolve("HEAD"))
+                && Files.isDirectory(directory.resolve("objects"))
+                && Files.isDirectory(directory.resolve("refs"));
+    }
+
+    private void assertAllowed(Path root) throws GitProviderException {
+        Path normalized = root.toAbsolutePath().normalize();
+        try {
+            // Resolve symbolic links so a link inside an allowed root cannot point outside of it
+            normalized = normalized.toRealPath();
+        } catch (IOException e) {
+            throw new GitProviderException("Local repository does not exist: " + normalized, e);
+        }
+        for (String allowedRoot : localRepositoryConfig.getAllowedRoots()) {
+            Path allowed = Path.of(allowedRoot).toAbsolutePath().normalize();
+            if (normalized.startsWith(allowed) || (Files.exists(allowed) && normalized.startsWith(realPath(allowed)))) {
+                return;
+            }
+        }
+        throw new GitProviderException("Local repository is outside the configured allowed roots: " + normalized);
+    }
+
+    /**
+     * Resolve a file of a working tree, following symbolic links, and make sure it stays inside
+     * the tree; a link to the file or to one of its directories could otherwise point anywhere
+     */
+    private static Path resolveInside(Path root, String relativePath) throws IOException, GitProviderException {
+        Path realRoot = root.toRealPath();
+        Path file = root.resolve(relativePath).toRealPath();
+        if (!file.startsWith(realRoot)) {
+            throw new GitProviderException("File is outside of the local repository: " + relativePath);
+        }
+        return file;
+    }
+
+    private static Path realPath(Path path) {
+        try {
+            return path.toRealPath();
+        } catch (IOException e) {
+            return path;
+        }
+    }
+
+    private static String extractRef(String rawQuery) {
+        if (rawQuery == null) {
+            return null;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            if (parameter.startsWith("ref=") && parameter.length() > 4) {
+                return URLDecoder.decode(parameter.substring(4), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private GitFile toGitFile(Path root, String relativePath, String content) {
+        int lastSlash = relativePath.lastIndexOf('/');
+        return GitFile.builder()
+                .name(lastSlash >= 0 ? relativePath.substring(lastSlash + 1) : relativePath)
+                .path(relativePath)
+                .content(content)
+                .url(root.resolve(relativePath).toUri().toString())
+                .build();
+    }
+}
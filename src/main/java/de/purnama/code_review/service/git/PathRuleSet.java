@@ -0,0 +1,349 @@
+package de.purnama.code_review.service.git;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * PathRuleSet
+ *
+ * A list of gitignore-style patterns compiled once into a segment trie. Matching a path
+ * walks the trie segment by segment (an NFA over path segments), so the cost depends on
+ * the depth of the path, not on the number of patterns.
+ * <p>
+ * Supported syntax: {@code *}, {@code ?} and {@code [abc]} inside a segment, {@code **}
+ * for any number of segments, a leading {@code /} (or any inner {@code /}) to anchor the
+ * pattern at the repository root, a trailing {@code /} for directory-only patterns, and
+ * {@code !} to re-include. As in git, the last matching pattern wins and a file inside an
+ * excluded directory stays excluded.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+final class PathRuleSet {
+
+    private final Node root = new Node();
+    private final BitSet negated = new BitSet();
+    private int ruleCount;
+    private final boolean caseSensitive;
+
+    private PathRuleSet(boolean caseSensitive) {
+        this.caseSensitive = caseSensitive;
+    }
+
+    /**
+     * Compile gitignore-style lines. Blank lines and lines starting with '#' are skipped.
+     *
+     * @param lines         Pattern lines in precedence order (later lines win)
+     * @param caseSensitive Whether segments are compared case-sensitively
+     * @return The compiled rule set
+     */
+    static PathRuleSet compile(List<String> lines, boolean caseSensitive) {
+        PathRuleSet ruleSet = new PathRuleSet(caseSensitive);
+        for (String line : lines) {
+            ruleSet.add(line);
+        }
+        return ruleSet;
+    }
+
+    boolean isEmpty() {
+        return ruleCount == 0;
+    }
+
+    /**
+     * Check whether a path is excluded by this rule set
+     *
+     * @param path      Repository-relative path using '/' as separator
+     * @param directory Whether the path itself denotes a directory
+     * @return true if the last matching rule for the path, or for one of its parent directories, excludes it
+     */
+    boolean isExcluded(String path, boolean directory) {
+        if (ruleCount == 0 || path == null || path.isEmpty()) {
+            return false;
+        }
+
+        List<Node> current = new ArrayList<>(4);
+        addWithClosure(root, current);
+        List<Node> next = new ArrayList<>(4);
+
+        int start = path.charAt(0) == '/' ? 1 : 0;
+        while (start < path.length() && !current.isEmpty()) {
+            int slash = path.indexOf('/', start);
+            int end = slash < 0 ? path.length() : slash;
+            boolean last = slash < 0 || slash == path.length() - 1;
+            if (end == start) {
+                start = end + 1;
+                continue;
+            }
+
+            String segment = path.substring(start, end);
+            if (!caseSensitive && hasUpperCase(segment)) {
+                segment = segment.toLowerCase(Locale.ROOT);
+            }
+
+            next.clear();
+            for (Node node : current) {
+                node.step(segment, next);
+            }
+            List<Node> swap = current;
+            current = next;
+            next = swap;
+
+            // Every segment except the last one is a directory; an excluded directory excludes its contents
+            int matchedRule = lastMatchingRule(current, !last || directory);
+            if (matchedRule >= 0 && !negated.get(matchedRule) && !last) {
+                return true;
+            }
+            if (last) {
+                return matchedRule >= 0 && !negated.get(matchedRule);
+            }
+            start = end + 1;
+        }
+        return false;
+    }
+
+    private int lastMatchingRule(List<Node> nodes, boolean directory) {
+        int matched = -1;
+        for (int n = 0; n < nodes.size(); n++) {
+            Node node = nodes.get(n);
+            for (int i = 0; i < node.terminalRules.length; i++) {
+                int rule = node.terminalRules[i];
+                if (rule > matched && (directory || !node.terminalDirectoryOnly[i])) {
+                    matched = rule;
+                }
+            }
+        }
+        return matched;
+    }
+
+    private static boolean hasUpperCase(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            if (Character.isUpperCase(segment.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void add(String rawLine) {
+        if (rawLine == null) {
+            return;
+        }
+        String line = rawLine.strip();
+        if (line.isEmpty() || line.startsWith("#")) {
+            return;
+        }
+
+        boolean isNegated = line.startsWith("!");
+        if (isNegated) {
+            line = line.substring(1);
+        }
+        boolean directoryOnly = line.endsWith("/");
+        if (directoryOnly) {
+            line = line.substring(0, line.length() - 1);
+        }
+        // A slash anywhere but at the end anchors the pattern to the root; otherwise it matches at any depth
+        boolean anchored = line.indexOf('/') >= 0;
+        if (line.startsWith("/")) {
+            line = line.substring(1);
+        }
+        if (line.isEmpty()) {
+            return;
+        }
+        if (!caseSensitive) {
+            line = line.toLowerCase(Locale.ROOT);
+        }
+
+        Node node = root;
+        if (!anchored) {
+            node = node.doubleStarChild();
+        }
+        for (String segment : line.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            node = "**".equals(segment) ? node.doubleStarChild() : node.child(segment);
+        }
+
+        node.addTerminal(ruleCount, directoryOnly);
+        negated.set(ruleCount, isNegated);
+        ruleCount++;
+    }
+
+    private static void addWithClosure(Node node, List<Node> target) {
+        for (int i = 0; i < target.size(); i++) {
+            if (target.get(i) == node) {
+                return;
+            }
+        }
+        target.add(node);
+        if (node.doubleStar != null) {
+            addWithClosure(node.doubleStar, target);
+        }
+    }
+
+    /**
+     * Trie node; edges are literal segments, compiled segment globs or a '**' edge
+     */
+    private static final class Node {
+        private final Map<String, Node> literals = new HashMap<>();
+        private final List<SegmentGlob> globs = new ArrayList<>();
+        private final List<Node> globTargets = new ArrayList<>();
+        private int[] terminalRules = new int[0];
+        private boolean[] terminalDirectoryOnly = new boolean[0];
+        private Node doubleStar;
+        private boolean matchesAnySegmentRepeatedly;
+
+        Node child(String segment) {
+            if (!SegmentGlob.hasWildcard(segment)) {
+                return literals.computeIfAbsent(segment, key -> new Node());
+            }
+            for (int i = 0; i < globs.size(); i++) {
+                if (globs.get(i).source().equals(segment)) {
+                    return globTargets.get(i);
+                }
+            }
+            Node child = new Node();
+            globs.add(SegmentGlob.compile(segment));
+            globTargets.add(child);
+            return child;
+        }
+
+        void addTerminal(int rule, boolean directoryOnly) {
+            int size = terminalRules.length;
+            terminalRules = Arrays.copyOf(terminalRules, size + 1);
+            terminalDirectoryOnly = Arrays.copyOf(terminalDirectoryOnly, size + 1);
+            terminalRules[size] = rule;
+            terminalDirectoryOnly[size] = directoryOnly;
+        }
+
+        Node doubleStarChild() {
+            if (doubleStar == null) {
+                doubleStar = new Node();
+                doubleStar.matchesAnySegmentRepeatedly = true;
+            }
+            return doubleStar;
+        }
+
+        void step(String segment, List<Node> next) {
+            Node literal = literals.get(segment);
+            if (literal != null) {
+                addWithClosure(literal, next);
+            }
+            for (int i = 0; i < globs.size(); i++) {
+                if (globs.get(i).matches(segment)) {
+                    addWithClosure(globTargets.get(i), next);
+                }
+            }
+            if (matchesAnySegmentRepeatedly) {
+                addWithClosure(this, next);
+            }
+        }
+    }
+
+    /**
+     * A single path segment pattern with '*', '?' and '[...]' wildcards.
+     * The common shapes "*", "*.ext" and "prefix*" avoid the general matcher.
+     */
+    private record SegmentGlob(String source, Kind kind, String literal) {
+
+        private enum Kind { ANY, SUFFIX, PREFIX, GENERAL }
+
+        static boolean hasWildcard(String segment) {
+            for (int i = 0; i < segment.length(); i++) {
+                char c = segment.charAt(i);
+                if (c == '*' || c == '?' || c == '[' || c == '\\') {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        static SegmentGlob compile(String segment) {
+            if ("*".equals(segment)) {
+                return new SegmentGlob(segment, Kind.ANY, "");
+            }
+            String rest = segment.substring(1);
+            if (segment.charAt(0) == '*' && !hasWildcard(rest)) {
+                return new SegmentGlob(segment, Kind.SUFFIX, rest);
+            }
+            String head = segment.substring(0, segment.length() - 1);
+            if (segment.charAt(segment.length() - 1) == '*' && !hasWildcard(head)) {
+                return new SegmentGlob(segment, Kind.PREFIX, head);
+            }
+            return new SegmentGlob(segment, Kind.GENERAL, segment);
+        }
+
+        boolean matches(String value) {
+            return switch (kind) {
+                case ANY -> true;
+                case SUFFIX -> value.endsWith(literal);
+                case PREFIX -> value.startsWith(literal);
+                case GENERAL -> matchGeneral(literal, 0, value, 0);
+            };
+        }
+
+        private static boolean matchGeneral(String pattern, int p, String value, int v) {
+            while (p < pattern.length()) {
+                char c = pattern.charAt(p);
+                if (c == '*') {
+                    for (int i = v; i <= value.length(); i++) {
+                        if (matchGeneral(pattern, p + 1, value, i)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+                if (v >= value.length()) {
+                    return false;
+                }
+                if (c == '?') {
+                    p++;
+                    v++;
+                } else if (c == '[') {
+                    int close = pattern.indexOf(']', p + 1);
+                    if (close < 0) {
+                        return false;
+                    }
+                    if (!matchClass(pattern.substring(p + 1, close), value.charAt(v))) {
+                        return false;
+                    }
+                    p = close + 1;
+                    v++;
+                } else {
+                    if (c == '\\' && p + 1 < pattern.length()) {
+                        c = pattern.charAt(++p);
+                    }
+                    if (c != value.charAt(v)) {
+                        return false;
+                    }
+                    p++;
+                    v++;
+                }
+            }
+            return v == value.length();
+        }
+
+        private static boolean matchClass(String characterClass, char c) {
+            boolean negate = !characterClass.isEmpty()
+                    && (characterClass.charAt(0) == '!' || characterClass.charAt(0) == '^');
+            int i = negate ? 1 : 0;
+            boolean found = false;
+            while (i < characterClass.length()) {
+                char from = characterClass.charAt(i);
+                if (i + 2 < characterClass.length() && characterClass.charAt(i + 1) == '-') {
+                    char to = characterClass.charAt(i + 2);
+                    found |= c >= from && c <= to;
+                    i += 3;
+                } else {
+                    found |= c == from;
+                    i++;
+                }
+            }
+            return found != negate;
+        }
+    }
+}
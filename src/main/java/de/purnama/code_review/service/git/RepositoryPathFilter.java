@@ -0,0 +1,186 @@
+package de.purnama.code_review.service.git;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import de.purnama.code_review.config.PathFilterConfig;
+
+/**
+ * RepositoryPathFilter
+ *
+ * Decides which directories and files of a repository are worth sending to review.
+ * Shared by all Git providers so that every provider applies the same rules. The
+ * configured gitignore-style excludes and .gitattributes-style linguist markers are
+ * compiled once into {@link PathRuleSet}s; extension checks are a single hash lookup.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+@Component
+public class RepositoryPathFilter {
+
+    private static final String GENERATED = "linguist-generated";
+    private static final String VENDORED = "linguist-vendored";
+
+    private final Set<String> extensions;
+    private final PathRuleSet excludes;
+    private final List<String> attributeRules;
+    private final PathRuleSet attributeExcludes;
+    private final boolean caseSensitive;
+    private final boolean honorRepositoryAttributes;
+
+    /**
+     * Create a filter with the built-in defaults
+     */
+    public RepositoryPathFilter() {
+        this(new PathFilterConfig());
+    }
+
+    @Autowired
+    public RepositoryPathFilter(PathFilterConfig config) {
+        Set<String> normalizedExtensions = new HashSet<>();
+        for (String extension : config.getExtensions()) {
+            String trimmed = extension.trim().toLowerCase(Locale.ROOT);
+            normalizedExtensions.add(trimmed.startsWith(".") ? trimmed : "." + trimmed);
+        }
+        this.extensions = Collections.unmodifiableSet(normalizedExtensions);
+        this.caseSensitive = config.isCaseSensitive();
+        this.honorRepositoryAttributes = config.isHonorRepositoryAttributes();
+        this.excludes = PathRuleSet.compile(config.getExclude(), caseSensitive);
+        this.attributeRules = toExcludeRules(config.getAttributes());
+        this.attributeExcludes = PathRuleSet.compile(attributeRules, caseSensitive);
+    }
+
+    private RepositoryPathFilter(RepositoryPathFilter base, List<String> attributeRules) {
+        this.extensions = base.extensions;
+        this.caseSensitive = base.caseSensitive;
+        this.honorRepositoryAttributes = base.honorRepositoryAttributes;
+        this.excludes = base.excludes;
+        this.attributeRules = attributeRules;
+        this.attributeExcludes = PathRuleSet.compile(attributeRules, caseSensitive);
+    }
+
+    /**
+     * Derive a filter that additionally applies a repository's own .gitattributes.
+     * The repository rules come after the configured ones and therefore take precedence.
+     *
+     * @param gitAttributes Content of the repository's .gitattributes file (may be null)
+     * @return A filter for this repository, or this filter if there is nothing to add
+     */
+    public RepositoryPathFilter withGitAttributes(String gitAttributes) {
+        if (!honorRepositoryAttributes || gitAttributes == null || gitAttributes.isBlank()) {
+            return this;
+        }
+        List<String> repositoryRules = toExcludeRules(List.of(gitAttributes.split("\n")));
+        if (repositoryRules.isEmpty()) {
+            return this;
+        }
+        List<String> combined = new ArrayList<>(attributeRules);
+        combined.addAll(repositoryRules);
+        return new RepositoryPathFilter(this, combined);
+    }
+
+    /**
+     * Whether the repository's own .gitattributes should be fetched and applied
+     *
+     * @return true if repository attributes are honored
+     */
+    public boolean isHonorRepositoryAttributes() {
+        return honorRepositoryAttributes;
+    }
+
+    /**
+     * Check if a directory should be ignored during the recursive traversal
+     *
+     * @param dirPath The repository-relative path of the directory (a bare name is treated as a top-level directory)
+     * @return true if the directory should be skipped
+     */
+    public boolean shouldIgnoreDirectory(String dirPath) {
+        return dirPath != null && (excludes.isExcluded(dirPath, true) || attributeExcludes.isExcluded(dirPath, true));
+    }
+
+    /**
+     * Checks if a file is a supported code file based on its extension
+     *
+     * @param fileName The file name (or path)
+     * @return true if the file has a supported extension
+     */
+    public boolean isSupportedFileType(String fileName) {
+        if (fileName == null) {
+            return false;
+        }
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0 || dot < fileName.lastIndexOf('/')) {
+            return false;
+        }
+        return extensions.contains(fileName.substring(dot).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Checks a full repository-relative path against the extension list, the exclude
+     * patterns (including those of every parent directory) and the linguist markers.
+     *
+     * @param path Repository-relative path using '/' as separator
+     * @return true if the file should be reviewed
+     */
+    public boolean isReviewablePath(String path) {
+        return isSupportedFileType(path)
+                && !excludes.isExcluded(path, false)
+                && !attributeExcludes.isExcluded(path, false);
+    }
+
+    /**
+     * Checks whether a path is marked as generated or vendored code
+     *
+     * @param path Repository-relative path using '/' as separator
+     * @return true if a linguist-generated or linguist-vendored marker applies
+     */
+    public boolean isGeneratedOrVendored(String path) {
+        return path != null && attributeExcludes.isExcluded(path, false);
+    }
+
+    /**
+     * The configured extensions, lower case and with leading dot
+     *
+     * @return Unmodifiable set of supported extensions
+     */
+    public Set<String> getSupportedExtensions() {
+        return extensions;
+    }
+
+    /**
+     * Translate .gitattributes lines into exclude patterns: a set linguist-generated or
+     * linguist-vendored attribute excludes the pattern, an unset one ("-attr" or "attr=false")
+     * re-includes it.
+     */
+    private static List<String> toExcludeRules(List<String> attributeLines) {
+        List<String> rules = new ArrayList<>();
+        for (String rawLine : attributeLines) {
+            String line = rawLine.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] tokens = line.split("\\s+");
+            for (int i = 1; i < tokens.length; i++) {
+                String attribute = tokens[i];
+                if (attribute.equals(GENERATED) || attribute.equals(VENDORED)
+                        || attribute.equals(GENERATED + "=true") || attribute.equals(VENDORED + "=true")) {
+                    rules.add(tokens[0]);
+                    break;
+                }
+                if (attribute.equals("-" + GENERATED) || attribute.equals("-" + VENDORED)
+                        || attribute.equals(GENERATED + "=false") || attribute.equals(VENDORED + "=false")) {
+                    rules.add("!" + tokens[0]);
+                    break;
+                }
+            }
+        }
+        return rules;
+    }
+}
@@ -0,0 +1,168 @@
+package de.purnama.code_review.service.git;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * TarArchiveReader
+ *
+ * Minimal streaming reader for the tar.gz archives produced by {@code git archive}
+ * (as served by GitLab). Only regular files whose path is requested and whose size is within
+ * the limit are materialized; every other entry is skipped without being buffered.
+ *
+ * @author Arthur Purnama (arthur@purnama.de)
+ */
+final class TarArchiveReader {
+
+    private static final int BLOCK_SIZE = 512;
+
+    private TarArchiveReader() {
+    }
+
+    /**
+     * Read the requested text files from a gzip-compressed tar stream
+     *
+     * @param gzipStream   The tar.gz stream; it is not closed by this method
+     * @param wantedPaths  Repository-relative paths to extract
+     * @param stripLeading Whether to strip the leading top-level directory that git archive adds
+     * @param maxSize      Entries larger than this many bytes are skipped without being read; -1 for no limit
+     * @return Map of repository-relative path to UTF-8 content
+     * @throws IOException If the stream is not a readable tar.gz archive
+     */
+    static Map<String, String> readTextEntries(InputStream gzipStream, Set<String> wantedPaths, boolean stripLeading,
+                                               long maxSize) throws IOException {
+        Map<String, String> result = new HashMap<>();
+        InputStream in = new GZIPInputStream(gzipStream, 64 * 1024);
+        byte[] header = new byte[BLOCK_SIZE];
+        String paxPath = null;
+        int found = 0;
+
+        while (found < wantedPaths.size() && readFully(in, header)) {
+            if (isZeroBlock(header)) {
+                break;
+            }
+
+            long size = parseOctal(header, 124, 12);
+            char type = (char) header[156];
+
+            if (type == 'x') {
+                // PAX extended header: carries the real path of the next entry when it is too long
+                paxPath = parsePaxPath(new String(readBytes(in, size), StandardCharsets.UTF_8));
+                skipPadding(in, size);
+                continue;
+            }
+
+            String entryPath = paxPath != null ? paxPath : headerPath(header);
+            paxPath = null;
+
+            if (stripLeading) {
+                int slash = entryPath.indexOf('/');
+                entryPath = slash >= 0 ? entryPath.substring(slash + 1) : "";
+            }
+
+            boolean regularFile = type == '0' || type == '\0';
+            boolean wanted = regularFile && wantedPaths.contains(entryPath);
+            if (wanted) {
+                found++;
+            }
+            if (wanted && (maxSize < 0 || size <= maxSize)) {
+                result.put(entryPath, new String(readBytes(in, size), StandardCharsets.UTF_8));
+            } else {
+                skipFully(in, size);
+            }
+            skipPadding(in, size);
+        }
+
+        return result;
+    }
+
+    private static String headerPath(byte[] header) {
+        String name = readString(header, 0, 100);
+        // ustar magic: the prefix field holds the leading part of long names
+        if ("ustar".equals(readString(header, 257, 5))) {
+            String prefix = readString(header, 345, 155);
+            if (!prefix.isEmpty()) {
+                return prefix + "/" + name;
+            }
+        }
+        return name;
+    }
+
+    private static String parsePaxPath(String records) {
+        // Records have the form "<length> <key>=<value>\n"
+        int position = 0;
+        while (position < records.length()) {
+            int space = records.indexOf(' ', position);
+            if (space < 0) {
+                break;
+            }
+            int length = Integer.parseInt(records.substring(position, space));
+            String record = records.substring(space + 1, position + length - 1);
+            if (record.startsWith("path=")) {
+                return record.substring(5);
+            }
+            position += length;
+        }
+        return null;
+    }
+
+    private static String readString(byte[] buffer, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && buffer[end] != 0) {
+            end++;
+        }
+        return new String(buffer, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static long parseOctal(byte[] buffer, int offset, int length) {
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = buffer[i];
+            if (b == 0 || b == ' ') {
+                if (value > 0) {
+                    break;
+                }
+                continue;
+            }
+            value = (value << 3) + (b - '0');
+        }
+        return value;
+    }
+
+    private static boolean isZeroBlock(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean readFully(InputStream in, byte[] buffer) throws IOException {
+        int read = in.readNBytes(buffer, 0, buffer.length);
+        return read == buffer.length;
+    }
+
+    private static byte[] readBytes(InputStream in, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Archive entry too large: " + size);
+        }
+        return in.readNBytes((int) size);
+    }
+
+    private static void skipFully(InputStream in, long size) throws IOException {
+        in.skipNBytes(size);
+    }
+
+    private static void skipPadding(InputStream in, long size) throws IOException {
+        long remainder = size % BLOCK_SIZE;
+        if (remainder != 0) {
+            in.skipNBytes(BLOCK_SIZE - remainder);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+-- Add content_hash column so re-ingestion can tell unchanged blocks from changed ones
+ALTER TABLE content_blocks ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+
+-- Blocks are always looked up per page during re-ingestion
+CREATE INDEX IF NOT EXISTS idx_content_blocks_confluence_url_id ON content_blocks (confluence_url_id);
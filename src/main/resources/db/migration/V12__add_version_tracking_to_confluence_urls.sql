@@ -0,0 +1,3 @@
+-- Track the Confluence page version and body hash of the last successful ingestion
+ALTER TABLE confluence_urls ADD COLUMN IF NOT EXISTS page_version INT;
+ALTER TABLE confluence_urls ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
@@ -0,0 +1,6 @@
+-- Lease taken by the node that refreshes a page in the background, so only one node refreshes it at a time
+ALTER TABLE confluence_urls ADD COLUMN IF NOT EXISTS refresh_lease_owner VARCHAR(255);
+ALTER TABLE confluence_urls ADD COLUMN IF NOT EXISTS refresh_lease_until TIMESTAMP;
+
+-- The scheduler looks up active pages by the time they were last fetched
+CREATE INDEX IF NOT EXISTS idx_confluence_urls_active_last_fetched ON confluence_urls (last_fetched) WHERE active;
@@ -0,0 +1,17 @@
+-- Progress of space or CQL crawls, so an interrupted crawl resumes where it stopped
+CREATE TABLE IF NOT EXISTS confluence_crawls (
+    id BIGSERIAL PRIMARY KEY,
+    cql TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    next_start INT NOT NULL DEFAULT 0,
+    pages_seen INT NOT NULL DEFAULT 0,
+    pages_ingested INT NOT NULL DEFAULT 0,
+    pages_skipped INT NOT NULL DEFAULT 0,
+    pages_failed INT NOT NULL DEFAULT 0,
+    last_error TEXT,
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP,
+    completed_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_confluence_crawls_cql_status ON confluence_crawls (cql, status);
@@ -0,0 +1,3 @@
+-- Hand out content block ids in blocks of 50 so Hibernate can allocate them without a round-trip
+-- per insert and batch the inserts; must match allocationSize on ContentBlock.id
+ALTER SEQUENCE content_blocks_id_seq INCREMENT BY 50;
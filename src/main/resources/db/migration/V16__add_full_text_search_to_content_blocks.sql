@@ -0,0 +1,10 @@
+-- Full-text search over content blocks for hybrid (lexical + vector) guideline retrieval.
+-- The 'simple' configuration neither stems nor drops stop words, so identifiers such as
+-- Transactional or findById are matched as written.
+ALTER TABLE content_blocks ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('simple', content), 'B')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_content_blocks_search_vector ON content_blocks USING GIN (search_vector);
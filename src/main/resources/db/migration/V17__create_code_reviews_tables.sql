@@ -0,0 +1,28 @@
+-- Finished reviews, so a result can be reopened without running the review again
+CREATE TABLE IF NOT EXISTS code_reviews (
+    id BIGSERIAL PRIMARY KEY,
+    user_email VARCHAR(255),
+    repository_url TEXT NOT NULL,
+    guidelines BYTEA,
+    guideline_tokens_saved INT,
+    section_count INT NOT NULL DEFAULT 0,
+    markdown_length BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP
+);
+
+-- Listing is newest first per user, optionally narrowed to one repository
+CREATE INDEX IF NOT EXISTS idx_code_reviews_user ON code_reviews (user_email, id DESC);
+CREATE INDEX IF NOT EXISTS idx_code_reviews_user_repository ON code_reviews (user_email, repository_url, id DESC);
+
+-- One row per reviewed file or chunk; Markdown and HTML are deflate-compressed, HTML is filled on first view
+CREATE TABLE IF NOT EXISTS code_review_sections (
+    id BIGSERIAL PRIMARY KEY,
+    code_review_id BIGINT NOT NULL REFERENCES code_reviews (id) ON DELETE CASCADE,
+    position INT NOT NULL,
+    markdown BYTEA NOT NULL,
+    html BYTEA,
+    CONSTRAINT uk_code_review_sections_position UNIQUE (code_review_id, position)
+);
+
+-- Pooled ids so the sections of a review are inserted in one JDBC batch
+ALTER SEQUENCE code_review_sections_id_seq INCREMENT BY 50;
@@ -0,0 +1,8 @@
+-- Finished reviews shared between nodes for identical requests (repository, branch, head commit)
+CREATE TABLE IF NOT EXISTS coalesced_reviews (
+    coalescing_key TEXT PRIMARY KEY,
+    response BYTEA NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_coalesced_reviews_created_at ON coalesced_reviews (created_at);
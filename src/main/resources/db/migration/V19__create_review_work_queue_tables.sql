@@ -0,0 +1,34 @@
+-- A review split into units that any node can claim; the node that received the request coordinates it
+CREATE TABLE IF NOT EXISTS review_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    repository_url TEXT NOT NULL,
+    guidelines BYTEA,
+    coordinator VARCHAR(255) NOT NULL,
+    unit_count INT NOT NULL DEFAULT 0,
+    heartbeat_at TIMESTAMP NOT NULL DEFAULT now(),
+    created_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+-- One file or chunk review; content and result are deflate-compressed
+CREATE TABLE IF NOT EXISTS review_work_units (
+    id BIGSERIAL PRIMARY KEY,
+    job_id BIGINT NOT NULL REFERENCES review_jobs (id) ON DELETE CASCADE,
+    position INT NOT NULL,
+    label TEXT NOT NULL,
+    content BYTEA NOT NULL,
+    status VARCHAR(16) NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    owner VARCHAR(255),
+    heartbeat_at TIMESTAMP,
+    result BYTEA,
+    last_error TEXT,
+    CONSTRAINT uk_review_work_units_position UNIQUE (job_id, position)
+);
+
+-- Claiming takes pending units oldest first; abandoned units are found by their heartbeat
+CREATE INDEX IF NOT EXISTS idx_review_work_units_pending ON review_work_units (id) WHERE status = 'PENDING';
+CREATE INDEX IF NOT EXISTS idx_review_work_units_running ON review_work_units (heartbeat_at) WHERE status = 'RUNNING';
+CREATE INDEX IF NOT EXISTS idx_review_jobs_heartbeat ON review_jobs (heartbeat_at);
+
+-- Pooled ids so the units of a job are inserted in one JDBC batch
+ALTER SEQUENCE review_work_units_id_seq INCREMENT BY 50;
@@ -0,0 +1,66 @@
+-- Append-only ledger of chat and embedding model usage, one row per model call, attributed to
+-- the user, repository and review run (review_ref) that caused it
+CREATE TABLE IF NOT EXISTS token_usage (
+    id BIGSERIAL PRIMARY KEY,
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    user_email VARCHAR(255),
+    repository_url TEXT,
+    review_ref UUID,
+    operation VARCHAR(32) NOT NULL,
+    model VARCHAR(100),
+    prompt_tokens INT NOT NULL DEFAULT 0,
+    completion_tokens INT NOT NULL DEFAULT 0,
+    estimated BOOLEAN NOT NULL DEFAULT FALSE,
+    cost NUMERIC(14, 6) NOT NULL DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS idx_token_usage_review ON token_usage (review_ref) WHERE review_ref IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_token_usage_user ON token_usage (user_email, created_at);
+
+-- Usage per day, user and operation; kept up to date by the insert trigger below, so quota
+-- checks read a handful of rows. Usage without a user is rolled up under ''.
+CREATE TABLE IF NOT EXISTS token_usage_daily (
+    day DATE NOT NULL,
+    user_email VARCHAR(255) NOT NULL,
+    operation VARCHAR(32) NOT NULL,
+    calls BIGINT NOT NULL DEFAULT 0,
+    prompt_tokens BIGINT NOT NULL DEFAULT 0,
+    completion_tokens BIGINT NOT NULL DEFAULT 0,
+    cost NUMERIC(16, 6) NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, user_email, operation)
+);
+
+CREATE OR REPLACE FUNCTION token_usage_roll_up() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO token_usage_daily (day, user_email, operation, calls, prompt_tokens, completion_tokens, cost)
+    VALUES (NEW.created_at::date, coalesce(NEW.user_email, ''), NEW.operation, 1,
+            NEW.prompt_tokens, NEW.completion_tokens, NEW.cost)
+    ON CONFLICT (day, user_email, operation) DO UPDATE SET
+        calls = token_usage_daily.calls + 1,
+        prompt_tokens = token_usage_daily.prompt_tokens + EXCLUDED.prompt_tokens,
+        completion_tokens = token_usage_daily.completion_tokens + EXCLUDED.completion_tokens,
+        cost = token_usage_daily.cost + EXCLUDED.cost;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION token_usage_append_only() RETURNS trigger AS $$
+BEGIN
+    RAISE EXCEPTION 'token_usage is append-only';
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS token_usage_roll_up ON token_usage;
+CREATE TRIGGER token_usage_roll_up AFTER INSERT ON token_usage
+    FOR EACH ROW EXECUTE FUNCTION token_usage_roll_up();
+
+DROP TRIGGER IF EXISTS token_usage_append_only ON token_usage;
+CREATE TRIGGER token_usage_append_only BEFORE UPDATE OR DELETE ON token_usage
+    FOR EACH ROW EXECUTE FUNCTION token_usage_append_only();
+
+-- Units reviewed on other nodes are attributed to the review that queued them
+ALTER TABLE review_jobs ADD COLUMN IF NOT EXISTS user_email VARCHAR(255);
+ALTER TABLE review_jobs ADD COLUMN IF NOT EXISTS review_ref UUID;
+
+-- Links a stored review to its ledger entries
+ALTER TABLE code_reviews ADD COLUMN IF NOT EXISTS review_ref UUID;
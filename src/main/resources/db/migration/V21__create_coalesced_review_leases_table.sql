@@ -0,0 +1,9 @@
+-- The node that reviews a coalescing key; it renews the lease while it reviews, so an expired
+-- lease belongs to a node that stopped and can be claimed by another one
+CREATE TABLE IF NOT EXISTS coalesced_review_leases (
+    coalescing_key TEXT PRIMARY KEY,
+    owner VARCHAR(255) NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_coalesced_review_leases_expires_at ON coalesced_review_leases (expires_at);
@@ -0,0 +1,53 @@
+package de.purnama.code_review.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+class CodeReviewResponseTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    void json_ShouldCarryASectionedReviewOnlyAsItsSections() throws Exception {
+        // Arrange
+        CodeReviewResponse response = CodeReviewResponse.builder()
+                .reviewSections(List.of("# Summary\n", "Fine.\n"))
+                .htmlSections(List.of("<h1>Summary</h1>", "<p>Fine.</p>"))
+                .build();
+
+        // Act
+        String json = objectMapper.writeValueAsString(response);
+        CodeReviewResponse read = objectMapper.readValue(json, CodeReviewResponse.class);
+
+        // Assert
+        JsonNode node = objectMapper.readTree(json);
+        assertTrue(node.get("review").isNull());
+        assertTrue(node.get("htmlReview").isNull());
+        assertEquals("# Summary\nFine.\n", read.getReview());
+        assertEquals("<h1>Summary</h1><p>Fine.</p>", read.getHtmlReview());
+    }
+
+    @Test
+    void json_ShouldKeepAReviewWithoutSections() throws Exception {
+        // Arrange
+        CodeReviewResponse response = CodeReviewResponse.builder()
+                .review("Looks good")
+                .htmlReview("<p>Looks good</p>")
+                .build();
+
+        // Act
+        CodeReviewResponse read = objectMapper.readValue(objectMapper.writeValueAsString(response), CodeReviewResponse.class);
+
+        // Assert
+        assertEquals("Looks good", read.getReview());
+        assertEquals("<p>Looks good</p>", read.getHtmlReview());
+        assertNull(read.getReviewSections());
+    }
+}
@@ -0,0 +1,157 @@
+package de.purnama.code_review.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import de.purnama.code_review.model.CodeReview;
+import de.purnama.code_review.model.CodeReviewResponse;
+import de.purnama.code_review.model.CodeReviewSection;
+import de.purnama.code_review.repository.CodeReviewRepository;
+import de.purnama.code_review.repository.CodeReviewSectionRepository;
+import jakarta.persistence.EntityManager;
+
+@ExtendWith(MockitoExtension.class)
+class CodeReviewHistoryServiceTest {
+
+    @Mock
+    private CodeReviewRepository codeReviewRepository;
+
+    @Mock
+    private CodeReviewSectionRepository sectionRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private CodeReviewHistoryService historyService;
+
+    @BeforeEach
+    void setUp() {
+        historyService = new CodeReviewHistoryService(codeReviewRepository, sectionRepository,
+                new MarkdownConverter(), entityManager);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void save_ShouldStoreCompressedSectionsWithTheirHtml() {
+        // Arrange
+        CodeReviewResponse response = CodeReviewResponse.builder()
+                .repositoryUrl("https://github.com/owner/repo")
+                .reviewSections(List.of("# Summary\n\n", "## File: Main.java\n\nFine.\n\n"))
+                .htmlSections(List.of("<h1>Summary</h1>", "<h2>File: Main.java</h2><p>Fine.</p>"))
+                .guidelines(List.of("# Java\nUse records."))
+                .guidelineTokensSaved(42)
+                .build();
+        when(codeReviewRepository.save(any(CodeReview.class))).thenAnswer(invocation -> {
+            CodeReview review = invocation.getArgument(0);
+            review.setId(7L);
+            return review;
+        });
+
+        // Act
+        CodeReview stored = historyService.save(response, "dev@example.com");
+
+        // Assert
+        assertEquals(7L, stored.getId());
+        assertEquals("dev@example.com", stored.getUserEmail());
+        assertEquals(2, stored.getSectionCount());
+        assertEquals(response.getReview().length(), stored.getMarkdownLength());
+        assertEquals(List.of("# Java\nUse records."), historyService.getGuidelines(stored));
+
+        ArgumentCaptor<List<CodeReviewSection>> sections = ArgumentCaptor.forClass(List.class);
+        verify(sectionRepository).saveAll(sections.capture());
+        CodeReviewSection second = sections.getValue().get(1);
+        assertEquals(7L, second.getCodeReviewId());
+        assertEquals(1, second.getPosition());
+        assertEquals("## File: Main.java\n\nFine.\n\n", CompressedText.decompress(second.getMarkdown()));
+        assertEquals("<h2>File: Main.java</h2><p>Fine.</p>", CompressedText.decompress(second.getHtml()));
+    }
+
+    @Test
+    void getHtmlSections_ShouldRenderAndStoreMissingHtml() {
+        // Arrange
+        CodeReviewSection rendered = section(1L, 0, "# Summary\n", "<h1>Stored</h1>");
+        CodeReviewSection notRendered = section(2L, 1, "Looks **good**.\n", null);
+        when(sectionRepository.streamByCodeReviewId(7L)).thenReturn(Stream.of(rendered, notRendered));
+
+        // Act
+        List<String> html = historyService.getHtmlSections(7L);
+
+        // Assert
+        assertEquals(List.of("<h1>Stored</h1>", "<p>Looks <strong>good</strong>.</p>\n"), html);
+        verify(sectionRepository).updateHtml(eq(2L), any(byte[].class));
+        verify(sectionRepository, never()).updateHtml(eq(1L), any(byte[].class));
+        verify(entityManager, times(2)).detach(any());
+    }
+
+    @Test
+    void writeMarkdown_ShouldStreamSectionsInOrder() throws Exception {
+        // Arrange
+        when(sectionRepository.streamByCodeReviewId(7L)).thenReturn(Stream.of(
+                section(1L, 0, "# Summary\n\n", null),
+                section(2L, 1, "Ümlauts survive.\n", null)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        historyService.writeMarkdown(7L, out);
+
+        // Assert
+        assertEquals("# Summary\n\nÜmlauts survive.\n", out.toString(StandardCharsets.UTF_8));
+        verify(sectionRepository, never()).updateHtml(anyLong(), any());
+    }
+
+    @Test
+    void writeHtml_ShouldStreamStoredAndRenderedSectionsInOrder() throws Exception {
+        // Arrange
+        when(sectionRepository.streamByCodeReviewId(7L)).thenReturn(Stream.of(
+                section(1L, 0, "# Summary\n", "<h1>Stored</h1>"),
+                section(2L, 1, "Looks **good**.\n", null)));
+        StringWriter out = new StringWriter();
+
+        // Act
+        historyService.writeHtml(7L, out);
+
+        // Assert
+        assertEquals("<h1>Stored</h1><p>Looks <strong>good</strong>.</p>\n", out.toString());
+        verify(sectionRepository, never()).updateHtml(anyLong(), any());
+    }
+
+    @Test
+    void compressedText_ShouldRoundTripAndShrinkRepetitiveText() {
+        // Arrange
+        String text = "- Prefer constructor injection over field injection.\n".repeat(200);
+
+        // Act
+        byte[] compressed = CompressedText.compress(text);
+
+        // Assert
+        assertTrue(compressed.length < text.length() / 10);
+        assertEquals(text, CompressedText.decompress(compressed));
+        assertEquals("", CompressedText.decompress(CompressedText.compress(null)));
+        assertNull(CompressedText.decompress(null));
+    }
+
+    private static CodeReviewSection section(Long id, int position, String markdown, String html) {
+        return CodeReviewSection.builder()
+                .id(id)
+                .codeReviewId(7L)
+                .position(position)
+                .markdown(CompressedText.compress(markdown))
+                .html(html != null ? CompressedText.compress(html) : null)
+                .build();
+    }
+}
@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,9 +19,12 @@ import org.springframework.ai.chat.model.Generation;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import de.purnama.code_review.config.GuidelineSelectionConfig;
+import de.purnama.code_review.config.ReviewCoalescingConfig;
 import de.purnama.code_review.config.OpenAIConfig;
 import de.purnama.code_review.exception.AIModelException;
 import de.purnama.code_review.exception.RequestInterruptedException;
+import de.purnama.code_review.service.git.ContentClassifier;
 import de.purnama.code_review.service.git.GitProviderFactory;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,6 +45,12 @@ class CodeReviewServiceGenerateAIReviewTest {
     @Mock
     private GitProviderFactory gitProviderFactory;
 
+    @Mock
+    private GuidelineBundleCache guidelineBundleCache;
+
+    @Mock
+    private ReviewWorkQueue reviewWorkQueue;
+
     @Mock
     private ChatResponse chatResponse;
 
@@ -49,6 +60,9 @@ class CodeReviewServiceGenerateAIReviewTest {
     @Mock
     private AssistantMessage assistantMessage;
 
+    @Mock
+    private UsageLedger usageLedger;
+
     private CodeReviewService codeReviewService;
 
     private String testPrompt;
@@ -63,7 +77,15 @@ class CodeReviewServiceGenerateAIReviewTest {
                 chatModel,
                 openAIConfig,
                 markdownConverter,
-                gitProviderFactory
+                gitProviderFactory,
+                new ContentClassifier(),
+                new GuidelineSelector(new GuidelineSelectionConfig()),
+                guidelineBundleCache,
+                new ReviewCoalescer(new ReviewCoalescingConfig(), null),
+                reviewWorkQueue,
+                new ReviewMetrics(new SimpleMeterRegistry()),
+                new ReviewTracing(ObservationRegistry.NOOP),
+                usageLedger
         );
 
         testPrompt = "Test prompt content";
@@ -7,9 +7,14 @@ import static org.mockito.Mockito.*;
 import de.purnama.code_review.exception.GitProviderException;
 import de.purnama.code_review.model.CodeReviewResponse;
 import de.purnama.code_review.model.ContentBlock;
+import de.purnama.code_review.model.git.FileSelectionReport;
 import de.purnama.code_review.model.git.GitFile;
+import de.purnama.code_review.service.git.ContentClassifier;
 import de.purnama.code_review.service.git.GitProvider;
 import de.purnama.code_review.service.git.GitProviderFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,13 +23,18 @@ import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
+import de.purnama.code_review.config.GuidelineSelectionConfig;
+import de.purnama.code_review.config.ReviewCoalescingConfig;
 import de.purnama.code_review.config.OpenAIConfig;
 import de.purnama.code_review.exception.AIModelException;
 import de.purnama.code_review.exception.RequestInterruptedException;
@@ -50,6 +60,30 @@ class CodeReviewServiceMethodTests {
     @Mock
     private GitProvider gitProvider;
 
+    @Spy
+    private ContentClassifier contentClassifier = new ContentClassifier();
+
+    @Mock
+    private GuidelineBundleCache guidelineBundleCache;
+
+    @Spy
+    private GuidelineSelector guidelineSelector = new GuidelineSelector(new GuidelineSelectionConfig());
+
+    @Spy
+    private ReviewCoalescer reviewCoalescer = new ReviewCoalescer(new ReviewCoalescingConfig(), null);
+
+    @Mock
+    private ReviewWorkQueue reviewWorkQueue;
+
+    @Spy
+    private ReviewMetrics reviewMetrics = new ReviewMetrics(new SimpleMeterRegistry());
+
+    @Spy
+    private ReviewTracing reviewTracing = new ReviewTracing(ObservationRegistry.NOOP);
+
+    @Mock
+    private UsageLedger usageLedger;
+
     @Spy
     @InjectMocks
     private CodeReviewService codeReviewService;
@@ -95,12 +129,13 @@ class CodeReviewServiceMethodTests {
                 createTestGitFile("src/main/Main.java", "public class Main {}"),
                 createTestGitFile("src/test/Test.java", "public class Test {}")
         );
-        when(gitProvider.fetchRepositoryFiles(TEST_OWNER, TEST_REPO, TEST_BRANCH, 10))
+        FileSelectionReport selectionReport = new FileSelectionReport();
+        when(gitProvider.fetchRepositoryFiles(TEST_OWNER, TEST_REPO, TEST_BRANCH, 10, selectionReport))
                 .thenReturn(expectedFiles);
 
         // Act
         List<GitFile> result = invokePrivateMethod("fetchRepositoryFilesForReview",
-                TEST_OWNER, TEST_REPO, TEST_BRANCH, TEST_REPOSITORY_URL);
+                TEST_OWNER, TEST_REPO, TEST_BRANCH, TEST_REPOSITORY_URL, selectionReport);
 
         // Assert
         assertNotNull(result);
@@ -109,7 +144,7 @@ class CodeReviewServiceMethodTests {
         assertEquals("src/test/Test.java", result.get(1).getPath());
 
         verify(gitProviderFactory).getProvider(TEST_REPOSITORY_URL);
-        verify(gitProvider).fetchRepositoryFiles(TEST_OWNER, TEST_REPO, TEST_BRANCH, 10);
+        verify(gitProvider).fetchRepositoryFiles(TEST_OWNER, TEST_REPO, TEST_BRANCH, 10, selectionReport);
     }
 
     @Test
@@ -118,16 +153,50 @@ class CodeReviewServiceMethodTests {
         when(gitProviderFactory.getProvider(anyString())).thenReturn(gitProvider);
         when(openAIConfig.getMaxFilesToReview()).thenReturn(10);
 
-        when(gitProvider.fetchRepositoryFiles(TEST_OWNER, TEST_REPO, TEST_BRANCH, 10))
+        FileSelectionReport selectionReport = new FileSelectionReport();
+        when(gitProvider.fetchRepositoryFiles(TEST_OWNER, TEST_REPO, TEST_BRANCH, 10, selectionReport))
                 .thenThrow(new GitProviderException("Failed to fetch files"));
 
         // Act & Assert
         assertThrows(GitProviderException.class, () -> {
             invokePrivateMethod("fetchRepositoryFilesForReview",
-                    TEST_OWNER, TEST_REPO, TEST_BRANCH, TEST_REPOSITORY_URL);
+                    TEST_OWNER, TEST_REPO, TEST_BRANCH, TEST_REPOSITORY_URL, selectionReport);
         });
     }
 
+    @Test
+    void excludeUnreviewableContent_ShouldDropMinifiedFilesAndReportThem() {
+        // Arrange
+        GitFile minified = createTestGitFile("web/app.js", "var a=1;".repeat(500));
+        GitFile source = createTestGitFile("src/main/Main.java", "public class Main {}");
+        FileSelectionReport selectionReport = new FileSelectionReport();
+
+        // Act
+        List<GitFile> result = codeReviewService.excludeUnreviewableContent(List.of(minified, source), selectionReport);
+
+        // Assert
+        assertEquals(List.of(source), result);
+        assertEquals("web/app.js", selectionReport.getSkippedFiles().get(0).getPath());
+        assertTrue(selectionReport.getSkippedFiles().get(0).getReason().startsWith("minified"));
+    }
+
+    @Test
+    void describeSkippedFiles_ShouldListSkippedFilesWithReason() {
+        // Arrange
+        FileSelectionReport selectionReport = new FileSelectionReport();
+        selectionReport.setCandidateCount(3);
+        selectionReport.skip("src/test/AppTest.java", "ranked below the review limit");
+
+        // Act
+        String section = codeReviewService.describeSkippedFiles(selectionReport);
+
+        // Assert
+        assertTrue(section.startsWith("# Files Not Reviewed"));
+        assertTrue(section.contains("1 of 3 candidate files were not reviewed."));
+        assertTrue(section.contains("- `src/test/AppTest.java`: ranked below the review limit"));
+        assertEquals("", codeReviewService.describeSkippedFiles(new FileSelectionReport()));
+    }
+
     @Test
     void findRelevantGuidelines_ShouldReturnFormattedGuidelines_WhenSuccessful() throws Exception {
         // Arrange
@@ -143,10 +212,11 @@ class CodeReviewServiceMethodTests {
                 createTestContentBlock("Class Structure", "Public methods should be documented")
         );
 
-        when(embeddingService.findSimilarContent(anyString(), eq(5))).thenReturn(mockContentBlocks);
+        when(embeddingService.findSimilarContent(anyString(), eq(15))).thenReturn(mockContentBlocks);
 
         // Act
-        List<String> result = invokePrivateMethod("findRelevantGuidelines", testFiles);
+        GuidelineSelector.Selection selection = invokePrivateMethod("findRelevantGuidelines", testFiles);
+        List<String> result = selection.guidelines();
 
         // Assert
         assertNotNull(result);
@@ -155,8 +225,9 @@ class CodeReviewServiceMethodTests {
         assertTrue(result.get(0).contains("Use camelCase for method names"));
         assertTrue(result.get(1).contains("# Class Structure"));
         assertTrue(result.get(1).contains("Public methods should be documented"));
+        assertEquals(0, selection.tokensSaved());
 
-        verify(embeddingService).findSimilarContent(anyString(), eq(5));
+        verify(embeddingService).findSimilarContent(anyString(), eq(15));
     }
 
     @Test
@@ -165,14 +236,14 @@ class CodeReviewServiceMethodTests {
         when(openAIConfig.getContentBlocksLimit()).thenReturn(5);
 
         List<GitFile> testFiles = Arrays.asList(createTestGitFile("Test.java", "test content"));
-        when(embeddingService.findSimilarContent(anyString(), eq(5))).thenReturn(Collections.emptyList());
+        when(embeddingService.findSimilarContent(anyString(), eq(15))).thenReturn(Collections.emptyList());
 
         // Act
-        List<String> result = invokePrivateMethod("findRelevantGuidelines", testFiles);
+        GuidelineSelector.Selection result = invokePrivateMethod("findRelevantGuidelines", testFiles);
 
         // Assert
         assertNotNull(result);
-        assertTrue(result.isEmpty());
+        assertTrue(result.guidelines().isEmpty());
     }
 
     @Test
@@ -185,14 +256,33 @@ class CodeReviewServiceMethodTests {
                 createTestGitFile("File2.java", "content2")
         );
 
-        when(embeddingService.findSimilarContent(eq("content1\n\ncontent2"), eq(5)))
+        when(embeddingService.findSimilarContent(eq("content1\n\ncontent2"), eq(15)))
                 .thenReturn(Collections.emptyList());
 
         // Act
         invokePrivateMethod("findRelevantGuidelines", testFiles);
 
         // Assert
-        verify(embeddingService).findSimilarContent(eq("content1\n\ncontent2"), eq(5));
+        verify(embeddingService).findSimilarContent(eq("content1\n\ncontent2"), eq(15));
+    }
+
+    @Test
+    void findRelevantGuidelines_ShouldUseCachedBundle_WhenAllFilesShareOneType() throws Exception {
+        // Arrange
+        List<GitFile> testFiles = Arrays.asList(
+                createTestGitFile("File1.java", "content1"),
+                createTestGitFile("File2.java", "content2")
+        );
+        GuidelineSelector.Selection bundle = new GuidelineSelector.Selection(List.of("# Java\nUse records."), 5, 0);
+        when(guidelineBundleCache.keyFor(anyString())).thenReturn(".java");
+        when(guidelineBundleCache.bundle(".java")).thenReturn(Optional.of(bundle));
+
+        // Act
+        GuidelineSelector.Selection result = invokePrivateMethod("findRelevantGuidelines", testFiles);
+
+        // Assert
+        assertSame(bundle, result);
+        verify(embeddingService, never()).findSimilarContent(anyString(), anyInt());
     }
 
     @Test
@@ -206,22 +296,56 @@ class CodeReviewServiceMethodTests {
         List<String> guidelines = Arrays.asList("Guideline 1", "Guideline 2");
 
         // Create a fresh spy instance instead of spying on the mock
-        CodeReviewService realService = new CodeReviewService(embeddingService, chatModel, openAIConfig, markdownConverter, gitProviderFactory);
+        CodeReviewService realService = new CodeReviewService(embeddingService, chatModel, openAIConfig, markdownConverter, gitProviderFactory,
+                contentClassifier, guidelineSelector, guidelineBundleCache, reviewCoalescer, reviewWorkQueue, reviewMetrics, reviewTracing,
+                usageLedger);
         CodeReviewService spyService = spy(realService);
         doNothing().when(spyService).processRepositoryFile(any(GitFile.class), anyString(), anyString(), any(StringBuilder.class));
 
         // Act
-        String result = (String) ReflectionTestUtils.invokeMethod(spyService, "processAllRepositoryFiles",
+        SectionedMarkdown result = ReflectionTestUtils.invokeMethod(spyService, "processAllRepositoryFiles",
                 testFiles, TEST_REPOSITORY_URL, guidelines);
 
         // Assert
         assertNotNull(result);
-        assertTrue(result.contains("# Code Review Summary"));
-        assertTrue(result.contains("The following files were reviewed:"));
+        assertTrue(result.getMarkdown().contains("# Code Review Summary"));
+        assertTrue(result.getMarkdown().contains("The following files were reviewed:"));
 
         verify(spyService, times(2)).processRepositoryFile(any(GitFile.class), eq(TEST_REPOSITORY_URL), anyString(), any(StringBuilder.class));
     }
 
+    @Test
+    void processAllRepositoryFiles_ShouldQueueFilesAndChunks_WhenWorkQueueIsEnabled() throws Exception {
+        // Arrange
+        List<GitFile> testFiles = Arrays.asList(
+                createTestGitFile("Main.java", "public class Main {}"),
+                createTestGitFile("Big.java", "class A {}\n\nclass B {}\n\nclass C {}\n")
+        );
+        when(openAIConfig.getFileChunkSize()).thenReturn(24);
+        when(reviewWorkQueue.isEnabled()).thenReturn(true);
+        when(reviewWorkQueue.run(eq(TEST_REPOSITORY_URL), eq("Guideline 1"), anyList())).thenAnswer(invocation -> {
+            List<ReviewWorkQueue.WorkItem> items = invocation.getArgument(2);
+            List<ReviewWorkQueue.UnitResult> results = new ArrayList<>();
+            for (int i = 0; i < items.size(); i++) {
+                results.add(i == 1
+                        ? new ReviewWorkQueue.UnitResult(null, "Model unavailable")
+                        : new ReviewWorkQueue.UnitResult("Review " + i, null));
+            }
+            return results;
+        });
+
+        // Act
+        SectionedMarkdown result = invokePrivateMethod("processAllRepositoryFiles",
+                testFiles, TEST_REPOSITORY_URL, List.of("Guideline 1"));
+
+        // Assert
+        String markdown = result.getMarkdown();
+        assertTrue(markdown.contains("## File: Main.java\n\nReview 0"));
+        assertTrue(markdown.contains("## File: Big.java (Chunk 1 of 2)\n\nError reviewing this file: Model unavailable"));
+        assertTrue(markdown.contains("## File: Big.java (Chunk 2 of 2)\n\nReview 2"));
+        verify(chatModel, never()).call(any(Prompt.class));
+    }
+
     @Test
     void processAllRepositoryFiles_ShouldHandleEmptyFilesList() throws Exception {
         // Arrange
@@ -229,23 +353,25 @@ class CodeReviewServiceMethodTests {
         List<String> guidelines = Arrays.asList("Guideline 1");
 
         // Act
-        String result = invokePrivateMethod("processAllRepositoryFiles",
+        SectionedMarkdown result = invokePrivateMethod("processAllRepositoryFiles",
                 emptyFiles, TEST_REPOSITORY_URL, guidelines);
 
         // Assert
         assertNotNull(result);
-        assertTrue(result.contains("# Code Review Summary"));
-        assertTrue(result.contains("The following files were reviewed:"));
+        assertEquals(1, result.getSectionCount());
+        assertTrue(result.getMarkdown().contains("# Code Review Summary"));
+        assertTrue(result.getMarkdown().contains("The following files were reviewed:"));
     }
 
     @Test
     void buildProjectReviewResponse_ShouldCreateCompleteResponse_WhenSuccessful() throws Exception {
         // Arrange
-        String testReview = "# Test Review\nThis is a test review.";
         List<String> testGuidelines = Arrays.asList("Guideline 1", "Guideline 2");
-        String expectedHtml = "<h1>Test Review</h1><p>This is a test review.</p>";
-
-        when(markdownConverter.convertMarkdownToHtml(testReview)).thenReturn(expectedHtml);
+        when(markdownConverter.convertMarkdownToHtml("# Test Review\n")).thenReturn("<h1>Test Review</h1>");
+        when(markdownConverter.convertMarkdownToHtml("This is a test review.")).thenReturn("<p>This is a test review.</p>");
+        SectionedMarkdown testReview = new SectionedMarkdown(markdownConverter);
+        testReview.addSection("# Test Review\n");
+        testReview.addSection("This is a test review.");
 
         // Act
         CodeReviewResponse result = invokePrivateMethod("buildProjectReviewResponse",
@@ -253,24 +379,24 @@ class CodeReviewServiceMethodTests {
 
         // Assert
         assertNotNull(result);
-        assertEquals(testReview, result.getReview());
-        assertEquals(expectedHtml, result.getHtmlReview());
+        assertEquals("# Test Review\nThis is a test review.", result.getReview());
+        assertEquals(List.of("<h1>Test Review</h1>", "<p>This is a test review.</p>"), result.getHtmlSections());
+        assertEquals("<h1>Test Review</h1><p>This is a test review.</p>", result.getHtmlReview());
         assertEquals(testGuidelines, result.getGuidelines());
         assertEquals(TEST_REPOSITORY_URL, result.getRepositoryUrl());
         assertNotNull(result.getTimestamp());
         assertTrue(result.getTimestamp().isBefore(LocalDateTime.now().plusSeconds(1)));
 
-        verify(markdownConverter).convertMarkdownToHtml(testReview);
+        // Sections were rendered when they were added, not again for the response
+        verify(markdownConverter, times(2)).convertMarkdownToHtml(anyString());
     }
 
     @Test
     void buildProjectReviewResponse_ShouldHandleEmptyReview() throws Exception {
         // Arrange
-        String emptyReview = "";
         List<String> guidelines = Collections.emptyList();
-        String expectedHtml = "";
-
-        when(markdownConverter.convertMarkdownToHtml(emptyReview)).thenReturn(expectedHtml);
+        SectionedMarkdown emptyReview = new SectionedMarkdown(markdownConverter);
+        emptyReview.addSection("");
 
         // Act
         CodeReviewResponse result = invokePrivateMethod("buildProjectReviewResponse",
@@ -278,10 +404,11 @@ class CodeReviewServiceMethodTests {
 
         // Assert
         assertNotNull(result);
-        assertEquals(emptyReview, result.getReview());
-        assertEquals(expectedHtml, result.getHtmlReview());
+        assertEquals("", result.getReview());
+        assertEquals("", result.getHtmlReview());
         assertTrue(result.getGuidelines().isEmpty());
         assertEquals(TEST_REPOSITORY_URL, result.getRepositoryUrl());
+        verifyNoInteractions(markdownConverter);
     }
 
     @Test
@@ -292,10 +419,12 @@ class CodeReviewServiceMethodTests {
         String expectedHtml = "<p>Test review</p>";
 
         when(markdownConverter.convertMarkdownToHtml(testReview)).thenReturn(expectedHtml);
+        SectionedMarkdown review = new SectionedMarkdown(markdownConverter);
+        review.addSection(testReview);
 
         // Act
         CodeReviewResponse result = invokePrivateMethod("buildProjectReviewResponse",
-                testReview, nullGuidelines, TEST_REPOSITORY_URL);
+                review, nullGuidelines, TEST_REPOSITORY_URL);
 
         // Assert
         assertNotNull(result);
@@ -683,7 +812,9 @@ class CodeReviewServiceMethodTests {
         lenient().when(markdownConverter.convertMarkdownToHtml("Production review content")).thenReturn(expectedHtml);
 
         // Create a real service instance and spy on it
-        CodeReviewService realService = new CodeReviewService(embeddingService, chatModel, openAIConfig, markdownConverter, gitProviderFactory);
+        CodeReviewService realService = new CodeReviewService(embeddingService, chatModel, openAIConfig, markdownConverter, gitProviderFactory,
+                contentClassifier, guidelineSelector, guidelineBundleCache, reviewCoalescer, reviewWorkQueue, reviewMetrics, reviewTracing,
+                usageLedger);
         CodeReviewService spyService = spy(realService);
         doReturn(mockResult).when(spyService).processFileChunks(TEST_REPOSITORY_URL, largeContent, formattedGuidelines);
 
@@ -163,7 +163,7 @@ class CodeReviewServiceRepositoryTest {
 
         public TestableCodeReviewService(List<GitFile> filesToReturn) {
             // Pass null for all dependencies since we're overriding the methods that would use them
-            super(null, null, null, null, null);
+            super(null, null, null, null, null, null, null, null, null, null, null, null, null);
             this.filesToReturn = filesToReturn;
         }
 
@@ -1,5 +1,7 @@
 package de.purnama.code_review.service;
 
+import de.purnama.code_review.config.GuidelineSelectionConfig;
+import de.purnama.code_review.config.ReviewCoalescingConfig;
 import de.purnama.code_review.config.OpenAIConfig;
 import de.purnama.code_review.exception.AIModelException;
 import de.purnama.code_review.exception.GitProviderException;
@@ -7,6 +9,8 @@ import de.purnama.code_review.model.CodeReviewResponse;
 import de.purnama.code_review.model.ContentBlock;
 import de.purnama.code_review.service.git.GitProvider;
 import de.purnama.code_review.service.git.GitProviderFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -39,6 +43,26 @@ class CodeReviewServiceSingleFileTest {
     @Mock
     private GitProvider gitProvider;
 
+    @Mock
+    private GuidelineBundleCache guidelineBundleCache;
+    @Spy
+    private GuidelineSelector guidelineSelector = new GuidelineSelector(new GuidelineSelectionConfig());
+
+    @Spy
+    private ReviewCoalescer reviewCoalescer = new ReviewCoalescer(new ReviewCoalescingConfig(), null);
+
+    @Mock
+    private ReviewWorkQueue reviewWorkQueue;
+
+    @Spy
+    private ReviewMetrics reviewMetrics = new ReviewMetrics(new SimpleMeterRegistry());
+
+    @Spy
+    private ReviewTracing reviewTracing = new ReviewTracing(ObservationRegistry.NOOP);
+
+    @Mock
+    private UsageLedger usageLedger;
+
     @Spy
     @InjectMocks
     private CodeReviewService codeReviewService;
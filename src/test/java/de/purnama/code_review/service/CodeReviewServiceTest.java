@@ -1,5 +1,7 @@
 package de.purnama.code_review.service;
 
+import de.purnama.code_review.config.GuidelineSelectionConfig;
+import de.purnama.code_review.config.ReviewCoalescingConfig;
 import de.purnama.code_review.config.OpenAIConfig;
 import de.purnama.code_review.exception.*;
 import de.purnama.code_review.model.CodeReviewRequest;
@@ -7,12 +9,15 @@ import de.purnama.code_review.model.CodeReviewResponse;
 import de.purnama.code_review.model.ContentBlock;
 import de.purnama.code_review.service.git.GitProvider;
 import de.purnama.code_review.service.git.GitProviderFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.model.ChatModel;
@@ -25,6 +30,12 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -60,6 +71,27 @@ class CodeReviewServiceTest {
     @Mock
     private AssistantMessage assistantMessage;
 
+    @Mock
+    private GuidelineBundleCache guidelineBundleCache;
+
+    @Spy
+    private GuidelineSelector guidelineSelector = new GuidelineSelector(new GuidelineSelectionConfig());
+
+    @Spy
+    private ReviewCoalescer reviewCoalescer = new ReviewCoalescer(new ReviewCoalescingConfig(), null);
+
+    @Mock
+    private ReviewWorkQueue reviewWorkQueue;
+
+    @Spy
+    private ReviewMetrics reviewMetrics = new ReviewMetrics(new SimpleMeterRegistry());
+
+    @Spy
+    private ReviewTracing reviewTracing = new ReviewTracing(ObservationRegistry.NOOP);
+
+    @Mock
+    private UsageLedger usageLedger;
+
     @InjectMocks
     private CodeReviewService codeReviewService;
 
@@ -207,6 +239,67 @@ class CodeReviewServiceTest {
         assertEquals("AI model error", thrown.getMessage());
     }
 
+    @Test
+    void reviewCode_ShouldCheckTheQuotaOfAJoiner_WhenAnIdenticalReviewIsRunning() throws Exception {
+        // Arrange
+        String repositoryUrl = "https://github.com/username/repo";
+        CodeReviewRequest request = new CodeReviewRequest();
+        request.setRepositoryUrl(repositoryUrl);
+        when(gitProviderFactory.getProvider(repositoryUrl)).thenReturn(gitProvider);
+        Map<String, String> repoInfo = new HashMap<>();
+        repoInfo.put("owner", "username");
+        repoInfo.put("repo", "repo");
+        repoInfo.put("branch", "main");
+        when(gitProvider.extractRepositoryInfoFromUrl(repositoryUrl)).thenReturn(repoInfo);
+        when(gitProvider.resolveHeadCommit("username", "repo", "main")).thenReturn("abc123");
+        doThrow(new QuotaExceededException("Daily token quota used up"))
+                .when(usageLedger).checkQuota("over@example.com");
+
+        // A review of the same repository, branch and commit started by another user
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CodeReviewResponse shared = CodeReviewResponse.builder().review("Shared").build();
+        AtomicReference<Thread> joinerThread = new AtomicReference<>();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<CodeReviewResponse> leader = executor.submit(() -> reviewCoalescer.review(
+                    ReviewCoalescer.ReviewKey.of(repositoryUrl, "main", "abc123"), () -> {
+                        started.countDown();
+                        try {
+                            release.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return shared;
+                    }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // Act
+            QuotaExceededException refused = assertThrows(QuotaExceededException.class,
+                    () -> codeReviewService.reviewCode(request, "over@example.com"));
+            Future<CodeReviewResponse> joiner = executor.submit(() -> {
+                joinerThread.set(Thread.currentThread());
+                return codeReviewService.reviewCode(request, "under@example.com");
+            });
+            // The joiner parks on the running review before it is released
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while ((joinerThread.get() == null || joinerThread.get().getState() != Thread.State.TIMED_WAITING)
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            // Assert
+            assertEquals("Daily token quota used up", refused.getMessage());
+            assertSame(shared, leader.get(5, TimeUnit.SECONDS));
+            assertSame(shared, joiner.get(5, TimeUnit.SECONDS));
+            verify(usageLedger).checkQuota("under@example.com");
+            verify(gitProvider, never()).fetchRepositoryFiles(any(), any(), any(), anyInt(), any());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     void testSplitCodeIntoChunks_basicScenarios() throws Exception {
         String codeSmall = "int a = 1;";
@@ -0,0 +1,242 @@
+package de.purnama.code_review.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import de.purnama.code_review.config.ConfluenceConfig;
+import de.purnama.code_review.config.ConfluenceCrawlConfig;
+import de.purnama.code_review.config.ConfluenceRefreshConfig;
+import de.purnama.code_review.exception.ConfluenceException;
+import de.purnama.code_review.model.ConfluenceCrawl;
+import de.purnama.code_review.model.ConfluenceUrl;
+import de.purnama.code_review.model.ContentBlock;
+import de.purnama.code_review.repository.ConfluenceCrawlRepository;
+import de.purnama.code_review.repository.ConfluenceUrlRepository;
+
+@ExtendWith(MockitoExtension.class)
+class ConfluenceCrawlServiceTest {
+
+    private static final String CQL = ConfluenceCrawlService.spaceQuery("DEV");
+    private static final String BASE = "https://example.atlassian.net/wiki";
+
+    @Mock
+    private ConfluenceService confluenceService;
+
+    @Mock
+    private ConfluenceUrlRepository confluenceUrlRepository;
+
+    @Mock
+    private ConfluenceCrawlRepository confluenceCrawlRepository;
+
+    @Mock
+    private ContentBlockService contentBlockService;
+
+    @Mock
+    private EmbeddingService embeddingService;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private ConfluenceCrawlService crawlService;
+
+    @BeforeEach
+    void setUp() {
+        ConfluenceConfig confluenceConfig = new ConfluenceConfig();
+        confluenceConfig.setBaseUrl("https://example.atlassian.net/");
+        confluenceConfig.setSpaceKey("DEV");
+        ConfluenceCrawlConfig crawlConfig = new ConfluenceCrawlConfig();
+        crawlConfig.setPageSize(2);
+        crawlService = new ConfluenceCrawlService(confluenceService, confluenceUrlRepository, confluenceCrawlRepository,
+                contentBlockService, embeddingService, confluenceConfig, crawlConfig, new ConfluenceRefreshConfig());
+        crawlService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        crawlService.shutdown();
+    }
+
+    @Test
+    void spaceQuery_ShouldSelectPagesOfTheSpace() {
+        // Act & Assert
+        assertEquals("space = \"DEV\" AND type = page", ConfluenceCrawlService.spaceQuery("DEV"));
+    }
+
+    @Test
+    void crawl_ShouldResumeFromPersistedCursorAndCompleteOnLastPage() throws Exception {
+        // Arrange
+        ConfluenceCrawl unfinished = ConfluenceCrawl.builder()
+                .id(5L).cql(CQL).status(ConfluenceCrawl.Status.FAILED).nextStart(100).pagesSeen(100).build();
+        when(confluenceCrawlRepository.findFirstByCqlAndStatusNotOrderByIdDesc(CQL, ConfluenceCrawl.Status.COMPLETED))
+                .thenReturn(Optional.of(unfinished));
+        when(confluenceCrawlRepository.save(any(ConfluenceCrawl.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ConfluenceUrl known = ConfluenceUrl.builder().id(1L).url(BASE + "/spaces/DEV/pages/1/Known").pageVersion(3).build();
+        when(confluenceUrlRepository.findByUrl(known.getUrl())).thenReturn(Optional.of(known));
+        when(confluenceService.searchContent(CQL, 100, 2)).thenReturn(searchResponse(false, page(1, "Known", 3)));
+
+        // Act
+        ConfluenceCrawl result = crawlService.crawl(CQL);
+
+        // Assert
+        assertEquals(ConfluenceCrawl.Status.COMPLETED, result.getStatus());
+        assertEquals(101, result.getNextStart());
+        assertEquals(101, result.getPagesSeen());
+        assertEquals(1, result.getPagesSkipped());
+        assertNotNull(result.getCompletedAt());
+        verify(confluenceService, never()).fetchConfluenceContent(any());
+    }
+
+    @Test
+    void crawl_ShouldPersistCursorAfterEveryResultPage() throws Exception {
+        // Arrange
+        when(confluenceCrawlRepository.findFirstByCqlAndStatusNotOrderByIdDesc(CQL, ConfluenceCrawl.Status.COMPLETED))
+                .thenReturn(Optional.empty());
+        when(confluenceCrawlRepository.save(any(ConfluenceCrawl.class))).thenAnswer(invocation -> {
+            ConfluenceCrawl crawl = invocation.getArgument(0);
+            return ConfluenceCrawl.builder().id(7L).cql(crawl.getCql()).status(crawl.getStatus())
+                    .nextStart(crawl.getNextStart()).pagesSeen(crawl.getPagesSeen())
+                    .pagesSkipped(crawl.getPagesSkipped()).pagesFailed(crawl.getPagesFailed())
+                    .lastError(crawl.getLastError()).build();
+        });
+        when(confluenceUrlRepository.findByUrl(anyString())).thenReturn(Optional.of(
+                ConfluenceUrl.builder().id(1L).active(false).build()));
+        when(confluenceService.searchContent(CQL, 0, 2)).thenReturn(searchResponse(true, page(1, "A", 1), page(2, "B", 1)));
+        when(confluenceService.searchContent(CQL, 2, 2)).thenThrow(new RuntimeException("Connection reset"));
+
+        // Act
+        ConfluenceCrawl result = crawlService.crawl(CQL);
+
+        // Assert
+        assertEquals(ConfluenceCrawl.Status.FAILED, result.getStatus());
+        assertEquals(2, result.getNextStart());
+        assertEquals("Connection reset", result.getLastError());
+    }
+
+    @Test
+    void ingestPage_ShouldEmbedNewPageBeforeInsertingBlocks() throws Exception {
+        // Arrange
+        ObjectNode page = page(42, "Coding Standards", 1);
+        String pageUrl = BASE + "/spaces/DEV/pages/42/Coding+Standards";
+        when(confluenceUrlRepository.findByUrl(pageUrl)).thenReturn(Optional.empty());
+        when(confluenceService.fetchConfluenceContent(any(ConfluenceUrl.class))).thenAnswer(invocation -> {
+            ConfluenceUrl url = invocation.getArgument(0);
+            url.setHtmlContent("<p>Use descriptive names for all public methods.</p>");
+            url.setFetchedVersion(1);
+            return url;
+        });
+        List<ContentBlock> blocks = List.of(ContentBlock.builder().content("Use descriptive names for all public methods.").sequence(1).build());
+        when(confluenceService.chunkContent(any(ConfluenceUrl.class))).thenReturn(blocks);
+        when(confluenceUrlRepository.save(any(ConfluenceUrl.class))).thenAnswer(invocation -> {
+            ConfluenceUrl url = invocation.getArgument(0);
+            url.setId(9L);
+            return url;
+        });
+
+        // Act
+        ConfluenceCrawlService.PageOutcome outcome = crawlService.ingestPage(page, BASE);
+
+        // Assert
+        assertEquals(ConfluenceCrawlService.PageOutcome.INGESTED, outcome);
+        InOrder inOrder = inOrder(embeddingService, confluenceUrlRepository, contentBlockService);
+        inOrder.verify(embeddingService).embedBlocks(blocks);
+        inOrder.verify(confluenceUrlRepository).save(any(ConfluenceUrl.class));
+        inOrder.verify(contentBlockService).synchronizeBlocks(any(ConfluenceUrl.class), eq(blocks));
+        inOrder.verify(confluenceUrlRepository).recordIngestion(eq(9L), eq(1), anyString(), any());
+        verify(contentBlockService, never()).saveAll(anyList());
+    }
+
+    @Test
+    void ingestPage_ShouldReingestAStoredPageUnderTheRefreshLease() throws Exception {
+        // Arrange
+        ConfluenceUrl stored = ConfluenceUrl.builder().id(7L).url(BASE + "/spaces/DEV/pages/7/Reviews").pageVersion(1).contentHash("old").build();
+        when(confluenceUrlRepository.findByUrl(stored.getUrl())).thenReturn(Optional.of(stored));
+        when(confluenceUrlRepository.acquireRefreshLease(eq(7L), anyString(), eq(900L))).thenReturn(1);
+        when(confluenceService.fetchConfluenceContent(stored)).thenAnswer(invocation -> {
+            stored.setHtmlContent("<p>Every change needs one approval.</p>");
+            stored.setFetchedVersion(2);
+            return stored;
+        });
+        when(confluenceService.chunkContent(stored)).thenReturn(List.of());
+        when(contentBlockService.synchronizeBlocks(eq(stored), anyList())).thenReturn(List.of());
+
+        // Act
+        ConfluenceCrawlService.PageOutcome outcome = crawlService.ingestPage(page(7, "Reviews", 2), BASE);
+
+        // Assert
+        assertEquals(ConfluenceCrawlService.PageOutcome.INGESTED, outcome);
+        InOrder inOrder = inOrder(confluenceUrlRepository, contentBlockService);
+        inOrder.verify(confluenceUrlRepository).acquireRefreshLease(eq(7L), anyString(), eq(900L));
+        inOrder.verify(contentBlockService).synchronizeBlocks(eq(stored), anyList());
+        inOrder.verify(confluenceUrlRepository).releaseRefreshLease(eq(7L), anyString());
+    }
+
+    @Test
+    void ingestPage_ShouldSkipAStoredPageThatIsBeingRefreshed() throws Exception {
+        // Arrange
+        ConfluenceUrl stored = ConfluenceUrl.builder().id(7L).url(BASE + "/spaces/DEV/pages/7/Reviews").pageVersion(1).build();
+        when(confluenceUrlRepository.findByUrl(stored.getUrl())).thenReturn(Optional.of(stored));
+        when(confluenceUrlRepository.acquireRefreshLease(eq(7L), anyString(), anyLong())).thenReturn(0);
+
+        // Act
+        ConfluenceCrawlService.PageOutcome outcome = crawlService.ingestPage(page(7, "Reviews", 2), BASE);
+
+        // Assert
+        assertEquals(ConfluenceCrawlService.PageOutcome.SKIPPED, outcome);
+        verify(confluenceService, never()).fetchConfluenceContent(any(ConfluenceUrl.class));
+        verify(contentBlockService, never()).synchronizeBlocks(any(), anyList());
+        verify(confluenceUrlRepository, never()).releaseRefreshLease(anyLong(), anyString());
+    }
+
+    @Test
+    void ingestPage_ShouldReportFailureWithoutThrowing() throws Exception {
+        // Arrange
+        when(confluenceUrlRepository.findByUrl(anyString())).thenReturn(Optional.empty());
+        when(confluenceService.fetchConfluenceContent(any(ConfluenceUrl.class)))
+                .thenThrow(new ConfluenceException("Forbidden"));
+
+        // Act
+        ConfluenceCrawlService.PageOutcome outcome = crawlService.ingestPage(page(1, "Secret", 1), BASE);
+
+        // Assert
+        assertEquals(ConfluenceCrawlService.PageOutcome.FAILED, outcome);
+        verify(confluenceUrlRepository, never()).save(any(ConfluenceUrl.class));
+    }
+
+    private ObjectNode page(int id, String title, int version) {
+        ObjectNode page = mapper.createObjectNode();
+        page.put("id", String.valueOf(id));
+        page.put("type", "page");
+        page.put("title", title);
+        page.putObject("version").put("number", version);
+        page.putObject("_links").put("webui", "/spaces/DEV/pages/" + id + "/" + title.replace(' ', '+'));
+        return page;
+    }
+
+    private ObjectNode searchResponse(boolean hasNext, ObjectNode... pages) {
+        ObjectNode response = mapper.createObjectNode();
+        ArrayNode results = response.putArray("results");
+        for (ObjectNode page : pages) {
+            results.add(page);
+        }
+        ObjectNode links = response.putObject("_links");
+        links.put("base", BASE);
+        if (hasNext) {
+            links.put("next", "/rest/api/content/search?next=true");
+        }
+        return response;
+    }
+}
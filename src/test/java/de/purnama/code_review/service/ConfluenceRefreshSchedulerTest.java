@@ -0,0 +1,104 @@
+package de.purnama.code_review.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import de.purnama.code_review.config.ConfluenceRefreshConfig;
+import de.purnama.code_review.exception.ConfluenceUrlException;
+import de.purnama.code_review.repository.ConfluenceUrlRepository;
+
+@ExtendWith(MockitoExtension.class)
+class ConfluenceRefreshSchedulerTest {
+
+    private static final String PAGE_URL = "https://confluence.example.com/wiki/spaces/DEV/pages/12345";
+
+    @Mock
+    private ConfluenceUrlRepository confluenceUrlRepository;
+
+    @Mock
+    private ConfluenceUrlService confluenceUrlService;
+
+    private ConfluenceRefreshConfig config;
+    private ConfluenceRefreshScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        config = new ConfluenceRefreshConfig();
+        config.setJitter(Duration.ZERO);
+        scheduler = new ConfluenceRefreshScheduler(confluenceUrlRepository, confluenceUrlService, config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void refreshDuePages_ShouldDoNothing_WhenDisabled() {
+        // Arrange
+        config.setEnabled(false);
+
+        // Act
+        scheduler.refreshDuePages();
+
+        // Assert
+        verifyNoInteractions(confluenceUrlRepository, confluenceUrlService);
+    }
+
+    @Test
+    void runRefresh_ShouldRefreshAndReleaseLease_WhenLeaseAcquired() {
+        // Arrange
+        when(confluenceUrlRepository.acquireRefreshLease(eq(1L), anyString(), anyLong())).thenReturn(1);
+
+        // Act
+        scheduler.runRefresh(1L, PAGE_URL);
+
+        // Assert
+        verify(confluenceUrlService).refreshContent(1L);
+        verify(confluenceUrlRepository).releaseRefreshLease(eq(1L), anyString());
+    }
+
+    @Test
+    void runRefresh_ShouldSkipPage_WhenAnotherNodeHoldsTheLease() {
+        // Arrange
+        when(confluenceUrlRepository.acquireRefreshLease(eq(1L), anyString(), anyLong())).thenReturn(0);
+
+        // Act
+        scheduler.runRefresh(1L, PAGE_URL);
+
+        // Assert
+        verify(confluenceUrlService, never()).refreshContent(any());
+        verify(confluenceUrlRepository, never()).releaseRefreshLease(any(), anyString());
+    }
+
+    @Test
+    void runRefresh_ShouldReleaseLeaseAndHostPermit_WhenRefreshFails() {
+        // Arrange
+        config.setPerHostConcurrency(1);
+        when(confluenceUrlRepository.acquireRefreshLease(anyLong(), anyString(), anyLong())).thenReturn(1);
+        doThrow(new ConfluenceUrlException("Confluence unavailable")).when(confluenceUrlService).refreshContent(1L);
+
+        // Act
+        scheduler.runRefresh(1L, PAGE_URL);
+        scheduler.runRefresh(2L, PAGE_URL);
+
+        // Assert
+        verify(confluenceUrlRepository).releaseRefreshLease(eq(1L), anyString());
+        verify(confluenceUrlService).refreshContent(2L);
+        // The failed page is no longer in flight, so it can be queued again
+        assertTrue(scheduler.refreshNow(1L, PAGE_URL));
+    }
+}
@@ -99,7 +99,7 @@ class ConfluenceUrlServiceTest {
         // Allow any number of calls to fetchConfluenceContent since the implementation may call it multiple times
         verify(confluenceService, atLeastOnce()).fetchConfluenceContent(any(ConfluenceUrl.class));
         verify(confluenceService).processContentIntoBlocks(any(ConfluenceUrl.class));
-        verify(embeddingService, times(contentBlocks.size())).generateAndSaveEmbedding(any(ContentBlock.class));
+        verify(embeddingService).generateAndSaveEmbeddings(contentBlocks);
     }
 
     @Test void save_existingUrl_processesContent() throws ConfluenceException {
@@ -123,7 +123,7 @@ class ConfluenceUrlServiceTest {
         assertEquals(existingUrl, result);
         verify(confluenceService, never()).fetchConfluenceContent(any(ConfluenceUrl.class));
         verify(confluenceService).processContentIntoBlocks(any(ConfluenceUrl.class));
-        verify(embeddingService, times(contentBlocks.size())).generateAndSaveEmbedding(any(ContentBlock.class));
+        verify(embeddingService).generateAndSaveEmbeddings(contentBlocks);
         verify(confluenceUrlRepository, times(2)).save(any(ConfluenceUrl.class)); // Initial save + update with lastFetched
     }
 
@@ -307,11 +307,111 @@ class ConfluenceUrlServiceTest {
         verify(confluenceUrlRepository).findById(id);
         verify(confluenceService).fetchConfluenceContent(url);
         verify(confluenceService).processContentIntoBlocks(url);
-        verify(embeddingService, times(contentBlocks.size())).generateAndSaveEmbedding(any(ContentBlock.class));
+        verify(embeddingService).generateAndSaveEmbeddings(contentBlocks);
         verify(confluenceUrlRepository).save(url);
         assertNotNull(url.getLastFetched());
     }
 
+    @Test void refreshContent_embedsOnlyBlocksWithoutEmbedding() throws ConfluenceException {
+        // Arrange
+        Long id = 1L;
+        ConfluenceUrl url = new ConfluenceUrl();
+        url.setId(id);
+        url.setUrl("https://confluence.example.com/page");
+        url.setActive(true);
+
+        ContentBlock unchanged = ContentBlock.builder().id(10L).content("Unchanged").embedding(new float[] {0.1f}).build();
+        ContentBlock changed = ContentBlock.builder().id(11L).content("Changed").build();
+
+        when(confluenceUrlRepository.findById(id)).thenReturn(Optional.of(url));
+        when(confluenceService.fetchConfluenceContent(url)).thenReturn(url);
+        when(confluenceService.processContentIntoBlocks(url)).thenReturn(List.of(unchanged, changed));
+
+        // Act
+        service.refreshContent(id);
+
+        // Assert
+        verify(embeddingService).generateAndSaveEmbeddings(List.of(changed));
+        verify(confluenceUrlRepository).save(url);
+    }
+
+    @Test void refreshContent_skipsDownloadWhenVersionUnchanged() throws ConfluenceException {
+        // Arrange
+        Long id = 1L;
+        ConfluenceUrl url = new ConfluenceUrl();
+        url.setId(id);
+        url.setUrl("https://confluence.example.com/pages/12345");
+        url.setPageVersion(3);
+        url.setContentHash(ContentBlockService.hashContent("<p>Body</p>"));
+
+        when(confluenceUrlRepository.findById(id)).thenReturn(Optional.of(url));
+        when(confluenceService.fetchPageVersion(url)).thenReturn(3);
+
+        // Act
+        service.refreshContent(id);
+
+        // Assert
+        verify(confluenceService, never()).fetchConfluenceContent(any(ConfluenceUrl.class));
+        verify(confluenceService, never()).processContentIntoBlocks(any(ConfluenceUrl.class));
+        verify(embeddingService, never()).generateAndSaveEmbeddings(anyList());
+        verify(confluenceUrlRepository).save(url);
+        assertNotNull(url.getLastFetched());
+    }
+
+    @Test void refreshContent_newVersionWithSameBody_skipsChunking() throws ConfluenceException {
+        // Arrange
+        Long id = 1L;
+        ConfluenceUrl url = new ConfluenceUrl();
+        url.setId(id);
+        url.setUrl("https://confluence.example.com/pages/12345");
+        url.setPageVersion(3);
+        url.setContentHash(ContentBlockService.hashContent("<p>Body</p>"));
+
+        when(confluenceUrlRepository.findById(id)).thenReturn(Optional.of(url));
+        when(confluenceService.fetchPageVersion(url)).thenReturn(4);
+        when(confluenceService.fetchConfluenceContent(url)).thenAnswer(invocation -> {
+            url.setHtmlContent("<p>Body</p>");
+            url.setFetchedVersion(4);
+            return url;
+        });
+
+        // Act
+        service.refreshContent(id);
+
+        // Assert
+        verify(confluenceService, never()).processContentIntoBlocks(any(ConfluenceUrl.class));
+        assertEquals(4, url.getPageVersion());
+        verify(confluenceUrlRepository).save(url);
+    }
+
+    @Test void refreshContent_changedVersion_reingestsAndRecordsVersion() throws ConfluenceException {
+        // Arrange
+        Long id = 1L;
+        ConfluenceUrl url = new ConfluenceUrl();
+        url.setId(id);
+        url.setUrl("https://confluence.example.com/pages/12345");
+        url.setPageVersion(3);
+        url.setContentHash(ContentBlockService.hashContent("<p>Old body</p>"));
+
+        when(confluenceUrlRepository.findById(id)).thenReturn(Optional.of(url));
+        when(confluenceService.fetchPageVersion(url)).thenReturn(4);
+        when(confluenceService.fetchConfluenceContent(url)).thenAnswer(invocation -> {
+            url.setHtmlContent("<p>New body</p>");
+            url.setFetchedVersion(4);
+            return url;
+        });
+        when(confluenceService.processContentIntoBlocks(url)).thenReturn(List.of(new ContentBlock()));
+
+        // Act
+        service.refreshContent(id);
+
+        // Assert
+        verify(confluenceService).processContentIntoBlocks(url);
+        verify(embeddingService).generateAndSaveEmbeddings(anyList());
+        assertEquals(4, url.getPageVersion());
+        assertEquals(ContentBlockService.hashContent("<p>New body</p>"), url.getContentHash());
+    }
+
     @Test void refreshContent_handlesConfluenceException() throws ConfluenceException {
         // Arrange
         Long id = 1L;
@@ -476,7 +576,7 @@ class ConfluenceUrlServiceTest {
         
         // Assert
         verify(confluenceService).processContentIntoBlocks(savedUrl);
-        verify(embeddingService).generateAndSaveEmbedding(any(ContentBlock.class));
+        verify(embeddingService).generateAndSaveEmbeddings(anyList());
         verify(confluenceUrlRepository, times(2)).save(any(ConfluenceUrl.class)); // Once for initial save, once after processing
     }
     
@@ -509,7 +609,7 @@ class ConfluenceUrlServiceTest {
         // Assert
         verify(confluenceService).fetchConfluenceContent(savedUrl);
         verify(confluenceService).processContentIntoBlocks(savedUrl);
-        verify(embeddingService).generateAndSaveEmbedding(any(ContentBlock.class));
+        verify(embeddingService).generateAndSaveEmbeddings(anyList());
     }
     
     @Test
@@ -565,7 +665,7 @@ class ConfluenceUrlServiceTest {
         assertEquals(savedUrl, result);
         verify(confluenceService).processContentIntoBlocks(savedUrl);
         // Should not attempt to generate embeddings
-        verify(embeddingService, never()).generateAndSaveEmbedding(any(ContentBlock.class));
+        verify(embeddingService, never()).generateAndSaveEmbeddings(anyList());
     }
 
     @Test
@@ -596,7 +696,7 @@ class ConfluenceUrlServiceTest {
         assertEquals(savedUrl, result);
         verify(confluenceService).processContentIntoBlocks(savedUrl);
         // Should not attempt to generate embeddings
-        verify(embeddingService, never()).generateAndSaveEmbedding(any(ContentBlock.class));
+        verify(embeddingService, never()).generateAndSaveEmbeddings(anyList());
     }
     
     @Test
@@ -627,7 +727,7 @@ class ConfluenceUrlServiceTest {
         assertEquals(savedUrl, result);
         verify(confluenceService).fetchConfluenceContent(savedUrl);
         verify(confluenceService, never()).processContentIntoBlocks(any(ConfluenceUrl.class));
-        verify(embeddingService, never()).generateAndSaveEmbedding(any(ContentBlock.class));
+        verify(embeddingService, never()).generateAndSaveEmbeddings(anyList());
     }
     
     @Test
@@ -658,6 +758,6 @@ class ConfluenceUrlServiceTest {
         assertEquals(savedUrl, result);
         verify(confluenceService).fetchConfluenceContent(savedUrl);
         verify(confluenceService, never()).processContentIntoBlocks(any(ConfluenceUrl.class));
-        verify(embeddingService, never()).generateAndSaveEmbedding(any(ContentBlock.class));
+        verify(embeddingService, never()).generateAndSaveEmbeddings(anyList());
     }
 }
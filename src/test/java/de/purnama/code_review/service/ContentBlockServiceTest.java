@@ -233,4 +233,92 @@ public class ContentBlockServiceTest {
         // Assert
         verify(contentBlockRepository).deleteByConfluenceUrl(confluenceUrl);
     }
+
+    @Test
+    void synchronizeBlocks_ShouldKeepUnchangedAndMovedBlocksAndReembedOnlyChangedOnes() {
+        // Arrange
+        ConfluenceUrl confluenceUrl = new ConfluenceUrl();
+        confluenceUrl.setId(1L);
+        confluenceUrl.setUrl("https://confluence.example.com/page");
+
+        ContentBlock intro = storedBlock(10L, confluenceUrl, "Introduction paragraph", 1);
+        ContentBlock rules = storedBlock(11L, confluenceUrl, "Naming rules paragraph", 2);
+        ContentBlock edited = storedBlock(12L, confluenceUrl, "Old wording of the third paragraph", 3);
+        ContentBlock removed = storedBlock(13L, confluenceUrl, "Paragraph that was deleted", 4);
+        when(contentBlockRepository.findByConfluenceUrlOrderBySequenceAsc(confluenceUrl))
+                .thenReturn(List.of(intro, rules, edited, removed));
+        when(contentBlockRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<ContentBlock> blocks = List.of(
+                newBlock("Introduction paragraph", 1),
+                newBlock("A brand new paragraph", 2),
+                newBlock("New wording of the third paragraph", 3),
+                newBlock("Naming rules paragraph", 4));
+
+        // Act
+        List<ContentBlock> result = contentBlockService.synchronizeBlocks(confluenceUrl, blocks);
+
+        // Assert
+        assertEquals(4, result.size());
+        assertSame(intro, result.get(0));
+        assertNotNull(result.get(0).getEmbedding());
+
+        assertNull(result.get(1).getId());
+        assertSame(confluenceUrl, result.get(1).getConfluenceUrl());
+        assertNull(result.get(1).getEmbedding());
+
+        assertSame(edited, result.get(2));
+        assertEquals("New wording of the third paragraph", edited.getContent());
+        assertEquals(ContentBlockService.hashContent("New wording of the third paragraph"), edited.getContentHash());
+        assertNull(edited.getEmbedding());
+
+        assertSame(rules, result.get(3));
+        assertEquals(4, rules.getSequence());
+        assertNotNull(rules.getEmbedding());
+
+        verify(contentBlockRepository).deleteAll(List.of(removed));
+        verify(contentBlockRepository, never()).deleteByConfluenceUrl(any());
+    }
+
+    @Test
+    void synchronizeBlocks_ShouldMatchBlocksStoredWithoutHash() {
+        // Arrange
+        ConfluenceUrl confluenceUrl = new ConfluenceUrl();
+        confluenceUrl.setId(1L);
+
+        ContentBlock legacy = storedBlock(20L, confluenceUrl, "Legacy paragraph", 1);
+        legacy.setContentHash(null);
+        when(contentBlockRepository.findByConfluenceUrlOrderBySequenceAsc(confluenceUrl)).thenReturn(List.of(legacy));
+        when(contentBlockRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        List<ContentBlock> result = contentBlockService.synchronizeBlocks(confluenceUrl,
+                List.of(newBlock("Legacy paragraph", 1)));
+
+        // Assert
+        assertSame(legacy, result.get(0));
+        assertEquals(ContentBlockService.hashContent("Legacy paragraph"), legacy.getContentHash());
+        assertNotNull(legacy.getEmbedding());
+        verify(contentBlockRepository, never()).deleteAll(anyList());
+    }
+
+    private static ContentBlock storedBlock(Long id, ConfluenceUrl confluenceUrl, String content, int sequence) {
+        return ContentBlock.builder()
+                .id(id)
+                .confluenceUrl(confluenceUrl)
+                .content(content)
+                .title(content)
+                .sequence(sequence)
+                .contentHash(ContentBlockService.hashContent(content))
+                .embedding(new float[] {0.1f, 0.2f})
+                .build();
+    }
+
+    private static ContentBlock newBlock(String content, int sequence) {
+        return ContentBlock.builder()
+                .content(content)
+                .title(content)
+                .sequence(sequence)
+                .build();
+    }
 }
@@ -15,6 +15,7 @@ import static org.mockito.Mockito.*;
 class ContentGenerationServiceTest {
     @Mock ChatModel chatModel;
     @Mock ConfluenceService confluenceService;
+    @Mock UsageLedger usageLedger;
     @InjectMocks ContentGenerationService service;
 
     @BeforeEach
@@ -7,13 +7,17 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.ai.embedding.EmbeddingModel;
 
+import de.purnama.code_review.config.RetrievalConfig;
 import de.purnama.code_review.model.ContentBlock;
 import de.purnama.code_review.repository.ContentBlockRepository;
 
@@ -26,6 +30,18 @@ public class EmbeddingServiceTest {
     @Mock
     private EmbeddingModel embeddingModel;
 
+    @Spy
+    private RetrievalConfig retrievalConfig = new RetrievalConfig();
+
+    @Spy
+    private ReviewMetrics reviewMetrics = new ReviewMetrics(new SimpleMeterRegistry());
+
+    @Spy
+    private ReviewTracing reviewTracing = new ReviewTracing(ObservationRegistry.NOOP);
+
+    @Mock
+    private UsageLedger usageLedger;
+
     @InjectMocks
     private EmbeddingService embeddingService;
 
@@ -108,6 +124,7 @@ public class EmbeddingServiceTest {
     @Test
     void findSimilarContent_ShouldReturnSimilarContentBlocks_WhenQueryIsValid() {
         // Arrange
+        retrievalConfig.setHybrid(false);
         String queryText = "Test query for finding similar content";
         int limit = 5;
 
@@ -137,6 +154,36 @@ public class EmbeddingServiceTest {
         verify(contentBlockRepository).findSimilarContent(queryEmbedding, limit);
     }
 
+    @Test
+    void findSimilarContent_ShouldFuseFullTextAndVectorRanking_WhenHybrid() {
+        // Arrange
+        String queryText = "@Transactional\npublic User load(Long id) { return repository.findById(id).get(); }";
+        float[] queryEmbedding = new float[] { 0.1f, 0.2f };
+        List<ContentBlock> expectedBlocks = List.of(ContentBlock.builder().id(1L).content("Avoid Optional.get()").build());
+
+        when(embeddingModel.embed(queryText)).thenReturn(queryEmbedding);
+        when(contentBlockRepository.findHybridContent(eq(queryEmbedding), anyString(), eq(50), eq(60), eq(5)))
+                .thenReturn(expectedBlocks);
+
+        // Act
+        List<ContentBlock> result = embeddingService.findSimilarContent(queryText, 5);
+
+        // Assert
+        assertEquals(expectedBlocks, result);
+        verify(contentBlockRepository).findHybridContent(eq(queryEmbedding),
+                eq("transactional or findbyid or get or load or repository or user"), eq(50), eq(60), eq(5));
+        verify(contentBlockRepository, never()).findSimilarContent(any(), anyInt());
+    }
+
+    @Test
+    void buildSearchTerms_ShouldRankAnnotationsAndFrequentIdentifiersFirst() {
+        // Act & Assert
+        assertEquals("order or transactional or save",
+                EmbeddingService.buildSearchTerms("@Transactional void save(Order order) { save(order); }", 3));
+        assertEquals("", EmbeddingService.buildSearchTerms("if (a) { return b; }", 10));
+        assertEquals("", EmbeddingService.buildSearchTerms(null, 10));
+    }
+
     @Test
     void findSimilarContent_ShouldReturnEmptyList_WhenExceptionOccurs() {
         // Arrange
@@ -179,26 +226,19 @@ public class EmbeddingServiceTest {
         float[] embedding3 = new float[] { 0.7f, 0.8f, 0.9f };
 
         when(contentBlockRepository.findAll()).thenReturn(allBlocks);
-        when(embeddingModel.embed(block1.getContent())).thenReturn(embedding1);
-        when(embeddingModel.embed(block3.getContent())).thenReturn(embedding3);
-
-        // We need to capture the saves to verify the embeddings were set
-        when(contentBlockRepository.save(any(ContentBlock.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(embeddingModel.embed(List.of(block1.getContent(), block3.getContent())))
+                .thenReturn(List.of(embedding1, embedding3));
 
         // Act
         embeddingService.generateEmbeddingsForAllContent();
 
         // Assert
         verify(contentBlockRepository).findAll();
-        verify(embeddingModel).embed(block1.getContent());
-        verify(embeddingModel, never()).embed(block2.getContent());
-        verify(embeddingModel).embed(block3.getContent());
-
-        verify(contentBlockRepository).save(argThat(block ->
-            block.getId().equals(1L) && Arrays.equals(block.getEmbedding(), embedding1)));
-        verify(contentBlockRepository).save(argThat(block ->
-            block.getId().equals(3L) && Arrays.equals(block.getEmbedding(), embedding3)));
-        verify(contentBlockRepository, times(2)).save(any(ContentBlock.class));
+        assertArrayEquals(embedding1, block1.getEmbedding());
+        assertArrayEquals(new float[] { 0.1f, 0.2f, 0.3f }, block2.getEmbedding());
+        assertArrayEquals(embedding3, block3.getEmbedding());
+        verify(contentBlockRepository).saveAll(List.of(block1, block3));
+        verify(contentBlockRepository, never()).save(any(ContentBlock.class));
     }
 
     @Test
@@ -231,4 +271,56 @@ public class EmbeddingServiceTest {
         verifyNoInteractions(embeddingModel);
         verifyNoMoreInteractions(contentBlockRepository);
     }
+
+    @Test
+    void embedBlocks_ShouldEmbedOnlyBlocksWithoutEmbeddingInOneCall() {
+        // Arrange
+        ContentBlock first = ContentBlock.builder().content("First guideline").build();
+        ContentBlock embedded = ContentBlock.builder().content("Already embedded").embedding(new float[] { 0.9f }).build();
+        ContentBlock second = ContentBlock.builder().content("Second guideline").build();
+
+        when(embeddingModel.embed(List.of("First guideline", "Second guideline")))
+                .thenReturn(List.of(new float[] { 0.1f }, new float[] { 0.2f }));
+
+        // Act
+        int count = embeddingService.embedBlocks(List.of(first, embedded, second));
+
+        // Assert
+        assertEquals(2, count);
+        assertArrayEquals(new float[] { 0.1f }, first.getEmbedding());
+        assertArrayEquals(new float[] { 0.9f }, embedded.getEmbedding());
+        assertArrayEquals(new float[] { 0.2f }, second.getEmbedding());
+        verifyNoInteractions(contentBlockRepository);
+    }
+
+    @Test
+    void generateAndSaveEmbeddings_ShouldSaveEmbeddedBlocksInOneBatch() {
+        // Arrange
+        ContentBlock first = ContentBlock.builder().id(1L).content("First guideline").build();
+        ContentBlock embedded = ContentBlock.builder().id(2L).content("Already embedded").embedding(new float[] { 0.9f }).build();
+
+        when(embeddingModel.embed(List.of("First guideline"))).thenReturn(List.of(new float[] { 0.1f }));
+
+        // Act
+        int count = embeddingService.generateAndSaveEmbeddings(List.of(first, embedded));
+
+        // Assert
+        assertEquals(1, count);
+        verify(contentBlockRepository).saveAll(List.of(first));
+        verify(contentBlockRepository, never()).save(any(ContentBlock.class));
+    }
+
+    @Test
+    void generateAndSaveEmbeddings_ShouldNotSave_WhenEmbeddingFails() {
+        // Arrange
+        ContentBlock block = ContentBlock.builder().id(1L).content("Guideline").build();
+        when(embeddingModel.embed(anyList())).thenThrow(new RuntimeException("Rate limited"));
+
+        // Act
+        int count = embeddingService.generateAndSaveEmbeddings(List.of(block));
+
+        // Assert
+        assertEquals(0, count);
+        verifyNoInteractions(contentBlockRepository);
+    }
 }
@@ -0,0 +1,98 @@
+package de.purnama.code_review.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import de.purnama.code_review.config.GuidelineBundleConfig;
+import de.purnama.code_review.config.GuidelineSelectionConfig;
+import de.purnama.code_review.config.OpenAIConfig;
+import de.purnama.code_review.model.ContentBlock;
+import de.purnama.code_review.service.git.RepositoryPathFilter;
+
+@ExtendWith(MockitoExtension.class)
+class GuidelineBundleCacheTest {
+
+    @Mock
+    private EmbeddingService embeddingService;
+
+    @Mock
+    private OpenAIConfig openAIConfig;
+
+    private final GuidelineBundleConfig config = new GuidelineBundleConfig();
+    private GuidelineBundleCache cache;
+
+    @BeforeEach
+    void setUp() {
+        config.getPatterns().put("**/*Test.java", "Unit testing guidelines");
+        cache = new GuidelineBundleCache(embeddingService, new GuidelineSelector(new GuidelineSelectionConfig()),
+                openAIConfig, config, new RepositoryPathFilter());
+    }
+
+    @Test
+    void keyFor_ShouldPreferPatternsOverExtensions() {
+        // Act & Assert
+        assertEquals("pattern:**/*Test.java", cache.keyFor("src/test/java/FooTest.java"));
+        assertEquals(".java", cache.keyFor("src/main/java/Foo.java"));
+        assertEquals(".ts", cache.keyFor("https://github.com/owner/repo/blob/main/app.TS?plain=1"));
+        assertNull(cache.keyFor("Makefile"));
+        assertNull(cache.keyFor("src/.gitignore"));
+        assertNull(cache.keyFor("docs/readme.txt"));
+    }
+
+    @Test
+    void keyFor_ShouldReturnNull_WhenDisabled() {
+        // Arrange
+        config.setEnabled(false);
+
+        // Act & Assert
+        assertNull(cache.keyFor("src/main/java/Foo.java"));
+    }
+
+    @Test
+    void bundleFor_ShouldSearchOncePerTypeUntilGuidelinesChange() {
+        // Arrange
+        when(openAIConfig.getContentBlocksLimit()).thenReturn(5);
+        when(embeddingService.findSimilarContent("Coding guidelines and best practices for Java code", 15))
+                .thenReturn(List.of(ContentBlock.builder().title("Java").content("Use records for data carriers.").build()));
+
+        // Act
+        Optional<GuidelineSelector.Selection> first = cache.bundleFor("src/main/java/Foo.java");
+        Optional<GuidelineSelector.Selection> second = cache.bundleFor("src/main/java/Bar.java");
+        cache.onGuidelinesChanged(new GuidelinesChangedEvent(1L));
+        Optional<GuidelineSelector.Selection> third = cache.bundleFor("src/main/java/Baz.java");
+
+        // Assert
+        assertEquals(List.of("# Java\nUse records for data carriers."), first.orElseThrow().guidelines());
+        assertSame(first.get(), second.orElseThrow());
+        assertTrue(third.isPresent());
+        verify(embeddingService, times(2)).findSimilarContent(anyString(), anyInt());
+    }
+
+    @Test
+    void bundleFor_ShouldUsePatternQueryAndNotCacheEmptyBundles() {
+        // Arrange
+        when(openAIConfig.getContentBlocksLimit()).thenReturn(5);
+        when(embeddingService.findSimilarContent("Unit testing guidelines", 15)).thenReturn(List.of());
+
+        // Act
+        Optional<GuidelineSelector.Selection> first = cache.bundleFor("src/test/java/FooTest.java");
+        Optional<GuidelineSelector.Selection> second = cache.bundleFor("src/test/java/BarTest.java");
+
+        // Assert
+        assertTrue(first.isEmpty());
+        assertTrue(second.isEmpty());
+        verify(embeddingService, times(2)).findSimilarContent("Unit testing guidelines", 15);
+    }
+}
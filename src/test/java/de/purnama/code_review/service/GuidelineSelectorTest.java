@@ -0,0 +1,135 @@
+package de.purnama.code_review.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import de.purnama.code_review.config.GuidelineSelectionConfig;
+import de.purnama.code_review.model.ConfluenceUrl;
+import de.purnama.code_review.model.ContentBlock;
+
+class GuidelineSelectorTest {
+
+    private static final String NAMING = "Use descriptive names for classes, methods and variables so the intent is clear without comments.";
+
+    private final GuidelineSelectionConfig config = new GuidelineSelectionConfig();
+    private final GuidelineSelector selector = new GuidelineSelector(config);
+
+    @Test
+    void candidateCount_ShouldRetrieveSeveralCandidatesPerSlot() {
+        // Act & Assert
+        assertEquals(15, selector.candidateCount(5));
+        config.setCandidateFactor(0);
+        assertEquals(5, selector.candidateCount(5));
+    }
+
+    @Test
+    void select_ShouldDropNearDuplicatesAndFillTheFreedSlot() {
+        // Arrange
+        List<ContentBlock> candidates = List.of(
+                block(1L, 1, "Naming", NAMING),
+                block(2L, 4, "Naming (copy)", NAMING + " See also the style guide."),
+                block(3L, 7, "Logging", "Log exceptions once, at the boundary where they are handled."));
+
+        // Act
+        GuidelineSelector.Selection selection = selector.select(candidates, 2);
+
+        // Assert
+        assertEquals(List.of("# Naming\n" + NAMING,
+                "# Logging\nLog exceptions once, at the boundary where they are handled."), selection.guidelines());
+    }
+
+    @Test
+    void select_ShouldMergeConsecutiveBlocksOfAPageWithoutTheirOverlap() {
+        // Arrange
+        List<ContentBlock> candidates = List.of(
+                block(1L, 2, "Errors", "Never swallow exceptions.\nWrap checked exceptions in a domain exception."),
+                block(2L, 9, "Other", "Prefer constructor injection over field injection."),
+                block(1L, 1, "Errors", "Errors\nHandle errors where you can recover."),
+                block(1L, 3, "Errors", "domain exception.\nKeep the original cause."));
+
+        // Act
+        GuidelineSelector.Selection selection = selector.select(candidates, 4);
+
+        // Assert
+        assertEquals(List.of(
+                "# Errors\nErrors\nHandle errors where you can recover.\nNever swallow exceptions.\n"
+                        + "Wrap checked exceptions in a domain exception.\nKeep the original cause.",
+                "# Other\nPrefer constructor injection over field injection."), selection.guidelines());
+    }
+
+    @Test
+    void select_ShouldKeepBlocksSeparateWhenMergingIsDisabled() {
+        // Arrange
+        config.setMergeAdjacent(false);
+        List<ContentBlock> candidates = List.of(
+                block(1L, 2, "B", "Second block of the page."),
+                block(1L, 1, "A", "First block of the page."));
+
+        // Act
+        GuidelineSelector.Selection selection = selector.select(candidates, 5);
+
+        // Assert
+        assertEquals(List.of("# B\nSecond block of the page.", "# A\nFirst block of the page."), selection.guidelines());
+    }
+
+    @Test
+    void select_ShouldFitTokenBudgetAndReportSavedTokens() {
+        // Arrange
+        config.setTokenBudget(40);
+        String large = "x ".repeat(100).trim();
+        List<ContentBlock> candidates = List.of(
+                block(1L, 1, "Small", "Keep methods short."),
+                block(2L, 1, "Large", large),
+                block(3L, 1, null, "Document public APIs."));
+
+        // Act
+        GuidelineSelector.Selection selection = selector.select(candidates, 3);
+
+        // Assert
+        assertEquals(List.of("# Small\nKeep methods short.", "# Guideline\nDocument public APIs."), selection.guidelines());
+        assertTrue(selection.tokens() <= 40);
+        assertTrue(selection.tokensSaved() >= 50);
+    }
+
+    @Test
+    void select_ShouldReturnEmptySelectionWithoutCandidates() {
+        // Act
+        GuidelineSelector.Selection selection = selector.select(List.of(), 5);
+
+        // Assert
+        assertTrue(selection.guidelines().isEmpty());
+        assertEquals(0, selection.tokensSaved());
+    }
+
+    @Test
+    void containment_ShouldMeasureShareOfTheSmallerText() {
+        // Act & Assert
+        assertEquals(1.0, GuidelineSelector.containment(
+                GuidelineSelector.shingles(NAMING), GuidelineSelector.shingles(NAMING + " And more words here.")));
+        assertEquals(0.0, GuidelineSelector.containment(
+                GuidelineSelector.shingles("Prefer composition over inheritance."), GuidelineSelector.shingles(NAMING)));
+        assertEquals(1.0, GuidelineSelector.containment(
+                GuidelineSelector.shingles("Use UTF-8!"), GuidelineSelector.shingles("use utf 8")));
+    }
+
+    @Test
+    void stripOverlap_ShouldDropRepeatedTailOnly() {
+        // Act & Assert
+        assertEquals("Next line.", GuidelineSelector.stripOverlap("First.\nSecond sentence. Tail here.", "Tail here.\nNext line."));
+        assertEquals("Other start.\nNext line.", GuidelineSelector.stripOverlap("First.", "Other start.\nNext line."));
+        assertEquals("", GuidelineSelector.stripOverlap("Ends with tail", "tail"));
+    }
+
+    private static ContentBlock block(Long pageId, int sequence, String title, String content) {
+        return ContentBlock.builder()
+                .confluenceUrl(ConfluenceUrl.builder().id(pageId).build())
+                .sequence(sequence)
+                .title(title)
+                .content(content)
+                .build();
+    }
+}
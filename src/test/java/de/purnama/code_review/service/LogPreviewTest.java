@@ -0,0 +1,27 @@
+package de.purnama.code_review.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class LogPreviewTest {
+
+    @Test
+    void toString_ShouldCapLongPayloadsAndNameTheirSize() {
+        // Arrange
+        String payload = "x".repeat(1000);
+
+        // Act
+        String preview = LogPreview.of(payload, 10).toString();
+
+        // Assert
+        assertEquals("xxxxxxxxxx... (1000 characters)", preview);
+    }
+
+    @Test
+    void toString_ShouldKeepShortPayloadsAndNull() {
+        // Act & Assert
+        assertEquals("SELECT 1", LogPreview.of("SELECT 1").toString());
+        assertEquals("null", LogPreview.of(null).toString());
+    }
+}
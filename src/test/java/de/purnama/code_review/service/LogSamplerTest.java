@@ -0,0 +1,31 @@
+package de.purnama.code_review.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class LogSamplerTest {
+
+    @Test
+    void pass_ShouldLetOneMessagePerIntervalThroughAndCountTheOthers() {
+        // Arrange
+        AtomicLong now = new AtomicLong(0);
+        LogSampler sampler = new LogSampler(Duration.ofSeconds(1), now::get);
+
+        // Act
+        long first = sampler.pass();
+        long second = sampler.pass();
+        long third = sampler.pass();
+        now.set(Duration.ofSeconds(1).toNanos());
+        long afterInterval = sampler.pass();
+
+        // Assert
+        assertEquals(0, first);
+        assertEquals(-1, second);
+        assertEquals(-1, third);
+        assertEquals(2, afterInterval);
+    }
+}
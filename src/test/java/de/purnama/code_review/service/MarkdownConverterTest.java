@@ -76,4 +76,18 @@ class MarkdownConverterTest {
         // Assert
         assertEquals("", html);
     }
+
+    @Test
+    void convertMarkdownToHtml_WithAppendable_ShouldWriteSameHtml() {
+        // Arrange
+        String markdown = "# Heading\n\n| A | B |\n| - | - |\n| 1 | 2 |";
+        StringBuilder out = new StringBuilder();
+
+        // Act
+        markdownConverter.convertMarkdownToHtml(markdown, out);
+        markdownConverter.convertMarkdownToHtml(null, out);
+
+        // Assert
+        assertEquals(markdownConverter.convertMarkdownToHtml(markdown), out.toString());
+    }
 }
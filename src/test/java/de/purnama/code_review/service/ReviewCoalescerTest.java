@@ -0,0 +1,206 @@
+package de.purnama.code_review.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import de.purnama.code_review.config.ReviewCoalescingConfig;
+import de.purnama.code_review.exception.AIModelException;
+import de.purnama.code_review.model.CodeReviewResponse;
+
+class ReviewCoalescerTest {
+
+    private static final ReviewCoalescer.ReviewKey KEY =
+            ReviewCoalescer.ReviewKey.of("https://github.com/owner/repo", "main", "abc123");
+
+    private final ReviewCoalescingConfig config = new ReviewCoalescingConfig();
+
+    @Test
+    void review_ShouldShareOneReviewBetweenConcurrentIdenticalRequests() throws Exception {
+        // Arrange
+        ReviewCoalescer coalescer = new ReviewCoalescer(config, null);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CodeReviewResponse expected = CodeReviewResponse.builder().review("Shared").build();
+        AtomicReference<Thread> followerThread = new AtomicReference<>();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // Act
+            Future<CodeReviewResponse> leader = executor.submit(() -> coalescer.review(KEY, () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                awaitQuietly(release);
+                return expected;
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<CodeReviewResponse> follower = executor.submit(() -> {
+                followerThread.set(Thread.currentThread());
+                return coalescer.review(ReviewCoalescer.ReviewKey.of("HTTPS://GitHub.com/owner/repo.git/", "main", "abc123"), () -> {
+                    calls.incrementAndGet();
+                    return CodeReviewResponse.builder().review("Duplicate").build();
+                });
+            });
+            // The follower parks on the running review before the leader is released
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while ((followerThread.get() == null || followerThread.get().getState() != Thread.State.TIMED_WAITING)
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            // Assert
+            assertSame(expected, leader.get(5, TimeUnit.SECONDS));
+            assertSame(expected, follower.get(5, TimeUnit.SECONDS));
+            assertEquals(1, calls.get());
+            assertEquals(0, coalescer.getInFlightCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void review_ShouldRunAgain_OnceThePreviousReviewFinished() throws Exception {
+        // Arrange
+        ReviewCoalescer coalescer = new ReviewCoalescer(config, null);
+        AtomicInteger calls = new AtomicInteger();
+
+        // Act
+        coalescer.review(KEY, () -> CodeReviewResponse.builder().review(String.valueOf(calls.incrementAndGet())).build());
+        CodeReviewResponse second = coalescer.review(KEY,
+                () -> CodeReviewResponse.builder().review(String.valueOf(calls.incrementAndGet())).build());
+
+        // Assert
+        assertEquals("2", second.getReview());
+    }
+
+    @Test
+    void review_ShouldPassFailuresToTheCaller() {
+        // Arrange
+        ReviewCoalescer coalescer = new ReviewCoalescer(config, null);
+
+        // Act & Assert
+        assertThrows(AIModelException.class, () -> coalescer.review(KEY, () -> {
+            throw new AIModelException("Model unavailable");
+        }));
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    void review_ShouldUseTheResultOfAnotherNode_WhenDistributed() throws Exception {
+        // Arrange
+        config.setDistributed(true);
+        ReviewLeases leases = mock(ReviewLeases.class);
+        CodeReviewResponse shared = CodeReviewResponse.builder().review("From another node").build();
+        when(leases.findResult(KEY.value(), config.getResultTtl())).thenReturn(Optional.of(shared));
+        ReviewCoalescer coalescer = new ReviewCoalescer(config, leases);
+
+        // Act
+        CodeReviewResponse response = coalescer.review(KEY, () -> fail("Review should not run"));
+
+        // Assert
+        assertSame(shared, response);
+        verify(leases, never()).tryLock(any());
+    }
+
+    @Test
+    void review_ShouldReviewAndShare_WhenTheLockIsTaken() throws Exception {
+        // Arrange
+        config.setDistributed(true);
+        ReviewLeases leases = mock(ReviewLeases.class);
+        ReviewLeases.Lease lease = mock(ReviewLeases.Lease.class);
+        when(leases.findResult(KEY.value(), config.getResultTtl())).thenReturn(Optional.empty());
+        when(leases.tryLock(KEY.value())).thenReturn(lease);
+        CodeReviewResponse expected = CodeReviewResponse.builder().review("Reviewed here").build();
+        ReviewCoalescer coalescer = new ReviewCoalescer(config, leases);
+
+        // Act
+        CodeReviewResponse response = coalescer.review(KEY, () -> expected);
+
+        // Assert
+        assertSame(expected, response);
+        verify(leases).storeResult(KEY.value(), expected, config.getResultTtl());
+        verify(lease).close();
+    }
+
+    @Test
+    void review_ShouldWaitForTheLockAndReviewHere_AfterTheWaitTimeout() throws Exception {
+        // Arrange
+        config.setDistributed(true);
+        config.setWaitTimeout(Duration.ZERO);
+        config.setPollInterval(Duration.ofMillis(1));
+        ReviewLeases leases = mock(ReviewLeases.class);
+        when(leases.findResult(KEY.value(), config.getResultTtl())).thenReturn(Optional.empty());
+        when(leases.tryLock(KEY.value())).thenReturn(null);
+        ReviewCoalescer coalescer = new ReviewCoalescer(config, leases);
+
+        // Act
+        CodeReviewResponse response = coalescer.review(KEY, () -> CodeReviewResponse.builder().review("Fallback").build());
+
+        // Assert
+        assertEquals("Fallback", response.getReview());
+        verify(leases, never()).storeResult(any(), any(), any());
+    }
+
+    @Test
+    void review_ShouldReviewHere_WhenTheDatabaseIsUnavailable() throws Exception {
+        // Arrange
+        config.setDistributed(true);
+        ReviewLeases leases = mock(ReviewLeases.class);
+        when(leases.findResult(KEY.value(), config.getResultTtl()))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+        ReviewCoalescer coalescer = new ReviewCoalescer(config, leases);
+
+        // Act
+        CodeReviewResponse response = coalescer.review(KEY, () -> CodeReviewResponse.builder().review("Local").build());
+
+        // Assert
+        assertEquals("Local", response.getReview());
+    }
+
+    @Test
+    void review_ShouldNotShareBetweenNodes_WithoutHeadCommit() throws Exception {
+        // Arrange
+        config.setDistributed(true);
+        ReviewLeases leases = mock(ReviewLeases.class);
+        ReviewCoalescer coalescer = new ReviewCoalescer(config, leases);
+
+        // Act
+        coalescer.review(ReviewCoalescer.ReviewKey.of("https://github.com/owner/repo", "main", null),
+                () -> CodeReviewResponse.builder().review("Local").build());
+
+        // Assert
+        verifyNoInteractions(leases);
+    }
+
+    @Test
+    void normalizeUrl_ShouldIgnoreCaseOfHostTrailingSlashAndGitSuffix() {
+        // Act & Assert
+        assertEquals("https://github.com/Owner/Repo", ReviewCoalescer.normalizeUrl(" HTTPS://GitHub.com/Owner/Repo.git/ "));
+        assertEquals("https://gitlab.example.com/group/repo/-/blob/main/A.java?plain=1",
+                ReviewCoalescer.normalizeUrl("https://gitlab.example.com/group/repo/-/blob/main/A.java?plain=1#L10"));
+        assertEquals("file:///srv/repos/app.git?ref=main", ReviewCoalescer.normalizeUrl("file:///srv/repos/app.git?ref=main"));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package de.purnama.code_review.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.purnama.code_review.config.ReviewCoalescingConfig;
+import de.purnama.code_review.repository.CoalescedReviewRepository;
+
+@ExtendWith(MockitoExtension.class)
+class ReviewLeasesTest {
+
+    @Mock
+    private CoalescedReviewRepository coalescedReviewRepository;
+
+    private final ReviewCoalescingConfig config = new ReviewCoalescingConfig();
+    private ReviewLeases leases;
+
+    @BeforeEach
+    void setUp() {
+        leases = new ReviewLeases(coalescedReviewRepository, new ObjectMapper(), config);
+    }
+
+    @Test
+    void tryLock_ShouldRenewTheLeaseUntilItIsClosed() {
+        // Arrange
+        when(coalescedReviewRepository.claimLease(eq("key"), anyString(), eq(60L))).thenReturn(1);
+        when(coalescedReviewRepository.renewLease(eq("key"), anyString(), eq(60L))).thenReturn(1);
+
+        // Act
+        ReviewLeases.Lease lease = leases.tryLock("key");
+        leases.renew();
+        lease.close();
+        leases.renew();
+
+        // Assert
+        assertNotNull(lease);
+        ArgumentCaptor<String> owner = ArgumentCaptor.forClass(String.class);
+        verify(coalescedReviewRepository).claimLease(eq("key"), owner.capture(), eq(60L));
+        verify(coalescedReviewRepository, times(1)).renewLease("key", owner.getValue(), 60L);
+        verify(coalescedReviewRepository).releaseLease("key", owner.getValue());
+    }
+
+    @Test
+    void tryLock_ShouldReturnNull_WhenAnotherNodeHoldsTheLease() {
+        // Arrange
+        when(coalescedReviewRepository.claimLease(eq("key"), anyString(), anyLong())).thenReturn(0);
+
+        // Act
+        ReviewLeases.Lease lease = leases.tryLock("key");
+        leases.renew();
+
+        // Assert
+        assertNull(lease);
+        verify(coalescedReviewRepository, never()).renewLease(any(), any(), anyLong());
+    }
+
+    @Test
+    void close_ShouldNotFail_WhenTheLeaseCannotBeReleased() {
+        // Arrange
+        when(coalescedReviewRepository.claimLease(eq("key"), anyString(), anyLong())).thenReturn(1);
+        when(coalescedReviewRepository.releaseLease(eq("key"), anyString()))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+        ReviewLeases.Lease lease = leases.tryLock("key");
+
+        // Act & Assert
+        assertDoesNotThrow(lease::close);
+    }
+}
@@ -0,0 +1,77 @@
+package de.purnama.code_review.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+
+class ReviewMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ReviewMetrics reviewMetrics = new ReviewMetrics(registry);
+
+    @Test
+    void modelCall_ShouldRecordDurationPromptSizeAndTokenUsage() {
+        // Arrange
+        ChatResponse response = new ChatResponse(List.of(new Generation(new AssistantMessage("Looks good"))),
+                ChatResponseMetadata.builder().usage(new DefaultUsage(120, 30)).build());
+
+        // Act
+        reviewMetrics.modelCall(reviewMetrics.start(), 480, response);
+        reviewMetrics.modelCall(reviewMetrics.start(), 20, null);
+
+        // Assert
+        assertEquals(2, registry.get("code.review.stage").tag("stage", ReviewMetrics.STAGE_LLM).timer().count());
+        assertEquals(500, registry.get("code.review.llm.prompt.size").summary().totalAmount());
+        assertEquals(120, registry.get("code.review.llm.tokens").tag("type", "prompt").counter().count());
+        assertEquals(30, registry.get("code.review.llm.tokens").tag("type", "completion").counter().count());
+    }
+
+    @Test
+    void stage_ShouldAddUpPartsMeasuredSeparately() {
+        // Act
+        reviewMetrics.stage(ReviewMetrics.STAGE_RENDERING, 2_000_000L);
+        reviewMetrics.stage(ReviewMetrics.STAGE_RENDERING, 3_000_000L);
+
+        // Assert
+        assertEquals(5.0, registry.get("code.review.stage").tag("stage", ReviewMetrics.STAGE_RENDERING).timer()
+                .totalTime(TimeUnit.MILLISECONDS), 0.001);
+    }
+
+    @Test
+    void gitOperation_ShouldNameTheApiCallWithoutRepositoryOrRef() {
+        // Act & Assert
+        assertEquals("trees", ReviewMetrics.gitOperation(
+                URI.create("https://api.github.com/repos/owner/repo/git/trees/main?recursive=1")));
+        assertEquals("commits", ReviewMetrics.gitOperation(
+                URI.create("https://api.github.com/repos/owner/repo/commits/abc123")));
+        assertEquals("contents", ReviewMetrics.gitOperation(
+                URI.create("https://github.example.com/api/v3/repos/owner/repo/contents/src")));
+        assertEquals("raw", ReviewMetrics.gitOperation(
+                URI.create("https://raw.githubusercontent.com/owner/repo/main/src/Main.java")));
+    }
+
+    @Test
+    void gitOperation_ShouldNameTheGitLabRepositoryCall() {
+        // Act & Assert
+        assertEquals("tree", ReviewMetrics.gitOperation(
+                URI.create("https://gitlab.com/api/v4/projects/group%2Frepo/repository/tree?recursive=true&ref=main")));
+        assertEquals("blobs", ReviewMetrics.gitOperation(
+                URI.create("https://gitlab.com/api/v4/projects/group%2Frepo/repository/blobs/abc123/raw")));
+        assertEquals("archive", ReviewMetrics.gitOperation(
+                URI.create("https://gitlab.com/api/v4/projects/group%2Fsub%2Frepo/repository/archive.tar.gz?sha=main")));
+        assertEquals("commits", ReviewMetrics.gitOperation(
+                URI.create("https://gitlab.example.com/api/v4/projects/42/repository/commits?per_page=1")));
+        assertEquals("files", ReviewMetrics.gitOperation(
+                URI.create("https://gitlab.com/api/v4/projects/group%2Frepo/repository/files/src%2FMain.java/raw?ref=main")));
+    }
+}
@@ -0,0 +1,101 @@
+package de.purnama.code_review.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+
+class ReviewTracingTest {
+
+    private final List<Observation.Context> stopped = new ArrayList<>();
+    private ObservationRegistry registry;
+    private ReviewTracing reviewTracing;
+
+    @BeforeEach
+    void setUp() {
+        registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(new ObservationHandler<>() {
+            @Override
+            public boolean supportsContext(Observation.Context context) {
+                return true;
+            }
+
+            @Override
+            public void onStop(Observation.Context context) {
+                stopped.add(context);
+            }
+        });
+        reviewTracing = new ReviewTracing(registry);
+    }
+
+    @Test
+    void start_ShouldMakeSpansStartedInScopeChildrenOfTheCurrentSpan() {
+        // Arrange
+        Observation review = reviewTracing.start("code.review", "review project");
+
+        // Act
+        try (Observation.Scope scope = review.openScope()) {
+            reviewTracing.attribute("guidelines.cache", "miss");
+            reviewTracing.start("code.review.file", "review file").stop();
+        }
+        review.stop();
+
+        // Assert
+        assertEquals(2, stopped.size());
+        assertEquals("code.review.file", stopped.get(0).getName());
+        assertSame(review, stopped.get(0).getParentObservation());
+        assertEquals("miss", stopped.get(1).getHighCardinalityKeyValue("guidelines.cache").getValue());
+    }
+
+    @Test
+    void modelCall_ShouldAddPromptSizeAndTokenUsage() {
+        // Arrange
+        Observation call = reviewTracing.start("code.review.llm.call", "chat model call");
+        ChatResponse response = new ChatResponse(List.of(new Generation(new AssistantMessage("Looks good"))),
+                ChatResponseMetadata.builder().usage(new DefaultUsage(120, 30)).build());
+
+        // Act
+        reviewTracing.modelCall(call, 480, response);
+        call.stop();
+
+        // Assert
+        Observation.Context context = stopped.get(0);
+        assertEquals("480", context.getHighCardinalityKeyValue("prompt.characters").getValue());
+        assertEquals("120", context.getHighCardinalityKeyValue("tokens.prompt").getValue());
+        assertEquals("30", context.getHighCardinalityKeyValue("tokens.completion").getValue());
+    }
+
+    @Test
+    void propagating_ShouldRunTasksInTheSpanOfTheSubmittingThread() throws Exception {
+        // Arrange
+        ObservationThreadLocalAccessor.getInstance().setObservationRegistry(registry);
+        ExecutorService executor = ReviewTracing.propagating(Executors.newSingleThreadExecutor());
+        Observation crawl = reviewTracing.start("code.review.crawl", "crawl");
+
+        // Act
+        Observation seen;
+        try (Observation.Scope scope = crawl.openScope()) {
+            seen = executor.submit(registry::getCurrentObservation).get();
+        } finally {
+            crawl.stop();
+            executor.shutdownNow();
+        }
+
+        // Assert
+        assertSame(crawl, seen);
+    }
+}
@@ -0,0 +1,176 @@
+package de.purnama.code_review.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import de.purnama.code_review.config.ReviewWorkQueueConfig;
+import de.purnama.code_review.exception.CodeReviewException;
+import de.purnama.code_review.model.ReviewJob;
+import de.purnama.code_review.model.ReviewWorkUnit;
+import de.purnama.code_review.repository.ReviewJobRepository;
+import de.purnama.code_review.repository.ReviewWorkUnitRepository;
+
+@ExtendWith(MockitoExtension.class)
+class ReviewWorkQueueTest {
+
+    @Mock
+    private ReviewJobRepository jobRepository;
+
+    @Mock
+    private ReviewWorkUnitRepository unitRepository;
+
+    private final ReviewWorkQueueConfig config = new ReviewWorkQueueConfig();
+    private ReviewWorkQueue workQueue;
+
+    @BeforeEach
+    void setUp() {
+        config.setPollInterval(Duration.ofMillis(1));
+        workQueue = new ReviewWorkQueue(jobRepository, unitRepository, config);
+    }
+
+    @Test
+    void run_ShouldWaitForAllUnitsAndReturnResultsInOrder() throws Exception {
+        // Arrange
+        when(jobRepository.save(any(ReviewJob.class))).thenAnswer(invocation -> {
+            ReviewJob job = invocation.getArgument(0);
+            job.setId(7L);
+            return job;
+        });
+        when(unitRepository.countByJobIdAndStatusIn(eq(7L), anyCollection())).thenReturn(2L, 1L, 0L);
+        when(unitRepository.findByJobIdOrderByPosition(7L)).thenReturn(List.of(
+                unit(0, ReviewWorkUnit.Status.DONE, "First review", null),
+                unit(1, ReviewWorkUnit.Status.FAILED, null, "Model unavailable")));
+
+        UUID reviewRef = UUID.randomUUID();
+
+        // Act
+        List<ReviewWorkQueue.UnitResult> results;
+        try (UsageLedger.Scope usage = UsageLedger.attribute(
+                new UsageLedger.Attribution("dev@example.com", "https://github.com/owner/repo", reviewRef))) {
+            results = workQueue.run("https://github.com/owner/repo", "Guidelines",
+                    List.of(new ReviewWorkQueue.WorkItem("A.java", "class A {}"),
+                            new ReviewWorkQueue.WorkItem("B.java", "class B {}")));
+        }
+
+        // Assert
+        assertEquals(new ReviewWorkQueue.UnitResult("First review", null), results.get(0));
+        assertEquals(new ReviewWorkQueue.UnitResult(null, "Model unavailable"), results.get(1));
+        assertFalse(results.get(1).isDone());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ReviewWorkUnit>> units = ArgumentCaptor.forClass(List.class);
+        verify(unitRepository).saveAll(units.capture());
+        assertEquals(2, units.getValue().size());
+        assertEquals(1, units.getValue().get(1).getPosition());
+        assertEquals("class B {}", CompressedText.decompress(units.getValue().get(1).getContent()));
+        verify(unitRepository, times(3)).countByJobIdAndStatusIn(eq(7L), anyCollection());
+        verify(jobRepository).save(argThat(job -> "dev@example.com".equals(job.getUserEmail())
+                && reviewRef.equals(job.getReviewRef())));
+        verify(jobRepository).deleteById(7L);
+    }
+
+    @Test
+    void run_ShouldFailAndRemoveTheJob_WhenUnitsWereLost() {
+        // Arrange
+        when(jobRepository.save(any(ReviewJob.class))).thenAnswer(invocation -> {
+            ReviewJob job = invocation.getArgument(0);
+            job.setId(8L);
+            return job;
+        });
+        when(unitRepository.countByJobIdAndStatusIn(eq(8L), anyCollection())).thenReturn(0L);
+        when(unitRepository.findByJobIdOrderByPosition(8L)).thenReturn(List.of());
+
+        // Act & Assert
+        assertThrows(CodeReviewException.class, () -> workQueue.run("https://github.com/owner/repo", "Guidelines",
+                List.of(new ReviewWorkQueue.WorkItem("A.java", "class A {}"))));
+        verify(jobRepository).deleteById(8L);
+    }
+
+    @Test
+    void claim_ShouldMarkLockedUnitsAsOwnedByThisNode() {
+        // Arrange
+        ReviewWorkUnit pending = unit(0, ReviewWorkUnit.Status.PENDING, null, null);
+        pending.setId(11L);
+        pending.setJobId(3L);
+        pending.setLabel("A.java");
+        pending.setContent(CompressedText.compress("class A {}"));
+        when(unitRepository.lockPending(2)).thenReturn(List.of(pending));
+
+        // Act
+        List<ReviewWorkQueue.ClaimedUnit> claimed = workQueue.claim(2);
+
+        // Assert
+        assertEquals(List.of(new ReviewWorkQueue.ClaimedUnit(11L, 3L, "A.java", "class A {}")), claimed);
+        verify(unitRepository).markClaimed(List.of(11L), workQueue.getNodeId());
+    }
+
+    @Test
+    void claim_ShouldNotQuery_WhenNoWorkerIsIdle() {
+        // Act
+        List<ReviewWorkQueue.ClaimedUnit> claimed = workQueue.claim(0);
+
+        // Assert
+        assertTrue(claimed.isEmpty());
+        verifyNoInteractions(unitRepository);
+    }
+
+    @Test
+    void completeAndFail_ShouldOnlyTouchUnitsOfThisNode() {
+        // Arrange
+        config.setMaxAttempts(5);
+        String longError = "x".repeat(2000);
+
+        // Act
+        workQueue.complete(11L, "Review");
+        workQueue.fail(12L, longError);
+
+        // Assert
+        verify(unitRepository).complete(eq(11L), eq(workQueue.getNodeId()), any(byte[].class));
+        verify(unitRepository).fail(12L, workQueue.getNodeId(), "x".repeat(1000), 5);
+    }
+
+    @Test
+    void guidelinesOf_ShouldLoadEachJobOnce() {
+        // Arrange
+        UUID reviewRef = UUID.randomUUID();
+        when(jobRepository.findById(3L)).thenReturn(Optional.of(ReviewJob.builder()
+                .repositoryUrl("https://github.com/owner/repo")
+                .guidelines(CompressedText.compress("Guidelines"))
+                .userEmail("dev@example.com")
+                .reviewRef(reviewRef)
+                .build()));
+
+        // Act
+        String first = workQueue.guidelinesOf(3L);
+        String second = workQueue.guidelinesOf(3L);
+        UsageLedger.Attribution attribution = workQueue.attributionOf(3L);
+
+        // Assert
+        assertEquals("Guidelines", first);
+        assertEquals("Guidelines", second);
+        assertEquals(new UsageLedger.Attribution("dev@example.com", "https://github.com/owner/repo", reviewRef), attribution);
+        verify(jobRepository, times(1)).findById(3L);
+    }
+
+    private ReviewWorkUnit unit(int position, ReviewWorkUnit.Status status, String review, String error) {
+        return ReviewWorkUnit.builder()
+                .position(position)
+                .status(status)
+                .result(review != null ? CompressedText.compress(review) : null)
+                .lastError(error)
+                .build();
+    }
+}
@@ -0,0 +1,89 @@
+package de.purnama.code_review.service;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import de.purnama.code_review.config.ReviewWorkQueueConfig;
+import de.purnama.code_review.exception.AIModelException;
+
+@ExtendWith(MockitoExtension.class)
+class ReviewWorkerTest {
+
+    @Mock
+    private ReviewWorkQueue workQueue;
+
+    @Mock
+    private CodeReviewService codeReviewService;
+
+    private final ReviewWorkQueueConfig config = new ReviewWorkQueueConfig();
+    private ReviewWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        worker = new ReviewWorker(workQueue, codeReviewService, config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        worker.shutdown();
+    }
+
+    @Test
+    void process_ShouldStoreTheReview_WhenItSucceeds() throws Exception {
+        // Arrange
+        when(workQueue.guidelinesOf(3L)).thenReturn("Guidelines");
+        when(codeReviewService.reviewWorkUnit("A.java", "Guidelines", "class A {}")).thenReturn("Looks good");
+
+        // Act
+        worker.process(new ReviewWorkQueue.ClaimedUnit(11L, 3L, "A.java", "class A {}"));
+
+        // Assert
+        verify(workQueue).complete(11L, "Looks good");
+        verify(workQueue, never()).fail(anyLong(), anyString());
+    }
+
+    @Test
+    void process_ShouldFailTheUnit_WhenTheReviewFails() throws Exception {
+        // Arrange
+        when(workQueue.guidelinesOf(3L)).thenReturn("Guidelines");
+        when(codeReviewService.reviewWorkUnit(anyString(), anyString(), anyString()))
+                .thenThrow(new AIModelException("Model unavailable"));
+
+        // Act
+        worker.process(new ReviewWorkQueue.ClaimedUnit(11L, 3L, "A.java", "class A {}"));
+
+        // Assert
+        verify(workQueue).fail(11L, "Model unavailable");
+        verify(workQueue, never()).complete(anyLong(), anyString());
+    }
+
+    @Test
+    void process_ShouldSkipTheUnit_WhenItsJobIsGone() throws Exception {
+        // Arrange
+        when(workQueue.guidelinesOf(3L)).thenReturn(null);
+
+        // Act
+        worker.process(new ReviewWorkQueue.ClaimedUnit(11L, 3L, "A.java", "class A {}"));
+
+        // Assert
+        verifyNoInteractions(codeReviewService);
+        verify(workQueue, never()).complete(anyLong(), anyString());
+    }
+
+    @Test
+    void claimWorkAndMaintain_ShouldDoNothing_WhenDisabled() {
+        // Act
+        worker.claimWork();
+        worker.maintain();
+
+        // Assert
+        verifyNoInteractions(workQueue);
+    }
+}
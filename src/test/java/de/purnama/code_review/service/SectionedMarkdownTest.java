@@ -0,0 +1,46 @@
+package de.purnama.code_review.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+class SectionedMarkdownTest {
+
+    private final MarkdownConverter markdownConverter = new MarkdownConverter();
+
+    @Test
+    void addSection_ShouldRenderEachSectionWhenItIsAdded() {
+        // Arrange
+        SectionedMarkdown document = new SectionedMarkdown(markdownConverter);
+
+        // Act
+        document.addSection("# Summary\n\n");
+        document.addSection(new StringBuilder("## File: Main.java\n\nLooks **good**.\n\n"));
+        document.addSection("");
+        document.addSection(null);
+
+        // Assert
+        assertEquals(2, document.getSectionCount());
+        assertEquals("# Summary\n\n## File: Main.java\n\nLooks **good**.\n\n", document.getMarkdown());
+        assertEquals("<h1 id=\"summary\">Summary</h1>\n", document.getHtmlSections().get(0));
+        assertTrue(document.getHtmlSections().get(1).contains("<p>Looks <strong>good</strong>.</p>"));
+    }
+
+    @Test
+    void writeHtml_ShouldStreamSectionsInOrder() throws Exception {
+        // Arrange
+        SectionedMarkdown document = new SectionedMarkdown(markdownConverter);
+        document.addSection("First\n\n");
+        document.addSection("Second\n\n");
+        StringWriter out = new StringWriter();
+
+        // Act
+        document.writeHtml(out);
+
+        // Assert
+        assertEquals("<p>First</p>\n<p>Second</p>\n", out.toString());
+        assertEquals(out.toString(), document.getHtml());
+    }
+}
@@ -0,0 +1,125 @@
+package de.purnama.code_review.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import de.purnama.code_review.config.UsageLedgerConfig;
+import de.purnama.code_review.exception.QuotaExceededException;
+import de.purnama.code_review.model.TokenUsage;
+import de.purnama.code_review.repository.TokenUsageRepository;
+
+@ExtendWith(MockitoExtension.class)
+class UsageLedgerTest {
+
+    @Mock
+    private TokenUsageRepository tokenUsageRepository;
+
+    private final UsageLedgerConfig config = new UsageLedgerConfig();
+    private UsageLedger usageLedger;
+
+    @BeforeEach
+    void setUp() {
+        usageLedger = new UsageLedger(tokenUsageRepository, config);
+    }
+
+    @Test
+    void recordChat_ShouldChargeReportedTokensToTheCurrentAttribution() {
+        // Arrange
+        UUID reviewRef = UUID.randomUUID();
+        ChatResponse response = new ChatResponse(List.of(new Generation(new AssistantMessage("Looks good"))),
+                ChatResponseMetadata.builder().model("gpt-4.1").usage(new DefaultUsage(1_000_000, 500_000)).build());
+
+        // Act
+        try (UsageLedger.Scope usage = UsageLedger.attribute(
+                new UsageLedger.Attribution("dev@example.com", "https://github.com/owner/repo", reviewRef))) {
+            usageLedger.recordChat(UsageLedger.OPERATION_REVIEW, new Prompt("Review this"), response);
+        }
+
+        // Assert
+        ArgumentCaptor<TokenUsage> entry = ArgumentCaptor.forClass(TokenUsage.class);
+        verify(tokenUsageRepository).save(entry.capture());
+        assertEquals("dev@example.com", entry.getValue().getUserEmail());
+        assertEquals(reviewRef, entry.getValue().getReviewRef());
+        assertEquals("gpt-4.1", entry.getValue().getModel());
+        assertEquals(1_000_000, entry.getValue().getPromptTokens());
+        assertEquals(500_000, entry.getValue().getCompletionTokens());
+        assertFalse(entry.getValue().isEstimated());
+        assertEquals(0, new BigDecimal("6.00").compareTo(entry.getValue().getCost()));
+        assertNull(UsageLedger.current());
+    }
+
+    @Test
+    void recordChat_ShouldEstimateTokens_WhenTheModelReportsNone() {
+        // Arrange
+        ChatResponse response = new ChatResponse(List.of(new Generation(new AssistantMessage("Looks good to me"))));
+
+        // Act
+        usageLedger.recordChat(UsageLedger.OPERATION_DESCRIPTION, new Prompt("Describe this page"), response);
+
+        // Assert
+        ArgumentCaptor<TokenUsage> entry = ArgumentCaptor.forClass(TokenUsage.class);
+        verify(tokenUsageRepository).save(entry.capture());
+        assertTrue(entry.getValue().isEstimated());
+        assertTrue(entry.getValue().getPromptTokens() > 0);
+        assertTrue(entry.getValue().getCompletionTokens() > 0);
+        assertNull(entry.getValue().getUserEmail());
+    }
+
+    @Test
+    void recordEmbedding_ShouldNotFail_WhenTheLedgerCannotBeWritten() {
+        // Arrange
+        when(tokenUsageRepository.save(any(TokenUsage.class))).thenThrow(new DataAccessResourceFailureException("down"));
+
+        // Act & Assert
+        assertDoesNotThrow(() -> usageLedger.recordEmbedding(List.of("Guideline text")));
+    }
+
+    @Test
+    void checkQuota_ShouldRefuse_WhenTheDailyQuotaIsUsedUp() {
+        // Arrange
+        config.setDailyTokenQuota(10_000);
+        when(tokenUsageRepository.sumTokensToday("dev@example.com")).thenReturn(10_000L);
+        when(tokenUsageRepository.sumTokensToday("new@example.com")).thenReturn(9_999L);
+
+        // Act & Assert
+        assertThrows(QuotaExceededException.class, () -> usageLedger.checkQuota("dev@example.com"));
+        assertDoesNotThrow(() -> usageLedger.checkQuota("new@example.com"));
+        assertDoesNotThrow(() -> usageLedger.checkQuota(null));
+    }
+
+    @Test
+    void attribute_ShouldRestoreTheOuterAttribution_WhenClosed() {
+        // Arrange
+        UsageLedger.Attribution outer = new UsageLedger.Attribution("dev@example.com", null, UUID.randomUUID());
+
+        // Act
+        try (UsageLedger.Scope review = UsageLedger.attribute(outer)) {
+            try (UsageLedger.Scope unit = UsageLedger.attribute(null)) {
+                assertNull(UsageLedger.current());
+            }
+
+            // Assert
+            assertSame(outer, UsageLedger.current());
+        }
+        assertNull(UsageLedger.current());
+    }
+}
@@ -0,0 +1,122 @@
+package de.purnama.code_review.service.confluence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class StorageFormatTokenizerTest {
+
+    @Test
+    void parse_ShouldEmitHeadingsParagraphsAndListItemsInOrder() {
+        // Arrange
+        String html = "<h1>Naming</h1><p>Use <strong>descriptive</strong>\n   names.</p>"
+                + "<ul><li><p>Classes are nouns</p></li><li>Methods are verbs</li></ul><h3>Constants</h3>";
+
+        // Act
+        List<String> events = parse(html);
+
+        // Assert
+        assertEquals(List.of("H1:Naming", "P:Use descriptive names.", "P:- Classes are nouns",
+                "P:- Methods are verbs", "H3:Constants"), events);
+    }
+
+    @Test
+    void parse_ShouldKeepCodeMacroBodyAndLanguage() {
+        // Arrange
+        String html = "<p>Example:</p><ac:structured-macro ac:name=\"code\" ac:schema-version=\"1\">"
+                + "<ac:parameter ac:name=\"title\">Guard clause</ac:parameter>"
+                + "<ac:parameter ac:name=\"language\">java</ac:parameter>"
+                + "<ac:plain-text-body><![CDATA[if (user == null) {\n    return;\n}]]></ac:plain-text-body>"
+                + "</ac:structured-macro>";
+
+        // Act
+        List<String> events = parse(html);
+
+        // Assert
+        assertEquals(List.of("P:Example:", "C:java:if (user == null) {\n    return;\n}"), events);
+    }
+
+    @Test
+    void parse_ShouldKeepTextOfOtherMacrosButDropTheirParameters() {
+        // Arrange
+        String html = "<ac:structured-macro ac:name=\"info\"><ac:parameter ac:name=\"title\">Hint</ac:parameter>"
+                + "<ac:rich-text-body><p>Prefer immutable objects.</p></ac:rich-text-body></ac:structured-macro>"
+                + "<ac:structured-macro ac:name=\"html\"><ac:plain-text-body><![CDATA[<b>raw</b>]]></ac:plain-text-body>"
+                + "</ac:structured-macro>";
+
+        // Act
+        List<String> events = parse(html);
+
+        // Assert
+        assertEquals(List.of("P:Prefer immutable objects."), events);
+    }
+
+    @Test
+    void parse_ShouldCollectTableRowsAndPreformattedText() {
+        // Arrange
+        String html = "<table><tbody><tr><th>Rule</th><th>Severity</th></tr>"
+                + "<tr><td><p>No wildcard imports</p></td><td>minor</td></tr></tbody></table>"
+                + "<pre>  indented\n  code</pre>";
+        List<List<String>> tables = new ArrayList<>();
+        List<String> code = new ArrayList<>();
+
+        // Act
+        StorageFormatTokenizer.parse(html, new StorageFormatHandler() {
+            @Override
+            public void table(List<List<String>> rows) {
+                tables.addAll(rows);
+            }
+
+            @Override
+            public void codeBlock(String language, String text) {
+                code.add(text);
+            }
+        });
+
+        // Assert
+        assertEquals(List.of(List.of("Rule", "Severity"), List.of("No wildcard imports", "minor")), tables);
+        assertEquals(List.of("  indented\n  code"), code);
+    }
+
+    @Test
+    void toPlainText_ShouldDecodeEntitiesAndSeparateBlocks() {
+        // Act
+        String text = StorageFormatTokenizer.toPlainText(
+                "<h2>A &amp; B</h2><p>x&nbsp;&lt;&nbsp;y &#8212; &#x41; &unknown; 1 < 2</p><!-- note --><p>end</p>");
+
+        // Assert
+        assertEquals("A & B\n\nx < y — A &unknown; 1 < 2\n\nend", text);
+    }
+
+    @Test
+    void toPlainText_ShouldHandleEmptyAndMalformedInput() {
+        // Act & Assert
+        assertEquals("", StorageFormatTokenizer.toPlainText(null));
+        assertEquals("", StorageFormatTokenizer.toPlainText(""));
+        assertEquals("Text with", StorageFormatTokenizer.toPlainText("Text with <unclosed tag"));
+    }
+
+    private static List<String> parse(String html) {
+        List<String> events = new ArrayList<>();
+        StorageFormatTokenizer.parse(html, new StorageFormatHandler() {
+            @Override
+            public void heading(int level, String text) {
+                events.add("H" + level + ":" + text);
+            }
+
+            @Override
+            public void paragraph(String text) {
+                events.add("P:" + text);
+            }
+
+            @Override
+            public void codeBlock(String language, String code) {
+                events.add("C:" + language + ":" + code);
+            }
+        });
+        return events;
+    }
+}
@@ -0,0 +1,124 @@
+package de.purnama.code_review.service.confluence;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class StructureChunkerTest {
+
+    private final StructureChunker chunker = new StructureChunker(400, 50, 3);
+
+    @Test
+    void chunk_ShouldStartBlockPerSectionAndTitleItWithSectionPath() {
+        // Arrange
+        String html = "<h1>Naming</h1><p>Names should reveal intent.</p>"
+                + "<h2>Constants</h2><p>Constants use UPPER_SNAKE_CASE.</p>"
+                + "<h4>Enums</h4><p>Enum values count as constants.</p>"
+                + "<h2>Packages</h2><p>Package names are lower case.</p>";
+
+        // Act
+        List<StructureChunker.Chunk> chunks = chunker.chunk(html, "Java Guidelines");
+
+        // Assert
+        assertEquals(3, chunks.size());
+        assertEquals("Java Guidelines > Naming", chunks.get(0).title());
+        assertEquals("Naming\nNames should reveal intent.", chunks.get(0).content());
+        assertEquals("Java Guidelines > Naming > Constants", chunks.get(1).title());
+        assertEquals("Constants\nConstants use UPPER_SNAKE_CASE.\nEnums\nEnum values count as constants.",
+                chunks.get(1).content());
+        assertEquals("Java Guidelines > Naming > Packages", chunks.get(2).title());
+    }
+
+    @Test
+    void chunk_ShouldKeepOversizedCodeExampleWholeWithItsHeading() {
+        // Arrange
+        String code = "int value = 0;\n".repeat(200);
+        String html = "<h2>Example</h2><ac:structured-macro ac:name=\"code\"><ac:plain-text-body><![CDATA["
+                + code + "]]></ac:plain-text-body></ac:structured-macro><p>After the example.</p>";
+
+        // Act
+        List<StructureChunker.Chunk> chunks = chunker.chunk(html, null);
+
+        // Assert
+        assertEquals(2, chunks.size());
+        assertEquals("Example\n" + code.trim(), chunks.get(0).content());
+        assertEquals("Example", chunks.get(1).title());
+        assertEquals("After the example.", chunks.get(1).content());
+    }
+
+    @Test
+    void chunk_ShouldSplitLongSectionWithinLimitAndOverlap() {
+        // Arrange
+        StructureChunker small = new StructureChunker(30, 10, 3);
+        StringBuilder html = new StringBuilder("<h1>Rules</h1>");
+        for (int i = 0; i < 6; i++) {
+            html.append("<p>Rule number ").append(i).append(" applies to every module.</p>");
+        }
+
+        // Act
+        List<StructureChunker.Chunk> chunks = small.chunk(html, null);
+
+        // Assert
+        assertTrue(chunks.size() > 1);
+        for (StructureChunker.Chunk chunk : chunks) {
+            assertEquals("Rules", chunk.title());
+            assertTrue(StructureChunker.estimateTokens(chunk.content()) <= 30);
+        }
+        String lastOfFirst = chunks.get(0).content().substring(chunks.get(0).content().lastIndexOf('\n') + 1);
+        assertTrue(chunks.get(1).content().startsWith(lastOfFirst));
+    }
+
+    @Test
+    void chunk_ShouldSplitOversizedParagraphBySentence() {
+        // Arrange
+        StructureChunker small = new StructureChunker(20, 0, 3);
+        String paragraph = "a".repeat(50) + ". " + "b".repeat(50) + ". " + "c".repeat(200);
+
+        // Act
+        List<StructureChunker.Chunk> chunks = small.chunk("<p>" + paragraph + "</p>", "Page");
+
+        // Assert
+        assertEquals("a".repeat(50) + ".", chunks.get(0).content());
+        assertEquals("b".repeat(50) + ".", chunks.get(1).content());
+        for (StructureChunker.Chunk chunk : chunks) {
+            assertTrue(chunk.content().length() <= 80);
+        }
+    }
+
+    @Test
+    void chunk_ShouldUseFirstSentenceAsTitleWithoutHeadings() {
+        // Act
+        List<StructureChunker.Chunk> chunks = chunker.chunk("<p>Always close resources. Use try-with-resources.</p>", null);
+
+        // Assert
+        assertEquals(1, chunks.size());
+        assertEquals("Always close resources.", chunks.get(0).title());
+    }
+
+    @Test
+    void tail_ShouldReturnTrailingSentencesWithinBudget() {
+        // Act & Assert
+        assertEquals("Third one.", StructureChunker.tail("First sentence here. Second sentence here. Third one.", 4));
+        assertEquals("seven eight", StructureChunker.tail("one two three four five six seven eight", 3));
+    }
+
+    @Test
+    void splitIntoSentences_ShouldSplitAtTerminatorsFollowedByWhitespace() {
+        // Act & Assert
+        assertEquals(List.of(), StructureChunker.splitIntoSentences(null));
+        assertEquals(List.of(), StructureChunker.splitIntoSentences(""));
+        assertEquals(List.of("One.", "Two!", "Three?", "v1.2 stays"),
+                StructureChunker.splitIntoSentences("One. Two! Three? v1.2 stays"));
+    }
+
+    @Test
+    void splitIntoWords_ShouldSplitAtWhitespace() {
+        // Act & Assert
+        assertArrayEquals(new String[0], StructureChunker.splitIntoWords(null));
+        assertArrayEquals(new String[] {"First", "second", "third"}, StructureChunker.splitIntoWords(" First  second\nthird "));
+    }
+}
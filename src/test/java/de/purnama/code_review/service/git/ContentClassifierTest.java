@@ -0,0 +1,108 @@
+package de.purnama.code_review.service.git;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Base64;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import de.purnama.code_review.config.ContentGateConfig;
+
+class ContentClassifierTest {
+
+    private final ContentClassifier classifier = new ContentClassifier();
+
+    private static String javaSource(int methods) {
+        StringBuilder source = new StringBuilder("package demo;\n\npublic class Demo {\n");
+        for (int i = 0; i < methods; i++) {
+            source.append("    /**\n     * Adds ").append(i).append(" to the value\n     */\n")
+                    .append("    public int add").append(i).append("(int value) {\n")
+                    .append("        return value + ").append(i).append(";\n    }\n\n");
+        }
+        return source.append("}\n").toString();
+    }
+
+    @Test
+    void classify_acceptsOrdinarySourceCode() {
+        assertTrue(classifier.classify(javaSource(200)).isReviewable());
+        assertTrue(classifier.classify("class Tiny {}").isReviewable());
+    }
+
+    @Test
+    void classify_detectsMinifiedContent() {
+        // Arrange
+        String minified = "!function(e){var t={};function n(r){if(t[r])return t[r].exports}}".repeat(200);
+
+        // Act
+        ContentClassifier.Verdict verdict = classifier.classify(minified);
+
+        // Assert
+        assertEquals(ContentClassifier.Kind.MINIFIED, verdict.kind());
+        assertTrue(verdict.reason().startsWith("minified"));
+    }
+
+    @Test
+    void classify_detectsBinaryContent() {
+        assertEquals(ContentClassifier.Kind.BINARY, classifier.classify("PK\u0003\u0004\u0000\u0000binary").kind());
+    }
+
+    @Test
+    void classify_detectsGeneratedMarkerInHeader() {
+        // Arrange
+        String generated = "// Code generated by protoc-gen-go. DO NOT EDIT.\npackage api\n\ntype Request struct {}\n";
+        String markerDeepInFile = javaSource(20) + "// do not edit this line by hand\n";
+
+        // Act & Assert
+        assertEquals(ContentClassifier.Kind.GENERATED, classifier.classify(generated).kind());
+        assertTrue(classifier.classify(markerDeepInFile).isReviewable());
+    }
+
+    @Test
+    void classify_keepsHandWrittenFilesThatAskNotToEdit() {
+        // Arrange
+        String handWritten = "// Do not edit this list without updating the migration guide\n" + javaSource(20);
+
+        // Act & Assert
+        assertTrue(classifier.classify(handWritten).isReviewable());
+    }
+
+    @Test
+    void classify_detectsEncodedData() {
+        // Arrange
+        byte[] random = new byte[8 * 1024];
+        new Random(42).nextBytes(random);
+        String encoded = Base64.getMimeEncoder().encodeToString(random);
+
+        // Act
+        ContentClassifier.Verdict verdict = classifier.classify(encoded);
+
+        // Assert
+        assertEquals(ContentClassifier.Kind.ENCODED, verdict.kind());
+    }
+
+    @Test
+    void checkSize_rejectsFilesOverTheLimitBeforeDownload() {
+        // Arrange
+        ContentGateConfig config = new ContentGateConfig();
+        config.setMaxFileSize(1024);
+        ContentClassifier strict = new ContentClassifier(config);
+
+        // Act & Assert
+        assertEquals(ContentClassifier.Kind.OVERSIZED, strict.checkSize(4096).kind());
+        assertEquals("larger than 1 KB (4 KB)", strict.checkSize(4096).reason());
+        assertTrue(strict.checkSize(-1).isReviewable());
+        assertTrue(strict.checkSize(1024).isReviewable());
+    }
+
+    @Test
+    void classify_acceptsEverythingWhenDisabled() {
+        // Arrange
+        ContentGateConfig config = new ContentGateConfig();
+        config.setEnabled(false);
+
+        // Act & Assert
+        assertTrue(new ContentClassifier(config).classify("\u0000\u0000").isReviewable());
+    }
+}
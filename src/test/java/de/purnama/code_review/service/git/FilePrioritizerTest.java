@@ -0,0 +1,110 @@
+package de.purnama.code_review.service.git;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import de.purnama.code_review.config.FilePrioritizationConfig;
+import de.purnama.code_review.model.git.FileCandidate;
+import de.purnama.code_review.model.git.FileSelectionReport;
+
+class FilePrioritizerTest {
+
+    private final FilePrioritizer prioritizer = new FilePrioritizer();
+
+    private static FileCandidate candidate(String path, long size) {
+        return FileCandidate.builder().path(path).size(size).build();
+    }
+
+    private static List<String> paths(List<FileCandidate> candidates) {
+        return candidates.stream().map(FileCandidate::getPath).toList();
+    }
+
+    @Test
+    void select_prefersMainCodeOverTestsConfigurationAndTrivialFiles() {
+        // Arrange
+        List<FileCandidate> candidates = List.of(
+                candidate(".github/workflows/build.yml", 2_000),
+                candidate("src/test/java/ServiceTest.java", 4_000),
+                candidate("src/main/java/Empty.java", 40),
+                candidate("src/main/java/Service.java", 4_000));
+        FileSelectionReport report = new FileSelectionReport();
+
+        // Act
+        List<FileCandidate> selected = prioritizer.select(candidates, Map.of(), 2, report);
+
+        // Assert
+        assertEquals(List.of("src/main/java/Service.java", "src/test/java/ServiceTest.java"), paths(selected));
+        assertEquals(4, report.getCandidateCount());
+        assertEquals(2, report.getSkippedFiles().size());
+        assertEquals(FilePrioritizer.SKIPPED_BY_RANKING, report.getSkippedFiles().get(0).getReason());
+    }
+
+    @Test
+    void select_usesChurnToBreakTiesAndPathForStableOrder() {
+        // Arrange
+        List<FileCandidate> candidates = List.of(
+                candidate("src/b.py", 1_000),
+                candidate("src/a.py", 1_000),
+                candidate("src/c.py", 1_000));
+
+        // Act
+        List<FileCandidate> selected = prioritizer.select(candidates, Map.of("src/c.py", 3), 3, new FileSelectionReport());
+
+        // Assert
+        assertEquals(List.of("src/c.py", "src/a.py", "src/b.py"), paths(selected));
+    }
+
+    @Test
+    void select_penalisesOversizedFiles() {
+        // Arrange
+        List<FileCandidate> candidates = List.of(
+                candidate("src/Huge.java", 2_000_000),
+                candidate("src/Normal.java", 10_000));
+
+        // Act
+        List<FileCandidate> selected = prioritizer.select(candidates, Map.of(), 1, new FileSelectionReport());
+
+        // Assert
+        assertEquals(List.of("src/Normal.java"), paths(selected));
+    }
+
+    @Test
+    void select_keepsListingOrderWhenDisabled() {
+        // Arrange
+        FilePrioritizationConfig config = new FilePrioritizationConfig();
+        config.setEnabled(false);
+        FilePrioritizer disabled = new FilePrioritizer(config);
+        List<FileCandidate> candidates = List.of(candidate("src/test/ATest.java", 10), candidate("src/Main.java", 1_000));
+
+        // Act
+        List<FileCandidate> selected = disabled.select(candidates, Map.of(), 1, new FileSelectionReport());
+
+        // Assert
+        assertEquals(List.of("src/test/ATest.java"), paths(selected));
+        assertFalse(disabled.needsChurn(2, 1));
+    }
+
+    @Test
+    void needsChurn_onlyWhenCandidatesExceedLimit() {
+        assertTrue(prioritizer.needsChurn(11, 10));
+        assertFalse(prioritizer.needsChurn(10, 10));
+    }
+
+    @Test
+    void isTestPath_recognisesDirectoriesAndNamingConventions() {
+        assertTrue(FilePrioritizer.isTestPath("src/test/java/App.java"));
+        assertTrue(FilePrioritizer.isTestPath("web/__tests__/app.js"));
+        assertTrue(FilePrioritizer.isTestPath("pkg/server_test.go"));
+        assertTrue(FilePrioritizer.isTestPath("lib/test_utils.py"));
+        assertTrue(FilePrioritizer.isTestPath("web/app.spec.ts"));
+        assertTrue(FilePrioritizer.isTestPath("src/main/java/AppIT.java"));
+        assertFalse(FilePrioritizer.isTestPath("src/main/java/Contest.java"));
+        assertFalse(FilePrioritizer.isTestPath("src/main/java/testing_helpers.py"));
+    }
+}
@@ -0,0 +1,108 @@
+package de.purnama.code_review.service.git;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.purnama.code_review.config.GitHubConfig;
+import de.purnama.code_review.model.git.FileSelectionReport;
+import de.purnama.code_review.model.git.GitFile;
+import de.purnama.code_review.service.ReviewMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Tests GitHubProvider against a local HTTP stub of the GitHub API and raw file host, which
+ * like a private repository only answers requests that carry the token
+ */
+class GitHubProviderTest {
+
+    private HttpServer server;
+    private GitHubProvider provider;
+    private final Map<String, String> responses = new ConcurrentHashMap<>();
+    private final Map<String, String> authorizations = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+
+        String base = "http://localhost:" + server.getAddress().getPort();
+        GitHubConfig config = new GitHubConfig();
+        config.setApiUrl(base + "/api");
+        config.setRawUrl(base + "/raw");
+        config.setToken("secret");
+
+        provider = new GitHubProvider(config.githubWebClient(new ReviewMetrics(new SimpleMeterRegistry()), ObservationRegistry.NOOP),
+                config, new ObjectMapper(), new RepositoryPathFilter(), new FilePrioritizer());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getRawPath();
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization != null) {
+            authorizations.put(path, authorization);
+        }
+
+        String body = responses.get(path);
+        if (body == null || !"token secret".equals(authorization)) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Test
+    void fetchRepositoryFiles_ShouldSendTheTokenWithRawDownloads() throws Exception {
+        // Arrange
+        responses.put("/api/repos/owner/repo/git/trees/main",
+                "{\"truncated\":false,\"tree\":[{\"path\":\"src/Main.java\",\"type\":\"blob\",\"size\":20}]}");
+        responses.put("/raw/owner/repo/main/src/Main.java", "class Main {}");
+
+        // Act
+        List<GitFile> files = provider.fetchRepositoryFiles("owner", "repo", "main", 10, new FileSelectionReport());
+
+        // Assert
+        assertEquals(1, files.size());
+        assertEquals("class Main {}", files.get(0).getContent());
+        assertEquals("token secret", authorizations.get("/raw/owner/repo/main/src/Main.java"));
+    }
+
+    @Test
+    void fetchFileContent_ShouldSendTheToken() throws Exception {
+        // Arrange
+        responses.put("/raw/owner/repo/main/src/Main.java", "class Main {}");
+        String url = "https://github.com/owner/repo/blob/main/src/Main.java";
+
+        // Act
+        String content = provider.fetchFileContent(url);
+
+        // Assert
+        assertEquals("class Main {}", content);
+    }
+}
@@ -0,0 +1,295 @@
+package de.purnama.code_review.service.git;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.purnama.code_review.config.ContentGateConfig;
+import de.purnama.code_review.config.FilePrioritizationConfig;
+import de.purnama.code_review.config.GitLabConfig;
+import de.purnama.code_review.exception.GitProviderException;
+import de.purnama.code_review.model.git.FileSelectionReport;
+import de.purnama.code_review.model.git.GitFile;
+
+/**
+ * Tests GitLabProvider against a local HTTP stub of the GitLab v4 API
+ */
+class GitLabProviderTest {
+
+    private static final String PROJECT = "/api/v4/projects/group%2Fsub%2Fproject";
+
+    private HttpServer server;
+    private GitLabConfig config;
+    private GitLabProvider provider;
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> responses = new ConcurrentHashMap<>();
+    private final Map<String, String> nextPages = new ConcurrentHashMap<>();
+    private final Set<String> revalidated = ConcurrentHashMap.newKeySet();
+    private final Set<String> chunked = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+
+        config = new GitLabConfig();
+        config.setBaseUrl("http://localhost:" + server.getAddress().getPort());
+        config.setToken("secret");
+        config.setPerPage(2);
+
+        provider = new GitLabProvider(config.gitlabWebClient(), config, new ObjectMapper(), new RepositoryPathFilter(),
+                new FilePrioritizer());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String key = exchange.getRequestURI().getRawPath()
+                + (exchange.getRequestURI().getRawQuery() != null ? "?" + exchange.getRequestURI().getRawQuery() : "");
+        hits.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+
+        byte[] body = responses.get(key);
+        if (body == null || !"secret".equals(exchange.getRequestHeaders().getFirst("PRIVATE-TOKEN"))) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+
+        if (exchange.getRequestHeaders().containsKey("If-None-Match")) {
+            revalidated.add(key);
+        }
+        String etag = "\"" + body.length + "\"";
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        exchange.getResponseHeaders().add("ETag", etag);
+        if (nextPages.containsKey(key)) {
+            exchange.getResponseHeaders().add("X-Next-Page", nextPages.get(key));
+        }
+        exchange.sendResponseHeaders(200, chunked.contains(key) ? 0 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void stub(String pathAndQuery, String body) {
+        responses.put(pathAndQuery, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String treeUrl(int page) {
+        return PROJECT + "/repository/tree?recursive=true&per_page=2&ref=main&page=" + page;
+    }
+
+    private void stubTwoPageTree() {
+        stub(treeUrl(1), "[{\"id\":\"a1\",\"name\":\"App.java\",\"type\":\"blob\",\"path\":\"src/App.java\"},"
+                + "{\"id\":\"n1\",\"name\":\"lib.js\",\"type\":\"blob\",\"path\":\"node_modules/lib.js\"}]");
+        nextPages.put(treeUrl(1), "2");
+        stub(treeUrl(2), "[{\"id\":\"d1\",\"name\":\"src\",\"type\":\"tree\",\"path\":\"src\"},"
+                + "{\"id\":\"b1\",\"name\":\"Util.py\",\"type\":\"blob\",\"path\":\"src/Util.py\"}]");
+        stub(PROJECT + "/repository/blobs/a1/raw", "class App {}");
+        stub(PROJECT + "/repository/blobs/b1/raw", "def util(): pass");
+    }
+
+    @Test
+    void canHandle_matchesConfiguredHostAndGitLabHosts() {
+        assertTrue(provider.canHandle(config.getBaseUrl() + "/group/project"));
+        assertTrue(provider.canHandle("https://gitlab.example.com/group/project"));
+        assertFalse(provider.canHandle("https://github.com/owner/repo"));
+        assertFalse(provider.canHandle(null));
+    }
+
+    @Test
+    void extractRepositoryInfoFromUrl_supportsNestedGroupsAndBlobUrls() throws Exception {
+        Map<String, String> info = provider.extractRepositoryInfoFromUrl(
+                "https://gitlab.example.com/group/sub/project/-/blob/develop/src/main/App.java");
+
+        assertEquals("group/sub", info.get("owner"));
+        assertEquals("project", info.get("repo"));
+        assertEquals("develop", info.get("branch"));
+        assertEquals("src/main/App.java", info.get("path"));
+    }
+
+    @Test
+    void extractRepositoryInfoFromUrl_defaultsBranchForProjectUrl() throws Exception {
+        Map<String, String> info = provider.extractRepositoryInfoFromUrl("https://gitlab.example.com/group/project.git");
+
+        assertEquals("group", info.get("owner"));
+        assertEquals("project", info.get("repo"));
+        assertEquals("main", info.get("branch"));
+        assertFalse(info.containsKey("path"));
+    }
+
+    @Test
+    void extractRepositoryInfoFromUrl_rejectsUrlWithoutNamespace() {
+        assertThrows(GitProviderException.class,
+                () -> provider.extractRepositoryInfoFromUrl("https://gitlab.example.com/project"));
+    }
+
+    @Test
+    void fetchFileContent_usesRawFileEndpoint() throws Exception {
+        stub(PROJECT + "/repository/files/src%2FApp.java/raw?ref=main", "class App {}");
+
+        String content = provider.fetchFileContent(config.getBaseUrl() + "/group/sub/project/-/blob/main/src/App.java");
+
+        assertEquals("class App {}", content);
+    }
+
+    @Test
+    void fetchRepositoryFiles_pagesTreeFiltersAndDownloadsBlobs() throws Exception {
+        stubTwoPageTree();
+
+        List<GitFile> files = provider.fetchRepositoryFiles("group/sub", "project", "main", 10);
+
+        assertEquals(2, files.size());
+        assertEquals("src/App.java", files.get(0).getPath());
+        assertEquals("class App {}", files.get(0).getContent());
+        assertEquals("src/Util.py", files.get(1).getPath());
+        assertTrue(files.get(1).getUrl().endsWith("/group/sub/project/-/blob/main/src/Util.py"));
+        assertEquals(null, hits.get(PROJECT + "/repository/blobs/n1/raw"), "Ignored directories must not be downloaded");
+    }
+
+    @Test
+    void fetchRepositoryFiles_ranksAllCandidatesBeforeDownloading() throws Exception {
+        stubTwoPageTree();
+        stub(PROJECT + "/repository/commits?per_page=30&ref_name=main", "[{\"id\":\"c1\"},{\"id\":\"c2\"}]");
+        stub(PROJECT + "/repository/commits/c1/diff", "[{\"new_path\":\"src/Util.py\"}]");
+        stub(PROJECT + "/repository/commits/c2/diff", "[{\"new_path\":\"src/Util.py\"},{\"new_path\":\"README.md\"}]");
+        FileSelectionReport report = new FileSelectionReport();
+
+        List<GitFile> files = provider.fetchRepositoryFiles("group/sub", "project", "main", 1, report);
+
+        assertEquals(1, files.size());
+        assertEquals("src/Util.py", files.get(0).getPath(), "The file with churn must win");
+        assertEquals(2, report.getCandidateCount());
+        assertEquals("src/App.java", report.getSkippedFiles().get(0).getPath());
+        assertEquals(null, hits.get(PROJECT + "/repository/blobs/a1/raw"), "Skipped files must not be downloaded");
+    }
+
+    @Test
+    void fetchRepositoryFiles_reusesCachedResponsesOnNotModified() throws Exception {
+        stubTwoPageTree();
+
+        provider.fetchRepositoryFiles("group/sub", "project", "main", 10);
+        List<GitFile> secondRun = provider.fetchRepositoryFiles("group/sub", "project", "main", 10);
+
+        assertEquals(2, secondRun.size());
+        assertEquals("class App {}", secondRun.get(0).getContent());
+        assertEquals(2, hits.get(treeUrl(1)).get());
+        assertTrue(revalidated.contains(treeUrl(1)));
+    }
+
+    @Test
+    void fetchRepositoryFiles_doesNotCacheBlobContents() throws Exception {
+        stubTwoPageTree();
+
+        provider.fetchRepositoryFiles("group/sub", "project", "main", 10);
+        List<GitFile> secondRun = provider.fetchRepositoryFiles("group/sub", "project", "main", 10);
+
+        assertEquals("class App {}", secondRun.get(0).getContent());
+        assertEquals(2, hits.get(PROJECT + "/repository/blobs/a1/raw").get());
+        assertFalse(revalidated.contains(PROJECT + "/repository/blobs/a1/raw"), "Blob downloads must not be revalidated");
+    }
+
+    @Test
+    void fetchRepositoryFiles_usesArchiveWhenManyFilesSelected() throws Exception {
+        stubTwoPageTree();
+        config.setArchiveThreshold(2);
+        responses.put(PROJECT + "/repository/archive.tar.gz?sha=main", tarGz(Map.of(
+                "project-main-abc/src/App.java", "class App {}",
+                "project-main-abc/src/Util.py", "def util(): pass",
+                "project-main-abc/README.md", "readme")));
+
+        List<GitFile> files = provider.fetchRepositoryFiles("group/sub", "project", "main", 10);
+
+        assertEquals(2, files.size());
+        assertEquals("def util(): pass", files.get(1).getContent());
+        assertEquals(null, hits.get(PROJECT + "/repository/blobs/a1/raw"));
+    }
+
+    @Test
+    void fetchRepositoryFiles_skipsBlobsAboveTheSizeGate() throws Exception {
+        stubTwoPageTree();
+        stub(PROJECT + "/repository/blobs/a1/raw", "class App { " + "int field;\n".repeat(20) + "}");
+        stub(PROJECT + "/repository/blobs/b1/raw", "def util(): " + "pass\n".repeat(40));
+        chunked.add(PROJECT + "/repository/blobs/b1/raw");
+        ContentGateConfig gate = new ContentGateConfig();
+        gate.setMaxFileSize(100);
+        provider = new GitLabProvider(config.gitlabWebClient(), config, new ObjectMapper(), new RepositoryPathFilter(),
+                new FilePrioritizer(new FilePrioritizationConfig(), new ContentClassifier(gate)));
+
+        List<GitFile> files = provider.fetchRepositoryFiles("group/sub", "project", "main", 10);
+
+        assertTrue(files.isEmpty(), "Blobs above the limit must be skipped with or without Content-Length");
+    }
+
+    @Test
+    void fetchRepositoryFiles_skipsArchiveEntriesAboveTheSizeGate() throws Exception {
+        stubTwoPageTree();
+        config.setArchiveThreshold(2);
+        responses.put(PROJECT + "/repository/archive.tar.gz?sha=main", tarGz(Map.of(
+                "project-main-abc/src/App.java", "class App { " + "int field;\n".repeat(20) + "}",
+                "project-main-abc/src/Util.py", "def util(): pass")));
+        ContentGateConfig gate = new ContentGateConfig();
+        gate.setMaxFileSize(100);
+        provider = new GitLabProvider(config.gitlabWebClient(), config, new ObjectMapper(), new RepositoryPathFilter(),
+                new FilePrioritizer(new FilePrioritizationConfig(), new ContentClassifier(gate)));
+
+        List<GitFile> files = provider.fetchRepositoryFiles("group/sub", "project", "main", 10);
+
+        assertEquals(List.of("src/Util.py"), files.stream().map(GitFile::getPath).toList());
+    }
+
+    /**
+     * Builds a minimal ustar archive, gzip-compressed, the way git archive lays it out
+     */
+    private static byte[] tarGz(Map<String, String> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                byte[] content = entry.getValue().getBytes(StandardCharsets.UTF_8);
+                byte[] header = new byte[512];
+                byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                System.arraycopy(name, 0, header, 0, name.length);
+                byte[] size = String.format("%011o", content.length).getBytes(StandardCharsets.US_ASCII);
+                System.arraycopy(size, 0, header, 124, size.length);
+                header[156] = '0';
+                byte[] magic = "ustar".getBytes(StandardCharsets.US_ASCII);
+                System.arraycopy(magic, 0, header, 257, magic.length);
+                gzip.write(header);
+                gzip.write(content);
+                gzip.write(new byte[(512 - content.length % 512) % 512]);
+            }
+            gzip.write(new byte[1024]);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,213 @@
+package de.purnama.code_review.service.git;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.purnama.code_review.config.LocalRepositoryConfig;
+import de.purnama.code_review.exception.GitProviderException;
+import de.purnama.code_review.model.git.FileSelectionReport;
+import de.purnama.code_review.model.git.GitFile;
+
+class LocalRepositoryProviderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @TempDir
+    Path outsideDir;
+
+    private LocalRepositoryConfig config;
+    private LocalRepositoryProvider provider;
+    private Path repository;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        config = new LocalRepositoryConfig();
+        config.setAllowedRoots(List.of(tempDir.toString()));
+        provider = new LocalRepositoryProvider(config, new RepositoryPathFilter(), new FilePrioritizer());
+
+        repository = tempDir.resolve("project");
+        write("src/main/App.java", "class App {}");
+        write("src/main/Util.py", "def util(): pass");
+        write("node_modules/lib/index.js", "module.exports = {}");
+        write("README.md", "# Readme");
+        Files.createDirectories(repository.resolve(".git"));
+    }
+
+    private void write(String relativePath, String content) throws IOException {
+        Path file = repository.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    @Test
+    void canHandle_onlyAcceptsFileUrls() {
+        assertTrue(provider.canHandle("file:///srv/mirrors/project"));
+        assertFalse(provider.canHandle("https://github.com/owner/repo"));
+        assertFalse(provider.canHandle(null));
+    }
+
+    @Test
+    void extractRepositoryInfoFromUrl_findsRepositoryRootAndFilePath() throws Exception {
+        Map<String, String> info = provider.extractRepositoryInfoFromUrl(
+                repository.resolve("src/main/App.java").toUri().toString());
+
+        assertEquals(tempDir.toString(), info.get("owner"));
+        assertEquals("project", info.get("repo"));
+        assertEquals("src/main/App.java", info.get("path"));
+    }
+
+    @Test
+    void extractRepositoryInfoFromUrl_rejectsPathsOutsideAllowedRoots() {
+        config.setAllowedRoots(List.of(tempDir.resolve("other").toString()));
+
+        assertThrows(GitProviderException.class,
+                () -> provider.extractRepositoryInfoFromUrl(repository.toUri().toString()));
+    }
+
+    @Test
+    void fetchFileContent_readsFileFromWorkingTree() throws Exception {
+        String content = provider.fetchFileContent(repository.resolve("src/main/App.java").toUri().toString());
+
+        assertEquals("class App {}", content);
+    }
+
+    @Test
+    void fetchFileContent_rejectsSymbolicLinksOutOfTheRepository() throws Exception {
+        Path outside = Files.createDirectories(outsideDir.resolve("secrets"));
+        Files.writeString(outside.resolve("key.txt"), "secret");
+        try {
+            Files.createSymbolicLink(repository.resolve("src/linked"), outside);
+            Files.createSymbolicLink(repository.resolve("src/key.txt"), outside.resolve("key.txt"));
+        } catch (UnsupportedOperationException | IOException e) {
+            assumeTrue(false, "symbolic links are not supported");
+        }
+
+        assertThrows(GitProviderException.class,
+                () -> provider.fetchFileContent(repository.resolve("src/linked/key.txt").toUri().toString()));
+        assertThrows(GitProviderException.class,
+                () -> provider.fetchFileContent(repository.resolve("src/key.txt").toUri().toString()));
+    }
+
+    @Test
+    void resolveHeadCommit_givesUpOnHangingGit() throws Exception {
+        Path git = tempDir.resolve("hanging-git");
+        Files.writeString(git, "#!/bin/sh\nsleep 30\n");
+        assumeTrue(git.toFile().setExecutable(true) && Files.isExecutable(Path.of("/bin/sh")), "no POSIX shell");
+        Path bare = Files.createDirectories(tempDir.resolve("hanging.git"));
+        Files.writeString(bare.resolve("HEAD"), "ref: refs/heads/main\n");
+        Files.createDirectories(bare.resolve("objects"));
+        Files.createDirectories(bare.resolve("refs"));
+        config.setGitExecutable(git.toString());
+        config.setGitTimeoutSeconds(1);
+
+        String commit = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> provider.resolveHeadCommit(tempDir.toString(), "hanging.git", "main"));
+
+        assertNull(commit);
+    }
+
+    @Test
+    void fetchRepositoryFiles_givesUpOnGitThatStallsWhileStreamingBlobs() throws Exception {
+        // Lists one blob, then never answers the cat-file request
+        Path git = tempDir.resolve("stalling-git");
+        Files.writeString(git, "#!/bin/sh\n"
+                + "for a in \"$@\"; do\n"
+                + "  case \"$a\" in\n"
+                + "    ls-tree) printf '100644 blob 0123456789abcdef0123456789abcdef01234567      12\\tsrc/App.java\\000'; exit 0;;\n"
+                + "    --batch) exec sleep 30;;\n"
+                + "  esac\n"
+                + "done\n"
+                + "exit 1\n");
+        assumeTrue(git.toFile().setExecutable(true) && Files.isExecutable(Path.of("/bin/sh")), "no POSIX shell");
+        Path bare = Files.createDirectories(tempDir.resolve("stalling.git"));
+        Files.writeString(bare.resolve("HEAD"), "ref: refs/heads/main\n");
+        Files.createDirectories(bare.resolve("objects"));
+        Files.createDirectories(bare.resolve("refs"));
+        config.setGitExecutable(git.toString());
+        config.setGitTimeoutSeconds(1);
+
+        GitProviderException exception = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(
+                GitProviderException.class, () -> provider.fetchRepositoryFiles(tempDir.toString(), "stalling.git", "main", 10)));
+
+        assertTrue(exception.getMessage().contains("timed out"), exception.getMessage());
+    }
+
+    @Test
+    void fetchRepositoryFiles_walksWorkingTreeInStableOrderAndAppliesFilters() throws Exception {
+        List<GitFile> files = provider.fetchRepositoryFiles(tempDir.toString(), "project", "HEAD", 10);
+
+        assertEquals(List.of("src/main/App.java", "src/main/Util.py"), files.stream().map(GitFile::getPath).toList());
+    }
+
+    @Test
+    void fetchRepositoryFiles_prefersMainCodeAndReportsSkippedFiles() throws Exception {
+        write("src/test/AppTest.java", "class AppTest {}");
+        FileSelectionReport report = new FileSelectionReport();
+
+        List<GitFile> files = provider.fetchRepositoryFiles(tempDir.toString(), "project", "HEAD", 2, report);
+
+        assertEquals(List.of("src/main/App.java", "src/main/Util.py"), files.stream().map(GitFile::getPath).toList());
+        assertEquals(3, report.getCandidateCount());
+        assertEquals("src/test/AppTest.java", report.getSkippedFiles().get(0).getPath());
+    }
+
+    @Test
+    void fetchRepositoryFiles_memoryMapsLargeFiles() throws Exception {
+        config.setMmapThreshold(1);
+
+        List<GitFile> files = provider.fetchRepositoryFiles(tempDir.toString(), "project", "HEAD", 1);
+
+        assertEquals(1, files.size());
+        assertEquals("class App {}", files.get(0).getContent());
+    }
+
+    @Test
+    void fetchRepositoryFiles_readsBareRepositoryThroughGit() throws Exception {
+        assumeTrue(git(tempDir, "--version") == 0, "git is not available");
+
+        assertEquals(0, git(repository, "init", "-q"));
+        assertEquals(0, git(repository, "add", "."));
+        assertEquals(0, git(repository, "-c", "user.name=test", "-c", "user.email=test@example.com",
+                "commit", "-q", "-m", "initial"));
+        assertEquals(0, git(tempDir, "clone", "-q", "--bare", repository.toString(), "mirror.git"));
+
+        List<GitFile> files = provider.fetchRepositoryFiles(tempDir.toString(), "mirror.git", "HEAD", 10);
+        String single = provider.fetchFileContent(tempDir.resolve("mirror.git").toUri() + "src/main/Util.py");
+
+        assertEquals(List.of("src/main/App.java", "src/main/Util.py"), files.stream().map(GitFile::getPath).toList());
+        assertEquals("class App {}", files.get(0).getContent());
+        assertEquals("def util(): pass", single);
+    }
+
+    private static int git(Path directory, String... arguments) throws Exception {
+        String[] command = new String[arguments.length + 1];
+        command[0] = "git";
+        System.arraycopy(arguments, 0, command, 1, arguments.length);
+        try {
+            return new ProcessBuilder(command).directory(directory.toFile())
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start()
+                    .waitFor();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
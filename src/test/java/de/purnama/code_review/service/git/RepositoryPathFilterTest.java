@@ -0,0 +1,116 @@
+package de.purnama.code_review.service.git;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import de.purnama.code_review.config.PathFilterConfig;
+
+class RepositoryPathFilterTest {
+
+    private final RepositoryPathFilter filter = new RepositoryPathFilter();
+
+    @Test
+    void isReviewablePath_acceptsSupportedSourceFiles() {
+        assertTrue(filter.isReviewablePath("src/main/java/App.java"));
+        assertTrue(filter.isReviewablePath("Service.PY"));
+        assertFalse(filter.isReviewablePath("README.md"));
+        assertFalse(filter.isReviewablePath("Makefile"));
+        assertFalse(filter.isReviewablePath(null));
+    }
+
+    @Test
+    void isReviewablePath_skipsFilesInIgnoredDirectories() {
+        assertFalse(filter.isReviewablePath("node_modules/lodash/index.js"));
+        assertFalse(filter.isReviewablePath("web/node_modules/lodash/index.js"));
+        assertFalse(filter.isReviewablePath(".github/workflows/build.yml"));
+        assertFalse(filter.isReviewablePath("Target/classes/App.java"));
+        assertTrue(filter.isReviewablePath("src/targets/App.java"));
+    }
+
+    @Test
+    void isReviewablePath_skipsGeneratedAndVendoredCode() {
+        assertFalse(filter.isReviewablePath("web/static/app.min.js"));
+        assertFalse(filter.isReviewablePath("package-lock.json"));
+        assertFalse(filter.isReviewablePath("src/main/generated/Model.java"));
+        assertFalse(filter.isReviewablePath("vendor/github.com/lib/pq/conn.go"));
+        assertTrue(filter.isGeneratedOrVendored("web/static/app.min.js"));
+        assertFalse(filter.isGeneratedOrVendored("web/static/app.js"));
+    }
+
+    @Test
+    void shouldIgnoreDirectory_matchesNamesAndPaths() {
+        assertTrue(filter.shouldIgnoreDirectory("node_modules"));
+        assertTrue(filter.shouldIgnoreDirectory(".idea"));
+        assertTrue(filter.shouldIgnoreDirectory("frontend/dist"));
+        assertFalse(filter.shouldIgnoreDirectory("src"));
+        assertFalse(filter.shouldIgnoreDirectory(null));
+    }
+
+    @Test
+    void withGitAttributes_appliesRepositoryMarkersWithPrecedence() {
+        RepositoryPathFilter repositoryFilter = filter.withGitAttributes("""
+                # generated clients
+                api/client/** linguist-generated=true
+                vendor/** -linguist-vendored
+                *.java text eol=lf
+                """);
+
+        assertFalse(repositoryFilter.isReviewablePath("api/client/Client.java"));
+        assertTrue(repositoryFilter.isReviewablePath("vendor/internal/tool.go"));
+        assertTrue(repositoryFilter.isReviewablePath("src/App.java"));
+        assertTrue(filter.isReviewablePath("api/client/Client.java"), "Base filter must stay unchanged");
+    }
+
+    @Test
+    void withGitAttributes_returnsSameFilterWhenNothingApplies() {
+        assertSame(filter, filter.withGitAttributes(null));
+        assertSame(filter, filter.withGitAttributes("*.java text"));
+    }
+
+    @Test
+    void constructor_usesConfiguredExtensionsAndExcludes() {
+        PathFilterConfig config = new PathFilterConfig();
+        config.setExtensions(List.of("kt", ".Java"));
+        List<String> excludes = new ArrayList<>(config.getExclude());
+        excludes.add("/legacy/");
+        excludes.add("**/*Test.java");
+        excludes.add("!**/ImportantTest.java");
+        config.setExclude(excludes);
+
+        RepositoryPathFilter configured = new RepositoryPathFilter(config);
+
+        assertTrue(configured.isReviewablePath("src/Main.kt"));
+        assertTrue(configured.isReviewablePath("src/Main.java"));
+        assertFalse(configured.isReviewablePath("src/main.py"));
+        assertFalse(configured.isReviewablePath("legacy/Old.java"));
+        assertTrue(configured.isReviewablePath("src/legacy/Current.java"));
+        assertFalse(configured.isReviewablePath("src/test/AppTest.java"));
+        assertTrue(configured.isReviewablePath("src/test/ImportantTest.java"));
+    }
+
+    @Test
+    void isReviewablePath_handlesLargeTreesQuickly() {
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            paths.add("module" + (i % 20) + "/src/main/java/pkg" + (i % 50) + "/File" + i + ".java");
+        }
+
+        long start = System.nanoTime();
+        int reviewable = 0;
+        for (String path : paths) {
+            if (filter.isReviewablePath(path)) {
+                reviewable++;
+            }
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(reviewable == paths.size());
+        assertTrue(elapsedMillis < 2_000, "Filtering 100k paths took " + elapsedMillis + " ms");
+    }
+}